@@ -0,0 +1,90 @@
+package com.github.cenkakin.mynewspaper.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.github.cenkakin.mynewspaper.dto.ArticleDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes lists of articles in each response format the api negotiates, with and without compression. The payload
+ * size of every combination is printed once before it is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArticleFormatBenchmark {
+
+  @Param({"json", "cbor"})
+  private String format;
+
+  @Param({"identity", "gzip", "deflate"})
+  private String encoding;
+
+  @Param({"1", "20"})
+  private int articles;
+
+  private ObjectWriter writer;
+
+  private List<ArticleDto> articleDtos;
+
+  @Setup
+  public void setUp() throws IOException {
+    Jackson2ObjectMapperBuilder builder = "cbor".equals(format)
+        ? Jackson2ObjectMapperBuilder.cbor()
+        : Jackson2ObjectMapperBuilder.json();
+    writer = builder.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build()
+        .writerFor(TypeFactory.defaultInstance().constructCollectionType(List.class, ArticleDto.class));
+    articleDtos = IntStream.range(0, articles)
+        .mapToObj(i -> new ArticleDto(String.format("5e2f1b2c3d4e5f6a7b8c%04d", i), "Corona Virus!",
+            "Is it a worldwide threat?", "We should be careful...".repeat(300), LocalDate.parse("2020-01-01"),
+            List.of("Cenk Akin", "Pulitzer"), List.of("Health"), 0L))
+        .collect(Collectors.toList());
+    System.out.printf("%n%s/%s, %d articles: %d bytes%n", format, encoding, articles, writeArticles().length);
+  }
+
+  @Benchmark
+  public byte[] writeArticles() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (OutputStream out = encode(bytes)) {
+      writer.writeValue(out, articleDtos);
+    }
+    return bytes.toByteArray();
+  }
+
+  private OutputStream encode(OutputStream out) throws IOException {
+    switch (encoding) {
+      case "gzip":
+        return new GZIPOutputStream(out);
+      case "deflate":
+        return new DeflaterOutputStream(out);
+      default:
+        return out;
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package com.github.cenkakin.mynewspaper.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.github.cenkakin.mynewspaper.dto.ArticleDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Serializes lists of articles with an object mapper configured like the one of the application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArticleJsonBenchmark {
+
+  @Param({"1", "20", "100"})
+  private int articles;
+
+  private ObjectWriter writer;
+
+  private List<ArticleDto> articleDtos;
+
+  @Setup
+  public void setUp() {
+    writer = Jackson2ObjectMapperBuilder.json().build()
+        .writerFor(TypeFactory.defaultInstance().constructCollectionType(List.class, ArticleDto.class));
+    articleDtos = IntStream.range(0, articles)
+        .mapToObj(i -> new ArticleDto(String.format("5e2f1b2c3d4e5f6a7b8c%04d", i), "Corona Virus!",
+            "Is it a worldwide threat?", "We should be careful...".repeat(300), LocalDate.parse("2020-01-01"),
+            List.of("Cenk Akin", "Pulitzer"), List.of("Health"), 0L))
+        .collect(Collectors.toList());
+  }
+
+  @Benchmark
+  public byte[] writeArticles() throws JsonProcessingException {
+    return writer.writeValueAsBytes(articleDtos);
+  }
+}
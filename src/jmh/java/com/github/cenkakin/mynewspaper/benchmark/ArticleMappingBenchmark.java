@@ -0,0 +1,79 @@
+package com.github.cenkakin.mynewspaper.benchmark;
+
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.dto.ArticleDto;
+import com.github.cenkakin.mynewspaper.request.CreateArticleRequest;
+import com.github.cenkakin.mynewspaper.request.UpdateArticleRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Maps requests to articles, which sorts and capitalizes authors and keywords, and articles to dtos through the
+ * builder.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArticleMappingBenchmark {
+
+  @Param({"1", "5", "20"})
+  private int tags;
+
+  private CreateArticleRequest createArticleRequest;
+
+  private UpdateArticleRequest updateArticleRequest;
+
+  private Article article;
+
+  @Setup
+  public void setUp() {
+    Set<String> authors = tags("author");
+    Set<String> keywords = tags("keyword");
+    createArticleRequest = new CreateArticleRequest("Corona Virus!", "Is it a worldwide threat?",
+        "We should be careful...".repeat(300), LocalDate.parse("2020-01-01"), authors, keywords);
+    updateArticleRequest = new UpdateArticleRequest("Corona Virus!", "Is it a worldwide threat?",
+        "We should be careful...".repeat(300), LocalDate.parse("2020-01-01"), authors, keywords, 1L);
+    article = Article.fromCreateArticleRequest(createArticleRequest);
+    article.setId("5e2f1b2c3d4e5f6a7b8c9d0e");
+    article.setVersion(0L);
+  }
+
+  @Benchmark
+  public Article fromCreateArticleRequest() {
+    return Article.fromCreateArticleRequest(createArticleRequest);
+  }
+
+  @Benchmark
+  public Article fromUpdateArticleRequest() {
+    return Article.fromUpdateArticleRequest(updateArticleRequest);
+  }
+
+  @Benchmark
+  public ArticleDto fromArticle() {
+    return ArticleDto.fromArticle(article);
+  }
+
+  private Set<String> tags(String prefix) {
+    return IntStream.range(0, tags)
+        .mapToObj(i -> prefix + " " + (tags - i))
+        .collect(Collectors.toSet());
+  }
+}
@@ -0,0 +1,120 @@
+package com.github.cenkakin.mynewspaper.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.cenkakin.mynewspaper.codec.RawArticleJsonTranscoder;
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.domain.ArticlePage;
+import com.github.cenkakin.mynewspaper.domain.ArticleSummary;
+import com.github.cenkakin.mynewspaper.domain.RawArticlePage;
+import com.github.cenkakin.mynewspaper.dto.ArticlePageDto;
+import com.github.cenkakin.mynewspaper.request.CreateArticleRequest;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Writes a json page of article summaries from the documents mongo returns, once by decoding and mapping them through
+ * {@link ArticleSummary} and the dtos and once by transcoding the raw bson straight to json. The gc profiler's
+ * {@code gc.alloc.rate.norm} divided by {@code articles} is the allocation per article.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArticleRawJsonBenchmark {
+
+  @Param({"1", "20"})
+  private int articles;
+
+  private final DocumentCodec documentCodec = new DocumentCodec();
+
+  private MappingMongoConverter converter;
+
+  private ObjectWriter writer;
+
+  private JsonFactory jsonFactory;
+
+  private List<RawBsonDocument> documents;
+
+  @Setup
+  public void setUp() {
+    MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+    MongoMappingContext mappingContext = new MongoMappingContext();
+    mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+    mappingContext.afterPropertiesSet();
+    converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+    converter.setCustomConversions(conversions);
+    converter.afterPropertiesSet();
+    writer = Jackson2ObjectMapperBuilder.json()
+        .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .build()
+        .writerFor(ArticlePageDto.class);
+    jsonFactory = new JsonFactory();
+    documents = IntStream.range(0, articles)
+        .mapToObj(this::generateDocument)
+        .collect(Collectors.toList());
+  }
+
+  @Benchmark
+  public byte[] mapThroughDtos() throws IOException {
+    List<ArticleSummary> summaries = documents.stream()
+        .map(document -> converter.read(ArticleSummary.class, document.decode(documentCodec)))
+        .collect(Collectors.toList());
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    writer.writeValue(bytes, ArticlePageDto.fromArticlePage(ArticlePage.of(summaries, articles)));
+    return bytes.toByteArray();
+  }
+
+  @Benchmark
+  public byte[] transcodeRawBson() throws IOException {
+    RawArticlePage page = RawArticlePage.of(documents, articles);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (JsonGenerator generator = jsonFactory.createGenerator(bytes)) {
+      RawArticleJsonTranscoder.writePage(page.getArticles(), page.getNext(), generator);
+    }
+    return bytes.toByteArray();
+  }
+
+  private RawBsonDocument generateDocument(int i) {
+    Article article = Article.fromCreateArticleRequest(new CreateArticleRequest("Corona Virus!",
+        "Is it a worldwide threat?", "We should be careful...", LocalDate.parse("2020-01-01").minusDays(i),
+        Set.of("Cenk Akin", "Pulitzer"), Set.of("Health")));
+    article.setId(String.format("5e2f1b2c3d4e5f6a7b8c%04d", i));
+    article.setVersion(0L);
+    Document document = new Document();
+    converter.write(article, document);
+    // the summary projection leaves out the text
+    document.remove("text");
+    return new RawBsonDocument(document, documentCodec);
+  }
+}
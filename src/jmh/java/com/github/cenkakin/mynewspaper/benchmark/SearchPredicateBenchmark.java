@@ -0,0 +1,56 @@
+package com.github.cenkakin.mynewspaper.benchmark;
+
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.domain.QArticle;
+import com.github.cenkakin.mynewspaper.request.SearchArticleRequest;
+import com.github.cenkakin.mynewspaper.util.OptionalBooleanExpressionBuilder;
+import com.querydsl.core.types.Predicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds search predicates the way the article service does, with none and with all of the optional fields.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchPredicateBenchmark {
+
+  private final SearchArticleRequest emptyRequest = new SearchArticleRequest(null, null, null, null, null);
+
+  private final SearchArticleRequest fullRequest = new SearchArticleRequest("Health", "Pulitzer",
+      LocalDate.parse("2019-01-01"), LocalDate.parse("2020-01-25"), null);
+
+  @Benchmark
+  public Predicate withoutFields() {
+    return createSearchQuery(emptyRequest);
+  }
+
+  @Benchmark
+  public Predicate withAllFields() {
+    return createSearchQuery(fullRequest);
+  }
+
+  private static Predicate createSearchQuery(SearchArticleRequest request) {
+    QArticle articleQuery = QArticle.article;
+    return new OptionalBooleanExpressionBuilder(articleQuery.deleted.isFalse())
+        .notNullAnd(a -> articleQuery.normalizedAuthors.any().eq(Article.normalize(a)), request.getAuthor())
+        .notNullAnd(k -> articleQuery.normalizedKeywords.any().eq(Article.normalize(k)), request.getKeyword())
+        .notNullAnd(fpd -> articleQuery.publishDate.after(fpd.minusDays(1)), request.getFromPublishDate())
+        .notNullAnd(tpd -> articleQuery.publishDate.before(tpd.plusDays(1)), request.getToPublishDate())
+        .build();
+  }
+}
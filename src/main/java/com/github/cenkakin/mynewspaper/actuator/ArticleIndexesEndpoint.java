@@ -0,0 +1,23 @@
+package com.github.cenkakin.mynewspaper.actuator;
+
+import com.github.cenkakin.mynewspaper.repository.ArticleIndexManager;
+import com.github.cenkakin.mynewspaper.repository.ArticleIndexReport;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import reactor.core.publisher.Mono;
+
+/**
+ * Created by cenkakin
+ */
+@Endpoint(id = "articleindexes")
+@AllArgsConstructor
+public class ArticleIndexesEndpoint {
+
+  private final ArticleIndexManager articleIndexManager;
+
+  @ReadOperation
+  public Mono<ArticleIndexReport> report() {
+    return articleIndexManager.report();
+  }
+}
@@ -0,0 +1,56 @@
+package com.github.cenkakin.mynewspaper.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.cenkakin.mynewspaper.domain.Article;
+import lombok.AllArgsConstructor;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of articles by id. Deleted articles are kept as tombstones until they are evicted, so a reader
+ * which loaded the article before the deletion can not put it back. Concurrent misses of the same article share one
+ * load.
+ */
+@AllArgsConstructor
+public class ArticleCache {
+
+  private final Cache<String, Article> cache;
+
+  private final SingleFlight<String, Article> loads = new SingleFlight<>();
+
+  public Mono<Article> get(String id, Function<String, Mono<Article>> loader) {
+    return Mono.defer(() -> Mono.justOrEmpty(cache.getIfPresent(id)))
+        .switchIfEmpty(loads.load(id, key -> loader.apply(key).doOnNext(this::put)));
+  }
+
+  public SingleFlight<String, Article> getLoads() {
+    return loads;
+  }
+
+  public Optional<Article> getIfPresent(String id) {
+    return Optional.ofNullable(cache.getIfPresent(id));
+  }
+
+  /**
+   * Keeps the given article only if it is newer than the cached one.
+   */
+  public void put(Article article) {
+    cache.asMap().merge(article.getId(), article, (cached, given) -> versionOf(given) > versionOf(cached) ? given : cached);
+  }
+
+  /**
+   * Deleted articles can not come back, so the tombstone outranks every version of the article.
+   */
+  public void putTombstone(String id) {
+    Article tombstone = new Article();
+    tombstone.setId(id);
+    tombstone.setVersion(Long.MAX_VALUE);
+    cache.put(id, tombstone.delete());
+  }
+
+  private static long versionOf(Article article) {
+    return Optional.ofNullable(article.getVersion()).orElse(-1L);
+  }
+}
@@ -0,0 +1,291 @@
+package com.github.cenkakin.mynewspaper.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheWriter;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.cenkakin.mynewspaper.domain.Article;
+import lombok.Value;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Cache of search result pages. Every write evicts only the pages it could change: the pages which contain the written
+ * article, and the pages of the searches the article matches after the write. Concurrent misses of the same page share
+ * one load.
+ * <p>
+ * Cached pages are indexed by the ids on them and by the normalized author or keyword they search, so a write only
+ * looks at the pages of its own id, authors and keywords, and at the pages which search neither. The indexes are kept
+ * by the cache writer, so they follow the pages evicted by size or age too.
+ * <p>
+ * A load which overlapped a write may have read the collection before the write, so every load in flight is told of
+ * the writes made meanwhile. Its page is cached only if none of them would have evicted it. The page is checked again
+ * after it is cached, so a write which came in between evicts it from the cache or from the load.
+ * <p>
+ * Every page is cached with the {@link ArticleWriteEpoch} it was loaded under, and a page of an older epoch than the
+ * one of the search is loaded again, so the writes of the other instances are seen as soon as they advance the epoch.
+ * Writes which do not go through the services are only seen when the pages expire.
+ */
+public class ArticleSearchCache {
+
+  private final Cache<ArticleSearchKey, Entry> cache;
+
+  private final ConcurrentMap<String, Set<ArticleSearchKey>> keysById = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<String, Set<ArticleSearchKey>> keysByAuthor = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<String, Set<ArticleSearchKey>> keysByKeyword = new ConcurrentHashMap<>();
+
+  private final Set<ArticleSearchKey> unfilteredKeys = ConcurrentHashMap.newKeySet();
+
+  private final Set<Load> inFlight = ConcurrentHashMap.newKeySet();
+
+  private final SingleFlight<Flight, Object> loads = new SingleFlight<>();
+
+  private final LongAdder invalidations = new LongAdder();
+
+  private final LongAdder rejectedLoads = new LongAdder();
+
+  public ArticleSearchCache(Caffeine<Object, Object> caffeine) {
+    this.cache = caffeine.writer(new KeyIndexer()).build();
+  }
+
+  /**
+   * @param epoch write epoch read before the search, the loader has to read the articles after it was read
+   * @param idsOf ids of the articles on a loaded page, a write of one of them evicts the page
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Mono<T> get(ArticleSearchKey key, long epoch, Function<T, ? extends Collection<String>> idsOf,
+                         Supplier<Mono<T>> loader) {
+    return Mono.defer(() -> {
+      Entry entry = cache.getIfPresent(key);
+      if (entry != null && entry.getEpoch() >= epoch) {
+        return Mono.just((T) entry.getPage());
+      }
+      return (Mono<T>) loads.load(new Flight(key, epoch), flight -> {
+        Load load = new Load(key);
+        inFlight.add(load);
+        return loader.get()
+            .doOnNext(page -> put(load, new Entry(page, Set.copyOf(idsOf.apply(page)), epoch)))
+            .doFinally(signal -> inFlight.remove(load))
+            .cast(Object.class);
+      });
+    });
+  }
+
+  public void written(Article article) {
+    written(List.of(article));
+  }
+
+  public void written(Collection<Article> articles) {
+    articles.forEach(article -> changed(new Write(article.getId(), article)));
+  }
+
+  public void deleted(String id) {
+    changed(new Write(id, null));
+  }
+
+  public void invalidateAll() {
+    inFlight.forEach(Load::invalidate);
+    cache.invalidateAll();
+  }
+
+  /**
+   * Loads in flight are told first, so a page which is cached after the write is evicted through the indexes.
+   */
+  private void changed(Write write) {
+    inFlight.forEach(load -> load.saw(write));
+    Set<ArticleSearchKey> candidates = new HashSet<>(keysById.getOrDefault(write.getId(), Set.of()));
+    if (write.getArticle() != null) {
+      Article.normalize(write.getArticle().getAuthors())
+          .forEach(author -> candidates.addAll(keysByAuthor.getOrDefault(author, Set.of())));
+      Article.normalize(write.getArticle().getKeywords())
+          .forEach(keyword -> candidates.addAll(keysByKeyword.getOrDefault(keyword, Set.of())));
+      candidates.addAll(unfilteredKeys);
+    }
+    candidates.forEach(key -> cache.asMap().computeIfPresent(key, (k, entry) -> {
+      if (write.evicts(k, entry.getIds())) {
+        invalidations.increment();
+        return null;
+      }
+      return entry;
+    }));
+  }
+
+  /**
+   * A page of an older epoch is replaced. A page of the same or a newer epoch which is already cached is kept, it was
+   * cached by a load which no write has evicted since.
+   */
+  private void put(Load load, Entry entry) {
+    if (load.isStale(entry.getIds())) {
+      rejectedLoads.increment();
+      return;
+    }
+    Entry cached = cache.asMap().get(load.getKey());
+    if (cached != null && cached.getEpoch() < entry.getEpoch()) {
+      // removed first, so the cache writer drops the ids of the older page from the indexes
+      cache.asMap().remove(load.getKey(), cached);
+    }
+    if (cache.asMap().putIfAbsent(load.getKey(), entry) == null && load.isStale(entry.getIds())
+        && cache.asMap().remove(load.getKey(), entry)) {
+      rejectedLoads.increment();
+    }
+  }
+
+  public Cache<ArticleSearchKey, Entry> getCache() {
+    return cache;
+  }
+
+  public SingleFlight<Flight, Object> getLoads() {
+    return loads;
+  }
+
+  /**
+   * Number of cached pages evicted by writes.
+   */
+  public long getInvalidations() {
+    return invalidations.sum();
+  }
+
+  /**
+   * Number of loaded pages which were not cached because a write made during the load could have changed them.
+   */
+  public long getRejectedLoads() {
+    return rejectedLoads.sum();
+  }
+
+  public double getHitRatio() {
+    return cache.stats().hitRate();
+  }
+
+  @Value
+  public static class Entry {
+
+    private final Object page;
+
+    private final Set<String> ids;
+
+    private final long epoch;
+  }
+
+  /**
+   * Only the searches of the same epoch share a load, a search of a newer epoch can not be answered by an older load.
+   */
+  @Value
+  public static class Flight {
+
+    private final ArticleSearchKey key;
+
+    private final long epoch;
+  }
+
+  /**
+   * A written article, or only the id of a deleted one.
+   */
+  @Value
+  private static class Write {
+
+    private final String id;
+
+    private final Article article;
+
+    boolean evicts(ArticleSearchKey key, Set<String> ids) {
+      return ids.contains(id) || article != null && key.matches(article);
+    }
+  }
+
+  /**
+   * Writes seen by a load in flight. The ids on the page are only known once it is loaded, so the ids of the writes
+   * which do not match the search are kept until then.
+   */
+  private static class Load {
+
+    private final ArticleSearchKey key;
+
+    private final Set<String> writtenIds = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean invalidated;
+
+    Load(ArticleSearchKey key) {
+      this.key = key;
+    }
+
+    ArticleSearchKey getKey() {
+      return key;
+    }
+
+    void saw(Write write) {
+      if (write.getArticle() != null && key.matches(write.getArticle())) {
+        invalidated = true;
+      } else {
+        writtenIds.add(write.getId());
+      }
+    }
+
+    void invalidate() {
+      invalidated = true;
+    }
+
+    boolean isStale(Set<String> ids) {
+      return invalidated || ids.stream().anyMatch(writtenIds::contains);
+    }
+  }
+
+  /**
+   * Keeps the indexes of the cached pages. It is called while the key is locked, so the indexes of a key are changed
+   * in the same order as its entry.
+   */
+  private class KeyIndexer implements CacheWriter<ArticleSearchKey, Entry> {
+
+    @Override
+    public void write(ArticleSearchKey key, Entry entry) {
+      entry.getIds().forEach(id -> add(keysById, id, key));
+      if (key.getAuthor() != null) {
+        add(keysByAuthor, key.getAuthor(), key);
+      } else if (key.getKeyword() != null) {
+        add(keysByKeyword, key.getKeyword(), key);
+      } else {
+        unfilteredKeys.add(key);
+      }
+    }
+
+    @Override
+    public void delete(ArticleSearchKey key, Entry entry, RemovalCause cause) {
+      if (entry == null) {
+        return;
+      }
+      entry.getIds().forEach(id -> remove(keysById, id, key));
+      if (key.getAuthor() != null) {
+        remove(keysByAuthor, key.getAuthor(), key);
+      } else if (key.getKeyword() != null) {
+        remove(keysByKeyword, key.getKeyword(), key);
+      } else {
+        unfilteredKeys.remove(key);
+      }
+    }
+
+    private void add(ConcurrentMap<String, Set<ArticleSearchKey>> index, String term, ArticleSearchKey key) {
+      index.compute(term, (t, keys) -> {
+        Set<ArticleSearchKey> indexed = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+        indexed.add(key);
+        return indexed;
+      });
+    }
+
+    private void remove(ConcurrentMap<String, Set<ArticleSearchKey>> index, String term, ArticleSearchKey key) {
+      index.computeIfPresent(term, (t, keys) -> {
+        keys.remove(key);
+        return keys.isEmpty() ? null : keys;
+      });
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package com.github.cenkakin.mynewspaper.cache;
+
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.request.PageArticleRequest;
+import com.github.cenkakin.mynewspaper.request.SearchArticleRequest;
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * A page of an author, keyword and publish date search in one of the representations it is read in. Authors and
+ * keywords are searched case insensitively, so they are kept normalized and differently cased searches share a key.
+ */
+@Value
+public class ArticleSearchKey {
+
+  private final String view;
+
+  private final String author;
+
+  private final String keyword;
+
+  private final LocalDate fromPublishDate;
+
+  private final LocalDate toPublishDate;
+
+  private final int limit;
+
+  private final String cursor;
+
+  /**
+   * Text searches are ranked by the text index and are not cached, the request must not have a query.
+   */
+  public static ArticleSearchKey of(String view, SearchArticleRequest request, PageArticleRequest pageRequest) {
+    if (request.getQ() != null) {
+      throw new IllegalArgumentException("Text searches are not cached");
+    }
+    return new ArticleSearchKey(view,
+        request.getAuthor() == null ? null : Article.normalize(request.getAuthor()),
+        request.getKeyword() == null ? null : Article.normalize(request.getKeyword()),
+        request.getFromPublishDate(),
+        request.getToPublishDate(),
+        pageRequest.getLimitOrDefault(),
+        pageRequest.getCursor());
+  }
+
+  /**
+   * Whether the search would find the given article on some page, in the same way mongo and the search index do.
+   */
+  public boolean matches(Article article) {
+    return !article.isDeleted()
+        && (author == null || Article.normalize(article.getAuthors()).contains(author))
+        && (keyword == null || Article.normalize(article.getKeywords()).contains(keyword))
+        && (fromPublishDate == null || !article.getPublishDate().isBefore(fromPublishDate))
+        && (toPublishDate == null || !article.getPublishDate().isAfter(toPublishDate));
+  }
+}
@@ -0,0 +1,46 @@
+package com.github.cenkakin.mynewspaper.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Counts the writes to the article collection made by every instance. The count is kept in a document of its own, so
+ * all instances see the same epoch. Anything computed from a list of articles is still valid while the epoch stays the
+ * same.
+ */
+@Slf4j
+@AllArgsConstructor
+public class ArticleWriteEpoch {
+
+  static final String COLLECTION = "article_write_epoch";
+
+  private static final String ID = "articles";
+
+  private static final String EPOCH = "epoch";
+
+  private final ReactiveMongoOperations mongoOperations;
+
+  public Mono<Long> get() {
+    return mongoOperations.findById(ID, Document.class, COLLECTION)
+        .map(epoch -> epoch.getLong(EPOCH))
+        .defaultIfEmpty(0L);
+  }
+
+  /**
+   * Called after a write is completed, so a reader which saw the previous epoch could not have missed the write. The
+   * write is not failed when the epoch can not be advanced, its readers only get not modified until the next write.
+   */
+  public Mono<Void> advance() {
+    return mongoOperations.upsert(query(where("_id").is(ID)), new Update().inc(EPOCH, 1L), COLLECTION)
+        .doOnError(e -> log.error("Advancing the article write epoch is failed", e))
+        .onErrorResume(e -> Mono.empty())
+        .then();
+  }
+}
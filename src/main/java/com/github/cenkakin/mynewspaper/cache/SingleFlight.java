@@ -0,0 +1,76 @@
+package com.github.cenkakin.mynewspaper.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Lets concurrent loads of the same key share one in-flight load. Every caller gets the value or the error of the
+ * shared load, and the load is cancelled only when all of its callers cancelled. A finished load is forgotten, so the
+ * next caller loads again.
+ * <p>
+ * Loads are looked up without locking, only starting a load locks the bin of its key in the map.
+ */
+public class SingleFlight<K, V> {
+
+  private final ConcurrentMap<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+  private final LongAdder loads = new LongAdder();
+
+  private final LongAdder coalescedLoads = new LongAdder();
+
+  public Mono<V> load(K key, Function<K, Mono<V>> loader) {
+    return Mono.defer(() -> {
+      Mono<V> flight = inFlight.get(key);
+      if (flight == null) {
+        Mono<V> newFlight = newFlight(key, loader);
+        flight = inFlight.putIfAbsent(key, newFlight);
+        if (flight == null) {
+          loads.increment();
+          return newFlight;
+        }
+      }
+      coalescedLoads.increment();
+      return flight;
+    });
+  }
+
+  private Mono<V> newFlight(K key, Function<K, Mono<V>> loader) {
+    AtomicReference<Mono<V>> self = new AtomicReference<>();
+    Mono<V> flight = Mono.defer(() -> loader.apply(key))
+        .doFinally(signal -> inFlight.remove(key, self.get()))
+        .flux()
+        .publish()
+        .refCount()
+        .next();
+    self.set(flight);
+    return flight;
+  }
+
+  /**
+   * Number of loads which were started, the coalesced ones are not counted.
+   */
+  public long getLoads() {
+    return loads.sum();
+  }
+
+  /**
+   * Number of loads which joined an in-flight load of their key instead of starting their own.
+   */
+  public long getCoalescedLoads() {
+    return coalescedLoads.sum();
+  }
+
+  /**
+   * Share of the calls which joined an in-flight load.
+   */
+  public double getCoalesceRatio() {
+    long coalesced = getCoalescedLoads();
+    long total = getLoads() + coalesced;
+    return total == 0 ? 0 : (double) coalesced / total;
+  }
+}
@@ -0,0 +1,101 @@
+package com.github.cenkakin.mynewspaper.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses article texts with deflate and an optional preset dictionary shared by all texts. A dictionary trained on
+ * earlier articles ({@link ArticleTextDictionaryTrainer}) lets even short texts refer to the phrases articles usually
+ * share. The first byte of every compressed text tells whether the rest is deflated or plain utf-8, texts which do not
+ * get smaller are kept plain.
+ * <p>
+ * Deflate streams carry the checksum of the dictionary they need, texts compressed with another dictionary fail to
+ * decompress. A dictionary has to be kept as long as texts compressed with it are stored.
+ */
+public class ArticleTextCompressor {
+
+  static final byte PLAIN = 0;
+
+  static final byte DEFLATED = 1;
+
+  private final byte[] dictionary;
+
+  private final int dictionaryId;
+
+  private final int level;
+
+  public ArticleTextCompressor(byte[] dictionary, int level) {
+    this.dictionary = dictionary == null || dictionary.length == 0 ? null : dictionary;
+    this.dictionaryId = this.dictionary == null ? 0 : checksum(this.dictionary);
+    this.level = level;
+  }
+
+  public byte[] compress(String text) {
+    byte[] plain = text.getBytes(StandardCharsets.UTF_8);
+    Deflater deflater = new Deflater(level);
+    try {
+      if (dictionary != null) {
+        deflater.setDictionary(dictionary);
+      }
+      deflater.setInput(plain);
+      deflater.finish();
+      ByteArrayOutputStream out = new ByteArrayOutputStream(plain.length / 2 + 16);
+      out.write(DEFLATED);
+      byte[] buffer = new byte[Math.min(plain.length + 64, 8192)];
+      while (!deflater.finished() && out.size() <= plain.length) {
+        out.write(buffer, 0, deflater.deflate(buffer));
+      }
+      if (deflater.finished() && out.size() <= plain.length) {
+        return out.toByteArray();
+      }
+    } finally {
+      deflater.end();
+    }
+    byte[] stored = new byte[plain.length + 1];
+    stored[0] = PLAIN;
+    System.arraycopy(plain, 0, stored, 1, plain.length);
+    return stored;
+  }
+
+  public String decompress(byte[] compressed) {
+    if (compressed[0] == PLAIN) {
+      return new String(compressed, 1, compressed.length - 1, StandardCharsets.UTF_8);
+    }
+    if (compressed[0] != DEFLATED) {
+      throw new IllegalStateException("Unknown article text format: " + compressed[0]);
+    }
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(compressed, 1, compressed.length - 1);
+      ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4);
+      byte[] buffer = new byte[8192];
+      while (!inflater.finished()) {
+        int length = inflater.inflate(buffer);
+        if (length == 0 && inflater.needsDictionary()) {
+          if (dictionary == null || inflater.getAdler() != dictionaryId) {
+            throw new IllegalStateException("Article text is compressed with an unknown dictionary: " + inflater.getAdler());
+          }
+          inflater.setDictionary(dictionary);
+        } else if (length == 0 && inflater.needsInput()) {
+          throw new IllegalStateException("Article text is truncated");
+        }
+        out.write(buffer, 0, length);
+      }
+      return out.toString(StandardCharsets.UTF_8);
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Article text is corrupt", e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private static int checksum(byte[] dictionary) {
+    Adler32 adler32 = new Adler32();
+    adler32.update(dictionary);
+    return (int) adler32.getValue();
+  }
+}
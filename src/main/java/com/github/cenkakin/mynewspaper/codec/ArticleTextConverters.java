@@ -0,0 +1,79 @@
+package com.github.cenkakin.mynewspaper.codec;
+
+import com.github.cenkakin.mynewspaper.domain.ArticleText;
+import org.bson.types.Binary;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+
+import java.util.List;
+
+/**
+ * Mongo converters of {@link ArticleText}. Compressed texts are stored as binaries of a user defined subtype, texts
+ * stored as strings before compression was enabled are still read, and are compressed when their article is written
+ * again. With compression disabled texts are written as strings, so compression can be switched off as long as the
+ * dictionary stays configured.
+ */
+public final class ArticleTextConverters {
+
+  static final byte BINARY_SUBTYPE = (byte) 0x80;
+
+  private ArticleTextConverters() {
+  }
+
+  public static List<Converter<?, ?>> of(ArticleTextCompressor compressor, boolean compress) {
+    return List.of(compress ? new CompressingWriter(compressor) : PlainWriter.INSTANCE,
+        new BinaryReader(compressor), StringReader.INSTANCE);
+  }
+
+  @WritingConverter
+  static class CompressingWriter implements Converter<ArticleText, Binary> {
+
+    private final ArticleTextCompressor compressor;
+
+    CompressingWriter(ArticleTextCompressor compressor) {
+      this.compressor = compressor;
+    }
+
+    @Override
+    public Binary convert(ArticleText text) {
+      byte[] compressed = text.isCompressed() ? text.getCompressed() : compressor.compress(text.decode());
+      return new Binary(BINARY_SUBTYPE, compressed);
+    }
+  }
+
+  @WritingConverter
+  enum PlainWriter implements Converter<ArticleText, String> {
+    INSTANCE;
+
+    @Override
+    public String convert(ArticleText text) {
+      return text.decode();
+    }
+  }
+
+  @ReadingConverter
+  static class BinaryReader implements Converter<Binary, ArticleText> {
+
+    private final ArticleTextCompressor compressor;
+
+    BinaryReader(ArticleTextCompressor compressor) {
+      this.compressor = compressor;
+    }
+
+    @Override
+    public ArticleText convert(Binary binary) {
+      return ArticleText.compressed(binary.getData(), compressor);
+    }
+  }
+
+  @ReadingConverter
+  enum StringReader implements Converter<String, ArticleText> {
+    INSTANCE;
+
+    @Override
+    public ArticleText convert(String text) {
+      return ArticleText.of(text);
+    }
+  }
+}
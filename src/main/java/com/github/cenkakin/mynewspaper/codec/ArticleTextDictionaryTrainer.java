@@ -0,0 +1,83 @@
+package com.github.cenkakin.mynewspaper.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Trains a deflate dictionary on sample article texts. Runs of up to {@link #MAX_WORDS} words which appear in several
+ * samples are scored by the number of samples they appear in times their length, and the best scoring ones fill the
+ * dictionary. Deflate reaches the end of the dictionary with the shortest distances, so the best scoring runs are put
+ * last.
+ */
+public final class ArticleTextDictionaryTrainer {
+
+  /**
+   * Deflate only looks back 32 KiB, a longer dictionary would not be used.
+   */
+  public static final int MAX_SIZE = 32 * 1024;
+
+  static final int MAX_WORDS = 4;
+
+  private ArticleTextDictionaryTrainer() {
+  }
+
+  public static byte[] train(Collection<String> samples, int size) {
+    if (size <= 0 || size > MAX_SIZE) {
+      throw new IllegalArgumentException("Dictionary size must be between 1 and " + MAX_SIZE + ": " + size);
+    }
+    Map<String, Integer> sampleCounts = new HashMap<>();
+    for (String sample : samples) {
+      runsOf(sample).forEach(run -> sampleCounts.merge(run, 1, Integer::sum));
+    }
+
+    List<Map.Entry<String, Integer>> candidates = sampleCounts.entrySet().stream()
+        .filter(e -> e.getValue() > 1)
+        .sorted(Comparator.comparingLong(ArticleTextDictionaryTrainer::score).reversed())
+        .collect(Collectors.toList());
+
+    LinkedList<String> runs = new LinkedList<>();
+    StringBuilder chosen = new StringBuilder();
+    int length = 0;
+    for (Map.Entry<String, Integer> candidate : candidates) {
+      String run = candidate.getKey();
+      int runLength = run.getBytes(StandardCharsets.UTF_8).length;
+      if (length + runLength > size) {
+        continue;
+      }
+      if (chosen.indexOf(run) < 0) {
+        runs.addFirst(run);
+        chosen.append(run);
+        length += runLength;
+      }
+    }
+    return String.join("", runs).getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static long score(Map.Entry<String, Integer> entry) {
+    return (long) entry.getValue() * entry.getKey().length();
+  }
+
+  /**
+   * Distinct runs of consecutive words in a text, each followed by a space.
+   */
+  private static Set<String> runsOf(String text) {
+    String[] words = text.trim().split("\\s+");
+    Set<String> runs = new HashSet<>();
+    for (int i = 0; i < words.length; i++) {
+      StringBuilder run = new StringBuilder();
+      for (int j = i; j < Math.min(i + MAX_WORDS, words.length); j++) {
+        run.append(words[j]).append(' ');
+        runs.add(run.toString());
+      }
+    }
+    return runs;
+  }
+}
@@ -0,0 +1,138 @@
+package com.github.cenkakin.mynewspaper.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.github.cenkakin.mynewspaper.domain.ArticleCursor;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.RawBsonDocument;
+import org.bson.io.ByteBufferBsonInput;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Writes article documents as read from mongo straight to json, in the same shape as
+ * {@link com.github.cenkakin.mynewspaper.dto.ArticleSummaryDto}. The bson is walked once and only the fields of a
+ * summary are written, renamed where the document and the json differ. Other fields like 'deleted' or 'createdAt' are
+ * skipped without being decoded.
+ */
+public final class RawArticleJsonTranscoder {
+
+  private RawArticleJsonTranscoder() {
+  }
+
+  public static void writePage(List<RawBsonDocument> articles, ArticleCursor next, JsonGenerator generator)
+      throws IOException {
+    generator.writeStartObject();
+    generator.writeArrayFieldStart("articles");
+    for (RawBsonDocument article : articles) {
+      writeSummary(article, generator);
+    }
+    generator.writeEndArray();
+    if (next == null) {
+      generator.writeNullField("next");
+    } else {
+      generator.writeStringField("next", next.encode());
+    }
+    generator.writeEndObject();
+  }
+
+  public static void writeSummary(RawBsonDocument article, JsonGenerator generator) throws IOException {
+    try (BsonReader reader = new BsonBinaryReader(new ByteBufferBsonInput(article.getByteBuffer()))) {
+      reader.readStartDocument();
+      generator.writeStartObject();
+      while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+        String name = reader.readName();
+        switch (name) {
+          case "_id":
+            generator.writeStringField("id", reader.readObjectId().toHexString());
+            break;
+          case "header":
+          case "shortDescription":
+            writeString(name, reader, generator);
+            break;
+          case "publishDate":
+            writePublishDate(reader, generator);
+            break;
+          case "authors":
+          case "keywords":
+            writeStrings(name, reader, generator);
+            break;
+          case "version":
+            writeNumber(reader, generator);
+            break;
+          default:
+            reader.skipValue();
+        }
+      }
+      reader.readEndDocument();
+      generator.writeEndObject();
+    }
+  }
+
+  public static String readId(RawBsonDocument article) {
+    return article.getObjectId("_id").getValue().toHexString();
+  }
+
+  public static LocalDate readPublishDate(RawBsonDocument article) {
+    return toLocalDate(article.getDateTime("publishDate").getValue());
+  }
+
+  private static void writeString(String name, BsonReader reader, JsonGenerator generator) throws IOException {
+    if (reader.getCurrentBsonType() == BsonType.NULL) {
+      reader.readNull();
+      generator.writeNullField(name);
+    } else {
+      generator.writeStringField(name, reader.readString());
+    }
+  }
+
+  private static void writePublishDate(BsonReader reader, JsonGenerator generator) throws IOException {
+    if (reader.getCurrentBsonType() == BsonType.NULL) {
+      reader.readNull();
+      generator.writeNullField("publishDate");
+    } else {
+      generator.writeStringField("publishDate", toLocalDate(reader.readDateTime()).toString());
+    }
+  }
+
+  private static void writeStrings(String name, BsonReader reader, JsonGenerator generator) throws IOException {
+    if (reader.getCurrentBsonType() == BsonType.NULL) {
+      reader.readNull();
+      generator.writeNullField(name);
+      return;
+    }
+    generator.writeArrayFieldStart(name);
+    reader.readStartArray();
+    while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+      generator.writeString(reader.readString());
+    }
+    reader.readEndArray();
+    generator.writeEndArray();
+  }
+
+  private static void writeNumber(BsonReader reader, JsonGenerator generator) throws IOException {
+    switch (reader.getCurrentBsonType()) {
+      case INT32:
+        generator.writeNumberField("version", reader.readInt32());
+        break;
+      case INT64:
+        generator.writeNumberField("version", reader.readInt64());
+        break;
+      default:
+        reader.skipValue();
+        generator.writeNullField("version");
+    }
+  }
+
+  /**
+   * Spring data writes a local date as the start of that day in the default time zone, it is read back the same way.
+   */
+  private static LocalDate toLocalDate(long epochMillis) {
+    return Instant.ofEpochMilli(epochMillis).atZone(ZoneId.systemDefault()).toLocalDate();
+  }
+}
@@ -0,0 +1,60 @@
+package com.github.cenkakin.mynewspaper.codec;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.github.cenkakin.mynewspaper.domain.RawArticlePage;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractSingleValueEncoder;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Writes a page of raw article documents as json directly into a single data buffer.
+ */
+public class RawArticlePageJsonEncoder extends AbstractSingleValueEncoder<RawArticlePage> {
+
+  private final JsonFactory jsonFactory;
+
+  public RawArticlePageJsonEncoder(JsonFactory jsonFactory) {
+    super(MediaType.APPLICATION_JSON);
+    this.jsonFactory = jsonFactory;
+  }
+
+  @Override
+  public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+    return RawArticlePage.class.isAssignableFrom(elementType.toClass()) && super.canEncode(elementType, mimeType);
+  }
+
+  @Override
+  protected Flux<DataBuffer> encode(RawArticlePage page, DataBufferFactory bufferFactory, ResolvableType type,
+                                    MimeType mimeType, Map<String, Object> hints) {
+    return Flux.defer(() -> Flux.just(encodeValue(page, bufferFactory, type, mimeType, hints)));
+  }
+
+  @Override
+  public DataBuffer encodeValue(RawArticlePage page, DataBufferFactory bufferFactory, ResolvableType valueType,
+                                MimeType mimeType, Map<String, Object> hints) {
+    DataBuffer buffer = bufferFactory.allocateBuffer();
+    try {
+      try (JsonGenerator generator = jsonFactory.createGenerator(buffer.asOutputStream(), JsonEncoding.UTF8)) {
+        RawArticleJsonTranscoder.writePage(page.getArticles(), page.getNext(), generator);
+      }
+      return buffer;
+    } catch (IOException e) {
+      DataBufferUtils.release(buffer);
+      throw new EncodingException("Could not write articles as json", e);
+    } catch (RuntimeException e) {
+      DataBufferUtils.release(buffer);
+      throw e;
+    }
+  }
+}
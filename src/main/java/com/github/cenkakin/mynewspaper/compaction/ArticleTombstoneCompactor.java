@@ -0,0 +1,154 @@
+package com.github.cenkakin.mynewspaper.compaction;
+
+import com.github.cenkakin.mynewspaper.partition.ArticlePartitions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Replaces the soft deleted articles, which were deleted longer than the retention ago, with a small record of their
+ * id, version and deletion date in the deleted articles collection. Runs periodically over every partition in batches,
+ * and pauses after each batch so that it does not remove more than the given rate of articles per second.
+ * <p>
+ * A deleted article is never modified again, so its last modification date is its deletion date. Reads of a compacted
+ * article find nothing, like the ones of a soft deleted article, so they are still answered with not found.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ArticleTombstoneCompactor implements ApplicationRunner, DisposableBean {
+
+  public static final String COLLECTION = "deleted_articles";
+
+  public static final String DELETED_AT = "deletedAt";
+
+  private final ReactiveMongoOperations mongoOperations;
+
+  private final ArticlePartitions articlePartitions;
+
+  private final Duration retention;
+
+  private final Duration interval;
+
+  private final int batchSize;
+
+  private final int maxArticlesPerSecond;
+
+  private final AtomicLong compactedArticles = new AtomicLong();
+
+  private volatile Instant lastCompactedBefore;
+
+  private Disposable compactions;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    compactions = mongoOperations.execute(COLLECTION, collection -> collection.createIndex(Indexes.ascending(DELETED_AT)))
+        .thenMany(Flux.interval(interval, interval, Schedulers.boundedElastic()))
+        .onBackpressureDrop()
+        .concatMap(tick -> compact()
+            .onErrorResume(e -> {
+              log.error("Compacting deleted articles is failed", e);
+              return Mono.empty();
+            }), 1)
+        .subscribe();
+  }
+
+  @Override
+  public void destroy() {
+    if (compactions != null) {
+      compactions.dispose();
+    }
+  }
+
+  /**
+   * @return number of the compacted articles
+   */
+  public Mono<Long> compact() {
+    Instant deletedBefore = Instant.now().minus(retention);
+    return Flux.fromIterable(articlePartitions.getPartitions())
+        .concatMap(partition -> compactBefore(partition, deletedBefore))
+        .reduce(0L, Long::sum)
+        .doOnNext(compacted -> {
+          lastCompactedBefore = deletedBefore;
+          log.info("{} articles deleted before {} are compacted", compacted, deletedBefore);
+        });
+  }
+
+  public long getCompactedArticles() {
+    return compactedArticles.get();
+  }
+
+  /**
+   * @return deletion date before which every deleted article was compacted by the last run, null before the first run
+   */
+  public Instant getLastCompactedBefore() {
+    return lastCompactedBefore;
+  }
+
+  private Mono<Long> compactBefore(String partition, Instant deletedBefore) {
+    return compactBatch(partition, deletedBefore)
+        .expand(compacted -> compacted < batchSize ? Mono.empty()
+            : Mono.delay(pauseAfter(compacted)).then(compactBatch(partition, deletedBefore)))
+        .reduce(0L, Long::sum);
+  }
+
+  /**
+   * The record is written before the article is removed, so a failed batch is compacted again by the next run.
+   */
+  private Mono<Long> compactBatch(String partition, Instant deletedBefore) {
+    return mongoOperations.execute(partition, collection -> collection
+        .find(Filters.and(Filters.eq("deleted", true), Filters.lt("lastModifiedAt", Date.from(deletedBefore))))
+        .projection(Projections.include("version", "lastModifiedAt"))
+        .batchSize(batchSize)
+        .limit(batchSize))
+        .collectList()
+        .filter(tombstones -> !tombstones.isEmpty())
+        .flatMap(tombstones -> record(tombstones)
+            .then(remove(partition, tombstones))
+            .doOnNext(compactedArticles::addAndGet))
+        .defaultIfEmpty(0L);
+  }
+
+  private Mono<Void> record(List<Document> tombstones) {
+    List<ReplaceOneModel<Document>> records = tombstones.stream()
+        .map(tombstone -> new ReplaceOneModel<>(Filters.eq("_id", tombstone.get("_id")),
+            new Document("_id", tombstone.get("_id"))
+                .append("version", tombstone.get("version"))
+                .append(DELETED_AT, tombstone.get("lastModifiedAt")),
+            new ReplaceOptions().upsert(true)))
+        .collect(Collectors.toList());
+    return mongoOperations.execute(COLLECTION, collection -> collection.bulkWrite(records)).then();
+  }
+
+  private Mono<Long> remove(String partition, List<Document> tombstones) {
+    List<Object> ids = tombstones.stream().map(tombstone -> tombstone.get("_id")).collect(Collectors.toList());
+    return mongoOperations.execute(partition, collection -> collection
+        .deleteMany(Filters.and(Filters.in("_id", ids), Filters.eq("deleted", true))))
+        .next()
+        .flatMap(result -> articlePartitions.forget(ids.stream().map(String::valueOf).collect(Collectors.toList()))
+            .thenReturn(result.getDeletedCount()));
+  }
+
+  private Duration pauseAfter(long compacted) {
+    return Duration.ofMillis(compacted * 1000 / maxArticlesPerSecond);
+  }
+}
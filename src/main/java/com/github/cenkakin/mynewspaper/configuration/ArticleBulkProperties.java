@@ -0,0 +1,23 @@
+package com.github.cenkakin.mynewspaper.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Created by cenkakin
+ */
+@Data
+@ConfigurationProperties(prefix = "my-newspaper.article-bulk")
+public class ArticleBulkProperties {
+
+  private int batchSize = 500;
+
+  /**
+   * A batch which is not full is written once its first article waited this long.
+   */
+  private Duration maxDelay = Duration.ofMillis(200);
+
+  private int parallelism = 4;
+}
@@ -0,0 +1,18 @@
+package com.github.cenkakin.mynewspaper.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Created by cenkakin
+ */
+@Data
+@ConfigurationProperties(prefix = "my-newspaper.article-cache")
+public class ArticleCacheProperties {
+
+  private long maximumSize = 10_000;
+
+  private Duration timeToLive = Duration.ofMinutes(5);
+}
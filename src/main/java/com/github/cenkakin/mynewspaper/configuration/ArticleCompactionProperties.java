@@ -0,0 +1,27 @@
+package com.github.cenkakin.mynewspaper.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Created by cenkakin
+ */
+@Data
+@ConfigurationProperties(prefix = "my-newspaper.article-compaction")
+public class ArticleCompactionProperties {
+
+  private boolean enabled = false;
+
+  /**
+   * Deleted articles are kept as they are for this period after their deletion.
+   */
+  private Duration retention = Duration.ofDays(30);
+
+  private Duration interval = Duration.ofHours(1);
+
+  private int batchSize = 500;
+
+  private int maxArticlesPerSecond = 1000;
+}
@@ -0,0 +1,19 @@
+package com.github.cenkakin.mynewspaper.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Created by cenkakin
+ */
+@Data
+@ConfigurationProperties(prefix = "my-newspaper.article-indexes")
+public class ArticleIndexProperties {
+
+  private boolean createMissing = true;
+
+  /**
+   * Fails the startup when a declared index is missing.
+   */
+  private boolean strict = false;
+}
@@ -0,0 +1,27 @@
+package com.github.cenkakin.mynewspaper.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Created by cenkakin
+ */
+@Data
+@ConfigurationProperties(prefix = "my-newspaper.metrics")
+public class ArticleMetricsProperties {
+
+  /**
+   * Times every article service method by its outcome.
+   */
+  private boolean service = true;
+
+  /**
+   * Measures the article streams and bulk inserts with reactor operator metrics.
+   */
+  private boolean reactor = true;
+
+  /**
+   * Records latency and document counts of mongo commands. Read when the mongo client is created.
+   */
+  private boolean mongoCommands = true;
+}
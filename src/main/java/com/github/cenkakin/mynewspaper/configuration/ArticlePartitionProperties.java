@@ -0,0 +1,28 @@
+package com.github.cenkakin.mynewspaper.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Created by cenkakin
+ */
+@Data
+@ConfigurationProperties(prefix = "my-newspaper.article-partitions")
+public class ArticlePartitionProperties {
+
+  /**
+   * Only moves articles to the archive partitions, already archived articles are always read from there.
+   */
+  private boolean enabled = false;
+
+  /**
+   * Articles published within this period stay in the hot partition, in whole days.
+   */
+  private Duration hotPeriod = Duration.ofDays(90);
+
+  private Duration moveInterval = Duration.ofHours(1);
+
+  private int moveBatchSize = 500;
+}
@@ -0,0 +1,21 @@
+package com.github.cenkakin.mynewspaper.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Created by cenkakin
+ */
+@Data
+@ConfigurationProperties(prefix = "my-newspaper.article-search-cache")
+public class ArticleSearchCacheProperties {
+
+  private long maximumSize = 1_000;
+
+  /**
+   * Bounds how long writes of other instances, which do not evict pages here, can go unseen.
+   */
+  private Duration timeToLive = Duration.ofSeconds(30);
+}
@@ -0,0 +1,21 @@
+package com.github.cenkakin.mynewspaper.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Created by cenkakin
+ */
+@Data
+@ConfigurationProperties(prefix = "my-newspaper.article-search-index")
+public class ArticleSearchIndexProperties {
+
+  private boolean enabled = true;
+
+  /**
+   * Articles written by other instances are found by searches of this one at most this late.
+   */
+  private Duration catchUpInterval = Duration.ofSeconds(10);
+}
@@ -0,0 +1,18 @@
+package com.github.cenkakin.mynewspaper.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Created by cenkakin
+ */
+@Data
+@ConfigurationProperties(prefix = "my-newspaper.article-stream")
+public class ArticleStreamProperties {
+
+  /**
+   * Number of articles fetched from the mongo cursor at a time while streaming. It bounds how many articles are held
+   * in memory for a client which reads slowly.
+   */
+  private int cursorBatchSize = 100;
+}
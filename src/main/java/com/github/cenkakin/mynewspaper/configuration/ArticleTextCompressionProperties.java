@@ -0,0 +1,25 @@
+package com.github.cenkakin.mynewspaper.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.Resource;
+
+import java.util.zip.Deflater;
+
+/**
+ * Created by cenkakin
+ */
+@Data
+@ConfigurationProperties(prefix = "my-newspaper.article-text-compression")
+public class ArticleTextCompressionProperties {
+
+  private boolean enabled = false;
+
+  /**
+   * Trained by {@code ArticleTextCompressionTool}. Has to stay configured as long as texts compressed with it are
+   * stored, even when compression is disabled.
+   */
+  private Resource dictionary;
+
+  private int level = Deflater.DEFAULT_COMPRESSION;
+}
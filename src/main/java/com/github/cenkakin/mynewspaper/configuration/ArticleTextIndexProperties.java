@@ -0,0 +1,26 @@
+package com.github.cenkakin.mynewspaper.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Created by cenkakin
+ */
+@Data
+@ConfigurationProperties(prefix = "my-newspaper.article-text-index")
+public class ArticleTextIndexProperties {
+
+  private boolean enabled = true;
+
+  private Path directory = Path.of("data", "article-text-index");
+
+  /**
+   * How often the articles modified by the other instances are read into the index.
+   */
+  private Duration catchUpInterval = Duration.ofSeconds(10);
+
+  private Duration flushInterval = Duration.ofMinutes(1);
+}
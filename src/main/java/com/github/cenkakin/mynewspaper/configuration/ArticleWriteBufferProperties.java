@@ -0,0 +1,25 @@
+package com.github.cenkakin.mynewspaper.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Created by cenkakin
+ */
+@Data
+@ConfigurationProperties(prefix = "my-newspaper.article-write-buffer")
+public class ArticleWriteBufferProperties {
+
+  private boolean enabled = false;
+
+  /**
+   * Created articles beyond this many waiting ones are inserted on their own.
+   */
+  private int capacity = 10000;
+
+  private int batchSize = 100;
+
+  private Duration maxDelay = Duration.ofMillis(5);
+}
@@ -0,0 +1,47 @@
+package com.github.cenkakin.mynewspaper.configuration;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.github.cenkakin.mynewspaper.codec.RawArticlePageJsonEncoder;
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.accept.RequestedContentTypeResolverBuilder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * Adds {@code application/cbor} next to json for clients which ask for it. CBOR is written with the same jackson
+ * settings as json, so dates and missing values look the same in both. It is only used for single values, streaming
+ * endpoints still produce ndjson and server-sent events. Json pages of raw article documents have an encoder of their
+ * own.
+ */
+@Configuration
+@AllArgsConstructor
+public class ContentNegotiationConfiguration implements WebFluxConfigurer {
+
+  private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+  /**
+   * Custom codecs are asked before the default ones, so without a preference a request which accepts anything would
+   * get cbor instead of json.
+   */
+  @Override
+  public void configureContentTypeResolver(RequestedContentTypeResolverBuilder builder) {
+    builder.headerResolver();
+    builder.fixedResolver(MediaType.APPLICATION_JSON, MediaType.ALL);
+  }
+
+  @Override
+  public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+    ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+    objectMapperBuilder.configure(cborMapper);
+    configurer.customCodecs().registerWithDefaultConfig(new Jackson2CborEncoder(cborMapper, MediaType.APPLICATION_CBOR));
+    configurer.customCodecs().registerWithDefaultConfig(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR));
+    configurer.customCodecs().register(new RawArticlePageJsonEncoder(new JsonFactory()));
+  }
+}
@@ -1,11 +1,22 @@
 package com.github.cenkakin.mynewspaper.configuration;
 
+import com.github.cenkakin.mynewspaper.codec.ArticleTextCompressor;
+import com.github.cenkakin.mynewspaper.codec.ArticleTextConverters;
+import com.github.cenkakin.mynewspaper.metrics.MongoCommandMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
 import org.springframework.data.mongodb.core.mapping.event.ValidatingMongoEventListener;
 
 import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
 
 /**
  * Created by cenkakin
@@ -18,4 +29,48 @@ public class MongoConfiguration {
   public ValidatingMongoEventListener validatingMongoEventListener(Validator validator) {
     return new ValidatingMongoEventListener(validator);
   }
+
+  @Bean
+  public ArticleTextCompressor articleTextCompressor(ArticleTextCompressionProperties properties) throws IOException {
+    if (properties.getDictionary() == null) {
+      return new ArticleTextCompressor(null, properties.getLevel());
+    }
+    try (InputStream dictionary = properties.getDictionary().getInputStream()) {
+      return new ArticleTextCompressor(dictionary.readAllBytes(), properties.getLevel());
+    }
+  }
+
+  /**
+   * Compressed article texts are always read, they are only written compressed while compression is enabled.
+   */
+  @Bean
+  public MongoCustomConversions mongoCustomConversions(ArticleTextCompressor articleTextCompressor,
+                                                       ArticleTextCompressionProperties properties) {
+    return new MongoCustomConversions(ArticleTextConverters.of(articleTextCompressor, properties.isEnabled()));
+  }
+
+  /**
+   * Mongo client settings are read once, so the command metrics can only be switched on or off with a restart.
+   */
+  @Bean
+  @ConditionalOnProperty(name = "my-newspaper.metrics.mongo-commands", matchIfMissing = true)
+  public MongoClientSettingsBuilderCustomizer mongoCommandMetrics(MeterRegistry meterRegistry) {
+    return builder -> builder.addCommandListener(new MongoCommandMetrics(meterRegistry));
+  }
+
+  /**
+   * Indexes are created and verified by {@link com.github.cenkakin.mynewspaper.repository.ArticleIndexManager} only.
+   */
+  @Bean
+  public static BeanPostProcessor disableAutoIndexCreation() {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof MongoMappingContext) {
+          ((MongoMappingContext) bean).setAutoIndexCreation(false);
+        }
+        return bean;
+      }
+    };
+  }
 }
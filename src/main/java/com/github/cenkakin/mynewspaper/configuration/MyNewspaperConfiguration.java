@@ -1,18 +1,235 @@
 package com.github.cenkakin.mynewspaper.configuration;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.cenkakin.mynewspaper.actuator.ArticleIndexesEndpoint;
+import com.github.cenkakin.mynewspaper.cache.ArticleCache;
+import com.github.cenkakin.mynewspaper.cache.ArticleSearchCache;
+import com.github.cenkakin.mynewspaper.cache.ArticleWriteEpoch;
+import com.github.cenkakin.mynewspaper.cache.SingleFlight;
+import com.github.cenkakin.mynewspaper.compaction.ArticleTombstoneCompactor;
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.index.ArticleSearchIndex;
+import com.github.cenkakin.mynewspaper.index.ArticleSearchIndexLoader;
+import com.github.cenkakin.mynewspaper.index.ArticleTextIndex;
+import com.github.cenkakin.mynewspaper.index.ArticleTextIndexLoader;
+import com.github.cenkakin.mynewspaper.index.ArticleTextIndexStore;
+import com.github.cenkakin.mynewspaper.metrics.ArticleMetrics;
+import com.github.cenkakin.mynewspaper.migration.NormalizedFieldsBackfill;
+import com.github.cenkakin.mynewspaper.partition.ArticlePartitionLookup;
+import com.github.cenkakin.mynewspaper.partition.ArticlePartitionMover;
+import com.github.cenkakin.mynewspaper.partition.ArticlePartitions;
+import com.github.cenkakin.mynewspaper.repository.ArticleIndexManager;
 import com.github.cenkakin.mynewspaper.repository.ArticleRepository;
+import com.github.cenkakin.mynewspaper.service.ArticleBulkService;
 import com.github.cenkakin.mynewspaper.service.ArticleService;
+import com.github.cenkakin.mynewspaper.write.ArticleWriteBuffer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+
+import javax.validation.Validator;
 
 /**
  * Created by cenkakin
  */
 @Configuration
+@EnableConfigurationProperties({ArticleCacheProperties.class, ArticleIndexProperties.class,
+    ArticleSearchIndexProperties.class, ArticleTextIndexProperties.class, ArticleBulkProperties.class,
+    ArticleStreamProperties.class, ArticleMetricsProperties.class, ArticleTextCompressionProperties.class, ArticleSearchCacheProperties.class,
+    ArticlePartitionProperties.class, ArticleCompactionProperties.class, ArticleWriteBufferProperties.class})
 public class MyNewspaperConfiguration {
 
   @Bean
-  public ArticleService articleService(ArticleRepository articleRepository) {
-    return new ArticleService(articleRepository);
+  public ArticleCache articleCache(ArticleCacheProperties properties, MeterRegistry meterRegistry) {
+    Cache<String, Article> cache = Caffeine.newBuilder()
+        .maximumSize(properties.getMaximumSize())
+        .expireAfterWrite(properties.getTimeToLive())
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "article");
+    ArticleCache articleCache = new ArticleCache(cache);
+    SingleFlight<String, Article> loads = articleCache.getLoads();
+    FunctionCounter.builder("article.cache.loads", loads, SingleFlight::getLoads)
+        .description("Article loads started by cache misses")
+        .register(meterRegistry);
+    FunctionCounter.builder("article.cache.loads.coalesced", loads, SingleFlight::getCoalescedLoads)
+        .description("Article loads which shared the in-flight load of the same article")
+        .register(meterRegistry);
+    Gauge.builder("article.cache.loads.coalesce.ratio", loads, SingleFlight::getCoalesceRatio)
+        .register(meterRegistry);
+    return articleCache;
+  }
+
+  @Bean
+  public ArticleSearchCache articleSearchCache(ArticleSearchCacheProperties properties, MeterRegistry meterRegistry) {
+    ArticleSearchCache articleSearchCache = new ArticleSearchCache(Caffeine.newBuilder()
+        .maximumSize(properties.getMaximumSize())
+        .expireAfterWrite(properties.getTimeToLive())
+        .recordStats());
+    CaffeineCacheMetrics.monitor(meterRegistry, articleSearchCache.getCache(), "article.search");
+    Gauge.builder("article.search.cache.hit.ratio", articleSearchCache, ArticleSearchCache::getHitRatio)
+        .register(meterRegistry);
+    FunctionCounter.builder("article.search.cache.invalidations", articleSearchCache,
+        ArticleSearchCache::getInvalidations)
+        .description("Cached search pages evicted by article writes")
+        .register(meterRegistry);
+    FunctionCounter.builder("article.search.cache.loads.rejected", articleSearchCache,
+        ArticleSearchCache::getRejectedLoads)
+        .description("Loaded search pages which were not cached because of a write made during the load")
+        .register(meterRegistry);
+    FunctionCounter.builder("article.search.cache.loads.coalesced", articleSearchCache.getLoads(),
+        SingleFlight::getCoalescedLoads)
+        .description("Search page loads which shared the in-flight load of the same page")
+        .register(meterRegistry);
+    return articleSearchCache;
+  }
+
+  @Bean
+  public ArticleMetrics articleMetrics(MeterRegistry meterRegistry, ArticleMetricsProperties properties) {
+    return new ArticleMetrics(meterRegistry, properties.isService(), properties.isReactor());
+  }
+
+  @Bean
+  public ArticleWriteEpoch articleWriteEpoch(ReactiveMongoOperations mongoOperations) {
+    return new ArticleWriteEpoch(mongoOperations);
+  }
+
+  @Bean
+  public ArticleSearchIndex articleSearchIndex() {
+    return new ArticleSearchIndex();
+  }
+
+  /**
+   * Without the loader the search index never becomes ready and every search is served by mongo.
+   */
+  @Bean
+  @ConditionalOnProperty(name = "my-newspaper.article-search-index.enabled", matchIfMissing = true)
+  public ArticleSearchIndexLoader articleSearchIndexLoader(ReactiveMongoOperations mongoOperations,
+                                                           ArticlePartitions articlePartitions,
+                                                           ArticleSearchIndex articleSearchIndex,
+                                                           ArticleSearchIndexProperties properties) {
+    return new ArticleSearchIndexLoader(mongoOperations, articlePartitions, articleSearchIndex,
+        properties.getCatchUpInterval());
+  }
+
+  @Bean
+  public ArticleTextIndex articleTextIndex() {
+    return new ArticleTextIndex();
+  }
+
+  /**
+   * Without the loader the text index never becomes ready and text searches are not available.
+   */
+  @Bean
+  @ConditionalOnProperty(name = "my-newspaper.article-text-index.enabled", matchIfMissing = true)
+  public ArticleTextIndexLoader articleTextIndexLoader(ReactiveMongoOperations mongoOperations,
+                                                       ArticlePartitions articlePartitions,
+                                                       ArticleTextIndex articleTextIndex,
+                                                       ArticleTextIndexProperties properties) {
+    return new ArticleTextIndexLoader(mongoOperations, articlePartitions, articleTextIndex,
+        new ArticleTextIndexStore(properties.getDirectory()), properties.getCatchUpInterval(),
+        properties.getFlushInterval());
+  }
+
+  @Bean
+  public ArticleWriteBuffer articleWriteBuffer(ArticleRepository articleRepository, ArticleWriteBufferProperties properties,
+                                               MeterRegistry meterRegistry) {
+    ArticleWriteBuffer articleWriteBuffer = new ArticleWriteBuffer(articleRepository, meterRegistry,
+        properties.isEnabled(), properties.getCapacity(), properties.getBatchSize(), properties.getMaxDelay());
+    Gauge.builder("article.write.buffer.depth", articleWriteBuffer, ArticleWriteBuffer::getQueueDepth)
+        .description("Created articles waiting to be written")
+        .register(meterRegistry);
+    return articleWriteBuffer;
+  }
+
+  @Bean
+  public ArticleService articleService(ArticleRepository articleRepository, ArticleWriteBuffer articleWriteBuffer,
+                                       ArticleCache articleCache, ArticleSearchCache articleSearchCache,
+                                       ArticleWriteEpoch articleWriteEpoch, ArticleSearchIndex articleSearchIndex,
+                                       ArticleTextIndex articleTextIndex, ArticleMetrics articleMetrics,
+                                       ArticleStreamProperties streamProperties) {
+    return new ArticleService(articleRepository, articleWriteBuffer, articleCache, articleSearchCache,
+        articleWriteEpoch, articleSearchIndex, articleTextIndex, articleMetrics, streamProperties.getCursorBatchSize());
+  }
+
+  @Bean
+  public ArticleBulkService articleBulkService(ArticleRepository articleRepository, ArticleSearchIndex articleSearchIndex,
+                                               ArticleTextIndex articleTextIndex, ArticleSearchCache articleSearchCache,
+                                               ArticleWriteEpoch articleWriteEpoch, ArticleMetrics articleMetrics,
+                                               ObjectMapper objectMapper, Validator validator,
+                                               ArticleBulkProperties properties) {
+    return new ArticleBulkService(articleRepository, articleSearchIndex, articleTextIndex, articleSearchCache,
+        articleWriteEpoch, articleMetrics, objectMapper, validator,
+        properties.getBatchSize(), properties.getMaxDelay(), properties.getParallelism());
+  }
+
+  @Bean
+  public NormalizedFieldsBackfill normalizedFieldsBackfill(ReactiveMongoOperations mongoOperations,
+                                                           ArticlePartitions articlePartitions) {
+    return new NormalizedFieldsBackfill(mongoOperations, articlePartitions);
+  }
+
+  /**
+   * The partitions are read before the repository routes any query to them.
+   */
+  @Bean
+  public ArticlePartitions articlePartitions(ReactiveMongoOperations mongoOperations) {
+    ArticlePartitions articlePartitions =
+        new ArticlePartitions(mongoOperations, new ArticlePartitionLookup(mongoOperations));
+    articlePartitions.refresh().block();
+    return articlePartitions;
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "my-newspaper.article-partitions.enabled")
+  public ArticlePartitionMover articlePartitionMover(ReactiveMongoOperations mongoOperations,
+                                                     ArticlePartitions articlePartitions,
+                                                     ArticlePartitionProperties properties,
+                                                     MeterRegistry meterRegistry) {
+    ArticlePartitionMover articlePartitionMover = new ArticlePartitionMover(mongoOperations, articlePartitions,
+        properties.getHotPeriod(), properties.getMoveInterval(), properties.getMoveBatchSize());
+    FunctionCounter.builder("article.partition.moved", articlePartitionMover, ArticlePartitionMover::getMovedArticles)
+        .description("Articles moved from the hot partition to the archive partitions")
+        .register(meterRegistry);
+    return articlePartitionMover;
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "my-newspaper.article-compaction.enabled")
+  public ArticleTombstoneCompactor articleTombstoneCompactor(ReactiveMongoOperations mongoOperations,
+                                                             ArticlePartitions articlePartitions,
+                                                             ArticleCompactionProperties properties,
+                                                             MeterRegistry meterRegistry) {
+    ArticleTombstoneCompactor articleTombstoneCompactor = new ArticleTombstoneCompactor(mongoOperations,
+        articlePartitions, properties.getRetention(), properties.getInterval(), properties.getBatchSize(),
+        properties.getMaxArticlesPerSecond());
+    FunctionCounter.builder("article.tombstones.compacted", articleTombstoneCompactor,
+        ArticleTombstoneCompactor::getCompactedArticles)
+        .description("Deleted articles removed from their partitions by the compactor")
+        .register(meterRegistry);
+    Gauge.builder("article.tombstones.compacted.before", articleTombstoneCompactor,
+        compactor -> compactor.getLastCompactedBefore() == null ? Double.NaN
+            : compactor.getLastCompactedBefore().getEpochSecond())
+        .description("Deletion date in epoch seconds before which the last run compacted every deleted article")
+        .register(meterRegistry);
+    return articleTombstoneCompactor;
+  }
+
+  @Bean
+  public ArticleIndexManager articleIndexManager(ReactiveMongoOperations mongoOperations, ArticleIndexProperties properties) {
+    return new ArticleIndexManager(mongoOperations, properties);
+  }
+
+  @Bean
+  public ArticleIndexesEndpoint articleIndexesEndpoint(ArticleIndexManager articleIndexManager) {
+    return new ArticleIndexesEndpoint(articleIndexManager);
   }
 }
@@ -0,0 +1,43 @@
+package com.github.cenkakin.mynewspaper.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+
+import java.util.List;
+
+/**
+ * Reads and writes newline delimited json, one value per line, with the jackson codecs. Spring only knows
+ * {@code application/stream+json} for it yet.
+ */
+@Configuration
+public class NdjsonCodecConfiguration {
+
+  public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+  public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(APPLICATION_NDJSON_VALUE);
+
+  private static final MediaType APPLICATION_ANY_JSON = new MediaType("application", "*+json");
+
+  /**
+   * Runs after the customizer of spring boot, which registers the jackson codecs for json only.
+   */
+  @Bean
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  public CodecCustomizer ndjsonCodecCustomizer(ObjectMapper objectMapper) {
+    return configurer -> {
+      Jackson2JsonEncoder encoder =
+          new Jackson2JsonEncoder(objectMapper, MediaType.APPLICATION_JSON, APPLICATION_ANY_JSON, APPLICATION_NDJSON);
+      encoder.setStreamingMediaTypes(List.of(MediaType.APPLICATION_STREAM_JSON, APPLICATION_NDJSON));
+      configurer.defaultCodecs().jackson2JsonEncoder(encoder);
+      configurer.defaultCodecs().jackson2JsonDecoder(
+          new Jackson2JsonDecoder(objectMapper, MediaType.APPLICATION_JSON, APPLICATION_ANY_JSON, APPLICATION_NDJSON));
+    };
+  }
+}
@@ -1,18 +1,40 @@
 package com.github.cenkakin.mynewspaper.controller;
 
+import com.github.cenkakin.mynewspaper.cache.ArticleWriteEpoch;
+import com.github.cenkakin.mynewspaper.domain.ArticleCursor;
+import com.github.cenkakin.mynewspaper.domain.ArticleFields;
+import com.github.cenkakin.mynewspaper.domain.ArticleSummary;
+import com.github.cenkakin.mynewspaper.domain.RawArticlePage;
 import com.github.cenkakin.mynewspaper.dto.ArticleDto;
+import com.github.cenkakin.mynewspaper.dto.ArticlePageDto;
+import com.github.cenkakin.mynewspaper.dto.BatchGetArticlesDto;
+import com.github.cenkakin.mynewspaper.dto.ArticleSummaryDto;
+import com.github.cenkakin.mynewspaper.dto.BulkCreateResultDto;
+import com.github.cenkakin.mynewspaper.dto.PartialArticleDto;
+import com.github.cenkakin.mynewspaper.dto.PartialArticlePageDto;
 import com.github.cenkakin.mynewspaper.exception.ArticleNotFoundException;
 import com.github.cenkakin.mynewspaper.exception.BadRequestException;
+import com.github.cenkakin.mynewspaper.exception.InvalidCursorException;
+import com.github.cenkakin.mynewspaper.exception.InvalidFieldsException;
 import com.github.cenkakin.mynewspaper.exception.OutdatedUpdateArticleException;
+import com.github.cenkakin.mynewspaper.exception.TextSearchUnavailableException;
+import com.github.cenkakin.mynewspaper.request.BatchGetArticleRequest;
 import com.github.cenkakin.mynewspaper.request.CreateArticleRequest;
+import com.github.cenkakin.mynewspaper.request.PageArticleRequest;
 import com.github.cenkakin.mynewspaper.request.SearchArticleRequest;
 import com.github.cenkakin.mynewspaper.request.UpdateArticleRequest;
+import com.github.cenkakin.mynewspaper.service.ArticleBulkService;
 import com.github.cenkakin.mynewspaper.service.ArticleService;
 import io.swagger.annotations.ApiOperation;
 import lombok.AllArgsConstructor;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
 import org.springframework.core.convert.ConversionException;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,13 +43,24 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.reactive.HandlerMapping;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static com.github.cenkakin.mynewspaper.configuration.NdjsonCodecConfiguration.APPLICATION_NDJSON;
+import static com.github.cenkakin.mynewspaper.configuration.NdjsonCodecConfiguration.APPLICATION_NDJSON_VALUE;
 
 /**
  * Created by cenkakin
@@ -37,28 +70,154 @@ import java.net.URI;
 @AllArgsConstructor
 public class ArticleController {
 
+  // the lines are parsed one by one, so a malformed line fails on its own instead of the whole stream
+  private static final StringDecoder LINE_DECODER = StringDecoder.allMimeTypes();
+
+  private static final ResolvableType STRING_TYPE = ResolvableType.forClass(String.class);
+
   private final ArticleService articleService;
 
+  private final ArticleBulkService articleBulkService;
+
+  private final ArticleWriteEpoch articleWriteEpoch;
+
   @GetMapping("articles/{id}")
-  public Mono<ResponseEntity<ArticleDto>> getArticle(@PathVariable String id) {
-    return articleService.getArticle(id)
-        .map(ArticleDto::fromArticle)
-        .map(aDto -> ResponseEntity.ok().body(aDto))
+  @ApiOperation(value = "Get an article. Its ETag changes with its version, pass it as 'If-None-Match' to get " +
+      "'304 Not Modified' instead of the article while it is not updated.")
+  public Mono<ResponseEntity<ArticleDto>> getArticle(@PathVariable String id, ServerWebExchange exchange) {
+    return checkNotModified(id, exchange)
+        .switchIfEmpty(Mono.defer(() -> articleService.getArticle(id)
+            .map(ArticleDto::fromArticle)
+            .map(aDto -> ResponseEntity.ok().eTag(articleETag(aDto.getId(), aDto.getVersion())).body(aDto))))
         .onErrorMap(ArticleNotFoundException.class, e -> new ResponseStatusException(HttpStatus.NOT_FOUND))
         .onErrorMap(OutdatedUpdateArticleException.class, e -> new BadRequestException(e.getMessage()));
   }
 
+  @GetMapping(value = "articles/{id}", params = "fields")
+  @ApiOperation(value = "Get only the comma separated 'fields' of an article, e.g. 'header,publishDate'. Fields which " +
+      "are not requested are not read from the database.")
+  public Mono<PartialArticleDto> getPartialArticle(@PathVariable String id, @RequestParam String fields) {
+    return Mono.fromCallable(() -> ArticleFields.parse(fields))
+        .flatMap(articleFields -> articleService.getPartialArticle(id, articleFields))
+        .map(PartialArticleDto::fromPartialArticle)
+        .onErrorMap(InvalidFieldsException.class, e -> new BadRequestException(e.getMessage()))
+        .onErrorMap(ArticleNotFoundException.class, e -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+  }
+
+  @GetMapping("articles:batchGet")
+  @ApiOperation(value = "Get up to " + BatchGetArticleRequest.MAX_IDS + " articles by their comma separated 'ids', " +
+      "in the given order. An article which does not exist is returned with 'found' false. Pass 'summary' true to " +
+      "get the articles without their text.")
+  public Mono<BatchGetArticlesDto<?>> batchGetArticles(@Valid BatchGetArticleRequest batchGetArticleRequest) {
+    return batchGet(batchGetArticleRequest);
+  }
+
+  @PostMapping("articles:batchGet")
+  @ApiOperation(value = "Same as GET articles:batchGet with the request in the body, for ids which do not fit in a url.")
+  public Mono<BatchGetArticlesDto<?>> batchGetArticlesByBody(
+      @Valid @RequestBody BatchGetArticleRequest batchGetArticleRequest) {
+    return batchGet(batchGetArticleRequest);
+  }
+
   @GetMapping("/articles")
-  public Flux<ArticleDto> getArticles() {
-    return articleService.getArticles()
-        .map(ArticleDto::fromArticle);
+  @ApiOperation(value = "List articles, newest first. Pass the returned 'next' value as 'cursor' to get the following page.")
+  public Mono<ResponseEntity<ArticlePageDto>> getArticles(@Valid PageArticleRequest pageArticleRequest,
+                                                          ServerWebExchange exchange) {
+    return page(exchange, () -> articleService.getArticles(pageArticleRequest)
+        .map(ArticlePageDto::fromArticlePage));
+  }
+
+  @GetMapping(value = "/articles", produces = MediaType.APPLICATION_JSON_VALUE)
+  @ApiOperation(value = "List articles, newest first. Pass the returned 'next' value as 'cursor' to get the following page.")
+  public Mono<ResponseEntity<RawArticlePage>> getArticlesAsJson(@Valid PageArticleRequest pageArticleRequest,
+                                                                ServerWebExchange exchange) {
+    return page(exchange, () -> articleService.getRawArticles(pageArticleRequest));
+  }
+
+  @GetMapping(value = "/articles", params = "fields",
+      produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+  @ApiOperation(value = "List only the comma separated 'fields' of articles, newest first.")
+  public Mono<ResponseEntity<PartialArticlePageDto>> getPartialArticles(@RequestParam String fields,
+                                                                        @Valid PageArticleRequest pageArticleRequest,
+                                                                        ServerWebExchange exchange) {
+    return page(exchange, () -> Mono.fromCallable(() -> ArticleFields.parse(fields))
+        .flatMap(articleFields -> articleService.getPartialArticles(articleFields, pageArticleRequest))
+        .map(PartialArticlePageDto::fromPartialArticlePage));
+  }
+
+  @GetMapping(value = "/articles", produces = APPLICATION_NDJSON_VALUE)
+  @ApiOperation(value = "Stream articles as newline delimited json, newest first. Without 'limit' every article from " +
+      "the 'cursor' on is streamed.")
+  public Flux<ArticleSummaryDto> streamArticles(@Valid PageArticleRequest pageArticleRequest) {
+    return articleService.streamArticles(pageArticleRequest)
+        .map(ArticleSummaryDto::fromArticleSummary)
+        .onErrorMap(InvalidCursorException.class, e -> new BadRequestException(e.getMessage()));
+  }
+
+  @GetMapping(value = "/articles", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @ApiOperation(value = "Stream articles as server-sent events, newest first. The id of an event can be passed as " +
+      "'cursor' to continue after it.")
+  public Flux<ServerSentEvent<ArticleSummaryDto>> streamArticleEvents(@Valid PageArticleRequest pageArticleRequest) {
+    return articleService.streamArticles(pageArticleRequest)
+        .map(ArticleController::toEvent)
+        .onErrorMap(InvalidCursorException.class, e -> new BadRequestException(e.getMessage()));
   }
 
   @GetMapping("articles:search")
-  @ApiOperation(value = "Search articles. All of the params are optional! 'fromPublishDate' and 'toPublishDate' are inclusive.")
-  public Flux<ArticleDto> searchArticles(@Valid SearchArticleRequest searchArticleRequest) {
-    return articleService.searchArticles(searchArticleRequest)
-        .map(ArticleDto::fromArticle);
+  @ApiOperation(value = "Search articles. All of the params are optional! 'fromPublishDate' and 'toPublishDate' are inclusive. " +
+      "Pass the returned 'next' value as 'cursor' to get the following page. " +
+      "'q' searches header, short description and text, and returns the 'limit' most relevant articles without a cursor.")
+  public Mono<ResponseEntity<ArticlePageDto>> searchArticles(@Valid SearchArticleRequest searchArticleRequest,
+                                                             @Valid PageArticleRequest pageArticleRequest,
+                                                             ServerWebExchange exchange) {
+    return page(exchange, () -> articleService.searchArticles(searchArticleRequest, pageArticleRequest)
+        .map(ArticlePageDto::fromArticlePage));
+  }
+
+  @GetMapping(value = "articles:search", produces = MediaType.APPLICATION_JSON_VALUE)
+  @ApiOperation(value = "Search articles. All of the params are optional! 'fromPublishDate' and 'toPublishDate' are inclusive. " +
+      "Pass the returned 'next' value as 'cursor' to get the following page. " +
+      "'q' searches header, short description and text, and returns the 'limit' most relevant articles without a cursor.")
+  public Mono<ResponseEntity<RawArticlePage>> searchArticlesAsJson(@Valid SearchArticleRequest searchArticleRequest,
+                                                                   @Valid PageArticleRequest pageArticleRequest,
+                                                                   ServerWebExchange exchange) {
+    return page(exchange, () -> articleService.searchRawArticles(searchArticleRequest, pageArticleRequest));
+  }
+
+  @GetMapping(value = "articles:search", params = "fields",
+      produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+  @ApiOperation(value = "Search articles and return only their comma separated 'fields'.")
+  public Mono<ResponseEntity<PartialArticlePageDto>> searchPartialArticles(
+      @RequestParam String fields, @Valid SearchArticleRequest searchArticleRequest,
+      @Valid PageArticleRequest pageArticleRequest, ServerWebExchange exchange) {
+    return page(exchange, () -> Mono.fromCallable(() -> ArticleFields.parse(fields))
+        .flatMap(articleFields ->
+            articleService.searchPartialArticles(searchArticleRequest, articleFields, pageArticleRequest))
+        .map(PartialArticlePageDto::fromPartialArticlePage));
+  }
+
+  @GetMapping(value = "articles:search", produces = APPLICATION_NDJSON_VALUE)
+  @ApiOperation(value = "Stream search results as newline delimited json. Without 'limit' every matching article " +
+      "from the 'cursor' on is streamed, except for 'q' which streams the 'limit' most relevant articles.")
+  public Flux<ArticleSummaryDto> streamSearchArticles(@Valid SearchArticleRequest searchArticleRequest,
+                                                      @Valid PageArticleRequest pageArticleRequest) {
+    return articleService.streamSearchArticles(searchArticleRequest, pageArticleRequest)
+        .map(ArticleSummaryDto::fromArticleSummary)
+        .onErrorMap(InvalidCursorException.class, e -> new BadRequestException(e.getMessage()))
+        .onErrorMap(TextSearchUnavailableException.class,
+            e -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage()));
+  }
+
+  @GetMapping(value = "articles:search", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @ApiOperation(value = "Stream search results as server-sent events. The id of an event can be passed as 'cursor' " +
+      "to continue after it, except for 'q' searches.")
+  public Flux<ServerSentEvent<ArticleSummaryDto>> streamSearchArticleEvents(
+      @Valid SearchArticleRequest searchArticleRequest, @Valid PageArticleRequest pageArticleRequest) {
+    return articleService.streamSearchArticles(searchArticleRequest, pageArticleRequest)
+        .map(ArticleController::toEvent)
+        .onErrorMap(InvalidCursorException.class, e -> new BadRequestException(e.getMessage()))
+        .onErrorMap(TextSearchUnavailableException.class,
+            e -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage()));
   }
 
   @PostMapping("articles")
@@ -68,6 +227,14 @@ public class ArticleController {
         .map(aDto -> ResponseEntity.created(URI.create("/api/articles/" + aDto.getId())).body(aDto));
   }
 
+  @PostMapping(value = "articles:bulk", consumes = APPLICATION_NDJSON_VALUE, produces = APPLICATION_NDJSON_VALUE)
+  @ApiOperation(value = "Create articles from newline delimited json, one article per line. Streams back a line per " +
+      "article with its 'index' in the request and either its 'id' or the 'error' which stopped it from being created.")
+  public Flux<BulkCreateResultDto> createArticles(@RequestBody Flux<DataBuffer> body) {
+    return articleBulkService.createArticles(LINE_DECODER.decode(body, STRING_TYPE, APPLICATION_NDJSON, Map.of()))
+        .map(BulkCreateResultDto::fromBulkCreateResult);
+  }
+
   @PutMapping("articles/{id}")
   @ApiOperation(value = "Update an article. Don't forget to increment a version number of the article which you want to update!")
   public Mono<ResponseEntity<ArticleDto>> updateArticle(@PathVariable String id,
@@ -87,6 +254,72 @@ public class ArticleController {
         .onErrorMap(OutdatedUpdateArticleException.class, e -> new BadRequestException(e.getMessage()));
   }
 
+  private Mono<BatchGetArticlesDto<?>> batchGet(BatchGetArticleRequest request) {
+    if (request.isSummaryRequested()) {
+      return articleService.batchGetArticleSummaries(request.getIds())
+          .map(results -> BatchGetArticlesDto.fromBatchGetResults(results, ArticleSummaryDto::fromArticleSummary));
+    }
+    return articleService.batchGetArticles(request.getIds())
+        .map(results -> BatchGetArticlesDto.fromBatchGetResults(results, ArticleDto::fromArticle));
+  }
+
+  /**
+   * Answers a matching If-None-Match from the version of the article alone, so its content is not read.
+   */
+  private Mono<ResponseEntity<ArticleDto>> checkNotModified(String id, ServerWebExchange exchange) {
+    if (exchange.getRequest().getHeaders().getIfNoneMatch().isEmpty()) {
+      return Mono.empty();
+    }
+    return articleService.getArticleVersion(id)
+        .map(version -> articleETag(id, version))
+        .filter(exchange::checkNotModified)
+        .map(eTag -> ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build());
+  }
+
+  private static String articleETag(String id, Long version) {
+    return "\"" + id + "-" + version + "\"";
+  }
+
+  /**
+   * Pages are tagged with the write epoch read before they are fetched, so a page never gets the tag of a write it may
+   * have missed. The tag is weak, it only tells that no article is written since, not that the page is byte for byte
+   * the same. The media type the page is written in is part of the tag, so representations are not mistaken for each
+   * other. Every page handler maps the errors of its request the same way.
+   */
+  private <T> Mono<ResponseEntity<T>> page(ServerWebExchange exchange, Supplier<Mono<T>> page) {
+    return articleWriteEpoch.get()
+        .map(epoch -> "W/\"" + epoch + "-" + negotiatedMediaType(exchange) + "\"")
+        .flatMap(eTag -> exchange.checkNotModified(eTag)
+            ? Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).<T>build())
+            : page.get().map(body -> ResponseEntity.ok().eTag(eTag).body(body)))
+        .onErrorMap(InvalidFieldsException.class, e -> new BadRequestException(e.getMessage()))
+        .onErrorMap(InvalidCursorException.class, e -> new BadRequestException(e.getMessage()))
+        .onErrorMap(TextSearchUnavailableException.class,
+            e -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage()));
+  }
+
+  /**
+   * The most preferred of the accepted media types which the handler can produce. Json is written when anything is
+   * accepted.
+   */
+  private static String negotiatedMediaType(ServerWebExchange exchange) {
+    List<MediaType> accepted = new ArrayList<>(exchange.getRequest().getHeaders().getAccept());
+    MediaType.sortBySpecificityAndQuality(accepted);
+    Set<MediaType> producible = exchange.getAttributeOrDefault(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE, Set.of());
+    return accepted.stream()
+        .map(mediaType -> mediaType.isConcrete() ? mediaType : MediaType.APPLICATION_JSON)
+        .filter(mediaType -> producible.isEmpty() || producible.stream().anyMatch(mediaType::isCompatibleWith))
+        .findFirst()
+        .map(mediaType -> mediaType.getType() + "/" + mediaType.getSubtype())
+        .orElse(MediaType.APPLICATION_JSON_VALUE);
+  }
+
+  private static ServerSentEvent<ArticleSummaryDto> toEvent(ArticleSummary articleSummary) {
+    return ServerSentEvent.builder(ArticleSummaryDto.fromArticleSummary(articleSummary))
+        .id(ArticleCursor.of(articleSummary).encode())
+        .build();
+  }
+
   @ExceptionHandler
   public ResponseEntity<String> handle(ConversionException ex) {
     return ResponseEntity.badRequest().body(ex.getCause().getMessage());
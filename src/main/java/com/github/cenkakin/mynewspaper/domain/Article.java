@@ -9,6 +9,9 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.util.StringUtils;
 
@@ -19,6 +22,7 @@ import javax.validation.constraints.Size;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
@@ -31,6 +35,13 @@ import java.util.stream.Collectors;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document
+@CompoundIndexes({
+    @CompoundIndex(name = "deleted_publishDate_id", def = "{'deleted': 1, 'publishDate': -1, '_id': -1}"),
+    @CompoundIndex(name = "deleted_normalizedAuthors_publishDate_id",
+        def = "{'deleted': 1, 'normalizedAuthors': 1, 'publishDate': -1, '_id': -1}"),
+    @CompoundIndex(name = "deleted_normalizedKeywords_publishDate_id",
+        def = "{'deleted': 1, 'normalizedKeywords': 1, 'publishDate': -1, '_id': -1}")
+})
 public class Article {
 
   @Id
@@ -45,8 +56,9 @@ public class Article {
   @NotBlank
   private String shortDescription;
 
-  @NotBlank
-  private String text;
+  // blankness is validated on the request, validating it here would decompress the text of every write
+  @NotNull
+  private ArticleText text;
 
   @NotNull
   private LocalDate publishDate;
@@ -56,10 +68,22 @@ public class Article {
 
   private List<String> keywords;
 
+  /**
+   * Lower case copies of authors and keywords. Searching them by equality can use an index, unlike a case insensitive
+   * regex on the original values.
+   */
+  private List<String> normalizedAuthors;
+
+  private List<String> normalizedKeywords;
+
   @CreatedDate
   private Instant createdAt;
 
+  /**
+   * Indexed for the loaders of the in-memory indexes, which catch up with the articles modified since they last read.
+   */
   @LastModifiedDate
+  @Indexed
   private Instant lastModifiedAt;
 
   @Version
@@ -69,9 +93,11 @@ public class Article {
     this.header = header;
     this.publishDate = publishDate;
     this.shortDescription = shortDescription;
-    this.text = text;
+    this.text = ArticleText.of(text);
     this.authors = authors;
     this.keywords = keywords;
+    this.normalizedAuthors = normalize(authors);
+    this.normalizedKeywords = normalize(keywords);
     this.deleted = false;
   }
 
@@ -80,32 +106,48 @@ public class Article {
           .map(s -> s.stream().map(StringUtils::capitalize).sorted().collect(Collectors.toList()))
           .orElse(List.of());
 
-  public Article update(UpdateArticleRequest request) {
-    this.header = request.getHeader();
-    this.publishDate = request.getPublishDate();
-    this.text = request.getText();
-    this.shortDescription = request.getShortDescription();
-    final List<String> sortedAndCapitalizedAuthors = SORT_AND_CAPITALIZE_FIRST_LETTER.apply(request.getAuthors());
-    final List<String> sortedAndCapitalizedKeywords = SORT_AND_CAPITALIZE_FIRST_LETTER.apply(request.getKeywords());
-    this.authors = sortedAndCapitalizedAuthors;
-    this.keywords = sortedAndCapitalizedKeywords;
-    return this;
-  }
-
   public Article delete() {
     this.deleted = true;
     return this;
   }
 
+  public boolean isDeleted() {
+    return Boolean.TRUE.equals(deleted);
+  }
+
   public static Article fromCreateArticleRequest(CreateArticleRequest request) {
-    final List<String> sortedAndCapitalizedAuthors = SORT_AND_CAPITALIZE_FIRST_LETTER.apply(request.getAuthors());
-    final List<String> sortedAndCapitalizedKeywords = SORT_AND_CAPITALIZE_FIRST_LETTER.apply(request.getKeywords());
+    return fromContent(request.getHeader(), request.getPublishDate(), request.getShortDescription(), request.getText(),
+        request.getAuthors(), request.getKeywords());
+  }
+
+  /**
+   * Creates a transient article which only holds the new content of an existing article.
+   */
+  public static Article fromUpdateArticleRequest(UpdateArticleRequest request) {
+    return fromContent(request.getHeader(), request.getPublishDate(), request.getShortDescription(), request.getText(),
+        request.getAuthors(), request.getKeywords());
+  }
+
+  private static Article fromContent(String header, LocalDate publishDate, String shortDescription, String text,
+                                     Set<String> authors, Set<String> keywords) {
+    final List<String> sortedAndCapitalizedAuthors = SORT_AND_CAPITALIZE_FIRST_LETTER.apply(authors);
+    final List<String> sortedAndCapitalizedKeywords = SORT_AND_CAPITALIZE_FIRST_LETTER.apply(keywords);
     return new Article(
-        request.getHeader(),
-        request.getPublishDate(),
-        request.getShortDescription(),
-        request.getText(),
+        header,
+        publishDate,
+        shortDescription,
+        text,
         sortedAndCapitalizedAuthors,
         sortedAndCapitalizedKeywords);
   }
+
+  public static String normalize(String value) {
+    return value.toLowerCase(Locale.ROOT);
+  }
+
+  public static List<String> normalize(List<String> values) {
+    return Optional.ofNullable(values)
+        .map(v -> v.stream().map(Article::normalize).collect(Collectors.toList()))
+        .orElse(List.of());
+  }
 }
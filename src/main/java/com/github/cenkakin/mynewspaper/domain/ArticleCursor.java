@@ -0,0 +1,44 @@
+package com.github.cenkakin.mynewspaper.domain;
+
+import com.github.cenkakin.mynewspaper.exception.InvalidCursorException;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of an article in the (publishDate desc, id desc) order. It is handed to clients as an opaque string.
+ */
+@Value
+public class ArticleCursor {
+
+  private static final String SEPARATOR = ":";
+
+  private final LocalDate publishDate;
+
+  private final String id;
+
+  public static ArticleCursor of(ArticleSummary article) {
+    return new ArticleCursor(article.getPublishDate(), article.getId());
+  }
+
+  public String encode() {
+    String raw = publishDate + SEPARATOR + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static ArticleCursor decode(String cursor) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int separatorIndex = raw.indexOf(SEPARATOR);
+      if (separatorIndex < 0 || separatorIndex == raw.length() - 1) {
+        throw new InvalidCursorException(cursor);
+      }
+      return new ArticleCursor(LocalDate.parse(raw.substring(0, separatorIndex)), raw.substring(separatorIndex + 1));
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      throw new InvalidCursorException(cursor);
+    }
+  }
+}
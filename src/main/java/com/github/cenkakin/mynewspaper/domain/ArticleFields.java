@@ -0,0 +1,54 @@
+package com.github.cenkakin.mynewspaper.domain;
+
+import com.github.cenkakin.mynewspaper.exception.InvalidFieldsException;
+import lombok.Value;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Fields of an article which a client asked for, in the order they are asked. Only the fields of the article
+ * representation can be asked for, internal fields like the normalized authors are not visible.
+ */
+@Value
+public class ArticleFields {
+
+  private static final Map<String, Function<Article, Object>> ACCESSORS = new LinkedHashMap<>();
+
+  static {
+    ACCESSORS.put("id", Article::getId);
+    ACCESSORS.put("header", Article::getHeader);
+    ACCESSORS.put("shortDescription", Article::getShortDescription);
+    ACCESSORS.put("text", Article::getText);
+    ACCESSORS.put("publishDate", Article::getPublishDate);
+    ACCESSORS.put("authors", Article::getAuthors);
+    ACCESSORS.put("keywords", Article::getKeywords);
+    ACCESSORS.put("version", Article::getVersion);
+  }
+
+  private final Set<String> names;
+
+  /**
+   * @param fields comma separated field names, e.g. "header,publishDate"
+   */
+  public static ArticleFields parse(String fields) {
+    Set<String> names = new LinkedHashSet<>();
+    for (String name : fields.split(",")) {
+      String trimmedName = name.trim();
+      if (!ACCESSORS.containsKey(trimmedName)) {
+        throw new InvalidFieldsException(fields, ACCESSORS.keySet());
+      }
+      names.add(trimmedName);
+    }
+    return new ArticleFields(names);
+  }
+
+  public Map<String, Object> valuesOf(Article article) {
+    Map<String, Object> values = new LinkedHashMap<>();
+    names.forEach(name -> values.put(name, ACCESSORS.get(name).apply(article)));
+    return values;
+  }
+}
@@ -0,0 +1,27 @@
+package com.github.cenkakin.mynewspaper.domain;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Created by cenkakin
+ */
+@Value
+public class ArticlePage {
+
+  private final List<ArticleSummary> articles;
+
+  private final ArticleCursor next;
+
+  /**
+   * Builds a page out of at most limit + 1 articles. The extra article is only used to decide if there is a next page.
+   */
+  public static ArticlePage of(List<ArticleSummary> articles, int limit) {
+    if (articles.size() <= limit) {
+      return new ArticlePage(articles, null);
+    }
+    List<ArticleSummary> pageArticles = articles.subList(0, limit);
+    return new ArticlePage(pageArticles, ArticleCursor.of(pageArticles.get(limit - 1)));
+  }
+}
@@ -0,0 +1,40 @@
+package com.github.cenkakin.mynewspaper.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Read-only view of an {@link Article} without its text. It is read from the article collection with a field
+ * projection, so the text never leaves the database.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArticleSummary {
+
+  public static final List<String> FIELDS =
+      List.of("id", "header", "shortDescription", "publishDate", "authors", "keywords", "version");
+
+  private String id;
+
+  private String header;
+
+  private String shortDescription;
+
+  private LocalDate publishDate;
+
+  private List<String> authors;
+
+  private List<String> keywords;
+
+  private Long version;
+
+  public static ArticleSummary fromArticle(Article article) {
+    return new ArticleSummary(article.getId(), article.getHeader(), article.getShortDescription(),
+        article.getPublishDate(), article.getAuthors(), article.getKeywords(), article.getVersion());
+  }
+}
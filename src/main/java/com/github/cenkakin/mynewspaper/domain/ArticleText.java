@@ -0,0 +1,69 @@
+package com.github.cenkakin.mynewspaper.domain;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.github.cenkakin.mynewspaper.codec.ArticleTextCompressor;
+
+/**
+ * Text of an article, either as it was written or as the compressed bytes it is stored with, so articles kept in the
+ * cache stay compressed. The text is only read through {@link #decode()}, which decompresses it on every call.
+ */
+public final class ArticleText {
+
+  private final String value;
+
+  private final byte[] compressed;
+
+  private final ArticleTextCompressor compressor;
+
+  private ArticleText(String value, byte[] compressed, ArticleTextCompressor compressor) {
+    this.value = value;
+    this.compressed = compressed;
+    this.compressor = compressor;
+  }
+
+  public static ArticleText of(String value) {
+    return value == null ? null : new ArticleText(value, null, null);
+  }
+
+  public static ArticleText compressed(byte[] compressed, ArticleTextCompressor compressor) {
+    return new ArticleText(null, compressed, compressor);
+  }
+
+  public static String decode(ArticleText text) {
+    return text == null ? null : text.decode();
+  }
+
+  public boolean isCompressed() {
+    return compressed != null;
+  }
+
+  /**
+   * @return the bytes this text was read with, or null if it was not compressed
+   */
+  public byte[] getCompressed() {
+    return compressed;
+  }
+
+  @JsonValue
+  public String decode() {
+    return value != null ? value : compressor.decompress(compressed);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return this == o || o instanceof ArticleText && decode().equals(((ArticleText) o).decode());
+  }
+
+  @Override
+  public int hashCode() {
+    return decode().hashCode();
+  }
+
+  /**
+   * Compressed text is not decompressed, e.g. when the article holding it is logged.
+   */
+  @Override
+  public String toString() {
+    return isCompressed() ? "ArticleText(" + compressed.length + " compressed bytes)" : value;
+  }
+}
@@ -0,0 +1,26 @@
+package com.github.cenkakin.mynewspaper.domain;
+
+import lombok.Value;
+
+/**
+ * Outcome of one id of a batch get, the article is null when there is no such article.
+ */
+@Value
+public class BatchGetResult<T> {
+
+  private final String id;
+
+  private final T article;
+
+  public boolean isFound() {
+    return article != null;
+  }
+
+  public static <T> BatchGetResult<T> found(String id, T article) {
+    return new BatchGetResult<>(id, article);
+  }
+
+  public static <T> BatchGetResult<T> notFound(String id) {
+    return new BatchGetResult<>(id, null);
+  }
+}
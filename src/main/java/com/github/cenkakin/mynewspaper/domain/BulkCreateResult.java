@@ -0,0 +1,24 @@
+package com.github.cenkakin.mynewspaper.domain;
+
+import lombok.Value;
+
+/**
+ * Outcome of one article of a bulk creation, identified by its position in the request.
+ */
+@Value
+public class BulkCreateResult {
+
+  private final long index;
+
+  private final String id;
+
+  private final String error;
+
+  public static BulkCreateResult created(long index, String id) {
+    return new BulkCreateResult(index, id, null);
+  }
+
+  public static BulkCreateResult failed(long index, String error) {
+    return new BulkCreateResult(index, null, error);
+  }
+}
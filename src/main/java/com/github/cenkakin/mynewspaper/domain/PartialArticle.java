@@ -0,0 +1,24 @@
+package com.github.cenkakin.mynewspaper.domain;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Requested fields of an article. Id and publish date are always read, as cursors are made of them, but they are only
+ * among the fields when they are requested.
+ */
+@Value
+public class PartialArticle {
+
+  private final String id;
+
+  private final LocalDate publishDate;
+
+  private final Map<String, Object> fields;
+
+  public static PartialArticle fromArticle(Article article, ArticleFields fields) {
+    return new PartialArticle(article.getId(), article.getPublishDate(), fields.valuesOf(article));
+  }
+}
@@ -0,0 +1,28 @@
+package com.github.cenkakin.mynewspaper.domain;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Created by cenkakin
+ */
+@Value
+public class PartialArticlePage {
+
+  private final List<PartialArticle> articles;
+
+  private final ArticleCursor next;
+
+  /**
+   * Builds a page out of at most limit + 1 articles. The extra article is only used to decide if there is a next page.
+   */
+  public static PartialArticlePage of(List<PartialArticle> articles, int limit) {
+    if (articles.size() <= limit) {
+      return new PartialArticlePage(articles, null);
+    }
+    List<PartialArticle> pageArticles = articles.subList(0, limit);
+    PartialArticle last = pageArticles.get(limit - 1);
+    return new PartialArticlePage(pageArticles, new ArticleCursor(last.getPublishDate(), last.getId()));
+  }
+}
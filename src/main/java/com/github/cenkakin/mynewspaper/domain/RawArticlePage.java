@@ -0,0 +1,31 @@
+package com.github.cenkakin.mynewspaper.domain;
+
+import com.github.cenkakin.mynewspaper.codec.RawArticleJsonTranscoder;
+import lombok.Value;
+import org.bson.RawBsonDocument;
+
+import java.util.List;
+
+/**
+ * A page of article summaries as they are read from mongo, before they are mapped to any object.
+ */
+@Value
+public class RawArticlePage {
+
+  private final List<RawBsonDocument> articles;
+
+  private final ArticleCursor next;
+
+  /**
+   * Builds a page out of at most limit + 1 articles. The extra article is only used to decide if there is a next page.
+   */
+  public static RawArticlePage of(List<RawBsonDocument> articles, int limit) {
+    if (articles.size() <= limit) {
+      return new RawArticlePage(articles, null);
+    }
+    List<RawBsonDocument> pageArticles = articles.subList(0, limit);
+    RawBsonDocument last = pageArticles.get(limit - 1);
+    return new RawArticlePage(pageArticles, new ArticleCursor(RawArticleJsonTranscoder.readPublishDate(last),
+        RawArticleJsonTranscoder.readId(last)));
+  }
+}
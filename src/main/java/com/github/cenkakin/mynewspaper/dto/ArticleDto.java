@@ -1,6 +1,7 @@
 package com.github.cenkakin.mynewspaper.dto;
 
 import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.domain.ArticleText;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -39,7 +40,7 @@ public class ArticleDto {
         .id(article.getId())
         .header(article.getHeader())
         .shortDescription(article.getShortDescription())
-        .text(article.getText())
+        .text(ArticleText.decode(article.getText()))
         .publishDate(article.getPublishDate())
         .authors(article.getAuthors())
         .version(article.getVersion())
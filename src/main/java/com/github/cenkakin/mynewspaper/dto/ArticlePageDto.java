@@ -0,0 +1,33 @@
+package com.github.cenkakin.mynewspaper.dto;
+
+import com.github.cenkakin.mynewspaper.domain.ArticleCursor;
+import com.github.cenkakin.mynewspaper.domain.ArticlePage;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Created by cenkakin
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ArticlePageDto {
+
+  private List<ArticleSummaryDto> articles;
+
+  private String next;
+
+  public static ArticlePageDto fromArticlePage(ArticlePage page) {
+    return new ArticlePageDtoBuilder()
+        .articles(page.getArticles().stream().map(ArticleSummaryDto::fromArticleSummary).collect(Collectors.toList()))
+        .next(Optional.ofNullable(page.getNext()).map(ArticleCursor::encode).orElse(null))
+        .build();
+  }
+}
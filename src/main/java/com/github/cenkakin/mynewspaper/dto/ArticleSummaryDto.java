@@ -0,0 +1,45 @@
+package com.github.cenkakin.mynewspaper.dto;
+
+import com.github.cenkakin.mynewspaper.domain.ArticleSummary;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Created by cenkakin
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ArticleSummaryDto {
+
+  private String id;
+
+  private String header;
+
+  private String shortDescription;
+
+  private LocalDate publishDate;
+
+  private List<String> authors;
+
+  private List<String> keywords;
+
+  private Long version;
+
+  public static ArticleSummaryDto fromArticleSummary(ArticleSummary articleSummary) {
+    return new ArticleSummaryDtoBuilder()
+        .id(articleSummary.getId())
+        .header(articleSummary.getHeader())
+        .shortDescription(articleSummary.getShortDescription())
+        .publishDate(articleSummary.getPublishDate())
+        .authors(articleSummary.getAuthors())
+        .version(articleSummary.getVersion())
+        .keywords(articleSummary.getKeywords()).build();
+  }
+}
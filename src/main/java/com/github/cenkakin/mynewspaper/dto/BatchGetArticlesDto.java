@@ -0,0 +1,32 @@
+package com.github.cenkakin.mynewspaper.dto;
+
+import com.github.cenkakin.mynewspaper.domain.BatchGetResult;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Created by cenkakin
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchGetArticlesDto<T> {
+
+  private List<BatchGetResultDto<T>> articles;
+
+  public static <S, T> BatchGetArticlesDto<T> fromBatchGetResults(List<BatchGetResult<S>> results,
+                                                                   Function<S, T> toDto) {
+    return new BatchGetArticlesDtoBuilder<T>()
+        .articles(results.stream()
+            .map(result -> BatchGetResultDto.fromBatchGetResult(result, toDto))
+            .collect(Collectors.toList()))
+        .build();
+  }
+}
@@ -0,0 +1,34 @@
+package com.github.cenkakin.mynewspaper.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.github.cenkakin.mynewspaper.domain.BatchGetResult;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.function.Function;
+
+/**
+ * Created by cenkakin
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchGetResultDto<T> {
+
+  private String id;
+
+  private boolean found;
+
+  private T article;
+
+  public static <S, T> BatchGetResultDto<T> fromBatchGetResult(BatchGetResult<S> result, Function<S, T> toDto) {
+    return new BatchGetResultDtoBuilder<T>()
+        .id(result.getId())
+        .found(result.isFound())
+        .article(result.isFound() ? toDto.apply(result.getArticle()) : null).build();
+  }
+}
@@ -0,0 +1,32 @@
+package com.github.cenkakin.mynewspaper.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.github.cenkakin.mynewspaper.domain.BulkCreateResult;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Created by cenkakin
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkCreateResultDto {
+
+  private long index;
+
+  private String id;
+
+  private String error;
+
+  public static BulkCreateResultDto fromBulkCreateResult(BulkCreateResult result) {
+    return new BulkCreateResultDtoBuilder()
+        .index(result.getIndex())
+        .id(result.getId())
+        .error(result.getError()).build();
+  }
+}
@@ -0,0 +1,38 @@
+package com.github.cenkakin.mynewspaper.dto;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.github.cenkakin.mynewspaper.domain.PartialArticle;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Requested fields of an article, written as the properties of a json object.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class PartialArticleDto {
+
+  private Map<String, Object> fields = new LinkedHashMap<>();
+
+  @JsonAnyGetter
+  public Map<String, Object> getFields() {
+    return fields;
+  }
+
+  @JsonAnySetter
+  public void setField(String name, Object value) {
+    fields.put(name, value);
+  }
+
+  public static PartialArticleDto fromPartialArticle(PartialArticle partialArticle) {
+    return new PartialArticleDto(partialArticle.getFields());
+  }
+}
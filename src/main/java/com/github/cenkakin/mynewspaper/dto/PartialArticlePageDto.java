@@ -0,0 +1,33 @@
+package com.github.cenkakin.mynewspaper.dto;
+
+import com.github.cenkakin.mynewspaper.domain.ArticleCursor;
+import com.github.cenkakin.mynewspaper.domain.PartialArticlePage;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Created by cenkakin
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PartialArticlePageDto {
+
+  private List<PartialArticleDto> articles;
+
+  private String next;
+
+  public static PartialArticlePageDto fromPartialArticlePage(PartialArticlePage page) {
+    return new PartialArticlePageDtoBuilder()
+        .articles(page.getArticles().stream().map(PartialArticleDto::fromPartialArticle).collect(Collectors.toList()))
+        .next(Optional.ofNullable(page.getNext()).map(ArticleCursor::encode).orElse(null))
+        .build();
+  }
+}
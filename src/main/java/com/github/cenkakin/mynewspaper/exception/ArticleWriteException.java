@@ -0,0 +1,11 @@
+package com.github.cenkakin.mynewspaper.exception;
+
+/**
+ * Created by cenkakin
+ */
+public class ArticleWriteException extends RuntimeException {
+
+  public ArticleWriteException(String id, String reason) {
+    super("Article with id: " + id + " could not be written! " + reason);
+  }
+}
@@ -0,0 +1,11 @@
+package com.github.cenkakin.mynewspaper.exception;
+
+/**
+ * Created by cenkakin
+ */
+public class InvalidCursorException extends RuntimeException {
+
+  public InvalidCursorException(String cursor) {
+    super("Cursor is not valid! cursor: " + cursor);
+  }
+}
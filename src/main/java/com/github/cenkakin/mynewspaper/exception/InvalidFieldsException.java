@@ -0,0 +1,13 @@
+package com.github.cenkakin.mynewspaper.exception;
+
+import java.util.Collection;
+
+/**
+ * Created by cenkakin
+ */
+public class InvalidFieldsException extends RuntimeException {
+
+  public InvalidFieldsException(String fields, Collection<String> availableFields) {
+    super("Fields are not valid! fields: " + fields + ", available fields: " + String.join(",", availableFields));
+  }
+}
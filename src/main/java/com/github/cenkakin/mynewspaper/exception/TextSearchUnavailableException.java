@@ -0,0 +1,11 @@
+package com.github.cenkakin.mynewspaper.exception;
+
+/**
+ * Created by cenkakin
+ */
+public class TextSearchUnavailableException extends RuntimeException {
+
+  public TextSearchUnavailableException() {
+    super("Text search is not available yet!");
+  }
+}
@@ -0,0 +1,50 @@
+package com.github.cenkakin.mynewspaper.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * The periodic read of the articles modified since the last one, by this instance or by any other, which the loaders
+ * of the in-memory indexes catch up with.
+ */
+@Slf4j
+final class ArticleCatchUp {
+
+  // modification dates are set by the mongo server or by other instances, whose clocks may be behind ours
+  static final Duration MARGIN = Duration.ofMinutes(1);
+
+  private ArticleCatchUp() {
+  }
+
+  /**
+   * Deleted articles are found too, they have to be removed from the index.
+   */
+  static Query modifiedSince(Instant checkpoint) {
+    return query(where("lastModifiedAt").gte(checkpoint.minus(MARGIN)));
+  }
+
+  /**
+   * Runs one catch-up at a time, a tick which comes while the previous catch-up is running is skipped.
+   */
+  static Disposable every(Duration interval, Supplier<Mono<Void>> catchUp, String index) {
+    return Flux.interval(interval, interval, Schedulers.boundedElastic())
+        .onBackpressureDrop()
+        .concatMap(tick -> catchUp.get()
+            .onErrorResume(e -> {
+              log.error("Catching up the {} is failed", index, e);
+              return Mono.empty();
+            }), 1)
+        .subscribe();
+  }
+}
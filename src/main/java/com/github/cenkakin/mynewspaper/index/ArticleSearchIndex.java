@@ -0,0 +1,313 @@
+package com.github.cenkakin.mynewspaper.index;
+
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.domain.ArticleCursor;
+import com.github.cenkakin.mynewspaper.request.SearchArticleRequest;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index from normalized authors and keywords to the articles having them. Articles are numbered
+ * with int ordinals, postings are sorted ordinals and publish dates are kept in a parallel array, so that an author or
+ * keyword search is resolved to the ids of a single page without asking mongo.
+ * <p>
+ * Searches are not answered from it until {@link ArticleSearchIndexLoader} has loaded the stored articles. The writes
+ * of this instance are indexed right away, the ones of other instances when the loader catches up with them, until
+ * then the service answers a page missing any of its articles from mongo.
+ */
+public class ArticleSearchIndex {
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private static final long NOT_INDEXED = Long.MIN_VALUE;
+
+  private static final long REMOVED = Long.MAX_VALUE;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final Map<String, Integer> ordinalsById = new HashMap<>();
+
+  private final Map<String, Postings> authorPostings = new HashMap<>();
+
+  private final Map<String, Postings> keywordPostings = new HashMap<>();
+
+  private final List<List<String>> authorsByOrdinal = new ArrayList<>();
+
+  private final List<List<String>> keywordsByOrdinal = new ArrayList<>();
+
+  private String[] ids = new String[INITIAL_CAPACITY];
+
+  private int[] publishDays = new int[INITIAL_CAPACITY];
+
+  private long[] versions = new long[INITIAL_CAPACITY];
+
+  private long[] removedAt = new long[INITIAL_CAPACITY];
+
+  private int size;
+
+  // ordinals of removed articles in the order they were removed, until they are reclaimed
+  private final Deque<Integer> removedOrdinals = new ArrayDeque<>();
+
+  // reclaimed ordinals, which are given to new articles before the arrays grow
+  private int[] freeOrdinals = new int[0];
+
+  private int freeCount;
+
+  private volatile boolean ready;
+
+  public boolean isReady() {
+    return ready;
+  }
+
+  public void markReady() {
+    ready = true;
+  }
+
+  /**
+   * Only author and keyword searches are answered from the index, the others are served by the mongo indexes.
+   */
+  public boolean canSearch(SearchArticleRequest request) {
+    return ready && (request.getAuthor() != null || request.getKeyword() != null);
+  }
+
+  /**
+   * Indexes the given article unless a newer version of it, or its deletion, is already indexed.
+   */
+  public void index(Article article) {
+    lock.writeLock().lock();
+    try {
+      int ordinal = ordinalsById.computeIfAbsent(article.getId(), this::newOrdinal);
+      long version = Optional.ofNullable(article.getVersion()).orElse(-1L);
+      if (versions[ordinal] >= version) {
+        return;
+      }
+      unindexTerms(ordinal);
+      versions[ordinal] = version;
+      publishDays[ordinal] = (int) article.getPublishDate().toEpochDay();
+      authorsByOrdinal.set(ordinal, indexTerms(authorPostings, ordinal, article.getAuthors()));
+      keywordsByOrdinal.set(ordinal, indexTerms(keywordPostings, ordinal, article.getKeywords()));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Deleted articles can not come back, so the ordinal is kept to stop the loader from indexing them again, until it is
+   * reclaimed by {@link #reclaimRemoved(Instant)}.
+   */
+  public void remove(String id) {
+    lock.writeLock().lock();
+    try {
+      int ordinal = ordinalsById.computeIfAbsent(id, this::newOrdinal);
+      if (versions[ordinal] != REMOVED) {
+        unindexTerms(ordinal);
+        versions[ordinal] = REMOVED;
+        removedOrdinals.addLast(ordinal);
+      }
+      removedAt[ordinal] = System.currentTimeMillis();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Forgets the articles removed before the given instant, once no read of the loader can return an older version of
+   * them anymore, so that their ordinals are given to new articles and their ids are not kept for the process lifetime.
+   * Returns the number of reclaimed ordinals.
+   */
+  public int reclaimRemoved(Instant removedBefore) {
+    lock.writeLock().lock();
+    try {
+      int reclaimed = 0;
+      while (!removedOrdinals.isEmpty() && removedAt[removedOrdinals.peekFirst()] < removedBefore.toEpochMilli()) {
+        int ordinal = removedOrdinals.pollFirst();
+        ordinalsById.remove(ids[ordinal]);
+        ids[ordinal] = null;
+        versions[ordinal] = NOT_INDEXED;
+        freeOrdinal(ordinal);
+        reclaimed++;
+      }
+      return reclaimed;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns ids of at most limit articles matching the request after the cursor, newest first.
+   */
+  public List<String> search(SearchArticleRequest request, ArticleCursor cursor, int limit) {
+    lock.readLock().lock();
+    try {
+      List<Postings> requested = Stream.of(postingsOf(authorPostings, request.getAuthor()),
+          postingsOf(keywordPostings, request.getKeyword()))
+          .flatMap(Optional::stream)
+          .sorted(Comparator.comparingInt(Postings::size))
+          .collect(Collectors.toList());
+      Postings candidates = requested.get(0);
+      List<Postings> others = requested.subList(1, requested.size());
+      int fromDay = epochDayOr(request.getFromPublishDate(), Integer.MIN_VALUE);
+      int toDay = epochDayOr(request.getToPublishDate(), Integer.MAX_VALUE);
+      int[] heap = new int[Math.min(limit, candidates.size())];
+      int count = 0;
+      for (int i = 0; i < candidates.size() && heap.length > 0; i++) {
+        int ordinal = candidates.get(i);
+        int publishDay = publishDays[ordinal];
+        if (publishDay < fromDay || publishDay > toDay || !containedInAll(others, ordinal)
+            || cursor != null && !isAfter(ordinal, cursor)) {
+          continue;
+        }
+        if (count < heap.length) {
+          heap[count] = ordinal;
+          siftUp(heap, count++);
+        } else if (isNewer(ordinal, heap[0])) {
+          heap[0] = ordinal;
+          siftDown(heap, 0, count);
+        }
+      }
+      String[] page = new String[count];
+      for (int last = count - 1; last >= 0; last--) {
+        page[last] = ids[heap[0]];
+        heap[0] = heap[last];
+        siftDown(heap, 0, last);
+      }
+      return Arrays.asList(page);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private static boolean containedInAll(List<Postings> postings, int ordinal) {
+    for (Postings termPostings : postings) {
+      if (!termPostings.contains(ordinal)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Same order as the keyset pagination in mongo, hex ids compare like the object ids they represent.
+   */
+  private boolean isNewer(int ordinal, int other) {
+    return publishDays[ordinal] > publishDays[other]
+        || publishDays[ordinal] == publishDays[other] && ids[ordinal].compareTo(ids[other]) > 0;
+  }
+
+  /**
+   * The page is gathered in a heap of at most limit ordinals whose root is the oldest, which is replaced by any newer
+   * match, so a search costs O(matches * log(limit)) without sorting every match.
+   */
+  private void siftUp(int[] heap, int index) {
+    while (index > 0) {
+      int parent = (index - 1) / 2;
+      if (!isNewer(heap[parent], heap[index])) {
+        return;
+      }
+      swap(heap, parent, index);
+      index = parent;
+    }
+  }
+
+  private void siftDown(int[] heap, int index, int size) {
+    while (true) {
+      int oldest = index;
+      for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+        if (isNewer(heap[oldest], heap[child])) {
+          oldest = child;
+        }
+      }
+      if (oldest == index) {
+        return;
+      }
+      swap(heap, oldest, index);
+      index = oldest;
+    }
+  }
+
+  private static void swap(int[] heap, int first, int second) {
+    int ordinal = heap[first];
+    heap[first] = heap[second];
+    heap[second] = ordinal;
+  }
+
+  private boolean isAfter(int ordinal, ArticleCursor cursor) {
+    int cursorDay = (int) cursor.getPublishDate().toEpochDay();
+    return publishDays[ordinal] < cursorDay
+        || publishDays[ordinal] == cursorDay && ids[ordinal].compareTo(cursor.getId()) < 0;
+  }
+
+  private int newOrdinal(String id) {
+    if (freeCount > 0) {
+      int ordinal = freeOrdinals[--freeCount];
+      ids[ordinal] = id;
+      return ordinal;
+    }
+    if (size == ids.length) {
+      int capacity = size + (size >> 1);
+      ids = Arrays.copyOf(ids, capacity);
+      publishDays = Arrays.copyOf(publishDays, capacity);
+      versions = Arrays.copyOf(versions, capacity);
+      removedAt = Arrays.copyOf(removedAt, capacity);
+    }
+    ids[size] = id;
+    versions[size] = NOT_INDEXED;
+    authorsByOrdinal.add(List.of());
+    keywordsByOrdinal.add(List.of());
+    return size++;
+  }
+
+  private void freeOrdinal(int ordinal) {
+    if (freeCount == freeOrdinals.length) {
+      freeOrdinals = Arrays.copyOf(freeOrdinals, freeCount + (freeCount >> 1) + 1);
+    }
+    freeOrdinals[freeCount++] = ordinal;
+  }
+
+  private static List<String> indexTerms(Map<String, Postings> postings, int ordinal, List<String> values) {
+    List<String> terms = Article.normalize(values).stream().distinct().collect(Collectors.toList());
+    terms.forEach(term -> postings.computeIfAbsent(term, t -> new Postings()).add(ordinal));
+    return terms;
+  }
+
+  private void unindexTerms(int ordinal) {
+    unindexTerms(authorPostings, ordinal, authorsByOrdinal.set(ordinal, List.of()));
+    unindexTerms(keywordPostings, ordinal, keywordsByOrdinal.set(ordinal, List.of()));
+  }
+
+  private static void unindexTerms(Map<String, Postings> postings, int ordinal, List<String> terms) {
+    terms.forEach(term -> {
+      Postings termPostings = postings.get(term);
+      termPostings.remove(ordinal);
+      if (termPostings.isEmpty()) {
+        postings.remove(term);
+      }
+    });
+  }
+
+  /**
+   * Empty when the value is not searched for, empty postings when no article has it.
+   */
+  private static Optional<Postings> postingsOf(Map<String, Postings> postings, String value) {
+    return Optional.ofNullable(value)
+        .map(v -> postings.getOrDefault(Article.normalize(v), new Postings()));
+  }
+
+  private static int epochDayOr(LocalDate date, int defaultDay) {
+    return date == null ? defaultDay : (int) date.toEpochDay();
+  }
+}
@@ -0,0 +1,95 @@
+package com.github.cenkakin.mynewspaper.index;
+
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.partition.ArticlePartitions;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Loads the stored articles into the {@link ArticleSearchIndex} at startup. Articles written meanwhile are indexed by
+ * the service, the index keeps the newest version of them, so searches can be answered from it once loading is done.
+ * Afterwards the articles modified since the last read, by this instance or by any other, are read periodically, so
+ * the index catches up with the writes of the other instances. The removed articles which no read returns anymore are
+ * reclaimed after each catch-up.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ArticleSearchIndexLoader implements ApplicationRunner, DisposableBean {
+
+  private final ReactiveMongoOperations mongoOperations;
+
+  private final ArticlePartitions articlePartitions;
+
+  private final ArticleSearchIndex articleSearchIndex;
+
+  private final Duration catchUpInterval;
+
+  private volatile Instant checkpoint;
+
+  private Disposable catchUps;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    Instant loadStartedAt = Instant.now();
+    find(query(where("deleted").is(false)))
+        .count()
+        .subscribe(count -> {
+              checkpoint = loadStartedAt;
+              articleSearchIndex.markReady();
+              log.info("Article search index is loaded with {} articles", count);
+              catchUps = ArticleCatchUp.every(catchUpInterval, this::catchUp, "article search index");
+            },
+            e -> log.error("Loading article search index is failed, searches are served by mongo", e));
+  }
+
+  @Override
+  public void destroy() {
+    if (catchUps != null) {
+      catchUps.dispose();
+    }
+  }
+
+  private Mono<Void> catchUp() {
+    Instant catchUpStartedAt = Instant.now();
+    return find(ArticleCatchUp.modifiedSince(checkpoint))
+        .count()
+        .doOnNext(count -> {
+          checkpoint = catchUpStartedAt;
+          // the next catch-up does not read the articles deleted before its margin, nor does any other read anymore
+          int reclaimed = articleSearchIndex.reclaimRemoved(catchUpStartedAt.minus(ArticleCatchUp.MARGIN));
+          log.debug("Article search index caught up with {} modified articles, reclaimed {} removed ones", count,
+              reclaimed);
+        })
+        .then();
+  }
+
+  private Flux<Article> find(Query query) {
+    query.fields().include("publishDate").include("authors").include("keywords").include("version")
+        .include("deleted");
+    return Flux.fromIterable(articlePartitions.getPartitions())
+        .concatMap(partition -> mongoOperations.find(query, Article.class, partition))
+        .doOnNext(this::apply);
+  }
+
+  private void apply(Article article) {
+    if (article.isDeleted()) {
+      articleSearchIndex.remove(article.getId());
+    } else {
+      articleSearchIndex.index(article);
+    }
+  }
+}
@@ -0,0 +1,512 @@
+package com.github.cenkakin.mynewspaper.index;
+
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.domain.ArticleText;
+import com.github.cenkakin.mynewspaper.request.SearchArticleRequest;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory full-text index over header, short description and text of the articles, ranked with BM25. Term
+ * frequencies and lengths are weighted by field, so a term in the header counts more than a term in the text.
+ * <p>
+ * Every indexed version of an article gets a new ordinal, so postings are only appended to. Ordinals of older versions
+ * and of deleted articles are dropped from the live set and removed from the postings once they outnumber the live
+ * ones. Authors and keywords are kept as postings too, to filter the matches without asking mongo. The postings of
+ * each live ordinal are remembered, so that the document frequencies of their terms are decremented when it is retired.
+ */
+public class ArticleTextIndex {
+
+  private static final float K1 = 1.2f;
+
+  private static final float B = 0.75f;
+
+  private static final int HEADER_WEIGHT = 3;
+
+  private static final int SHORT_DESCRIPTION_WEIGHT = 2;
+
+  private static final int TEXT_WEIGHT = 1;
+
+  // analyzed terms never contain ':', so these can not clash with them
+  private static final String AUTHOR_PREFIX = "author:";
+
+  private static final String KEYWORD_PREFIX = "keyword:";
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private static final int MIN_COMPACTION_SIZE = 1024;
+
+  private static final long REMOVED = Long.MAX_VALUE;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private Map<String, Integer> ordinalsById = new HashMap<>();
+
+  private Map<String, Long> versionsById = new HashMap<>();
+
+  private Map<String, CompressedPostings> postings = new HashMap<>();
+
+  private String[] ids = new String[INITIAL_CAPACITY];
+
+  private int[] publishDays = new int[INITIAL_CAPACITY];
+
+  private int[] lengths = new int[INITIAL_CAPACITY];
+
+  private CompressedPostings[][] postingsByOrdinal = new CompressedPostings[INITIAL_CAPACITY][];
+
+  private BitSet live = new BitSet();
+
+  private int liveCount;
+
+  private int size;
+
+  private long totalLength;
+
+  private volatile boolean ready;
+
+  public boolean isReady() {
+    return ready;
+  }
+
+  public void markReady() {
+    ready = true;
+  }
+
+  /**
+   * Indexes the given article unless a newer version of it, or its deletion, is already indexed.
+   */
+  public void index(Article article) {
+    lock.writeLock().lock();
+    try {
+      long version = Optional.ofNullable(article.getVersion()).orElse(-1L);
+      if (versionsById.getOrDefault(article.getId(), Long.MIN_VALUE) >= version) {
+        return;
+      }
+      versionsById.put(article.getId(), version);
+      retire(article.getId());
+      int ordinal = newOrdinal(article.getId(), (int) article.getPublishDate().toEpochDay());
+
+      Map<String, Integer> frequencies = new HashMap<>();
+      addFrequencies(frequencies, article.getHeader(), HEADER_WEIGHT);
+      addFrequencies(frequencies, article.getShortDescription(), SHORT_DESCRIPTION_WEIGHT);
+      addFrequencies(frequencies, ArticleText.decode(article.getText()), TEXT_WEIGHT);
+      List<CompressedPostings> ordinalPostings = new ArrayList<>();
+      frequencies.forEach((term, frequency) -> ordinalPostings.add(addPosting(postings, term, ordinal, frequency)));
+      Article.normalize(article.getAuthors()).stream().distinct()
+          .forEach(author -> ordinalPostings.add(addPosting(postings, AUTHOR_PREFIX + author, ordinal, 0)));
+      Article.normalize(article.getKeywords()).stream().distinct()
+          .forEach(keyword -> ordinalPostings.add(addPosting(postings, KEYWORD_PREFIX + keyword, ordinal, 0)));
+      postingsByOrdinal[ordinal] = ordinalPostings.toArray(new CompressedPostings[0]);
+
+      int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+      lengths[ordinal] = length;
+      totalLength += length;
+      live.set(ordinal);
+      liveCount++;
+      ordinalsById.put(article.getId(), ordinal);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Deleted articles can not come back, so the version of them is kept to stop older versions from being indexed.
+   */
+  public void remove(String id) {
+    lock.writeLock().lock();
+    try {
+      versionsById.put(id, REMOVED);
+      retire(id);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns ids of at most limit articles matching the text and the filters of the request, most relevant first. Only
+   * the ordinals in the postings of the query terms are visited, filters are checked against each of them.
+   */
+  public List<String> search(SearchArticleRequest request, int limit) {
+    lock.readLock().lock();
+    try {
+      List<String> terms = TextAnalyzer.analyze(request.getQ()).stream().distinct().collect(Collectors.toList());
+      if (terms.isEmpty() || liveCount == 0 || limit <= 0) {
+        return List.of();
+      }
+      List<CompressedPostings> termPostings = terms.stream()
+          .map(postings::get)
+          .filter(Objects::nonNull)
+          .collect(Collectors.toList());
+      int[] authorOrdinals = filterOrdinals(AUTHOR_PREFIX, request.getAuthor());
+      int[] keywordOrdinals = filterOrdinals(KEYWORD_PREFIX, request.getKeyword());
+      int fromDay = epochDayOr(request.getFromPublishDate(), Integer.MIN_VALUE);
+      int toDay = epochDayOr(request.getToPublishDate(), Integer.MAX_VALUE);
+
+      Scores scores = new Scores(termPostings.stream().mapToInt(CompressedPostings::count).sum());
+      float averageLength = (float) totalLength / liveCount;
+      for (CompressedPostings term : termPostings) {
+        int documentFrequency = term.liveCount();
+        float idf = (float) Math.log(1 + (liveCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        term.forEach((ordinal, frequency) -> {
+          if (live.get(ordinal) && publishDays[ordinal] >= fromDay && publishDays[ordinal] <= toDay
+              && contains(authorOrdinals, ordinal) && contains(keywordOrdinals, ordinal)) {
+            float norm = K1 * (1 - B + B * lengths[ordinal] / averageLength);
+            scores.add(ordinal, idf * frequency * (K1 + 1) / (frequency + norm));
+          }
+        });
+      }
+      return topRanked(scores, limit);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Keeps the best limit matches in a min-heap of score slots, ties are broken by publish date and id like the article
+   * listing.
+   */
+  private List<String> topRanked(Scores scores, int limit) {
+    int[] heap = new int[Math.min(limit, scores.size)];
+    int count = 0;
+    for (int slot = 0; slot < scores.ordinals.length && heap.length > 0; slot++) {
+      if (scores.ordinals[slot] == Scores.EMPTY) {
+        continue;
+      }
+      if (count < heap.length) {
+        heap[count] = slot;
+        siftUp(scores, heap, count++);
+      } else if (ranksHigher(scores, slot, heap[0])) {
+        heap[0] = slot;
+        siftDown(scores, heap, 0, count);
+      }
+    }
+    String[] ranked = new String[count];
+    for (int last = count - 1; last >= 0; last--) {
+      ranked[last] = ids[scores.ordinals[heap[0]]];
+      heap[0] = heap[last];
+      siftDown(scores, heap, 0, last);
+    }
+    return Arrays.asList(ranked);
+  }
+
+  private boolean ranksHigher(Scores scores, int slot, int other) {
+    if (scores.values[slot] != scores.values[other]) {
+      return scores.values[slot] > scores.values[other];
+    }
+    int ordinal = scores.ordinals[slot];
+    int otherOrdinal = scores.ordinals[other];
+    return publishDays[ordinal] > publishDays[otherOrdinal]
+        || publishDays[ordinal] == publishDays[otherOrdinal] && ids[ordinal].compareTo(ids[otherOrdinal]) > 0;
+  }
+
+  private void siftUp(Scores scores, int[] heap, int index) {
+    while (index > 0) {
+      int parent = (index - 1) / 2;
+      if (!ranksHigher(scores, heap[parent], heap[index])) {
+        return;
+      }
+      swap(heap, parent, index);
+      index = parent;
+    }
+  }
+
+  private void siftDown(Scores scores, int[] heap, int index, int size) {
+    while (true) {
+      int lowest = index;
+      for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+        if (ranksHigher(scores, heap[lowest], heap[child])) {
+          lowest = child;
+        }
+      }
+      if (lowest == index) {
+        return;
+      }
+      swap(heap, lowest, index);
+      index = lowest;
+    }
+  }
+
+  private static void swap(int[] heap, int first, int second) {
+    int slot = heap[first];
+    heap[first] = heap[second];
+    heap[second] = slot;
+  }
+
+  /**
+   * Sorted ordinals of the articles having the given author or keyword, null when the request does not filter by it.
+   */
+  private int[] filterOrdinals(String prefix, String value) {
+    if (value == null) {
+      return null;
+    }
+    return Optional.ofNullable(postings.get(prefix + Article.normalize(value)))
+        .map(CompressedPostings::toOrdinals)
+        .orElse(new int[0]);
+  }
+
+  private static boolean contains(int[] filterOrdinals, int ordinal) {
+    return filterOrdinals == null || Arrays.binarySearch(filterOrdinals, ordinal) >= 0;
+  }
+
+  private void retire(String id) {
+    Integer ordinal = ordinalsById.remove(id);
+    if (ordinal != null) {
+      live.clear(ordinal);
+      liveCount--;
+      totalLength -= lengths[ordinal];
+      for (CompressedPostings termPostings : postingsByOrdinal[ordinal]) {
+        termPostings.retire(1);
+      }
+      postingsByOrdinal[ordinal] = null;
+    }
+  }
+
+  private int newOrdinal(String id, int publishDay) {
+    if (size == ids.length) {
+      if (size >= MIN_COMPACTION_SIZE && liveCount < size / 2) {
+        compact();
+      } else {
+        int capacity = size + (size >> 1);
+        ids = Arrays.copyOf(ids, capacity);
+        publishDays = Arrays.copyOf(publishDays, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        postingsByOrdinal = Arrays.copyOf(postingsByOrdinal, capacity);
+      }
+    }
+    ids[size] = id;
+    publishDays[size] = publishDay;
+    return size++;
+  }
+
+  /**
+   * Renumbers the live ordinals in their order and rewrites the postings without the others.
+   */
+  private void compact() {
+    int[] newOrdinals = new int[size];
+    Arrays.fill(newOrdinals, -1);
+    int renumbered = 0;
+    for (int ordinal = live.nextSetBit(0); ordinal >= 0; ordinal = live.nextSetBit(ordinal + 1)) {
+      newOrdinals[ordinal] = renumbered;
+      ids[renumbered] = ids[ordinal];
+      publishDays[renumbered] = publishDays[ordinal];
+      lengths[renumbered] = lengths[ordinal];
+      postingsByOrdinal[renumbered] = postingsByOrdinal[ordinal];
+      renumbered++;
+    }
+    Arrays.fill(ids, renumbered, size, null);
+    Arrays.fill(postingsByOrdinal, renumbered, size, null);
+    Map<String, CompressedPostings> compacted = new HashMap<>();
+    Map<CompressedPostings, CompressedPostings> compactedByOriginal = new IdentityHashMap<>();
+    postings.forEach((term, termPostings) -> termPostings.forEach((ordinal, frequency) -> {
+      if (newOrdinals[ordinal] >= 0) {
+        compactedByOriginal.put(termPostings, addPosting(compacted, term, newOrdinals[ordinal], frequency));
+      }
+    }));
+    for (int ordinal = 0; ordinal < renumbered; ordinal++) {
+      CompressedPostings[] ordinalPostings = postingsByOrdinal[ordinal];
+      for (int i = 0; i < ordinalPostings.length; i++) {
+        ordinalPostings[i] = compactedByOriginal.get(ordinalPostings[i]);
+      }
+    }
+    postings = compacted;
+    ordinalsById.replaceAll((id, ordinal) -> newOrdinals[ordinal]);
+    live = new BitSet(renumbered);
+    live.set(0, renumbered);
+    size = renumbered;
+  }
+
+  private static CompressedPostings addPosting(Map<String, CompressedPostings> postings, String term, int ordinal,
+      int frequency) {
+    CompressedPostings termPostings = postings.computeIfAbsent(term, t -> new CompressedPostings());
+    termPostings.add(ordinal, frequency);
+    return termPostings;
+  }
+
+  private static void addFrequencies(Map<String, Integer> frequencies, String text, int weight) {
+    TextAnalyzer.analyze(text).forEach(term -> frequencies.merge(term, weight, Integer::sum));
+  }
+
+  private static int epochDayOr(LocalDate date, int defaultDay) {
+    return date == null ? defaultDay : (int) date.toEpochDay();
+  }
+
+  /**
+   * Writes a snapshot of the index, which is taken under the read lock and written outside of it, so writers do not
+   * wait for the output.
+   */
+  void writeTo(DataOutput output) throws IOException {
+    int snapshotSize;
+    String[] snapshotIds;
+    int[] snapshotPublishDays;
+    int[] snapshotLengths;
+    long[] liveWords;
+    Map<String, Long> snapshotVersions;
+    Map<String, CompressedPostings> snapshotPostings = new HashMap<>();
+    lock.readLock().lock();
+    try {
+      snapshotSize = size;
+      snapshotIds = Arrays.copyOf(ids, size);
+      snapshotPublishDays = Arrays.copyOf(publishDays, size);
+      snapshotLengths = Arrays.copyOf(lengths, size);
+      liveWords = live.toLongArray();
+      snapshotVersions = new HashMap<>(versionsById);
+      postings.forEach((term, termPostings) -> snapshotPostings.put(term, termPostings.snapshot()));
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    output.writeInt(snapshotSize);
+    for (int ordinal = 0; ordinal < snapshotSize; ordinal++) {
+      output.writeUTF(snapshotIds[ordinal]);
+      output.writeInt(snapshotPublishDays[ordinal]);
+      output.writeInt(snapshotLengths[ordinal]);
+    }
+    output.writeInt(liveWords.length);
+    for (long word : liveWords) {
+      output.writeLong(word);
+    }
+    output.writeInt(snapshotVersions.size());
+    for (Map.Entry<String, Long> version : snapshotVersions.entrySet()) {
+      output.writeUTF(version.getKey());
+      output.writeLong(version.getValue());
+    }
+    output.writeInt(snapshotPostings.size());
+    for (Map.Entry<String, CompressedPostings> termPostings : snapshotPostings.entrySet()) {
+      output.writeUTF(termPostings.getKey());
+      termPostings.getValue().writeTo(output);
+    }
+  }
+
+  /**
+   * Replaces the content of the index with the one written by {@link #writeTo(DataOutput)}.
+   */
+  void readFrom(DataInput input) throws IOException {
+    int readSize = input.readInt();
+    String[] readIds = new String[Math.max(readSize, INITIAL_CAPACITY)];
+    int[] readPublishDays = new int[readIds.length];
+    int[] readLengths = new int[readIds.length];
+    for (int ordinal = 0; ordinal < readSize; ordinal++) {
+      readIds[ordinal] = input.readUTF();
+      readPublishDays[ordinal] = input.readInt();
+      readLengths[ordinal] = input.readInt();
+    }
+    long[] liveWords = new long[input.readInt()];
+    for (int i = 0; i < liveWords.length; i++) {
+      liveWords[i] = input.readLong();
+    }
+    BitSet readLive = BitSet.valueOf(liveWords);
+    Map<String, Long> readVersions = new HashMap<>();
+    int versionCount = input.readInt();
+    for (int i = 0; i < versionCount; i++) {
+      readVersions.put(input.readUTF(), input.readLong());
+    }
+    Map<String, CompressedPostings> readPostings = new HashMap<>();
+    int termCount = input.readInt();
+    for (int i = 0; i < termCount; i++) {
+      readPostings.put(input.readUTF(), CompressedPostings.readFrom(input));
+    }
+    CompressedPostings[][] readPostingsByOrdinal = postingsByOrdinal(readPostings, readLive, readIds.length);
+
+    lock.writeLock().lock();
+    try {
+      ids = readIds;
+      publishDays = readPublishDays;
+      lengths = readLengths;
+      live = readLive;
+      size = readSize;
+      versionsById = readVersions;
+      postings = readPostings;
+      postingsByOrdinal = readPostingsByOrdinal;
+      ordinalsById = new HashMap<>();
+      liveCount = 0;
+      totalLength = 0;
+      for (int ordinal = live.nextSetBit(0); ordinal >= 0; ordinal = live.nextSetBit(ordinal + 1)) {
+        ordinalsById.put(ids[ordinal], ordinal);
+        liveCount++;
+        totalLength += lengths[ordinal];
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Postings of each live ordinal, the entries of the other ordinals are retired from the read postings.
+   */
+  private static CompressedPostings[][] postingsByOrdinal(Map<String, CompressedPostings> readPostings, BitSet readLive,
+      int capacity) {
+    List<List<CompressedPostings>> ordinalPostings = new ArrayList<>(capacity);
+    for (int ordinal = 0; ordinal < capacity; ordinal++) {
+      ordinalPostings.add(readLive.get(ordinal) ? new ArrayList<>() : null);
+    }
+    readPostings.values().forEach(termPostings -> {
+      int[] liveEntries = new int[1];
+      termPostings.forEach((ordinal, frequency) -> {
+        if (readLive.get(ordinal)) {
+          ordinalPostings.get(ordinal).add(termPostings);
+          liveEntries[0]++;
+        }
+      });
+      termPostings.retire(termPostings.count() - liveEntries[0]);
+    });
+    CompressedPostings[][] postingsByOrdinal = new CompressedPostings[capacity][];
+    for (int ordinal = 0; ordinal < capacity; ordinal++) {
+      List<CompressedPostings> termPostings = ordinalPostings.get(ordinal);
+      postingsByOrdinal[ordinal] = termPostings == null ? null : termPostings.toArray(new CompressedPostings[0]);
+    }
+    return postingsByOrdinal;
+  }
+
+  /**
+   * Scores of the ordinals found in the postings of the query terms, in an open addressing table sized by those
+   * postings, so a search allocates and visits only its own matches.
+   */
+  private static final class Scores {
+
+    private static final int EMPTY = -1;
+
+    private final int[] ordinals;
+
+    private final float[] values;
+
+    private final int mask;
+
+    private int size;
+
+    Scores(int expected) {
+      int capacity = Integer.highestOneBit(Math.max(2 * expected - 1, 1)) << 1;
+      ordinals = new int[capacity];
+      values = new float[capacity];
+      mask = capacity - 1;
+      Arrays.fill(ordinals, EMPTY);
+    }
+
+    void add(int ordinal, float score) {
+      int hash = ordinal * 0x9E3779B9;
+      int slot = (hash ^ (hash >>> 16)) & mask;
+      while (ordinals[slot] != EMPTY && ordinals[slot] != ordinal) {
+        slot = (slot + 1) & mask;
+      }
+      if (ordinals[slot] == EMPTY) {
+        ordinals[slot] = ordinal;
+        size++;
+      }
+      values[slot] += score;
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package com.github.cenkakin.mynewspaper.index;
+
+import com.github.cenkakin.mynewspaper.compaction.ArticleTombstoneCompactor;
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.partition.ArticlePartitions;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Loads the {@link ArticleTextIndex} from its latest segment at startup and catches up with the articles modified
+ * since, or builds it from all the articles when there is no segment. Afterwards the articles modified since the last
+ * read, by this instance or by any other, are read periodically like for the {@link ArticleSearchIndex}, so both
+ * indexes see the writes of the other instances. The index is written to a new segment periodically and on shutdown,
+ * with the time of the last catch-up as its checkpoint.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ArticleTextIndexLoader implements ApplicationRunner, DisposableBean {
+
+  private final ReactiveMongoOperations mongoOperations;
+
+  private final ArticlePartitions articlePartitions;
+
+  private final ArticleTextIndex articleTextIndex;
+
+  private final ArticleTextIndexStore articleTextIndexStore;
+
+  private final Duration catchUpInterval;
+
+  private final Duration flushInterval;
+
+  private volatile Instant checkpoint;
+
+  private Disposable catchUps;
+
+  private Disposable flushes;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    Instant loadStartedAt = Instant.now();
+    Optional<Instant> segmentCheckpoint = articleTextIndexStore.load(articleTextIndex);
+    Query query = segmentCheckpoint
+        .map(ArticleCatchUp::modifiedSince)
+        .orElseGet(() -> query(where("deleted").is(false)));
+    Flux.fromIterable(articlePartitions.getPartitions())
+        .concatMap(partition -> mongoOperations.find(query, Article.class, partition))
+        .doOnNext(this::apply)
+        .concatWith(segmentCheckpoint.map(this::compactedSince).orElse(Flux.empty()))
+        .count()
+        .subscribe(count -> {
+              checkpoint = loadStartedAt;
+              articleTextIndex.markReady();
+              log.info("Article text index is loaded with {} articles {}", count,
+                  segmentCheckpoint.map(c -> "modified since its segment of " + c).orElse("without a segment"));
+              catchUps = ArticleCatchUp.every(catchUpInterval, this::catchUp, "article text index");
+              flushes = Flux.interval(flushInterval, flushInterval, Schedulers.boundedElastic())
+                  .subscribe(tick -> flush());
+            },
+            e -> log.error("Loading article text index is failed, text search is not available", e));
+  }
+
+  @Override
+  public void destroy() {
+    if (catchUps != null) {
+      catchUps.dispose();
+    }
+    if (flushes != null) {
+      flushes.dispose();
+      flush();
+    }
+  }
+
+  private Mono<Void> catchUp() {
+    Instant catchUpStartedAt = Instant.now();
+    Query query = ArticleCatchUp.modifiedSince(checkpoint);
+    return Flux.fromIterable(articlePartitions.getPartitions())
+        .concatMap(partition -> mongoOperations.find(query, Article.class, partition))
+        .doOnNext(this::apply)
+        .concatWith(compactedSince(checkpoint))
+        .count()
+        .doOnNext(count -> {
+          checkpoint = catchUpStartedAt;
+          log.debug("Article text index caught up with {} modified articles", count);
+        })
+        .then();
+  }
+
+  private void apply(Article article) {
+    if (article.isDeleted()) {
+      articleTextIndex.remove(article.getId());
+    } else {
+      articleTextIndex.index(article);
+    }
+  }
+
+  /**
+   * Articles deleted after the checkpoint may already be compacted, so they are not found in the partitions anymore.
+   */
+  private Flux<Article> compactedSince(Instant checkpoint) {
+    Query query = query(where(ArticleTombstoneCompactor.DELETED_AT).gte(checkpoint.minus(ArticleCatchUp.MARGIN)));
+    query.fields().include("_id");
+    return mongoOperations.find(query, Article.class, ArticleTombstoneCompactor.COLLECTION)
+        .doOnNext(article -> articleTextIndex.remove(article.getId()));
+  }
+
+  /**
+   * The segment holds every write made before the last catch-up started, a restart catches up from there.
+   */
+  private void flush() {
+    try {
+      articleTextIndexStore.save(articleTextIndex, checkpoint);
+    } catch (RuntimeException e) {
+      log.error("Writing article text index segment is failed", e);
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package com.github.cenkakin.mynewspaper.index;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the {@link ArticleTextIndex} in segment files of a local directory. A segment is written to a temporary file
+ * and moved into place, so a crash never leaves a partial segment behind, and older segments are deleted afterwards.
+ * Each segment starts with a checkpoint: the articles modified before it are in the segment.
+ */
+@Slf4j
+@AllArgsConstructor
+public class ArticleTextIndexStore {
+
+  private static final int FORMAT_VERSION = 1;
+
+  private static final String SEGMENT_PREFIX = "segment-";
+
+  private static final String SEGMENT_SUFFIX = ".idx";
+
+  private final Path directory;
+
+  /**
+   * Loads the latest segment into the given index.
+   *
+   * @return checkpoint of the loaded segment, or empty when there is no readable segment
+   */
+  public Optional<Instant> load(ArticleTextIndex articleTextIndex) {
+    Optional<Path> latest = segments().stream().reduce((first, second) -> second);
+    if (latest.isEmpty()) {
+      return Optional.empty();
+    }
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(latest.get())))) {
+      if (input.readInt() != FORMAT_VERSION) {
+        log.warn("Article text index segment {} has an unknown format, it is ignored", latest.get());
+        return Optional.empty();
+      }
+      Instant checkpoint = Instant.ofEpochMilli(input.readLong());
+      articleTextIndex.readFrom(input);
+      return Optional.of(checkpoint);
+    } catch (IOException e) {
+      log.warn("Article text index segment {} can not be read, it is ignored", latest.get(), e);
+      return Optional.empty();
+    }
+  }
+
+  public void save(ArticleTextIndex articleTextIndex, Instant checkpoint) {
+    try {
+      Files.createDirectories(directory);
+      Path segment = directory.resolve(SEGMENT_PREFIX + checkpoint.toEpochMilli() + SEGMENT_SUFFIX);
+      Path temporary = Files.createTempFile(directory, SEGMENT_PREFIX, ".tmp");
+      try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+        output.writeInt(FORMAT_VERSION);
+        output.writeLong(checkpoint.toEpochMilli());
+        articleTextIndex.writeTo(output);
+      }
+      Files.move(temporary, segment, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      for (Path older : segments()) {
+        if (!older.equals(segment)) {
+          Files.deleteIfExists(older);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Segments ordered by their checkpoints, oldest first.
+   */
+  private List<Path> segments() {
+    if (!Files.isDirectory(directory)) {
+      return List.of();
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+          .filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+          .sorted(Comparator.comparingLong(ArticleTextIndexStore::checkpointOf))
+          .collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static long checkpointOf(Path segment) {
+    String name = segment.getFileName().toString();
+    return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+  }
+}
@@ -0,0 +1,144 @@
+package com.github.cenkakin.mynewspaper.index;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Append-only postings of a term. Each entry is the gap to the previous ordinal and the term frequency, both written
+ * as variable length integers, so that most entries take two bytes. Ordinals must be appended in increasing order.
+ */
+class CompressedPostings {
+
+  private static final int INITIAL_CAPACITY = 8;
+
+  private byte[] bytes = new byte[INITIAL_CAPACITY];
+
+  private int length;
+
+  private int lastOrdinal = -1;
+
+  private int count;
+
+  private int liveCount;
+
+  @FunctionalInterface
+  interface Consumer {
+
+    void accept(int ordinal, int frequency);
+  }
+
+  void add(int ordinal, int frequency) {
+    if (ordinal <= lastOrdinal) {
+      throw new IllegalArgumentException("Ordinals must be appended in increasing order! ordinal: " + ordinal);
+    }
+    writeVarInt(ordinal - lastOrdinal);
+    writeVarInt(frequency);
+    lastOrdinal = ordinal;
+    count++;
+    liveCount++;
+  }
+
+  /**
+   * Takes the given number of entries out of the live count, their ordinals are not live anymore.
+   */
+  void retire(int entries) {
+    liveCount -= entries;
+  }
+
+  void forEach(Consumer consumer) {
+    int position = 0;
+    int ordinal = -1;
+    while (position < length) {
+      int gap = 0;
+      for (int shift = 0; ; shift += 7) {
+        byte b = bytes[position++];
+        gap |= (b & 0x7F) << shift;
+        if (b >= 0) {
+          break;
+        }
+      }
+      int frequency = 0;
+      for (int shift = 0; ; shift += 7) {
+        byte b = bytes[position++];
+        frequency |= (b & 0x7F) << shift;
+        if (b >= 0) {
+          break;
+        }
+      }
+      ordinal += gap;
+      consumer.accept(ordinal, frequency);
+    }
+  }
+
+  /**
+   * Ordinals of the entries in increasing order, without their frequencies.
+   */
+  int[] toOrdinals() {
+    int[] ordinals = new int[count];
+    int[] index = new int[1];
+    forEach((ordinal, frequency) -> ordinals[index[0]++] = ordinal);
+    return ordinals;
+  }
+
+  /**
+   * Number of entries, including the ones of the ordinals which are not live anymore.
+   */
+  int count() {
+    return count;
+  }
+
+  /**
+   * Number of entries whose ordinals are live, the document frequency of the term.
+   */
+  int liveCount() {
+    return liveCount;
+  }
+
+  /**
+   * Postings having the entries added so far, to be written while entries are added to these ones. Entries are only
+   * appended after the length, or to a grown copy of the bytes, so the bytes are shared instead of copied.
+   */
+  CompressedPostings snapshot() {
+    CompressedPostings snapshot = new CompressedPostings();
+    snapshot.bytes = bytes;
+    snapshot.length = length;
+    snapshot.lastOrdinal = lastOrdinal;
+    snapshot.count = count;
+    snapshot.liveCount = liveCount;
+    return snapshot;
+  }
+
+  void writeTo(DataOutput output) throws IOException {
+    output.writeInt(count);
+    output.writeInt(lastOrdinal);
+    output.writeInt(length);
+    output.write(bytes, 0, length);
+  }
+
+  /**
+   * Every read entry is counted as live, the ones whose ordinals are not live have to be retired.
+   */
+  static CompressedPostings readFrom(DataInput input) throws IOException {
+    CompressedPostings postings = new CompressedPostings();
+    postings.count = input.readInt();
+    postings.liveCount = postings.count;
+    postings.lastOrdinal = input.readInt();
+    postings.length = input.readInt();
+    postings.bytes = new byte[Math.max(postings.length, INITIAL_CAPACITY)];
+    input.readFully(postings.bytes, 0, postings.length);
+    return postings;
+  }
+
+  private void writeVarInt(int value) {
+    if (bytes.length - length < 5) {
+      bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, length + 5));
+    }
+    while ((value & ~0x7F) != 0) {
+      bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    bytes[length++] = (byte) value;
+  }
+}
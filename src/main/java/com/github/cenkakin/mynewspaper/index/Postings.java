@@ -0,0 +1,67 @@
+package com.github.cenkakin.mynewspaper.index;
+
+import java.util.Arrays;
+
+/**
+ * Sorted set of article ordinals, kept in a primitive array so that a posting costs four bytes per article.
+ */
+class Postings {
+
+  private static final int INITIAL_CAPACITY = 4;
+
+  private int[] ordinals = new int[INITIAL_CAPACITY];
+
+  private int size;
+
+  void add(int ordinal) {
+    if (size > 0 && ordinals[size - 1] < ordinal) {
+      append(ordinal);
+      return;
+    }
+    int index = Arrays.binarySearch(ordinals, 0, size, ordinal);
+    if (index >= 0) {
+      return;
+    }
+    int insertionPoint = -index - 1;
+    ensureCapacity();
+    System.arraycopy(ordinals, insertionPoint, ordinals, insertionPoint + 1, size - insertionPoint);
+    ordinals[insertionPoint] = ordinal;
+    size++;
+  }
+
+  void remove(int ordinal) {
+    int index = Arrays.binarySearch(ordinals, 0, size, ordinal);
+    if (index < 0) {
+      return;
+    }
+    System.arraycopy(ordinals, index + 1, ordinals, index, size - index - 1);
+    size--;
+  }
+
+  boolean contains(int ordinal) {
+    return Arrays.binarySearch(ordinals, 0, size, ordinal) >= 0;
+  }
+
+  int get(int index) {
+    return ordinals[index];
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  private void append(int ordinal) {
+    ensureCapacity();
+    ordinals[size++] = ordinal;
+  }
+
+  private void ensureCapacity() {
+    if (size == ordinals.length) {
+      ordinals = Arrays.copyOf(ordinals, size + (size >> 1) + 1);
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package com.github.cenkakin.mynewspaper.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits text into lower case terms of letters and digits, dropping the common english words which do not help ranking.
+ */
+public final class TextAnalyzer {
+
+  private static final int MAX_TERM_LENGTH = 64;
+
+  private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "are", "as", "at", "be", "but", "by", "for",
+      "if", "in", "into", "is", "it", "no", "not", "of", "on", "or", "such", "that", "the", "their", "then", "there",
+      "these", "they", "this", "to", "was", "will", "with");
+
+  private TextAnalyzer() {
+  }
+
+  public static List<String> analyze(String text) {
+    List<String> terms = new ArrayList<>();
+    if (text == null) {
+      return terms;
+    }
+    int start = -1;
+    for (int i = 0; i <= text.length(); i++) {
+      boolean termChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+      if (termChar && start < 0) {
+        start = i;
+      } else if (!termChar && start >= 0) {
+        addTerm(terms, text.substring(start, Math.min(i, start + MAX_TERM_LENGTH)));
+        start = -1;
+      }
+    }
+    return terms;
+  }
+
+  private static void addTerm(List<String> terms, String token) {
+    String term = token.toLowerCase(Locale.ROOT);
+    if (!STOP_WORDS.contains(term)) {
+      terms.add(term);
+    }
+  }
+}
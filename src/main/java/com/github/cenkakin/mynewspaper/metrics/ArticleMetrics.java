@@ -0,0 +1,75 @@
+package com.github.cenkakin.mynewspaper.metrics;
+
+import com.github.cenkakin.mynewspaper.exception.ArticleNotFoundException;
+import com.github.cenkakin.mynewspaper.exception.OutdatedUpdateArticleException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Times the article service methods from subscription to termination, tagged by method and outcome. The main article
+ * streams can additionally be measured with reactor metrics, tagged by their flow name.
+ */
+@AllArgsConstructor
+public class ArticleMetrics {
+
+  public static final String SERVICE_TIMER = "article.service";
+
+  private final MeterRegistry meterRegistry;
+
+  private final boolean timeService;
+
+  private final boolean measureStreams;
+
+  public <T> Mono<T> time(String method, Mono<T> mono) {
+    if (!timeService) {
+      return mono;
+    }
+    return Mono.defer(() -> {
+      Timer.Sample sample = Timer.start(meterRegistry);
+      return mono
+          .doOnSuccess(value -> stop(sample, method, "ok"))
+          .doOnError(e -> stop(sample, method, outcomeOf(e)))
+          .doOnCancel(() -> stop(sample, method, "cancelled"));
+    });
+  }
+
+  public <T> Flux<T> time(String method, Flux<T> flux) {
+    if (!timeService) {
+      return flux;
+    }
+    return Flux.defer(() -> {
+      Timer.Sample sample = Timer.start(meterRegistry);
+      return flux
+          .doOnComplete(() -> stop(sample, method, "ok"))
+          .doOnError(e -> stop(sample, method, outcomeOf(e)))
+          .doOnCancel(() -> stop(sample, method, "cancelled"));
+    });
+  }
+
+  /**
+   * Reactor publishes the meters of the flow to the global registry, which the actuator registry is a part of.
+   */
+  public <T> Flux<T> measure(String flow, Flux<T> flux) {
+    return measureStreams ? flux.name(flow).metrics() : flux;
+  }
+
+  private void stop(Timer.Sample sample, String method, String outcome) {
+    sample.stop(Timer.builder(SERVICE_TIMER)
+        .tag("method", method)
+        .tag("outcome", outcome)
+        .register(meterRegistry));
+  }
+
+  private static String outcomeOf(Throwable e) {
+    if (e instanceof ArticleNotFoundException) {
+      return "not_found";
+    }
+    if (e instanceof OutdatedUpdateArticleException) {
+      return "outdated";
+    }
+    return "error";
+  }
+}
@@ -0,0 +1,77 @@
+package com.github.cenkakin.mynewspaper.metrics;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import org.bson.BsonDocument;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the latency of every mongo command by command name and status, and the number of documents it returned or
+ * wrote.
+ */
+@AllArgsConstructor
+public class MongoCommandMetrics implements CommandListener {
+
+  public static final String COMMAND_TIMER = "mongo.commands";
+
+  public static final String DOCUMENTS_SUMMARY = "mongo.commands.documents";
+
+  private final MeterRegistry meterRegistry;
+
+  @Override
+  public void commandStarted(CommandStartedEvent event) {
+  }
+
+  @Override
+  public void commandSucceeded(CommandSucceededEvent event) {
+    record(event.getCommandName(), "success", event.getElapsedTime(TimeUnit.NANOSECONDS));
+    int documents = documentsOf(event.getResponse());
+    if (documents >= 0) {
+      DistributionSummary.builder(DOCUMENTS_SUMMARY)
+          .baseUnit("documents")
+          .tag("command", event.getCommandName())
+          .register(meterRegistry)
+          .record(documents);
+    }
+  }
+
+  @Override
+  public void commandFailed(CommandFailedEvent event) {
+    record(event.getCommandName(), "failed", event.getElapsedTime(TimeUnit.NANOSECONDS));
+  }
+
+  private void record(String command, String status, long elapsedNanos) {
+    Timer.builder(COMMAND_TIMER)
+        .tag("command", command)
+        .tag("status", status)
+        .register(meterRegistry)
+        .record(elapsedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Reads the size of the returned batch of a cursor, or the number of written documents.
+   *
+   * @return -1 for commands which neither return nor write documents
+   */
+  private static int documentsOf(BsonDocument response) {
+    if (response == null) {
+      return -1;
+    }
+    BsonDocument cursor = response.getDocument("cursor", null);
+    if (cursor != null) {
+      String batch = cursor.containsKey("firstBatch") ? "firstBatch" : "nextBatch";
+      return cursor.containsKey(batch) ? cursor.getArray(batch).size() : -1;
+    }
+    if (response.isNumber("n")) {
+      return response.getNumber("n").intValue();
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,74 @@
+package com.github.cenkakin.mynewspaper.migration;
+
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.partition.ArticlePartitions;
+import com.mongodb.client.result.UpdateResult;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Fills normalized authors and keywords of the articles which were stored before these fields existed. Articles are
+ * not found by author or keyword search until they are backfilled. Completion is recorded once every partition is
+ * backfilled, so later starts do not scan the partitions again.
+ */
+@Slf4j
+@AllArgsConstructor
+public class NormalizedFieldsBackfill implements ApplicationRunner {
+
+  static final String COLLECTION = "migrations";
+
+  private static final String ID = "normalized-fields-backfill";
+
+  private static final int CONCURRENCY = 8;
+
+  private final ReactiveMongoOperations mongoOperations;
+
+  private final ArticlePartitions articlePartitions;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    backfill()
+        .subscribe(count -> log.info("Normalized authors and keywords of {} articles are backfilled", count),
+            e -> log.error("Backfilling normalized authors and keywords is failed", e));
+  }
+
+  /**
+   * @return number of backfilled articles, nothing if the backfill was completed before
+   */
+  public Mono<Long> backfill() {
+    Query query = query(where("normalizedAuthors").exists(false));
+    query.fields().include("authors").include("keywords");
+    return mongoOperations.exists(query(where("_id").is(ID)), COLLECTION)
+        .filter(completed -> !completed)
+        .flatMap(notCompleted -> Flux.fromIterable(articlePartitions.getPartitions())
+            .concatMap(partition -> mongoOperations.find(query, Article.class, partition)
+                .flatMap(article -> backfill(article, partition), CONCURRENCY))
+            .count())
+        .flatMap(count -> mongoOperations.upsert(query(where("_id").is(ID)), Update.update("completedAt", Instant.now()),
+            COLLECTION)
+            .thenReturn(count));
+  }
+
+  /**
+   * An article which got its normalized fields meanwhile is left as it is, it may have been updated since it was read.
+   */
+  private Mono<UpdateResult> backfill(Article article, String partition) {
+    Update update = new Update()
+        .set("normalizedAuthors", Article.normalize(article.getAuthors()))
+        .set("normalizedKeywords", Article.normalize(article.getKeywords()));
+    return mongoOperations.updateFirst(query(where("id").is(article.getId()).and("normalizedAuthors").exists(false)),
+        update, Article.class, partition);
+  }
+}
@@ -0,0 +1,59 @@
+package com.github.cenkakin.mynewspaper.partition;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import lombok.AllArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Knows the archive partition of every archived article, so an article can be read by id without asking every
+ * partition. Articles of the hot partition have no entry, which keeps the lookup as small as the archive is cold.
+ */
+@AllArgsConstructor
+public class ArticlePartitionLookup {
+
+  static final String COLLECTION = "article_partition_lookup";
+
+  private static final String PARTITION = "partition";
+
+  private final ReactiveMongoOperations mongoOperations;
+
+  public Mono<String> find(String id) {
+    return mongoOperations.findById(id, Document.class, COLLECTION)
+        .map(entry -> entry.getString(PARTITION));
+  }
+
+  /**
+   * @return archive partitions of the given ids, ids which are not archived are left out
+   */
+  public Mono<Map<String, String>> find(Collection<String> ids) {
+    return mongoOperations.execute(COLLECTION, collection -> collection.find(Filters.in("_id", ids)))
+        .collectMap(entry -> entry.getString("_id"), entry -> entry.getString(PARTITION));
+  }
+
+  public Mono<Void> put(Collection<String> ids, String partition) {
+    if (ids.isEmpty()) {
+      return Mono.empty();
+    }
+    List<ReplaceOneModel<Document>> entries = ids.stream()
+        .map(id -> new ReplaceOneModel<>(Filters.eq("_id", id), new Document("_id", id).append(PARTITION, partition),
+            new ReplaceOptions().upsert(true)))
+        .collect(Collectors.toList());
+    return mongoOperations.execute(COLLECTION, collection -> collection.bulkWrite(entries)).then();
+  }
+
+  public Mono<Void> remove(Collection<String> ids) {
+    if (ids.isEmpty()) {
+      return Mono.empty();
+    }
+    return mongoOperations.execute(COLLECTION, collection -> collection.deleteMany(Filters.in("_id", ids))).then();
+  }
+}
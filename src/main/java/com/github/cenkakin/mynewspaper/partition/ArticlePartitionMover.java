@@ -0,0 +1,112 @@
+package com.github.cenkakin.mynewspaper.partition;
+
+import com.mongodb.client.model.Filters;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Moves the articles published before the hot period from the hot partition to the archive partitions of their years
+ * in batches, and then moves the archive boundary forward. Runs periodically, a run is not started before the previous
+ * one is over.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ArticlePartitionMover implements ApplicationRunner, DisposableBean {
+
+  private final ReactiveMongoOperations mongoOperations;
+
+  private final ArticlePartitions articlePartitions;
+
+  private final Duration hotPeriod;
+
+  private final Duration moveInterval;
+
+  private final int batchSize;
+
+  private final AtomicLong movedArticles = new AtomicLong();
+
+  private Disposable moves;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    moves = Flux.interval(moveInterval, moveInterval, Schedulers.boundedElastic())
+        .onBackpressureDrop()
+        .concatMap(tick -> move()
+            .onErrorResume(e -> {
+              log.error("Moving articles to the archive partitions is failed", e);
+              return Mono.empty();
+            }), 1)
+        .subscribe();
+  }
+
+  @Override
+  public void destroy() {
+    if (moves != null) {
+      moves.dispose();
+    }
+  }
+
+  /**
+   * Articles written with the previous boundary after the first pass are archived by a second pass after the
+   * boundary is moved.
+   *
+   * @return number of the moved articles
+   */
+  public Mono<Long> move() {
+    LocalDate archiveBefore = LocalDate.now().minusDays(hotPeriod.toDays());
+    return articlePartitions.refresh()
+        .then(moveBefore(archiveBefore))
+        .flatMap(moved -> articlePartitions.advance(archiveBefore)
+            .then(moveBefore(archiveBefore))
+            .map(late -> moved + late))
+        .doOnNext(moved -> log.info("{} articles published before {} are moved to the archive partitions", moved,
+            archiveBefore));
+  }
+
+  public long getMovedArticles() {
+    return movedArticles.get();
+  }
+
+  private Mono<Long> moveBefore(LocalDate archiveBefore) {
+    return moveBatch(archiveBefore)
+        .expand(moved -> moved > 0 ? moveBatch(archiveBefore) : Mono.empty())
+        .reduce(0L, Long::sum);
+  }
+
+  /**
+   * A batch is over when none of its articles could be moved, they were all modified while being moved.
+   */
+  private Mono<Long> moveBatch(LocalDate archiveBefore) {
+    String hotPartition = articlePartitions.getHotPartition();
+    Object before = mongoOperations.getConverter().convertToMongoType(archiveBefore);
+    return mongoOperations.execute(hotPartition, collection -> collection.find(Filters.lt("publishDate", before))
+        .batchSize(batchSize)
+        .limit(batchSize))
+        .collect(Collectors.groupingBy(this::yearOf))
+        .flatMapMany(byYear -> Flux.fromIterable(byYear.entrySet()))
+        .concatMap(year -> articlePartitions.archive(year.getKey())
+            .flatMap(archive -> articlePartitions.move(year.getValue(), hotPartition, archive)))
+        .reduce(0L, Long::sum)
+        .doOnNext(movedArticles::addAndGet);
+  }
+
+  private int yearOf(Document article) {
+    return mongoOperations.getConverter().getConversionService()
+        .convert(article.getDate("publishDate"), LocalDate.class)
+        .getYear();
+  }
+}
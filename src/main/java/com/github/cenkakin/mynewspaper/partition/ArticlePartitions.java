@@ -0,0 +1,264 @@
+package com.github.cenkakin.mynewspaper.partition;
+
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import lombok.Value;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Splits the articles by publish date into the hot partition, which is the article collection itself, and an archive
+ * partition per year for the articles published before the archive boundary. Every article lives in one partition
+ * only, except while it is moved, so a query has to ask the partitions overlapping its publish dates only.
+ * <p>
+ * The boundary and the archive years are kept in mongo. The boundary is moved forward by the
+ * {@link ArticlePartitionMover} once the articles before it are archived. Another instance sees a new boundary when
+ * its partitions are refreshed, until then it writes articles published right before the boundary to the hot partition,
+ * where searches no longer look for them, and the next move archives them.
+ */
+public class ArticlePartitions {
+
+  private static final String STATE_COLLECTION = "article_partitions";
+
+  private static final String STATE_ID = "article";
+
+  private final ReactiveMongoOperations mongoOperations;
+
+  private final ArticlePartitionLookup lookup;
+
+  private final String hotPartition;
+
+  private final List<IndexDefinition> indexes;
+
+  private final Set<String> indexedArchives = ConcurrentHashMap.newKeySet();
+
+  private volatile State state = new State(null, new TreeSet<>());
+
+  public ArticlePartitions(ReactiveMongoOperations mongoOperations, ArticlePartitionLookup lookup) {
+    this.mongoOperations = mongoOperations;
+    this.lookup = lookup;
+    this.hotPartition = mongoOperations.getCollectionName(Article.class);
+    this.indexes = StreamSupport
+        .stream(IndexResolver.create(mongoOperations.getConverter().getMappingContext()).resolveIndexFor(Article.class).spliterator(), false)
+        .collect(Collectors.toList());
+  }
+
+  public String getHotPartition() {
+    return hotPartition;
+  }
+
+  /**
+   * @return the first publish date of the hot partition, null when nothing is archived yet
+   */
+  public LocalDate getArchivedBefore() {
+    return state.getArchivedBefore();
+  }
+
+  public boolean isPartitioned() {
+    return !state.getArchiveYears().isEmpty();
+  }
+
+  /**
+   * @return every partition, the hot one first and the archives from the newest on
+   */
+  public List<String> getPartitions() {
+    return partitionsFor(PublishDateRange.ALL);
+  }
+
+  /**
+   * @return partitions which may hold articles published in the range, the hot one first and the archives from the
+   * newest on
+   */
+  public List<String> partitionsFor(PublishDateRange range) {
+    State current = state;
+    List<String> partitions = new ArrayList<>();
+    if (range.overlaps(current.getArchivedBefore(), null)) {
+      partitions.add(hotPartition);
+    }
+    for (int year : current.getArchiveYears().descendingSet()) {
+      if (range.overlaps(LocalDate.of(year, 1, 1), LocalDate.of(year + 1, 1, 1))) {
+        partitions.add(archivePartition(year));
+      }
+    }
+    return partitions;
+  }
+
+  /**
+   * Resolves the partition an article published at the given date is written to, the archive partition of its year
+   * is created if it does not exist yet.
+   */
+  public Mono<String> partitionFor(LocalDate publishDate) {
+    LocalDate archivedBefore = state.getArchivedBefore();
+    if (publishDate == null || archivedBefore == null || !publishDate.isBefore(archivedBefore)) {
+      return Mono.just(hotPartition);
+    }
+    return archive(publishDate.getYear());
+  }
+
+  public boolean isHot(String partition) {
+    return hotPartition.equals(partition);
+  }
+
+  /**
+   * @return archive partition of the article, empty if it is not archived
+   */
+  public Mono<String> archivedPartitionOf(String id) {
+    return isPartitioned() ? lookup.find(id) : Mono.empty();
+  }
+
+  public Mono<Map<String, String>> archivedPartitionsOf(Collection<String> ids) {
+    return isPartitioned() ? lookup.find(ids) : Mono.just(Map.of());
+  }
+
+  /**
+   * Removes the lookup entries of the articles which are removed from their partitions for good.
+   */
+  public Mono<Void> forget(Collection<String> ids) {
+    return isPartitioned() ? lookup.remove(ids) : Mono.empty();
+  }
+
+  /**
+   * Creates the archive partition of the year with the indexes of the article collection. The year is stored before
+   * any article is written to it, so searches ask the new partition from then on. Indexes are ensured once per start,
+   * so an archive gets the indexes declared after it was created.
+   */
+  public Mono<String> archive(int year) {
+    String partition = archivePartition(year);
+    if (state.getArchiveYears().contains(year) && indexedArchives.contains(partition)) {
+      return Mono.just(partition);
+    }
+    return Flux.fromIterable(indexes)
+        .concatMap(index -> mongoOperations.indexOps(partition).ensureIndex(index))
+        .then(mongoOperations.upsert(query(where("_id").is(STATE_ID)), new Update().addToSet("archiveYears", year),
+            STATE_COLLECTION))
+        .doOnSuccess(result -> {
+          indexedArchives.add(partition);
+          merge(new State(null, new TreeSet<>(Set.of(year))));
+        })
+        .thenReturn(partition);
+  }
+
+  /**
+   * Reads the boundary and the archive years stored by any instance.
+   */
+  public Mono<Void> refresh() {
+    return mongoOperations.findById(STATE_ID, Document.class, STATE_COLLECTION)
+        .doOnNext(stored -> merge(new State(
+            stored.getString("archivedBefore") == null ? null : LocalDate.parse(stored.getString("archivedBefore")),
+            new TreeSet<>(stored.getList("archiveYears", Integer.class, List.of())))))
+        .then();
+  }
+
+  /**
+   * Moves the boundary forward, it is never moved back. Only called once the articles before it are archived.
+   */
+  public Mono<Void> advance(LocalDate archivedBefore) {
+    // ISO dates are in the same order as their strings
+    return mongoOperations.upsert(query(where("_id").is(STATE_ID)),
+        new Update().max("archivedBefore", archivedBefore.toString()), STATE_COLLECTION)
+        .doOnSuccess(result -> merge(new State(archivedBefore, new TreeSet<>())))
+        .then();
+  }
+
+  /**
+   * Copies the articles to the target partition and removes them from the source one. An article modified meanwhile
+   * does not match its version anymore and is not removed, its copy is removed instead, so it stays where it was. The
+   * lookup is updated before the copy when the target is an archive, and after the removal otherwise, so an article is
+   * always found by id in the hot partition or in the one of the lookup.
+   *
+   * @param articles article documents as stored in the source partition
+   * @return number of the moved articles
+   */
+  public Mono<Long> move(List<Document> articles, String from, String to) {
+    if (articles.isEmpty()) {
+      return Mono.just(0L);
+    }
+    List<Object> ids = articles.stream().map(article -> article.get("_id")).collect(Collectors.toList());
+    List<ReplaceOneModel<Document>> copies = articles.stream()
+        .map(article -> new ReplaceOneModel<>(Filters.eq("_id", article.get("_id")), article,
+            new ReplaceOptions().upsert(true)))
+        .collect(Collectors.toList());
+    List<DeleteOneModel<Document>> removals = articles.stream()
+        .map(article -> new DeleteOneModel<Document>(
+            Filters.and(Filters.eq("_id", article.get("_id")), Filters.eq("version", article.get("version")))))
+        .collect(Collectors.toList());
+    return (isHot(to) ? Mono.<Void>empty() : lookup.put(lookupIds(ids), to))
+        .then(mongoOperations.execute(to, collection -> collection.bulkWrite(copies)).then())
+        .then(mongoOperations.execute(from, collection -> collection.bulkWrite(removals)).then())
+        .then(mongoOperations.execute(from, collection -> collection.find(Filters.in("_id", ids))
+            .projection(Projections.include("_id")))
+            .map(remaining -> remaining.get("_id"))
+            .collect(Collectors.toSet()))
+        .flatMap(remaining -> rollBack(remaining, from, to)
+            .then(isHot(to) ? lookup.remove(lookupIds(moved(ids, remaining))) : Mono.empty())
+            .thenReturn((long) (ids.size() - remaining.size())));
+  }
+
+  private Mono<Void> rollBack(Set<Object> remaining, String from, String to) {
+    if (remaining.isEmpty()) {
+      return Mono.empty();
+    }
+    List<String> remainingIds = lookupIds(remaining);
+    return mongoOperations.execute(to, collection -> collection.deleteMany(Filters.in("_id", remaining)))
+        .then(isHot(to) ? Mono.empty() : isHot(from) ? lookup.remove(remainingIds) : lookup.put(remainingIds, from));
+  }
+
+  private String archivePartition(int year) {
+    return hotPartition + "_archive_" + year;
+  }
+
+  private synchronized void merge(State other) {
+    State current = state;
+    LocalDate archivedBefore = current.getArchivedBefore();
+    if (archivedBefore == null
+        || other.getArchivedBefore() != null && other.getArchivedBefore().isAfter(archivedBefore)) {
+      archivedBefore = other.getArchivedBefore();
+    }
+    NavigableSet<Integer> archiveYears = new TreeSet<>(current.getArchiveYears());
+    archiveYears.addAll(other.getArchiveYears());
+    state = new State(archivedBefore, archiveYears);
+  }
+
+  private static List<Object> moved(List<Object> ids, Set<Object> remaining) {
+    return ids.stream().filter(id -> !remaining.contains(id)).collect(Collectors.toList());
+  }
+
+  /**
+   * Ids are stored as object ids, the lookup is keyed by their strings like the articles are.
+   */
+  private static List<String> lookupIds(Collection<Object> ids) {
+    return ids.stream().map(String::valueOf).collect(Collectors.toList());
+  }
+
+  @Value
+  private static class State {
+
+    LocalDate archivedBefore;
+
+    NavigableSet<Integer> archiveYears;
+  }
+}
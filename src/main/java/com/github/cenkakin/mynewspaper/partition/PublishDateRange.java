@@ -0,0 +1,143 @@
+package com.github.cenkakin.mynewspaper.partition;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inclusive range of publish dates a query can match, a missing bound is open. It is read from the filter document of
+ * the query, so it is never narrower than the filter, only possibly wider when the filter has conditions it does not
+ * understand.
+ */
+@Value
+public class PublishDateRange {
+
+  public static final PublishDateRange ALL = new PublishDateRange(null, null);
+
+  private static final String PUBLISH_DATE = "publishDate";
+
+  LocalDate from;
+
+  LocalDate to;
+
+  /**
+   * Reads the bounds of the publish date from an unmapped filter, as written by the querydsl serializer. Top level
+   * conditions and the ones under $and narrow the range, the branches of an $or widen it to the range of all of them.
+   */
+  public static PublishDateRange of(Map<String, ?> filter) {
+    PublishDateRange range = ALL;
+    for (Map.Entry<String, ?> condition : filter.entrySet()) {
+      range = range.intersect(ofCondition(condition.getKey(), condition.getValue()));
+    }
+    return range;
+  }
+
+  public boolean isEmpty() {
+    return from != null && to != null && from.isAfter(to);
+  }
+
+  /**
+   * @param endExclusive null for no end
+   */
+  public boolean overlaps(LocalDate start, LocalDate endExclusive) {
+    if (isEmpty()) {
+      return false;
+    }
+    return (to == null || start == null || !to.isBefore(start))
+        && (from == null || endExclusive == null || from.isBefore(endExclusive));
+  }
+
+  private static PublishDateRange ofCondition(String field, Object value) {
+    if ("$and".equals(field) && value instanceof List) {
+      PublishDateRange range = ALL;
+      for (Object filter : (List<?>) value) {
+        range = range.intersect(ofFilter(filter));
+      }
+      return range;
+    }
+    if ("$or".equals(field) && value instanceof List && !((List<?>) value).isEmpty()) {
+      PublishDateRange range = null;
+      for (Object filter : (List<?>) value) {
+        PublishDateRange branch = ofFilter(filter);
+        range = range == null ? branch : range.union(branch);
+      }
+      return range;
+    }
+    if (!PUBLISH_DATE.equals(field)) {
+      return ALL;
+    }
+    if (value instanceof LocalDate) {
+      return new PublishDateRange((LocalDate) value, (LocalDate) value);
+    }
+    return value instanceof Map ? ofOperators((Map<?, ?>) value) : ALL;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static PublishDateRange ofFilter(Object filter) {
+    return filter instanceof Map ? of((Map<String, ?>) filter) : ALL;
+  }
+
+  /**
+   * Publish dates are whole days, so an exclusive bound is the next or the previous day.
+   */
+  private static PublishDateRange ofOperators(Map<?, ?> operators) {
+    PublishDateRange range = ALL;
+    for (Map.Entry<?, ?> operator : operators.entrySet()) {
+      if (!(operator.getValue() instanceof LocalDate)) {
+        continue;
+      }
+      LocalDate date = (LocalDate) operator.getValue();
+      switch (String.valueOf(operator.getKey())) {
+        case "$eq":
+          range = range.intersect(new PublishDateRange(date, date));
+          break;
+        case "$gt":
+          range = range.intersect(new PublishDateRange(date.plusDays(1), null));
+          break;
+        case "$gte":
+          range = range.intersect(new PublishDateRange(date, null));
+          break;
+        case "$lt":
+          range = range.intersect(new PublishDateRange(null, date.minusDays(1)));
+          break;
+        case "$lte":
+          range = range.intersect(new PublishDateRange(null, date));
+          break;
+        default:
+          break;
+      }
+    }
+    return range;
+  }
+
+  private PublishDateRange intersect(PublishDateRange other) {
+    return new PublishDateRange(later(from, other.from), earlier(to, other.to));
+  }
+
+  private PublishDateRange union(PublishDateRange other) {
+    if (isEmpty()) {
+      return other;
+    }
+    if (other.isEmpty()) {
+      return this;
+    }
+    return new PublishDateRange(from == null || other.from == null ? null : earlier(from, other.from),
+        to == null || other.to == null ? null : later(to, other.to));
+  }
+
+  private static LocalDate later(LocalDate first, LocalDate second) {
+    if (first == null) {
+      return second;
+    }
+    return second == null || first.isAfter(second) ? first : second;
+  }
+
+  private static LocalDate earlier(LocalDate first, LocalDate second) {
+    if (first == null) {
+      return second;
+    }
+    return second == null || first.isBefore(second) ? first : second;
+  }
+}
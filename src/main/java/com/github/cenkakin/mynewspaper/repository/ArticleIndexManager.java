@@ -0,0 +1,103 @@
+package com.github.cenkakin.mynewspaper.repository;
+
+import com.github.cenkakin.mynewspaper.configuration.ArticleIndexProperties;
+import com.github.cenkakin.mynewspaper.domain.Article;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Keeps the indexes of the article collection in line with the ones declared on {@link Article}. Missing indexes are
+ * created at startup unless it is disabled, and in strict mode the application does not start while any is missing.
+ */
+@Slf4j
+public class ArticleIndexManager implements ApplicationRunner {
+
+  private static final String ID_INDEX = "_id_";
+
+  private final ReactiveMongoOperations mongoOperations;
+
+  private final ArticleIndexProperties properties;
+
+  private final Map<String, IndexDefinition> declaredIndexes;
+
+  public ArticleIndexManager(ReactiveMongoOperations mongoOperations, ArticleIndexProperties properties) {
+    this.mongoOperations = mongoOperations;
+    this.properties = properties;
+    this.declaredIndexes = StreamSupport
+        .stream(IndexResolver.create(mongoOperations.getConverter().getMappingContext()).resolveIndexFor(Article.class).spliterator(), false)
+        .collect(Collectors.toMap(index -> index.getIndexOptions().getString("name"), index -> index));
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    List<String> missing = (properties.isCreateMissing() ? createMissingIndexes() : findMissingIndexes()).block();
+    if (missing.isEmpty()) {
+      log.info("All {} declared article indexes exist", declaredIndexes.size());
+    } else if (properties.isStrict()) {
+      throw new IllegalStateException("Declared article indexes are missing: " + missing);
+    } else {
+      log.warn("Declared article indexes are missing: {}", missing);
+    }
+  }
+
+  public Mono<ArticleIndexReport> report() {
+    return Mono.zip(existingIndexNames(), usedIndexNames())
+        .map(existingAndUsed -> {
+          Set<String> existing = existingAndUsed.getT1();
+          Set<String> used = existingAndUsed.getT2();
+          return new ArticleIndexReport(
+              sorted(declaredIndexes.keySet().stream()),
+              sorted(declaredIndexes.keySet().stream().filter(name -> !existing.contains(name))),
+              sorted(existing.stream().filter(name -> !ID_INDEX.equals(name) && !used.contains(name))),
+              sorted(existing.stream().filter(name -> !ID_INDEX.equals(name) && !declaredIndexes.containsKey(name))));
+        });
+  }
+
+  private Mono<List<String>> createMissingIndexes() {
+    return findMissingIndexes()
+        .flatMapMany(Flux::fromIterable)
+        .concatMap(name -> mongoOperations.indexOps(Article.class).ensureIndex(declaredIndexes.get(name))
+            .doOnNext(created -> log.info("Article index {} is created", created)))
+        .then(findMissingIndexes());
+  }
+
+  private Mono<List<String>> findMissingIndexes() {
+    return existingIndexNames()
+        .map(existing -> sorted(declaredIndexes.keySet().stream().filter(name -> !existing.contains(name))));
+  }
+
+  private Mono<Set<String>> existingIndexNames() {
+    return mongoOperations.indexOps(Article.class).getIndexInfo()
+        .map(IndexInfo::getName)
+        .collect(Collectors.toSet());
+  }
+
+  /**
+   * Usage counters of $indexStats are reset when the mongo server restarts.
+   */
+  private Mono<Set<String>> usedIndexNames() {
+    return mongoOperations.execute(Article.class, collection -> collection.aggregate(List.of(new Document("$indexStats", new Document()))))
+        .filter(stats -> ((Number) ((Document) stats.get("accesses")).get("ops")).longValue() > 0)
+        .map(stats -> stats.getString("name"))
+        .collect(Collectors.toSet());
+  }
+
+  private static List<String> sorted(Stream<String> names) {
+    return names.sorted().collect(Collectors.toList());
+  }
+}
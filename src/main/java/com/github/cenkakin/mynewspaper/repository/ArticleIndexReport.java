@@ -0,0 +1,26 @@
+package com.github.cenkakin.mynewspaper.repository;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Created by cenkakin
+ */
+@Value
+public class ArticleIndexReport {
+
+  private final List<String> declared;
+
+  private final List<String> missing;
+
+  /**
+   * Indexes which have not been used since the mongo server started.
+   */
+  private final List<String> unused;
+
+  /**
+   * Indexes which exist in the collection but are not declared on {@link com.github.cenkakin.mynewspaper.domain.Article}.
+   */
+  private final List<String> undeclared;
+}
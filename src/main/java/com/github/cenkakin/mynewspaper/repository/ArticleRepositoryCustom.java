@@ -0,0 +1,84 @@
+package com.github.cenkakin.mynewspaper.repository;
+
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.domain.ArticleFields;
+import com.github.cenkakin.mynewspaper.domain.ArticleSummary;
+import com.github.cenkakin.mynewspaper.domain.PartialArticle;
+import com.querydsl.core.types.Predicate;
+import org.bson.RawBsonDocument;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Created by cenkakin
+ */
+public interface ArticleRepositoryCustom {
+
+  /**
+   * Inserts the article into the partition of its publish date. The methods of this interface are routed to the
+   * partitions of the articles, the inherited repository methods other than this one only see the hot partition.
+   */
+  <S extends Article> Mono<S> insert(S article);
+
+  Mono<Article> findByIdAndDeletedFalse(String id);
+
+  Flux<Article> findByIdInAndDeletedFalse(Collection<String> ids);
+
+  Flux<ArticleSummary> findSummaryPage(Predicate predicate, Sort sort, int limit);
+
+  /**
+   * Streams the summaries straight from the mongo cursor. Only batchSize summaries are fetched at a time, and the next
+   * batch is not fetched before the previous one is requested downstream.
+   *
+   * @param limit maximum number of summaries, 0 for no limit
+   */
+  Flux<ArticleSummary> streamSummaries(Predicate predicate, Sort sort, int limit, int batchSize);
+
+  Flux<ArticleSummary> findSummariesByIdInAndDeletedFalse(Collection<String> ids, Sort sort);
+
+  /**
+   * Reads the summaries as raw bson, so they can be written without being mapped to objects.
+   */
+  Flux<RawBsonDocument> findRawSummaryPage(Predicate predicate, Sort sort, int limit);
+
+  Flux<RawBsonDocument> findRawSummariesByIdInAndDeletedFalse(Collection<String> ids, Sort sort);
+
+  /**
+   * Reads only the given fields of the articles with a projection, the documents are not mapped to articles.
+   */
+  Flux<PartialArticle> findPartialPage(Predicate predicate, Sort sort, int limit, ArticleFields fields);
+
+  Flux<PartialArticle> findPartialsByIdInAndDeletedFalse(Collection<String> ids, Sort sort, ArticleFields fields);
+
+  Mono<PartialArticle> findPartialByIdAndDeletedFalse(String id, ArticleFields fields);
+
+  /**
+   * Replaces the content of a not deleted article and increments its version in one atomic operation, if its current
+   * version is smaller than the given one.
+   *
+   * @return the updated article, or empty when the article is missing, deleted or not older than the given version
+   */
+  Mono<Article> updateIfOlderThan(String id, long version, Article content);
+
+  Mono<Long> findVersionByIdAndDeletedFalse(String id);
+
+  /**
+   * Inserts the articles with one unordered insertMany, so a failing article does not stop the others. Ids of the
+   * articles which have none, version and audit dates are assigned to the given articles before they are written.
+   *
+   * @return errors of the articles which are not inserted, by their position in the given list
+   */
+  Mono<Map<Integer, String>> insertManyUnordered(List<Article> articles);
+
+  /**
+   * Flags a not deleted article as deleted without reading it.
+   *
+   * @return true if an article was deleted, false if it was missing or already deleted
+   */
+  Mono<Boolean> markDeletedByIdAndDeletedFalse(String id);
+}
@@ -0,0 +1,391 @@
+package com.github.cenkakin.mynewspaper.repository;
+
+import com.github.cenkakin.mynewspaper.codec.RawArticleJsonTranscoder;
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.domain.ArticleFields;
+import com.github.cenkakin.mynewspaper.domain.ArticleSummary;
+import com.github.cenkakin.mynewspaper.domain.PartialArticle;
+import com.github.cenkakin.mynewspaper.partition.ArticlePartitions;
+import com.github.cenkakin.mynewspaper.partition.PublishDateRange;
+import com.github.cenkakin.mynewspaper.util.QuerydslDocumentSerializer;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import com.querydsl.core.types.Predicate;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Created by cenkakin
+ */
+public class ArticleRepositoryImpl implements ArticleRepositoryCustom {
+
+  private final ReactiveMongoOperations mongoOperations;
+
+  private final ArticlePartitions articlePartitions;
+
+  private final QuerydslDocumentSerializer serializer = new QuerydslDocumentSerializer();
+
+  private final QueryMapper queryMapper;
+
+  public ArticleRepositoryImpl(ReactiveMongoOperations mongoOperations, ArticlePartitions articlePartitions) {
+    this.mongoOperations = mongoOperations;
+    this.articlePartitions = articlePartitions;
+    this.queryMapper = new QueryMapper(mongoOperations.getConverter());
+  }
+
+  /**
+   * Inserts the article into the partition of its publish date.
+   */
+  @Override
+  public <S extends Article> Mono<S> insert(S article) {
+    return articlePartitions.partitionFor(article.getPublishDate())
+        .flatMap(partition -> mongoOperations.insert(article, partition));
+  }
+
+  @Override
+  public Mono<Article> findByIdAndDeletedFalse(String id) {
+    return findById(id, partition ->
+        mongoOperations.findOne(query(where("id").is(id).and("deleted").is(false)), Article.class, partition));
+  }
+
+  @Override
+  public Flux<Article> findByIdInAndDeletedFalse(Collection<String> ids) {
+    return findByIds(ids, Sort.unsorted(), (i, partition) ->
+            mongoOperations.find(query(where("id").in(i).and("deleted").is(false)), Article.class, partition),
+        Article::getId, Article::getPublishDate);
+  }
+
+  @Override
+  public Flux<ArticleSummary> findSummaryPage(Predicate predicate, Sort sort, int limit) {
+    Query query = new BasicQuery(serializer.toDocument(predicate))
+        .with(sort)
+        .limit(limit);
+    return findInPartitions(query, summariesOf(query), ArticleSummary::getId, ArticleSummary::getPublishDate);
+  }
+
+  @Override
+  public Flux<ArticleSummary> streamSummaries(Predicate predicate, Sort sort, int limit, int batchSize) {
+    Query query = new BasicQuery(serializer.toDocument(predicate))
+        .with(sort)
+        .limit(limit)
+        .cursorBatchSize(batchSize);
+    return findInPartitions(query, summariesOf(query), ArticleSummary::getId, ArticleSummary::getPublishDate);
+  }
+
+  @Override
+  public Flux<ArticleSummary> findSummariesByIdInAndDeletedFalse(Collection<String> ids, Sort sort) {
+    return findByIds(ids, sort,
+        (i, partition) -> summariesOf(query(where("id").in(i).and("deleted").is(false)).with(sort)).apply(partition),
+        ArticleSummary::getId, ArticleSummary::getPublishDate);
+  }
+
+  @Override
+  public Flux<RawBsonDocument> findRawSummaryPage(Predicate predicate, Sort sort, int limit) {
+    Query query = new BasicQuery(serializer.toDocument(predicate))
+        .with(sort)
+        .limit(limit);
+    return findInPartitions(query, rawSummariesOf(query), RawArticleJsonTranscoder::readId,
+        RawArticleJsonTranscoder::readPublishDate);
+  }
+
+  @Override
+  public Flux<RawBsonDocument> findRawSummariesByIdInAndDeletedFalse(Collection<String> ids, Sort sort) {
+    return findByIds(ids, sort,
+        (i, partition) -> rawSummariesOf(query(where("id").in(i).and("deleted").is(false)).with(sort)).apply(partition),
+        RawArticleJsonTranscoder::readId, RawArticleJsonTranscoder::readPublishDate);
+  }
+
+  @Override
+  public Flux<PartialArticle> findPartialPage(Predicate predicate, Sort sort, int limit, ArticleFields fields) {
+    Query query = new BasicQuery(serializer.toDocument(predicate))
+        .with(sort)
+        .limit(limit);
+    return findInPartitions(query, partialsOf(query, fields), PartialArticle::getId, PartialArticle::getPublishDate);
+  }
+
+  @Override
+  public Flux<PartialArticle> findPartialsByIdInAndDeletedFalse(Collection<String> ids, Sort sort,
+                                                                ArticleFields fields) {
+    return findByIds(ids, sort,
+        (i, partition) -> partialsOf(query(where("id").in(i).and("deleted").is(false)).with(sort), fields)
+            .apply(partition),
+        PartialArticle::getId, PartialArticle::getPublishDate);
+  }
+
+  @Override
+  public Mono<PartialArticle> findPartialByIdAndDeletedFalse(String id, ArticleFields fields) {
+    Function<String, Flux<PartialArticle>> find = partialsOf(query(where("id").is(id).and("deleted").is(false)), fields);
+    return findById(id, partition -> find.apply(partition).next());
+  }
+
+  /**
+   * An article whose publish date is changed to the span of another partition is moved there after the update.
+   */
+  @Override
+  public Mono<Article> updateIfOlderThan(String id, long version, Article content) {
+    Query query = query(where("id").is(id).and("deleted").is(false).and("version").lt(version));
+    Update update = new Update()
+        .set("header", content.getHeader())
+        .set("shortDescription", content.getShortDescription())
+        .set("text", content.getText())
+        .set("publishDate", content.getPublishDate())
+        .set("authors", content.getAuthors())
+        .set("keywords", content.getKeywords())
+        .set("normalizedAuthors", content.getNormalizedAuthors())
+        .set("normalizedKeywords", content.getNormalizedKeywords())
+        .currentDate("lastModifiedAt")
+        .inc("version", 1);
+    return writeById(id, partition -> mongoOperations.findAndModify(query, update,
+        FindAndModifyOptions.options().returnNew(true), Article.class, partition)
+        .map(article -> Tuples.of(article, partition)))
+        .flatMap(updated -> relocate(updated.getT1(), updated.getT2()));
+  }
+
+  private Mono<Article> relocate(Article article, String partition) {
+    return articlePartitions.partitionFor(article.getPublishDate())
+        .flatMap(target -> {
+          if (target.equals(partition)) {
+            return Mono.just(article);
+          }
+          Document document = new Document();
+          mongoOperations.getConverter().write(article, document);
+          return articlePartitions.move(List.of(document), partition, target).thenReturn(article);
+        });
+  }
+
+  /**
+   * Runs the query on the partitions which may hold the publish dates it matches, and merges their results in the
+   * order of the query. Only publish date and id orders can be merged, which are the orders of the keyset pages.
+   */
+  private <T> Flux<T> findInPartitions(Query query, Function<String, Flux<T>> find, Function<T, String> idOf,
+                                       Function<T, LocalDate> publishDateOf) {
+    List<String> partitions = articlePartitions.partitionsFor(PublishDateRange.of(query.getQueryObject()));
+    if (partitions.size() == 1) {
+      return find.apply(partitions.get(0));
+    }
+    @SuppressWarnings("unchecked")
+    Flux<T>[] results = partitions.stream().map(find).toArray(Flux[]::new);
+    // an article being moved may be in two partitions for a moment, its copies are next to each other
+    Flux<T> merged = Flux.mergeOrdered(orderOf(query.getSortObject(), idOf, publishDateOf), results)
+        .distinctUntilChanged(idOf);
+    return query.getLimit() > 0 ? merged.take(query.getLimit()) : merged;
+  }
+
+  /**
+   * Most reads are for recent articles, so the hot partition is asked first, and the lookup only for the ids which are
+   * not found there.
+   */
+  private <T> Flux<T> findByIds(Collection<String> ids, Sort sort, BiFunction<Collection<String>, String, Flux<T>> find,
+                                Function<T, String> idOf, Function<T, LocalDate> publishDateOf) {
+    String hotPartition = articlePartitions.getHotPartition();
+    if (!articlePartitions.isPartitioned()) {
+      return find.apply(ids, hotPartition);
+    }
+    return find.apply(ids, hotPartition)
+        .collectList()
+        .flatMapMany(hot -> {
+          Set<String> missingIds = new LinkedHashSet<>(ids);
+          hot.forEach(article -> missingIds.remove(idOf.apply(article)));
+          if (missingIds.isEmpty()) {
+            return Flux.fromIterable(hot);
+          }
+          Flux<T> archived = articlePartitions.archivedPartitionsOf(missingIds)
+              .flatMapIterable(partitions -> partitions.entrySet().stream()
+                  .collect(Collectors.groupingBy(Map.Entry::getValue,
+                      Collectors.mapping(Map.Entry::getKey, Collectors.toList())))
+                  .entrySet())
+              .concatMap(partition -> find.apply(partition.getValue(), partition.getKey()));
+          Flux<T> found = Flux.fromIterable(hot).concatWith(archived);
+          return sort.isSorted() ? found.sort(orderOf(new Query().with(sort).getSortObject(), idOf, publishDateOf)) : found;
+        });
+  }
+
+  private <T> Mono<T> findById(String id, Function<String, Mono<T>> find) {
+    return find.apply(articlePartitions.getHotPartition())
+        .switchIfEmpty(Mono.defer(() -> articlePartitions.archivedPartitionOf(id).flatMap(find)));
+  }
+
+  /**
+   * A write which does not match in the hot partition is tried in the archived partition only if the article is not
+   * in the hot one, it is there for a moment with its archived copy while it is moved.
+   */
+  private <T> Mono<T> writeById(String id, Function<String, Mono<T>> write) {
+    String hotPartition = articlePartitions.getHotPartition();
+    return write.apply(hotPartition)
+        .switchIfEmpty(Mono.defer(() -> articlePartitions.archivedPartitionOf(id)
+            .filterWhen(partition -> mongoOperations.exists(query(where("id").is(id)), Article.class, hotPartition)
+                .map(exists -> !exists))
+            .flatMap(write)));
+  }
+
+  private static <T> Comparator<T> orderOf(Document sort, Function<T, String> idOf,
+                                           Function<T, LocalDate> publishDateOf) {
+    Comparator<T> order = (first, second) -> 0;
+    for (Map.Entry<String, Object> field : sort.entrySet()) {
+      Comparator<T> fieldOrder;
+      if ("publishDate".equals(field.getKey())) {
+        fieldOrder = Comparator.comparing(publishDateOf);
+      } else if ("id".equals(field.getKey()) || "_id".equals(field.getKey())) {
+        fieldOrder = Comparator.comparing(idOf);
+      } else {
+        throw new IllegalArgumentException("Articles of several partitions can not be ordered by " + field.getKey());
+      }
+      order = order.thenComparing(((Number) field.getValue()).intValue() < 0 ? fieldOrder.reversed() : fieldOrder);
+    }
+    return order;
+  }
+
+  private Function<String, Flux<ArticleSummary>> summariesOf(Query query) {
+    ArticleSummary.FIELDS.forEach(query.fields()::include);
+    return partition -> mongoOperations.find(query, ArticleSummary.class, partition);
+  }
+
+  /**
+   * Maps the query like spring data would, but runs it on the collection directly, so the driver hands the documents
+   * over as undecoded bytes.
+   */
+  private Function<String, Flux<RawBsonDocument>> rawSummariesOf(Query query) {
+    ArticleSummary.FIELDS.forEach(query.fields()::include);
+    MongoPersistentEntity<?> entity = mongoOperations.getConverter().getMappingContext()
+        .getRequiredPersistentEntity(Article.class);
+    Document filter = queryMapper.getMappedObject(query.getQueryObject(), entity);
+    Document projection = queryMapper.getMappedFields(query.getFieldsObject(), entity);
+    Document sort = queryMapper.getMappedSort(query.getSortObject(), entity);
+    return partition -> mongoOperations.execute(partition, collection -> collection
+        .withDocumentClass(RawBsonDocument.class)
+        .find(filter)
+        .projection(projection)
+        .sort(sort)
+        .limit(query.getLimit()));
+  }
+
+  /**
+   * The query is still mapped through the article entity, only the result is read as a raw document. Values are
+   * converted to the types of the article properties one by one.
+   */
+  private Function<String, Flux<PartialArticle>> partialsOf(Query query, ArticleFields fields) {
+    fields.getNames().forEach(query.fields()::include);
+    query.fields().include("publishDate");
+    return partition -> mongoOperations.query(Article.class)
+        .inCollection(partition)
+        .as(Document.class)
+        .matching(query)
+        .all()
+        .map(document -> toPartialArticle(document, fields));
+  }
+
+  private PartialArticle toPartialArticle(Document document, ArticleFields fields) {
+    MongoPersistentEntity<?> entity = mongoOperations.getConverter().getMappingContext()
+        .getRequiredPersistentEntity(Article.class);
+    Map<String, Object> values = new LinkedHashMap<>();
+    fields.getNames()
+        .forEach(name -> values.put(name, readValue(document, entity.getRequiredPersistentProperty(name))));
+    return new PartialArticle((String) readValue(document, entity.getRequiredIdProperty()),
+        (LocalDate) readValue(document, entity.getRequiredPersistentProperty("publishDate")), values);
+  }
+
+  private Object readValue(Document document, MongoPersistentProperty property) {
+    Object value = document.get(property.getFieldName());
+    if (value == null) {
+      return null;
+    }
+    return mongoOperations.getConverter().getConversionService().convert(value, property.getType());
+  }
+
+  @Override
+  public Mono<Long> findVersionByIdAndDeletedFalse(String id) {
+    Query query = query(where("id").is(id).and("deleted").is(false));
+    query.fields().include("version");
+    return findById(id, partition -> mongoOperations.findOne(query, Article.class, partition))
+        .map(Article::getVersion);
+  }
+
+  /**
+   * Articles are grouped by their partitions, and each group is inserted with its own insertMany. Ids which are
+   * assigned by the caller are kept.
+   */
+  @Override
+  public Mono<Map<Integer, String>> insertManyUnordered(List<Article> articles) {
+    Instant now = Instant.now();
+    List<Document> documents = articles.stream()
+        .map(article -> {
+          if (article.getId() == null) {
+            article.setId(new ObjectId().toHexString());
+          }
+          article.setVersion(0L);
+          article.setCreatedAt(now);
+          article.setLastModifiedAt(now);
+          Document document = new Document();
+          mongoOperations.getConverter().write(article, document);
+          return document;
+        })
+        .collect(Collectors.toList());
+    return Flux.range(0, articles.size())
+        .concatMap(i -> articlePartitions.partitionFor(articles.get(i).getPublishDate()).map(p -> Tuples.of(p, i)))
+        .collectMultimap(Tuple2::getT1, Tuple2::getT2, LinkedHashMap::new)
+        .flatMapIterable(Map::entrySet)
+        .concatMap(partition -> insertManyUnordered(partition.getKey(), new ArrayList<>(partition.getValue()), documents))
+        .collect(HashMap<Integer, String>::new, Map::putAll)
+        .map(Map::copyOf);
+  }
+
+  /**
+   * @param positions positions of the documents to insert into the partition
+   * @return errors by the positions of the documents
+   */
+  private Mono<Map<Integer, String>> insertManyUnordered(String partition, List<Integer> positions,
+                                                         List<Document> documents) {
+    List<Document> inserted = positions.stream().map(documents::get).collect(Collectors.toList());
+    return mongoOperations.execute(partition,
+        collection -> collection.insertMany(inserted, new InsertManyOptions().ordered(false)))
+        .then(Mono.just(Map.<Integer, String>of()))
+        .onErrorResume(MongoBulkWriteException.class, e -> Mono.just(e.getWriteErrors().stream()
+            .collect(Collectors.toMap(error -> positions.get(error.getIndex()), BulkWriteError::getMessage))));
+  }
+
+  @Override
+  public Mono<Boolean> markDeletedByIdAndDeletedFalse(String id) {
+    Query query = query(where("id").is(id).and("deleted").is(false));
+    Update update = new Update()
+        .set("deleted", true)
+        .currentDate("lastModifiedAt")
+        .inc("version", 1);
+    return writeById(id, partition -> mongoOperations.updateFirst(query, update, Article.class, partition)
+        .filter(result -> result.getMatchedCount() > 0)
+        .map(result -> true))
+        .defaultIfEmpty(false);
+  }
+}
@@ -0,0 +1,27 @@
+package com.github.cenkakin.mynewspaper.request;
+
+import lombok.Value;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Created by cenkakin
+ */
+@Value
+public class BatchGetArticleRequest {
+
+  public static final int MAX_IDS = 100;
+
+  @NotEmpty
+  @Size(max = MAX_IDS)
+  private final List<@NotBlank String> ids;
+
+  private final Boolean summary;
+
+  public boolean isSummaryRequested() {
+    return Boolean.TRUE.equals(summary);
+  }
+}
@@ -0,0 +1,28 @@
+package com.github.cenkakin.mynewspaper.request;
+
+import lombok.Value;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import java.util.Optional;
+
+/**
+ * Created by cenkakin
+ */
+@Value
+public class PageArticleRequest {
+
+  public static final int DEFAULT_LIMIT = 20;
+
+  public static final int MAX_LIMIT = 100;
+
+  @Min(1)
+  @Max(MAX_LIMIT)
+  private final Integer limit;
+
+  private final String cursor;
+
+  public int getLimitOrDefault() {
+    return Optional.ofNullable(limit).orElse(DEFAULT_LIMIT);
+  }
+}
@@ -2,6 +2,7 @@ package com.github.cenkakin.mynewspaper.request;
 
 import lombok.Value;
 
+import javax.validation.constraints.Size;
 import java.time.LocalDate;
 
 /**
@@ -17,4 +18,7 @@ public class SearchArticleRequest {
   private final LocalDate fromPublishDate;
 
   private final LocalDate toPublishDate;
+
+  @Size(max = 250)
+  private final String q;
 }
@@ -0,0 +1,134 @@
+package com.github.cenkakin.mynewspaper.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.cenkakin.mynewspaper.cache.ArticleSearchCache;
+import com.github.cenkakin.mynewspaper.cache.ArticleWriteEpoch;
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.domain.BulkCreateResult;
+import com.github.cenkakin.mynewspaper.index.ArticleSearchIndex;
+import com.github.cenkakin.mynewspaper.index.ArticleTextIndex;
+import com.github.cenkakin.mynewspaper.metrics.ArticleMetrics;
+import com.github.cenkakin.mynewspaper.repository.ArticleRepository;
+import com.github.cenkakin.mynewspaper.request.CreateArticleRequest;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Creates the articles of a stream of json lines in batches. Every batch is validated and written with a single
+ * insertMany, at most parallelism batches are written at a time. A batch is written once it is full or its first line
+ * waited maxDelay, so a slow stream still gets its results. Results are emitted in the order of the lines, a line which
+ * is not an article fails on its own.
+ */
+@Slf4j
+@AllArgsConstructor
+public class ArticleBulkService {
+
+  private final ArticleRepository articleRepository;
+
+  private final ArticleSearchIndex articleSearchIndex;
+
+  private final ArticleTextIndex articleTextIndex;
+
+  private final ArticleSearchCache articleSearchCache;
+
+  private final ArticleWriteEpoch articleWriteEpoch;
+
+  private final ArticleMetrics articleMetrics;
+
+  private final ObjectMapper objectMapper;
+
+  private final Validator validator;
+
+  private final int batchSize;
+
+  private final Duration maxDelay;
+
+  private final int parallelism;
+
+  /**
+   * Lines are only read while fewer than parallelism batches are being written, one batch ahead at most.
+   */
+  public Flux<BulkCreateResult> createArticles(Flux<String> lines) {
+    Flux<Tuple2<Long, String>> indexedLines = lines
+        .filter(line -> !line.isBlank())
+        .index();
+    return articleMetrics.measure("article.bulk",
+        TimedBatches.of(indexedLines, batchSize, maxDelay, Schedulers.parallel())
+            .flatMapSequential(this::createBatch, parallelism, 1));
+  }
+
+  private Flux<BulkCreateResult> createBatch(List<Tuple2<Long, String>> batch) {
+    BulkCreateResult[] results = new BulkCreateResult[batch.size()];
+    List<Integer> positions = new ArrayList<>();
+    List<Article> articles = new ArrayList<>();
+    for (int position = 0; position < batch.size(); position++) {
+      long index = batch.get(position).getT1();
+      CreateArticleRequest request;
+      try {
+        request = objectMapper.readValue(batch.get(position).getT2(), CreateArticleRequest.class);
+      } catch (JsonProcessingException e) {
+        results[position] = BulkCreateResult.failed(index, "malformed article: " + e.getOriginalMessage());
+        continue;
+      }
+      if (request == null) {
+        results[position] = BulkCreateResult.failed(index, "malformed article: null");
+        continue;
+      }
+      Set<ConstraintViolation<CreateArticleRequest>> violations = validator.validate(request);
+      if (violations.isEmpty()) {
+        positions.add(position);
+        articles.add(Article.fromCreateArticleRequest(request));
+      } else {
+        results[position] = BulkCreateResult.failed(index, describe(violations));
+      }
+    }
+    if (articles.isEmpty()) {
+      return Flux.fromArray(results);
+    }
+    return articleRepository.insertManyUnordered(articles)
+        .flatMap(errors -> {
+          List<Article> created = new ArrayList<>();
+          for (int i = 0; i < articles.size(); i++) {
+            int position = positions.get(i);
+            results[position] = resultOf(batch.get(position).getT1(), articles.get(i), errors.get(i));
+            if (!errors.containsKey(i)) {
+              created.add(articles.get(i));
+            }
+          }
+          articleSearchCache.written(created);
+          log.debug("{} of {} articles are created in bulk", articles.size() - errors.size(), batch.size());
+          return created.isEmpty() ? Mono.just(results) : articleWriteEpoch.advance().thenReturn(results);
+        })
+        .flatMapIterable(Arrays::asList);
+  }
+
+  private BulkCreateResult resultOf(long index, Article article, String error) {
+    if (error != null) {
+      return BulkCreateResult.failed(index, error);
+    }
+    articleSearchIndex.index(article);
+    articleTextIndex.index(article);
+    return BulkCreateResult.created(index, article.getId());
+  }
+
+  private static String describe(Set<ConstraintViolation<CreateArticleRequest>> violations) {
+    return violations.stream()
+        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+        .sorted()
+        .collect(Collectors.joining(", "));
+  }
+}
@@ -1,20 +1,53 @@
 package com.github.cenkakin.mynewspaper.service;
 
+import com.github.cenkakin.mynewspaper.cache.ArticleCache;
+import com.github.cenkakin.mynewspaper.cache.ArticleSearchCache;
+import com.github.cenkakin.mynewspaper.cache.ArticleSearchKey;
+import com.github.cenkakin.mynewspaper.cache.ArticleWriteEpoch;
+import com.github.cenkakin.mynewspaper.codec.RawArticleJsonTranscoder;
 import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.domain.ArticleCursor;
+import com.github.cenkakin.mynewspaper.domain.ArticleFields;
+import com.github.cenkakin.mynewspaper.domain.ArticlePage;
+import com.github.cenkakin.mynewspaper.domain.ArticleSummary;
+import com.github.cenkakin.mynewspaper.domain.BatchGetResult;
+import com.github.cenkakin.mynewspaper.domain.PartialArticle;
+import com.github.cenkakin.mynewspaper.domain.PartialArticlePage;
 import com.github.cenkakin.mynewspaper.domain.QArticle;
+import com.github.cenkakin.mynewspaper.domain.RawArticlePage;
 import com.github.cenkakin.mynewspaper.exception.ArticleNotFoundException;
+import com.github.cenkakin.mynewspaper.exception.InvalidCursorException;
 import com.github.cenkakin.mynewspaper.exception.OutdatedUpdateArticleException;
+import com.github.cenkakin.mynewspaper.exception.TextSearchUnavailableException;
+import com.github.cenkakin.mynewspaper.index.ArticleSearchIndex;
+import com.github.cenkakin.mynewspaper.index.ArticleTextIndex;
+import com.github.cenkakin.mynewspaper.metrics.ArticleMetrics;
 import com.github.cenkakin.mynewspaper.repository.ArticleRepository;
 import com.github.cenkakin.mynewspaper.request.CreateArticleRequest;
+import com.github.cenkakin.mynewspaper.request.PageArticleRequest;
 import com.github.cenkakin.mynewspaper.request.SearchArticleRequest;
 import com.github.cenkakin.mynewspaper.request.UpdateArticleRequest;
 import com.github.cenkakin.mynewspaper.util.OptionalBooleanExpressionBuilder;
+import com.github.cenkakin.mynewspaper.write.ArticleWriteBuffer;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 /**
  * Created by cenkakin
  */
@@ -22,55 +55,320 @@ import reactor.core.publisher.Mono;
 @AllArgsConstructor
 public class ArticleService {
 
+  private static final SearchArticleRequest EMPTY_SEARCH = new SearchArticleRequest(null, null, null, null, null);
+
+  private static final Sort KEYSET_ORDER = Sort.by(Sort.Direction.DESC, "publishDate", "id");
+
   private final ArticleRepository articleRepository;
 
+  private final ArticleWriteBuffer articleWriteBuffer;
+
+  private final ArticleCache articleCache;
+
+  private final ArticleSearchCache articleSearchCache;
+
+  private final ArticleWriteEpoch articleWriteEpoch;
+
+  private final ArticleSearchIndex articleSearchIndex;
+
+  private final ArticleTextIndex articleTextIndex;
+
+  private final ArticleMetrics articleMetrics;
+
+  private final int streamBatchSize;
+
   public Mono<Article> createArticle(CreateArticleRequest createArticleRequest) {
-    return articleRepository.insert(Article.fromCreateArticleRequest(createArticleRequest))
-        .doOnNext(article -> log.info("Article with id: {} is created", article.getId()));
+    return articleMetrics.time("createArticle",
+        articleWriteBuffer.insert(Article.fromCreateArticleRequest(createArticleRequest))
+            .doOnNext(articleSearchIndex::index)
+            .doOnNext(articleTextIndex::index)
+            .doOnNext(articleSearchCache::written)
+            .flatMap(article -> articleWriteEpoch.advance().thenReturn(article))
+            .doOnNext(article -> log.info("Article with id: {} is created", article.getId())));
   }
 
   public Mono<Article> getArticle(String id) {
-    return articleRepository.findByIdAndDeletedFalse(id)
-        .switchIfEmpty(Mono.error(new ArticleNotFoundException(id)));
+    return articleMetrics.time("getArticle", articleCache.get(id, articleRepository::findByIdAndDeletedFalse)
+        .filter(article -> !article.isDeleted())
+        .switchIfEmpty(Mono.error(new ArticleNotFoundException(id))));
+  }
+
+  /**
+   * Resolves the current version of an article without reading its content, from the cache or by fetching the version
+   * field only.
+   */
+  public Mono<Long> getArticleVersion(String id) {
+    return articleMetrics.time("getArticleVersion", Mono.defer(() -> articleCache.getIfPresent(id)
+        .map(article -> article.isDeleted() ? Mono.<Long>empty() : Mono.just(article.getVersion()))
+        .orElseGet(() -> articleRepository.findVersionByIdAndDeletedFalse(id)))
+        .switchIfEmpty(Mono.error(new ArticleNotFoundException(id))));
+  }
+
+  /**
+   * Looks the articles up in the cache first and fetches the rest with a single query. Results are in the order of the
+   * given ids, an id which is given more than once is looked up once.
+   */
+  public Mono<List<BatchGetResult<Article>>> batchGetArticles(List<String> ids) {
+    return articleMetrics.time("batchGetArticles", batchGet(ids, Function.identity(),
+        missingIds -> articleRepository.findByIdInAndDeletedFalse(missingIds).doOnNext(articleCache::put),
+        Article::getId));
+  }
+
+  /**
+   * Same as {@link #batchGetArticles(List)}, but the articles which are not cached are fetched without their text.
+   */
+  public Mono<List<BatchGetResult<ArticleSummary>>> batchGetArticleSummaries(List<String> ids) {
+    return articleMetrics.time("batchGetArticleSummaries", batchGet(ids, ArticleSummary::fromArticle,
+        missingIds -> articleRepository.findSummariesByIdInAndDeletedFalse(missingIds, Sort.unsorted()),
+        ArticleSummary::getId));
+  }
+
+  private <T> Mono<List<BatchGetResult<T>>> batchGet(List<String> ids, Function<Article, T> fromCached,
+                                                     Function<Set<String>, Flux<T>> fetch, Function<T, String> idOf) {
+    return Mono.defer(() -> {
+      Map<String, T> cached = new HashMap<>();
+      Set<String> missingIds = new LinkedHashSet<>();
+      for (String id : ids) {
+        Optional<Article> article = articleCache.getIfPresent(id);
+        if (article.isEmpty()) {
+          missingIds.add(id);
+        } else if (!article.get().isDeleted()) {
+          cached.put(id, fromCached.apply(article.get()));
+        }
+      }
+      Flux<T> fetched = missingIds.isEmpty() ? Flux.empty() : fetch.apply(missingIds);
+      return fetched.collectMap(idOf)
+          .map(articles -> {
+            articles.putAll(cached);
+            return ids.stream()
+                .map(id -> articles.containsKey(id)
+                    ? BatchGetResult.found(id, articles.get(id))
+                    : BatchGetResult.<T>notFound(id))
+                .collect(Collectors.toList());
+          });
+    });
   }
 
   public Mono<Article> updateArticle(String id, UpdateArticleRequest updateArticleRequest) {
-    return getArticle(id)
-        .flatMap(articleInDb -> {
-          if (articleInDb.getVersion() >= updateArticleRequest.getVersion()) {
-            return Mono.error(new OutdatedUpdateArticleException(articleInDb.getVersion()));
-          }
-          Article toBeUpdated = articleInDb.update(updateArticleRequest);
-          return articleRepository.save(toBeUpdated);
-        })
-        .doOnNext(article ->
-            log.info("Article with id: {} is updated to version {}", article.getId(), article.getVersion()));
+    Article content = Article.fromUpdateArticleRequest(updateArticleRequest);
+    return articleMetrics.time("updateArticle",
+        articleRepository.updateIfOlderThan(id, updateArticleRequest.getVersion(), content)
+            .switchIfEmpty(Mono.defer(() -> explainFailedUpdate(id)))
+            .doOnNext(articleCache::put)
+            .doOnNext(articleSearchIndex::index)
+            .doOnNext(articleTextIndex::index)
+            .doOnNext(articleSearchCache::written)
+            .flatMap(article -> articleWriteEpoch.advance().thenReturn(article))
+            .doOnNext(article ->
+                log.info("Article with id: {} is updated to version {}", article.getId(), article.getVersion())));
   }
 
   public Mono<Void> deleteArticle(String id) {
-    return getArticle(id)
-        .map(Article::delete)
-        .flatMap(articleRepository::save)
-        .doOnNext(article -> log.info("Article with id: {} is deleted", article.getId()))
-        .then();
+    return articleMetrics.time("deleteArticle", articleRepository.markDeletedByIdAndDeletedFalse(id)
+        .filter(Boolean::booleanValue)
+        .switchIfEmpty(Mono.error(new ArticleNotFoundException(id)))
+        .doOnNext(deleted -> articleCache.putTombstone(id))
+        .doOnNext(deleted -> articleSearchIndex.remove(id))
+        .doOnNext(deleted -> articleTextIndex.remove(id))
+        .doOnNext(deleted -> articleSearchCache.deleted(id))
+        .flatMap(deleted -> articleWriteEpoch.advance().thenReturn(deleted))
+        .doOnNext(deleted -> log.info("Article with id: {} is deleted", id))
+        .then());
+  }
+
+  /**
+   * Only called when the conditional update did not match, to tell a missing article from an outdated request.
+   */
+  private Mono<Article> explainFailedUpdate(String id) {
+    return articleRepository.findVersionByIdAndDeletedFalse(id)
+        .switchIfEmpty(Mono.error(new ArticleNotFoundException(id)))
+        .flatMap(version -> Mono.error(new OutdatedUpdateArticleException(version)));
+  }
+
+  public Mono<ArticlePage> getArticles(PageArticleRequest pageRequest) {
+    return articleMetrics.time("getArticles", findArticlePage(EMPTY_SEARCH, pageRequest));
+  }
+
+  public Mono<ArticlePage> searchArticles(SearchArticleRequest request, PageArticleRequest pageRequest) {
+    return articleMetrics.time("searchArticles", findArticlePage(request, pageRequest));
+  }
+
+  private Mono<ArticlePage> findArticlePage(SearchArticleRequest request, PageArticleRequest pageRequest) {
+    return readPage("summaries", request, pageRequest,
+        (predicate, count) -> articleRepository.findSummaryPage(predicate, KEYSET_ORDER, count),
+        articleRepository::findSummariesByIdInAndDeletedFalse, ArticleSummary::getId, ArticlePage::of,
+        ArticlePage::getArticles);
+  }
+
+  /**
+   * Same as {@link #getArticles(PageArticleRequest)}, but the summaries are kept as the raw bson read from mongo.
+   */
+  public Mono<RawArticlePage> getRawArticles(PageArticleRequest pageRequest) {
+    return articleMetrics.time("getRawArticles", findRawArticlePage(EMPTY_SEARCH, pageRequest));
+  }
+
+  public Mono<RawArticlePage> searchRawArticles(SearchArticleRequest request, PageArticleRequest pageRequest) {
+    return articleMetrics.time("searchRawArticles", findRawArticlePage(request, pageRequest));
+  }
+
+  private Mono<RawArticlePage> findRawArticlePage(SearchArticleRequest request, PageArticleRequest pageRequest) {
+    return readPage("raw", request, pageRequest,
+        (predicate, count) -> articleRepository.findRawSummaryPage(predicate, KEYSET_ORDER, count),
+        articleRepository::findRawSummariesByIdInAndDeletedFalse, RawArticleJsonTranscoder::readId,
+        RawArticlePage::of, RawArticlePage::getArticles);
+  }
+
+  /**
+   * Same as {@link #getArticle(String)}, but only the given fields are read. A cached article is used if there is one,
+   * otherwise the fields are read with a projection and the article is not cached.
+   */
+  public Mono<PartialArticle> getPartialArticle(String id, ArticleFields fields) {
+    return articleMetrics.time("getPartialArticle", Mono.defer(() -> articleCache.getIfPresent(id)
+        .map(article -> article.isDeleted()
+            ? Mono.<PartialArticle>empty()
+            : Mono.just(PartialArticle.fromArticle(article, fields)))
+        .orElseGet(() -> articleRepository.findPartialByIdAndDeletedFalse(id, fields)))
+        .switchIfEmpty(Mono.error(new ArticleNotFoundException(id))));
+  }
+
+  public Mono<PartialArticlePage> getPartialArticles(ArticleFields fields, PageArticleRequest pageRequest) {
+    return articleMetrics.time("getPartialArticles", findPartialArticlePage(EMPTY_SEARCH, fields, pageRequest));
+  }
+
+  public Mono<PartialArticlePage> searchPartialArticles(SearchArticleRequest request, ArticleFields fields,
+                                                        PageArticleRequest pageRequest) {
+    return articleMetrics.time("searchPartialArticles", findPartialArticlePage(request, fields, pageRequest));
+  }
+
+  private Mono<PartialArticlePage> findPartialArticlePage(SearchArticleRequest request, ArticleFields fields,
+                                                          PageArticleRequest pageRequest) {
+    return readPage("partial:" + String.join(",", fields.getNames()), request, pageRequest,
+        (predicate, count) -> articleRepository.findPartialPage(predicate, KEYSET_ORDER, count, fields),
+        (ids, sort) -> articleRepository.findPartialsByIdInAndDeletedFalse(ids, sort, fields), PartialArticle::getId,
+        PartialArticlePage::of, PartialArticlePage::getArticles);
+  }
+
+  /**
+   * Reads a page of articles in one of the ways they are represented. Author, keyword and publish date searches are
+   * paged with the keyset cursor and cached by the view under the current write epoch, text searches return the most
+   * relevant articles only.
+   *
+   * @param findByQuery finds at most the given count of articles matching the predicate, in the keyset order
+   * @param findByIds   finds the articles of the given ids in the given order
+   * @param pageOf      builds a page out of at most limit + 1 articles
+   */
+  private <T, P> Mono<P> readPage(String view, SearchArticleRequest request, PageArticleRequest pageRequest,
+                                  BiFunction<Predicate, Integer, Flux<T>> findByQuery,
+                                  BiFunction<List<String>, Sort, Flux<T>> findByIds, Function<T, String> idOf,
+                                  BiFunction<List<T>, Integer, P> pageOf, Function<P, List<T>> articlesOf) {
+    int limit = pageRequest.getLimitOrDefault();
+    if (request.getQ() != null) {
+      return searchTextIds(request, pageRequest)
+          .flatMap(ids -> findInOrder(ids, i -> findByIds.apply(i, Sort.unsorted()), idOf))
+          .map(articles -> pageOf.apply(articles, limit));
+    }
+    return articleWriteEpoch.get()
+        .flatMap(epoch -> articleSearchCache.get(ArticleSearchKey.of(view, request, pageRequest), epoch,
+            page -> articlesOf.apply(page).stream().map(idOf).collect(Collectors.toList()),
+            () -> Mono.fromCallable(() -> Optional.ofNullable(pageRequest.getCursor()).map(ArticleCursor::decode))
+                .flatMap(cursor -> findPage(request, cursor.orElse(null), limit + 1, findByQuery,
+                    ids -> findByIds.apply(ids, KEYSET_ORDER)))
+                .map(articles -> pageOf.apply(articles, limit))));
+  }
+
+  public Flux<ArticleSummary> streamArticles(PageArticleRequest pageRequest) {
+    return articleMetrics.time("streamArticles",
+        articleMetrics.measure("article.stream", streamArticleSummaries(EMPTY_SEARCH, pageRequest)));
+  }
+
+  /**
+   * Streams every matching article from the cursor on, or only the first 'limit' of them if it is given. Articles are
+   * read from mongo as they are consumed, so a slow client does not make the whole result pile up in memory. Text
+   * searches stream their most relevant page only.
+   */
+  public Flux<ArticleSummary> streamSearchArticles(SearchArticleRequest request, PageArticleRequest pageRequest) {
+    return articleMetrics.time("streamSearchArticles",
+        articleMetrics.measure("article.search.stream", streamArticleSummaries(request, pageRequest)));
+  }
+
+  private Flux<ArticleSummary> streamArticleSummaries(SearchArticleRequest request, PageArticleRequest pageRequest) {
+    if (request.getQ() != null) {
+      return searchText(request, pageRequest).flatMapIterable(ArticlePage::getArticles);
+    }
+    int limit = Optional.ofNullable(pageRequest.getLimit()).orElse(0);
+    return Mono.fromCallable(() -> Optional.ofNullable(pageRequest.getCursor()).map(ArticleCursor::decode))
+        .flatMapMany(cursor -> articleRepository.streamSummaries(createSearchQuery(request, cursor.orElse(null)),
+            KEYSET_ORDER, limit, streamBatchSize));
   }
 
-  public Flux<Article> getArticles() {
-    return articleRepository.findAllByDeletedFalse();
+  /**
+   * Author and keyword searches are resolved to ids by the search index, so only the articles of the page are fetched.
+   * When any of them is not found, it was deleted by another instance which the index has not caught up with yet, and
+   * the page is read from mongo instead, so a short page is never mistaken for the last one.
+   */
+  private <T> Mono<List<T>> findPage(SearchArticleRequest request, ArticleCursor cursor, int count,
+                                     BiFunction<Predicate, Integer, Flux<T>> findByQuery,
+                                     Function<List<String>, Flux<T>> findByIds) {
+    if (!articleSearchIndex.canSearch(request)) {
+      return findByQuery.apply(createSearchQuery(request, cursor), count).collectList();
+    }
+    List<String> ids = articleSearchIndex.search(request, cursor, count);
+    if (ids.isEmpty()) {
+      return Mono.just(List.of());
+    }
+    return findByIds.apply(ids).collectList()
+        .flatMap(articles -> articles.size() < ids.size()
+            ? findByQuery.apply(createSearchQuery(request, cursor), count).collectList()
+            : Mono.just(articles));
   }
 
-  public Flux<Article> searchArticles(SearchArticleRequest request) {
-    Predicate searchQuery = createSearchQuery(request);
-    return articleRepository.findAll(searchQuery);
+  /**
+   * Text search returns the most relevant articles only, the relevance order can not be paged with a keyset cursor.
+   */
+  private Mono<ArticlePage> searchText(SearchArticleRequest request, PageArticleRequest pageRequest) {
+    return searchTextIds(request, pageRequest)
+        .flatMap(ids -> findInOrder(ids,
+            i -> articleRepository.findSummariesByIdInAndDeletedFalse(i, Sort.unsorted()),
+            ArticleSummary::getId))
+        .map(articles -> new ArticlePage(articles, null));
   }
 
-  private Predicate createSearchQuery(SearchArticleRequest request) {
+  private Mono<List<String>> searchTextIds(SearchArticleRequest request, PageArticleRequest pageRequest) {
+    return Mono.fromCallable(() -> {
+      if (pageRequest.getCursor() != null) {
+        throw new InvalidCursorException(pageRequest.getCursor());
+      }
+      if (!articleTextIndex.isReady()) {
+        throw new TextSearchUnavailableException();
+      }
+      return articleTextIndex.search(request, pageRequest.getLimitOrDefault());
+    });
+  }
+
+  private <T> Mono<List<T>> findInOrder(List<String> ids, Function<List<String>, Flux<T>> findByIds,
+                                        Function<T, String> idOf) {
+    if (ids.isEmpty()) {
+      return Mono.just(List.of());
+    }
+    return findByIds.apply(ids)
+        .collectMap(idOf)
+        .map(articles -> ids.stream().map(articles::get).filter(Objects::nonNull).collect(Collectors.toList()));
+  }
+
+  private Predicate createSearchQuery(SearchArticleRequest request, ArticleCursor cursor) {
     QArticle articleQuery = QArticle.article;
     return new OptionalBooleanExpressionBuilder(articleQuery.deleted.isFalse())
-        .notNullAnd(a -> articleQuery.authors.any().equalsIgnoreCase(a), request.getAuthor())
-        .notNullAnd(k -> articleQuery.keywords.any().equalsIgnoreCase(k), request.getKeyword())
+        .notNullAnd(a -> articleQuery.normalizedAuthors.any().eq(Article.normalize(a)), request.getAuthor())
+        .notNullAnd(k -> articleQuery.normalizedKeywords.any().eq(Article.normalize(k)), request.getKeyword())
         .notNullAnd(fpd -> articleQuery.publishDate.after(fpd.minusDays(1)), request.getFromPublishDate())
         .notNullAnd(tpd -> articleQuery.publishDate.before(tpd.plusDays(1)), request.getToPublishDate())
+        .notNullAnd(ArticleService::after, cursor)
         .build();
   }
+
+  private static BooleanExpression after(ArticleCursor cursor) {
+    QArticle articleQuery = QArticle.article;
+    return articleQuery.publishDate.before(cursor.getPublishDate())
+        .or(articleQuery.publishDate.eq(cursor.getPublishDate()).and(articleQuery.id.lt(cursor.getId())));
+  }
 }
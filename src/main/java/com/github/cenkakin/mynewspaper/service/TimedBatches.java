@@ -0,0 +1,136 @@
+package com.github.cenkakin.mynewspaper.service;
+
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batches of at most batchSize items, a batch which is not full is emitted once its first item waited maxDelay. Unlike
+ * {@code bufferTimeout} of reactor 3.3, which fails when its timer fires without demand, items are only requested from
+ * the source while batches are requested, so at most one batch is read ahead of the demand.
+ */
+final class TimedBatches<T> extends BaseSubscriber<T> {
+
+  private final FluxSink<List<T>> sink;
+
+  private final int batchSize;
+
+  private final Duration maxDelay;
+
+  private final Scheduler scheduler;
+
+  private List<T> batch;
+
+  // batches requested and not emitted yet, it is negative when a timed batch is emitted ahead of the demand
+  private long demand;
+
+  // items requested from the source and not received yet, they belong to the current batch
+  private long outstanding;
+
+  private Disposable timer;
+
+  private TimedBatches(FluxSink<List<T>> sink, int batchSize, Duration maxDelay, Scheduler scheduler) {
+    this.sink = sink;
+    this.batchSize = batchSize;
+    this.maxDelay = maxDelay;
+    this.scheduler = scheduler;
+    this.batch = new ArrayList<>(batchSize);
+  }
+
+  static <T> Flux<List<T>> of(Flux<T> source, int batchSize, Duration maxDelay, Scheduler scheduler) {
+    return Flux.create(sink -> {
+      TimedBatches<T> batches = new TimedBatches<>(sink, batchSize, maxDelay, scheduler);
+      sink.onDispose(batches::stop);
+      source.subscribe(batches);
+      sink.onRequest(batches::requested);
+    });
+  }
+
+  @Override
+  protected void hookOnSubscribe(Subscription subscription) {
+    synchronized (this) {
+      fill();
+    }
+  }
+
+  @Override
+  protected void hookOnNext(T item) {
+    synchronized (this) {
+      outstanding--;
+      batch.add(item);
+      if (batch.size() == 1) {
+        List<T> waiting = batch;
+        timer = scheduler.schedule(() -> timedOut(waiting), maxDelay.toMillis(), TimeUnit.MILLISECONDS);
+      }
+      if (batch.size() >= batchSize) {
+        emit();
+        fill();
+      }
+    }
+  }
+
+  @Override
+  protected void hookOnComplete() {
+    synchronized (this) {
+      if (!batch.isEmpty()) {
+        emit();
+      }
+      sink.complete();
+    }
+  }
+
+  @Override
+  protected void hookOnError(Throwable throwable) {
+    synchronized (this) {
+      sink.error(throwable);
+    }
+  }
+
+  private synchronized void requested(long n) {
+    demand = demand + n < demand ? Long.MAX_VALUE : demand + n;
+    fill();
+  }
+
+  private synchronized void timedOut(List<T> waiting) {
+    if (batch == waiting && !isDisposed()) {
+      emit();
+      fill();
+    }
+  }
+
+  private synchronized void stop() {
+    if (timer != null) {
+      timer.dispose();
+    }
+    dispose();
+  }
+
+  private void emit() {
+    List<T> full = batch;
+    batch = new ArrayList<>(batchSize);
+    timer.dispose();
+    demand--;
+    sink.next(full);
+  }
+
+  /**
+   * Requests the items missing from the current batch while a batch is requested.
+   */
+  private void fill() {
+    Subscription subscription = upstream();
+    long missing = batchSize - batch.size() - outstanding;
+    if (subscription == null || demand <= 0 || missing <= 0) {
+      return;
+    }
+    outstanding += missing;
+    subscription.request(missing);
+  }
+}
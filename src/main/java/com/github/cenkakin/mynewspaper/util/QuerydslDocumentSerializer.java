@@ -0,0 +1,53 @@
+package com.github.cenkakin.mynewspaper.util;
+
+import com.mongodb.DBObject;
+import com.mongodb.DBRef;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathType;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.mongodb.MongodbSerializer;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+/**
+ * Turns a QueryDSL predicate into a raw mongo filter document, so that it can be combined with limit and projection
+ * through {@link org.springframework.data.mongodb.core.ReactiveMongoOperations}. Field names and values are still
+ * mapped by spring data when the query is executed.
+ */
+public class QuerydslDocumentSerializer extends MongodbSerializer {
+
+  private static final String ID_PROPERTY = "id";
+
+  public Document toDocument(Predicate predicate) {
+    return new Document(((DBObject) handle(predicate)).toMap());
+  }
+
+  @Override
+  protected Object asDBValue(Operation<?> expr, int index) {
+    Object value = super.asDBValue(expr, index);
+    // spring data only converts ids of plain equality filters, range operators on id would compare strings otherwise
+    if (index > 0 && isIdPath(expr.getArg(0)) && value instanceof String && ObjectId.isValid((String) value)) {
+      return new ObjectId((String) value);
+    }
+    return value;
+  }
+
+  @Override
+  protected boolean isReference(Path<?> arg) {
+    return false;
+  }
+
+  @Override
+  protected DBRef asReference(Object constant) {
+    throw new UnsupportedOperationException("References are not supported!");
+  }
+
+  private static boolean isIdPath(Object arg) {
+    if (!(arg instanceof Path)) {
+      return false;
+    }
+    Path<?> path = (Path<?>) arg;
+    return path.getMetadata().getPathType() == PathType.PROPERTY && ID_PROPERTY.equals(path.getMetadata().getName());
+  }
+}
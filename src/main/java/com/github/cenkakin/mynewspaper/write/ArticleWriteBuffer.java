@@ -0,0 +1,215 @@
+package com.github.cenkakin.mynewspaper.write;
+
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.exception.ArticleWriteException;
+import com.github.cenkakin.mynewspaper.repository.ArticleRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Groups the articles created at about the same time into one insertMany. Created articles are queued, and a single
+ * drainer writes them in batches once a batch is full, or every max delay whatever is queued. While a batch is
+ * written the next one is gathered, and it is written right after. Each caller is completed with its own article or
+ * the error of its own insert.
+ * <p>
+ * Ids are assigned when an article is queued. When the queue is full, the article is inserted on its own instead, so
+ * the queue never holds more than its capacity. When disabled, every article is inserted on its own.
+ * <p>
+ * A caller which cancels before its article is taken into a batch has the article dropped from the queue. Once the
+ * batch is being written, cancelling does not undo the write.
+ */
+@Slf4j
+public class ArticleWriteBuffer implements ApplicationRunner, DisposableBean {
+
+  private final ArticleRepository articleRepository;
+
+  private final boolean enabled;
+
+  private final int capacity;
+
+  private final int batchSize;
+
+  private final Duration maxDelay;
+
+  private final Timer flushTimer;
+
+  private final DistributionSummary batchSizes;
+
+  private final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
+
+  // slots of the queue taken by callers, reserved before their article is queued so that the capacity is never exceeded
+  private final AtomicInteger reserved = new AtomicInteger();
+
+  // articles in the queue, counted after they are queued so that a drain which sees them can poll them
+  private final AtomicInteger depth = new AtomicInteger();
+
+  private final AtomicBoolean flushing = new AtomicBoolean();
+
+  private Disposable flushes;
+
+  public ArticleWriteBuffer(ArticleRepository articleRepository, MeterRegistry meterRegistry, boolean enabled,
+                            int capacity, int batchSize, Duration maxDelay) {
+    this.articleRepository = articleRepository;
+    this.enabled = enabled;
+    this.capacity = capacity;
+    this.batchSize = batchSize;
+    this.maxDelay = maxDelay;
+    this.flushTimer = Timer.builder("article.write.buffer.flush")
+        .description("Time to write a batch of buffered articles")
+        .register(meterRegistry);
+    this.batchSizes = DistributionSummary.builder("article.write.buffer.batch.size")
+        .description("Articles written by a single insertMany of the buffer")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (enabled) {
+      flushes = Flux.interval(maxDelay, maxDelay, Schedulers.boundedElastic())
+          .subscribe(tick -> drain());
+    }
+  }
+
+  /**
+   * Writes the queued articles before the application stops.
+   */
+  @Override
+  public void destroy() {
+    if (flushes != null) {
+      flushes.dispose();
+    }
+    List<Entry> batch;
+    while (!(batch = poll()).isEmpty()) {
+      flush(batch).block();
+    }
+  }
+
+  public Mono<Article> insert(Article article) {
+    if (!enabled) {
+      return articleRepository.insert(article);
+    }
+    return Mono.defer(() -> {
+      if (reserved.incrementAndGet() > capacity) {
+        reserved.decrementAndGet();
+        return articleRepository.insert(article);
+      }
+      article.setId(new ObjectId().toHexString());
+      return Mono.<Article>create(sink -> {
+        Entry entry = new Entry(article, sink);
+        sink.onCancel(() -> entry.getCancelled().set(true));
+        queue.offer(entry);
+        if (depth.incrementAndGet() >= batchSize) {
+          drain();
+        }
+      });
+    });
+  }
+
+  public int getQueueDepth() {
+    return depth.get();
+  }
+
+  /**
+   * Only one batch is written at a time. A drain which finds a batch being written leaves the queued articles to it,
+   * it writes them once it is over.
+   */
+  private void drain() {
+    if (!flushing.compareAndSet(false, true)) {
+      return;
+    }
+    List<Entry> batch = poll();
+    if (batch.isEmpty()) {
+      flushing.set(false);
+      return;
+    }
+    flush(batch)
+        .doFinally(signal -> {
+          flushing.set(false);
+          if (depth.get() > 0) {
+            drain();
+          }
+        })
+        .subscribe();
+  }
+
+  /**
+   * Articles of the cancelled callers are polled without being written.
+   */
+  private List<Entry> poll() {
+    List<Entry> batch = new ArrayList<>(batchSize);
+    int polled = 0;
+    Entry entry;
+    while (batch.size() < batchSize && (entry = queue.poll()) != null) {
+      polled++;
+      if (!entry.getCancelled().get()) {
+        batch.add(entry);
+      }
+    }
+    depth.addAndGet(-polled);
+    reserved.addAndGet(-polled);
+    return batch;
+  }
+
+  private Mono<Void> flush(List<Entry> batch) {
+    List<Article> articles = batch.stream().map(Entry::getArticle).collect(Collectors.toList());
+    return Mono.defer(() -> {
+      Timer.Sample sample = Timer.start();
+      return articleRepository.insertManyUnordered(articles)
+          .doOnNext(errors -> complete(batch, errors))
+          .doOnError(e -> {
+            log.error("Writing {} buffered articles is failed", batch.size(), e);
+            batch.forEach(entry -> entry.getSink().error(e));
+          })
+          .doFinally(signal -> {
+            sample.stop(flushTimer);
+            batchSizes.record(batch.size());
+          })
+          .onErrorResume(e -> Mono.empty())
+          .then();
+    });
+  }
+
+  private static void complete(List<Entry> batch, Map<Integer, String> errors) {
+    for (int i = 0; i < batch.size(); i++) {
+      Entry entry = batch.get(i);
+      String error = errors.get(i);
+      if (error == null) {
+        entry.getSink().success(entry.getArticle());
+      } else {
+        entry.getSink().error(new ArticleWriteException(entry.getArticle().getId(), error));
+      }
+    }
+  }
+
+  @Value
+  private static class Entry {
+
+    Article article;
+
+    MonoSink<Article> sink;
+
+    AtomicBoolean cancelled = new AtomicBoolean();
+  }
+}
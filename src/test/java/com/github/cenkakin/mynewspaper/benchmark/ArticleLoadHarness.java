@@ -0,0 +1,349 @@
+package com.github.cenkakin.mynewspaper.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.cenkakin.mynewspaper.MyNewspaperApplication;
+import com.github.cenkakin.mynewspaper.dto.BulkCreateResultDto;
+import com.github.cenkakin.mynewspaper.request.CreateArticleRequest;
+import com.github.cenkakin.mynewspaper.request.UpdateArticleRequest;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.github.cenkakin.mynewspaper.configuration.NdjsonCodecConfiguration.APPLICATION_NDJSON;
+
+/**
+ * Drives a mixed read, search, create and update load against the application with its embedded mongo, and reports
+ * throughput and latency percentiles of every operation.
+ * <p>
+ * The load is open-loop: operation i is due at {@code start + i / rate} whether or not the earlier ones completed,
+ * and its latency is measured from that time, so a stalled server shows up in the percentiles instead of slowing the
+ * load down. Seeded articles, and the authors and keywords of the operations, follow a Zipf distribution. Everything is
+ * derived from a fixed seed, so two runs with the same arguments send the same requests.
+ * <p>
+ * {@code java ... ArticleLoadHarness [articleCount] [rate/s] [durationSeconds] [read,search,create,update mix]}. Arguments
+ * starting with {@code --} are passed to the application, e.g. {@code --my-newspaper.metrics.reactor=false}. The report
+ * is written to {@code target/load-test/report-<time>.json}.
+ */
+public class ArticleLoadHarness {
+
+  private static final long SEED = 42;
+
+  private static final int AUTHOR_COUNT = 2_000;
+
+  private static final int KEYWORD_COUNT = 200;
+
+  private static final double ZIPF_EXPONENT = 1.0;
+
+  private static final int WARM_UP_SECONDS = 10;
+
+  private static final List<String> OPERATIONS = List.of("read", "search", "create", "update");
+
+  public static void main(String[] args) throws IOException {
+    String[] positional = Arrays.stream(args).filter(arg -> !arg.startsWith("--")).toArray(String[]::new);
+    int articleCount = positional.length > 0 ? Integer.parseInt(positional[0]) : 10_000;
+    int rate = positional.length > 1 ? Integer.parseInt(positional[1]) : 500;
+    int durationSeconds = positional.length > 2 ? Integer.parseInt(positional[2]) : 60;
+    int[] mix = Arrays.stream((positional.length > 3 ? positional[3] : "60,25,10,5").split(","))
+        .mapToInt(Integer::parseInt)
+        .toArray();
+    String[] applicationArgs = Flux.concat(
+        Flux.just("--server.port=0",
+            "--my-newspaper.article-text-index.directory=target/load-test/text-index-" + System.currentTimeMillis()),
+        Flux.fromArray(args).filter(arg -> arg.startsWith("--")))
+        .collectList().block().toArray(String[]::new);
+
+    ReactiveWebServerApplicationContext context = (ReactiveWebServerApplicationContext)
+        SpringApplication.run(MyNewspaperApplication.class, applicationArgs);
+    try {
+      ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+      Jackson2JsonEncoder ndjsonEncoder = new Jackson2JsonEncoder(objectMapper, APPLICATION_NDJSON);
+      ndjsonEncoder.setStreamingMediaTypes(List.of(APPLICATION_NDJSON));
+      // an open-loop load must not queue behind a bounded connection pool
+      WebClient webClient = WebClient.builder()
+          .clientConnector(new ReactorClientHttpConnector(HttpClient.create(ConnectionProvider.elastic("load-test"))))
+          .baseUrl("http://localhost:" + context.getWebServer().getPort() + "/api/v1")
+          .codecs(configurer -> {
+            configurer.customCodecs().encoder(ndjsonEncoder);
+            configurer.customCodecs().decoder(new Jackson2JsonDecoder(objectMapper, APPLICATION_NDJSON));
+          })
+          .build();
+
+      Workload workload = new Workload(webClient, mix, seed(webClient, articleCount));
+      System.out.printf("articles: %d, rate: %d/s, duration: %ds, mix (read,search,create,update): %s%n%n",
+          articleCount, rate, durationSeconds, Arrays.toString(mix));
+
+      run(workload, rate, WARM_UP_SECONDS, 0);
+      workload.reset();
+      Duration elapsed = run(workload, rate, durationSeconds, (long) rate * WARM_UP_SECONDS);
+
+      Map<String, Object> report = report(workload, elapsed);
+      report.put("parameters", parameters(articleCount, rate, durationSeconds, mix));
+      File reportFile = new File("target/load-test/report-" + Instant.now().toEpochMilli() + ".json");
+      reportFile.getParentFile().mkdirs();
+      objectMapper.writer(SerializationFeature.INDENT_OUTPUT).writeValue(reportFile, report);
+      System.out.println("report: " + reportFile.getPath());
+    } finally {
+      context.close();
+    }
+  }
+
+  /**
+   * Creates the articles through the bulk endpoint.
+   *
+   * @return ids of the created articles, in the order of their popularity
+   */
+  private static List<String> seed(WebClient webClient, int articleCount) {
+    Zipf authors = new Zipf(AUTHOR_COUNT);
+    Zipf keywords = new Zipf(KEYWORD_COUNT);
+    return webClient.post()
+        .uri("/articles:bulk")
+        .contentType(APPLICATION_NDJSON)
+        .accept(APPLICATION_NDJSON)
+        .body(Flux.range(0, articleCount).map(i -> generateCreateArticleRequest(new Random(SEED + i), authors, keywords)),
+            CreateArticleRequest.class)
+        .retrieve()
+        .bodyToFlux(BulkCreateResultDto.class)
+        .map(BulkCreateResultDto::getId)
+        .collectList()
+        .block();
+  }
+
+  /**
+   * Sends the operations from firstOperation on at the given rate, and waits until all of them are completed.
+   */
+  private static Duration run(Workload workload, int rate, int seconds, long firstOperation) {
+    long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+    long start = System.nanoTime();
+    Flux.range(0, rate * seconds)
+        .concatMap(i -> {
+          // delays are scheduled in whole milliseconds, rounding up keeps an operation from leaving before it is due
+          long delayMillis = TimeUnit.NANOSECONDS.toMillis(start + i * intervalNanos - System.nanoTime() + 999_999);
+          return delayMillis > 0 ? Mono.delay(Duration.ofMillis(delayMillis)).thenReturn(i) : Mono.just(i);
+        })
+        .flatMap(i -> workload.execute(firstOperation + i, start + i * intervalNanos), Integer.MAX_VALUE)
+        .blockLast();
+    return Duration.ofNanos(System.nanoTime() - start);
+  }
+
+  private static Map<String, Object> report(Workload workload, Duration elapsed) {
+    double seconds = elapsed.toNanos() / 1_000_000_000.0;
+    Map<String, Object> report = new LinkedHashMap<>();
+    Map<String, Object> operations = new LinkedHashMap<>();
+    Histogram all = new Histogram(3);
+    long allCount = 0;
+    System.out.printf("%-8s %9s %10s %9s %9s %9s %9s %9s %s%n",
+        "", "count", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms", "failures by status");
+    for (String operation : OPERATIONS) {
+      Histogram histogram = workload.latencies.get(operation).getIntervalHistogram();
+      Map<Integer, Long> failures = new TreeMap<>();
+      workload.failures.getOrDefault(operation, new ConcurrentHashMap<>())
+          .forEach((status, count) -> failures.put(status, count.get()));
+      operations.put(operation, summary(histogram, seconds, failures));
+      print(operation, histogram, seconds, failures);
+      all.add(histogram);
+      allCount += histogram.getTotalCount();
+    }
+    print("all", all, seconds, Map.of());
+    report.put("elapsedSeconds", seconds);
+    report.put("throughput", allCount / seconds);
+    report.put("operations", operations);
+    report.put("all", summary(all, seconds, Map.of()));
+    return report;
+  }
+
+  private static Map<String, Object> summary(Histogram histogram, double seconds, Map<Integer, Long> failures) {
+    Map<String, Object> summary = new LinkedHashMap<>();
+    summary.put("count", histogram.getTotalCount());
+    summary.put("throughput", histogram.getTotalCount() / seconds);
+    summary.put("p50Millis", millis(histogram.getValueAtPercentile(50)));
+    summary.put("p90Millis", millis(histogram.getValueAtPercentile(90)));
+    summary.put("p99Millis", millis(histogram.getValueAtPercentile(99)));
+    summary.put("p999Millis", millis(histogram.getValueAtPercentile(99.9)));
+    summary.put("maxMillis", millis(histogram.getMaxValue()));
+    summary.put("failuresByStatus", failures);
+    return summary;
+  }
+
+  private static void print(String operation, Histogram histogram, double seconds, Map<Integer, Long> failures) {
+    System.out.printf("%-8s %9d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f %s%n", operation, histogram.getTotalCount(),
+        histogram.getTotalCount() / seconds, millis(histogram.getValueAtPercentile(50)),
+        millis(histogram.getValueAtPercentile(90)), millis(histogram.getValueAtPercentile(99)),
+        millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()), failures);
+  }
+
+  private static double millis(long micros) {
+    return micros / 1_000.0;
+  }
+
+  private static Map<String, Object> parameters(int articleCount, int rate, int durationSeconds, int[] mix) {
+    Map<String, Object> parameters = new LinkedHashMap<>();
+    parameters.put("articleCount", articleCount);
+    parameters.put("rate", rate);
+    parameters.put("durationSeconds", durationSeconds);
+    parameters.put("warmUpSeconds", WARM_UP_SECONDS);
+    parameters.put("mix", IntStream.range(0, OPERATIONS.size()).boxed()
+        .collect(Collectors.toMap(OPERATIONS::get, i -> mix[i], (a, b) -> a, LinkedHashMap::new)));
+    parameters.put("seed", SEED);
+    parameters.put("zipfExponent", ZIPF_EXPONENT);
+    parameters.put("java", System.getProperty("java.version"));
+    parameters.put("processors", Runtime.getRuntime().availableProcessors());
+    return parameters;
+  }
+
+  private static CreateArticleRequest generateCreateArticleRequest(Random random, Zipf authors, Zipf keywords) {
+    int n = random.nextInt(1_000_000);
+    return new CreateArticleRequest("Header " + n,
+        "Short description " + n,
+        "Text of the article " + n + " ".repeat(random.nextInt(2_000)),
+        LocalDate.parse("2015-01-01").plusDays(random.nextInt(2_000)),
+        Set.of("Author " + authors.next(random)),
+        new HashSet<>(List.of("keyword" + keywords.next(random), "keyword" + keywords.next(random))));
+  }
+
+  private static class Workload {
+
+    private final WebClient webClient;
+
+    private final int[] mix;
+
+    private final List<String> ids;
+
+    private final Zipf articles;
+
+    private final Zipf authors = new Zipf(AUTHOR_COUNT);
+
+    private final Zipf keywords = new Zipf(KEYWORD_COUNT);
+
+    private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    private final Map<String, Recorder> latencies = OPERATIONS.stream()
+        .collect(Collectors.toMap(operation -> operation, operation -> new Recorder(3)));
+
+    private final ConcurrentMap<String, ConcurrentMap<Integer, AtomicLong>> failures = new ConcurrentHashMap<>();
+
+    private Workload(WebClient webClient, int[] mix, List<String> ids) {
+      this.webClient = webClient;
+      this.mix = mix;
+      this.ids = ids;
+      this.articles = new Zipf(ids.size());
+    }
+
+    private void reset() {
+      latencies.values().forEach(Recorder::reset);
+      failures.clear();
+    }
+
+    /**
+     * Sends the operation picked for the given number, and records its latency from the time it was due.
+     */
+    private Mono<Integer> execute(long operationNumber, long dueNanos) {
+      Random random = new Random(SEED ^ operationNumber);
+      String operation = pick(random);
+      return request(operation, random)
+          .exchange()
+          .flatMap(response -> response.releaseBody().thenReturn(response.rawStatusCode()))
+          .onErrorReturn(-1)
+          .doOnNext(status -> {
+            latencies.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - dueNanos));
+            if (status < 200 || status >= 300) {
+              failures.computeIfAbsent(operation, o -> new ConcurrentHashMap<>())
+                  .computeIfAbsent(status, s -> new AtomicLong())
+                  .incrementAndGet();
+            }
+          });
+    }
+
+    private String pick(Random random) {
+      int value = random.nextInt(Arrays.stream(mix).sum());
+      for (int i = 0; i < mix.length; i++) {
+        value -= mix[i];
+        if (value < 0) {
+          return OPERATIONS.get(i);
+        }
+      }
+      throw new IllegalStateException();
+    }
+
+    private WebClient.RequestHeadersSpec<?> request(String operation, Random random) {
+      switch (operation) {
+        case "read":
+          return webClient.get().uri("/articles/{id}", ids.get(articles.next(random)));
+        case "search":
+          return random.nextBoolean()
+              ? webClient.get().uri("/articles:search?author={author}", "Author " + authors.next(random))
+              : webClient.get().uri("/articles:search?keyword={keyword}", "keyword" + keywords.next(random));
+        case "create":
+          return webClient.post()
+              .uri("/articles")
+              .contentType(MediaType.APPLICATION_JSON)
+              .bodyValue(generateCreateArticleRequest(random, authors, keywords));
+        default:
+          // updates are spread uniformly, a popular article would mostly see outdated versions
+          String id = ids.get(random.nextInt(ids.size()));
+          CreateArticleRequest content = generateCreateArticleRequest(random, authors, keywords);
+          return webClient.put()
+              .uri("/articles/{id}", id)
+              .contentType(MediaType.APPLICATION_JSON)
+              .bodyValue(new UpdateArticleRequest(content.getHeader(), content.getShortDescription(),
+                  content.getText(), content.getPublishDate(), content.getAuthors(), content.getKeywords(),
+                  versions.computeIfAbsent(id, i -> new AtomicLong()).incrementAndGet()));
+      }
+    }
+  }
+
+  /**
+   * Samples ranks from 0 to n - 1, where the probability of a rank is proportional to 1 / (rank + 1)^exponent.
+   */
+  private static class Zipf {
+
+    private final double[] cumulative;
+
+    private Zipf(int n) {
+      cumulative = new double[n];
+      double sum = 0;
+      for (int rank = 0; rank < n; rank++) {
+        sum += 1 / Math.pow(rank + 1, ZIPF_EXPONENT);
+        cumulative[rank] = sum;
+      }
+      for (int rank = 0; rank < n; rank++) {
+        cumulative[rank] /= sum;
+      }
+    }
+
+    private int next(Random random) {
+      int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+      return Math.min(rank < 0 ? -rank - 1 : rank, cumulative.length - 1);
+    }
+  }
+}
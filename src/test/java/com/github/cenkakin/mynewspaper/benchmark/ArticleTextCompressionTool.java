@@ -0,0 +1,118 @@
+package com.github.cenkakin.mynewspaper.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.cenkakin.mynewspaper.codec.ArticleTextCompressor;
+import com.github.cenkakin.mynewspaper.codec.ArticleTextDictionaryTrainer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.Deflater;
+
+/**
+ * Trains an article text dictionary on a sample corpus and reports the compression ratio and the encode and decode
+ * throughput of the texts with and without it. The dictionary is written to be configured as
+ * {@code my-newspaper.article-text-compression.dictionary}.
+ * <p>
+ * {@code java ... ArticleTextCompressionTool [corpus.ndjson] [dictionarySize] [dictionaryFile]}
+ * <p>
+ * The corpus has one article text per line, either plain or as json with a "text" field, e.g. the output of
+ * {@code mongoexport --collection article --fields text}. The first fifth of the corpus trains the dictionary, the rest
+ * is measured. Without a corpus generated articles are used, their ratio says little about real ones.
+ */
+public class ArticleTextCompressionTool {
+
+  public static void main(String[] args) throws IOException {
+    List<String> corpus = args.length > 0 ? readCorpus(Path.of(args[0])) : generateCorpus(5_000);
+    int dictionarySize = args.length > 1 ? Integer.parseInt(args[1]) : ArticleTextDictionaryTrainer.MAX_SIZE;
+    Path dictionaryFile = Path.of(args.length > 2 ? args[2] : "target/article-text.dict");
+
+    List<String> samples = corpus.subList(0, corpus.size() / 5);
+    List<String> texts = corpus.subList(corpus.size() / 5, corpus.size());
+    long start = System.nanoTime();
+    byte[] dictionary = ArticleTextDictionaryTrainer.train(samples, dictionarySize);
+    double trainSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+    Files.createDirectories(dictionaryFile.toAbsolutePath().getParent());
+    Files.write(dictionaryFile, dictionary);
+
+    System.out.printf("texts: %d, training samples: %d%n", texts.size(), samples.size());
+    System.out.printf("dictionary: %d bytes in %.2f s, written to %s%n%n", dictionary.length, trainSeconds, dictionaryFile);
+    report("deflate", new ArticleTextCompressor(null, Deflater.DEFAULT_COMPRESSION), texts);
+    report("deflate with dictionary", new ArticleTextCompressor(dictionary, Deflater.DEFAULT_COMPRESSION), texts);
+  }
+
+  private static void report(String name, ArticleTextCompressor compressor, List<String> texts) {
+    long plainBytes = texts.stream().mapToLong(text -> text.getBytes(StandardCharsets.UTF_8).length).sum();
+    // warm up before measuring
+    List<byte[]> compressed = compressAll(compressor, texts);
+    decompressAll(compressor, compressed);
+
+    long start = System.nanoTime();
+    compressed = compressAll(compressor, texts);
+    double encodeSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+    start = System.nanoTime();
+    decompressAll(compressor, compressed);
+    double decodeSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+    long compressedBytes = compressed.stream().mapToLong(bytes -> bytes.length).sum();
+
+    System.out.println(name);
+    System.out.println("  plain bytes:          " + plainBytes);
+    System.out.println("  compressed bytes:     " + compressedBytes);
+    System.out.printf("  ratio:                %.2f%n", (double) plainBytes / compressedBytes);
+    System.out.printf("  encode (MB/s):        %.1f%n", plainBytes / encodeSeconds / 1_000_000);
+    System.out.printf("  decode (MB/s):        %.1f%n%n", plainBytes / decodeSeconds / 1_000_000);
+  }
+
+  private static List<byte[]> compressAll(ArticleTextCompressor compressor, List<String> texts) {
+    return texts.stream().map(compressor::compress).collect(Collectors.toList());
+  }
+
+  private static void decompressAll(ArticleTextCompressor compressor, List<byte[]> compressed) {
+    compressed.forEach(compressor::decompress);
+  }
+
+  private static List<String> readCorpus(Path corpus) throws IOException {
+    ObjectMapper objectMapper = new ObjectMapper();
+    try (var lines = Files.lines(corpus)) {
+      return lines.filter(line -> !line.isBlank())
+          .map(line -> {
+            if (!line.startsWith("{")) {
+              return line;
+            }
+            try {
+              JsonNode text = objectMapper.readTree(line).get("text");
+              return text == null ? "" : text.asText();
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          })
+          .filter(text -> !text.isEmpty())
+          .collect(Collectors.toList());
+    }
+  }
+
+  private static List<String> generateCorpus(int articleCount) {
+    Random random = new Random(42);
+    String[] sentences = {"The government announced new measures on %s.", "Experts warn that %s could change the market.",
+        "According to the ministry, %s cases were reported.", "Our correspondent in %s says the situation is calm.",
+        "Shares rose %s percent in early trading.", "The match ended %s after a late goal.",
+        "Residents were asked to stay at home until %s.", "The report will be published on %s."};
+    String[] subjects = {"Monday", "Tuesday", "Berlin", "Istanbul", "the central bank", "12", "3", "2-1", "next week"};
+    List<String> corpus = new ArrayList<>();
+    for (int i = 0; i < articleCount; i++) {
+      corpus.add(IntStream.range(0, 5 + random.nextInt(40))
+          .mapToObj(s -> String.format(sentences[random.nextInt(sentences.length)],
+              subjects[random.nextInt(subjects.length)]))
+          .collect(Collectors.joining(" ")));
+    }
+    return corpus;
+  }
+}
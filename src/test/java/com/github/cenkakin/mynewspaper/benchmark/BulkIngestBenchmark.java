@@ -0,0 +1,112 @@
+package com.github.cenkakin.mynewspaper.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.cenkakin.mynewspaper.MyNewspaperApplication;
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.request.CreateArticleRequest;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static com.github.cenkakin.mynewspaper.configuration.NdjsonCodecConfiguration.APPLICATION_NDJSON;
+
+/**
+ * Compares the ingest throughput of one POST /articles per article with a single streamed POST /articles:bulk.
+ * <p>
+ * Starts the application with its embedded mongo: {@code java ... BulkIngestBenchmark [articleCount] [concurrency]}.
+ * Extra arguments are passed to the application, e.g. {@code --my-newspaper.article-bulk.batch-size=1000}.
+ */
+public class BulkIngestBenchmark {
+
+  public static void main(String[] args) {
+    int articleCount = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+    int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+    String[] applicationArgs = Flux.concat(
+        Flux.just("--server.port=0", "--my-newspaper.article-text-index.directory=target/benchmark-text-index"),
+        Flux.fromArray(args).skip(2))
+        .collectList().block().toArray(String[]::new);
+
+    ReactiveWebServerApplicationContext context = (ReactiveWebServerApplicationContext)
+        SpringApplication.run(MyNewspaperApplication.class, applicationArgs);
+    try {
+      ReactiveMongoOperations mongoOperations = context.getBean(ReactiveMongoOperations.class);
+      ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+      Jackson2JsonEncoder ndjsonEncoder = new Jackson2JsonEncoder(objectMapper, APPLICATION_NDJSON);
+      ndjsonEncoder.setStreamingMediaTypes(List.of(APPLICATION_NDJSON));
+      WebClient webClient = WebClient.builder()
+          .baseUrl("http://localhost:" + context.getWebServer().getPort() + "/api/v1")
+          .codecs(configurer -> configurer.customCodecs().encoder(ndjsonEncoder))
+          .build();
+
+      System.out.printf("articles: %d, single insert concurrency: %d%n%n", articleCount, concurrency);
+      // warm up both paths before measuring
+      singleInserts(webClient, articleCount / 10, concurrency);
+      bulkInsert(webClient, articleCount / 10);
+      mongoOperations.remove(new Query(), Article.class).block();
+
+      double single = report("single POST /articles", articleCount, () -> singleInserts(webClient, articleCount, concurrency));
+      double bulk = report("streamed POST /articles:bulk", articleCount, () -> bulkInsert(webClient, articleCount));
+      System.out.printf("speedup: %.1fx%n", bulk / single);
+    } finally {
+      context.close();
+    }
+  }
+
+  private static long singleInserts(WebClient webClient, int articleCount, int concurrency) {
+    return Flux.range(0, articleCount)
+        .flatMap(i -> webClient.post()
+            .uri("/articles")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(generateCreateArticleRequest(i))
+            .retrieve()
+            .bodyToMono(String.class), concurrency)
+        .count()
+        .block();
+  }
+
+  private static long bulkInsert(WebClient webClient, int articleCount) {
+    return webClient.post()
+        .uri("/articles:bulk")
+        .contentType(APPLICATION_NDJSON)
+        .accept(APPLICATION_NDJSON)
+        .body(Flux.range(0, articleCount).map(BulkIngestBenchmark::generateCreateArticleRequest), CreateArticleRequest.class)
+        .retrieve()
+        .bodyToFlux(String.class)
+        .filter(line -> line.contains("\"id\""))
+        .count()
+        .block();
+  }
+
+  private static double report(String name, int articleCount, Supplier<Long> ingest) {
+    long start = System.nanoTime();
+    long created = ingest.get();
+    double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+    double throughput = articleCount / seconds;
+    System.out.println(name);
+    System.out.println("  created:                " + created);
+    System.out.printf("  elapsed (s):            %.2f%n", seconds);
+    System.out.printf("  throughput (article/s): %.0f%n%n", throughput);
+    return throughput;
+  }
+
+  private static CreateArticleRequest generateCreateArticleRequest(int i) {
+    Random random = new Random(i);
+    return new CreateArticleRequest("Header " + i,
+        "Short description " + i,
+        "Text of the article " + i + " ".repeat(random.nextInt(2_000)),
+        LocalDate.parse("2015-01-01").plusDays(random.nextInt(2_000)),
+        Set.of("Author " + random.nextInt(500)),
+        Set.of("keyword" + random.nextInt(100)));
+  }
+}
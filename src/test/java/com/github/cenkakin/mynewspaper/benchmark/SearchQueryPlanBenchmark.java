@@ -0,0 +1,138 @@
+package com.github.cenkakin.mynewspaper.benchmark;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.IndexOptions;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the query plans of the author search before and after normalized authors. The old search matched authors
+ * with a case insensitive regex, the new one matches normalized authors by equality.
+ * <p>
+ * Runs against an embedded mongo: {@code java ... SearchQueryPlanBenchmark [articleCount] [repetitions]}
+ */
+public class SearchQueryPlanBenchmark {
+
+  private static final int AUTHOR_COUNT = 2_000;
+
+  private static final int PAGE_SIZE = 21;
+
+  private static final Document PAGE_ORDER = new Document("publishDate", -1).append("_id", -1);
+
+  public static void main(String[] args) throws Exception {
+    int articleCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+    int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+    int port = Network.getFreeServerPort();
+    MongodExecutable mongod = MongodStarter.getDefaultInstance().prepare(new MongodConfigBuilder()
+        .version(Version.Main.PRODUCTION)
+        .net(new Net(port, Network.localhostIsIPv6()))
+        .build());
+    mongod.start();
+    try (MongoClient client = MongoClients.create("mongodb://localhost:" + port)) {
+      MongoDatabase database = client.getDatabase("benchmark");
+      MongoCollection<Document> articles = database.getCollection("article");
+      seed(articles, articleCount);
+      articles.createIndex(new Document("deleted", 1).append("authors", 1), new IndexOptions().name("deleted_authors"));
+      articles.createIndex(new Document("deleted", 1).append("normalizedAuthors", 1).append("publishDate", -1).append("_id", -1),
+          new IndexOptions().name("deleted_normalizedAuthors_publishDate_id"));
+
+      String author = authorName(1);
+      Document before = new Document("deleted", false)
+          .append("authors", Pattern.compile("^" + Pattern.quote(author.toLowerCase(Locale.ROOT)) + "$", Pattern.CASE_INSENSITIVE));
+      Document after = new Document("deleted", false)
+          .append("normalizedAuthors", author.toLowerCase(Locale.ROOT));
+
+      System.out.printf("articles: %d, authors: %d, repetitions: %d%n%n", articleCount, AUTHOR_COUNT, repetitions);
+      report("before (case insensitive regex on authors)", database, articles, before, repetitions);
+      report("after (equality on normalizedAuthors)", database, articles, after, repetitions);
+    } finally {
+      mongod.stop();
+    }
+  }
+
+  private static void seed(MongoCollection<Document> articles, int articleCount) {
+    Random random = new Random(42);
+    LocalDate firstPublishDate = LocalDate.parse("2015-01-01");
+    List<Document> batch = new ArrayList<>();
+    for (int i = 0; i < articleCount; i++) {
+      List<String> authors = List.of(authorName(zipf(random)), authorName(zipf(random)));
+      Date publishDate = Date.from(firstPublishDate.plusDays(random.nextInt(2_000)).atStartOfDay().toInstant(ZoneOffset.UTC));
+      batch.add(new Document("header", "Header " + i)
+          .append("deleted", false)
+          .append("shortDescription", "Short description " + i)
+          .append("text", "Text " + i)
+          .append("publishDate", publishDate)
+          .append("authors", authors)
+          .append("normalizedAuthors", authors.stream().map(a -> a.toLowerCase(Locale.ROOT)).collect(Collectors.toList()))
+          .append("version", 0L));
+      if (batch.size() == 1_000) {
+        articles.insertMany(batch);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      articles.insertMany(batch);
+    }
+  }
+
+  private static void report(String name, MongoDatabase database, MongoCollection<Document> articles, Bson filter,
+                             int repetitions) {
+    Document explain = database.runCommand(new Document("explain", new Document("find", articles.getNamespace().getCollectionName())
+        .append("filter", filter)
+        .append("sort", PAGE_ORDER)
+        .append("limit", PAGE_SIZE))
+        .append("verbosity", "executionStats"));
+    Document queryPlanner = (Document) explain.get("queryPlanner");
+    Document executionStats = (Document) explain.get("executionStats");
+
+    long start = System.nanoTime();
+    for (int i = 0; i < repetitions; i++) {
+      articles.find(filter).sort(PAGE_ORDER).limit(PAGE_SIZE).into(new ArrayList<>());
+    }
+    double averageMillis = (System.nanoTime() - start) / 1_000_000.0 / repetitions;
+
+    System.out.println(name);
+    System.out.println("  winning plan:         " + stages((Document) queryPlanner.get("winningPlan")));
+    System.out.println("  returned:             " + executionStats.get("nReturned"));
+    System.out.println("  keys examined:        " + executionStats.get("totalKeysExamined"));
+    System.out.println("  documents examined:   " + executionStats.get("totalDocsExamined"));
+    System.out.printf("  average latency (ms): %.3f%n%n", averageMillis);
+  }
+
+  private static String stages(Document plan) {
+    Document inputStage = (Document) plan.get("inputStage");
+    String stage = plan.getString("stage");
+    return inputStage == null ? stage : stage + " <- " + stages(inputStage);
+  }
+
+  /**
+   * A few authors write most of the articles.
+   */
+  private static int zipf(Random random) {
+    return (int) Math.floor(Math.pow(AUTHOR_COUNT + 1, random.nextDouble())) - 1;
+  }
+
+  private static String authorName(int index) {
+    return "Author " + index;
+  }
+}
@@ -0,0 +1,268 @@
+package com.github.cenkakin.mynewspaper.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.request.CreateArticleRequest;
+import com.github.cenkakin.mynewspaper.request.PageArticleRequest;
+import com.github.cenkakin.mynewspaper.request.SearchArticleRequest;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ArticleSearchCacheTest {
+
+  private static final PageArticleRequest FIRST_PAGE = new PageArticleRequest(3, null);
+
+  private final ArticleSearchCache articleSearchCache = new ArticleSearchCache(
+      Caffeine.newBuilder().maximumSize(100).recordStats());
+
+  /**
+   * The collection the loads read, ids of a page are the result of a search.
+   */
+  private final Map<String, Article> articles = new LinkedHashMap<>();
+
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @Test
+  void shouldCacheSearchesCaseInsensitively() {
+    //given
+    write(generateArticle("1", "Cenk", "health", "2020-01-01"));
+
+    //when
+    List<String> first = search(searchByAuthor("Cenk"));
+    List<String> second = search(searchByAuthor("cENK"));
+
+    //then
+    assertEquals(List.of("1"), first);
+    assertEquals(List.of("1"), second);
+    assertEquals(1, loads.get());
+    assertEquals(0.5, articleSearchCache.getHitRatio());
+  }
+
+  @Test
+  void shouldEvictOnlySearchesWhichWrittenArticleMatches() {
+    //given
+    write(generateArticle("1", "Cenk", "health", "2020-01-01"));
+    search(searchByAuthor("cenk"));
+    search(searchByAuthor("pulitzer"));
+    search(new SearchArticleRequest("health", null, null, null, null));
+    search(new SearchArticleRequest(null, null, LocalDate.parse("2020-02-01"), null, null));
+
+    //when
+    write(generateArticle("2", "Pulitzer", "sports", "2020-01-15"));
+
+    //then
+    assertEquals(List.of("1"), search(searchByAuthor("cenk")));
+    assertEquals(List.of("1"), search(new SearchArticleRequest("health", null, null, null, null)));
+    assertEquals(List.of(), search(new SearchArticleRequest(null, null, LocalDate.parse("2020-02-01"), null, null)));
+    assertEquals(4, loads.get());
+    assertEquals(List.of("2"), search(searchByAuthor("pulitzer")));
+    assertEquals(5, loads.get());
+    assertEquals(1, articleSearchCache.getInvalidations());
+  }
+
+  @Test
+  void shouldEvictSearchOfAuthorAndKeywordOnlyWhenWrittenArticleMatchesBoth() {
+    //given
+    SearchArticleRequest request = new SearchArticleRequest("health", "Cenk", null, null, null);
+    write(generateArticle("1", "Cenk", "health", "2020-01-01"));
+    search(request);
+
+    //when
+    write(generateArticle("2", "Cenk", "sports", "2020-01-02"));
+    write(generateArticle("3", "Pulitzer", "health", "2020-01-03"));
+    List<String> beforeMatchingWrite = search(request);
+    write(generateArticle("4", "Cenk", "health", "2020-01-04"));
+
+    //then
+    assertEquals(List.of("1"), beforeMatchingWrite);
+    assertEquals(List.of("4", "1"), search(request));
+    assertEquals(2, loads.get());
+    assertEquals(1, articleSearchCache.getInvalidations());
+  }
+
+  @Test
+  void shouldEvictSearchesContainingArticleWhichNoLongerMatches() {
+    //given
+    write(generateArticle("1", "Cenk", "health", "2020-01-01"));
+    write(generateArticle("2", "Cenk", "health", "2020-01-02"));
+    search(searchByAuthor("cenk"));
+    search(new SearchArticleRequest("health", null, null, null, null));
+
+    //when
+    write(generateArticle("1", "Pulitzer", "health", "2020-01-01"));
+    delete("2");
+
+    //then
+    assertEquals(List.of(), search(searchByAuthor("cenk")));
+    assertEquals(List.of("1"), search(new SearchArticleRequest("health", null, null, null, null)));
+    assertEquals(4, loads.get());
+  }
+
+  @Test
+  void shouldNotCacheLoadWhichOverlappedMatchingWrite() {
+    //given
+    write(generateArticle("1", "Cenk", "health", "2020-01-01"));
+    MonoProcessor<List<String>> staleLoad = MonoProcessor.create();
+    ArticleSearchKey key = ArticleSearchKey.of("ids", searchByAuthor("cenk"), FIRST_PAGE);
+
+    //when
+    StepVerifier.create(articleSearchCache.get(key, 0, Function.identity(), () -> staleLoad))
+        .then(() -> write(generateArticle("2", "Cenk", "health", "2020-01-02")))
+        .then(() -> staleLoad.onNext(List.of("1")))
+        .expectNext(List.of("1"))
+        .verifyComplete();
+
+    //then
+    assertEquals(List.of("2", "1"), search(searchByAuthor("cenk")));
+    assertEquals(1, articleSearchCache.getRejectedLoads());
+  }
+
+  @Test
+  void shouldCacheLoadWhichOverlappedOnlyUnrelatedWrites() {
+    //given
+    write(generateArticle("1", "Cenk", "health", "2020-01-01"));
+    MonoProcessor<List<String>> load = MonoProcessor.create();
+    ArticleSearchKey key = ArticleSearchKey.of("ids", searchByAuthor("cenk"), FIRST_PAGE);
+
+    //when
+    StepVerifier.create(articleSearchCache.get(key, 0, Function.identity(), () -> load))
+        .then(() -> write(generateArticle("2", "Pulitzer", "sports", "2020-01-02")))
+        .then(() -> load.onNext(List.of("1")))
+        .expectNext(List.of("1"))
+        .verifyComplete();
+
+    //then
+    assertEquals(List.of("1"), search(searchByAuthor("cenk")));
+    assertEquals(0, loads.get());
+    assertEquals(0, articleSearchCache.getRejectedLoads());
+  }
+
+  @Test
+  void shouldLoadPageAgainWhenAnotherInstanceAdvancedWriteEpoch() {
+    //given
+    write(generateArticle("1", "Cenk", "health", "2020-01-01"));
+    search(searchByAuthor("cenk"), 1);
+    Article writtenByAnotherInstance = generateArticle("2", "Cenk", "health", "2020-01-02");
+    articles.put(writtenByAnotherInstance.getId(), writtenByAnotherInstance);
+
+    //when
+    List<String> sameEpoch = search(searchByAuthor("cenk"), 1);
+    List<String> newerEpoch = search(searchByAuthor("cenk"), 2);
+    List<String> olderEpoch = search(searchByAuthor("cenk"), 1);
+
+    //then
+    assertEquals(List.of("1"), sameEpoch);
+    assertEquals(List.of("2", "1"), newerEpoch);
+    assertEquals(List.of("2", "1"), olderEpoch);
+    assertEquals(2, loads.get());
+  }
+
+  /**
+   * Interleaves writes, searches and loads which complete after later writes, and checks that every search answered
+   * from the cache is the same as a search of the current articles. A search of a page which is being loaded would join
+   * the load, so the load is completed first.
+   */
+  @Test
+  void shouldNeverServeStalePageWhenWritesAndSearchesInterleave() {
+    Random random = new Random(42);
+    List<String> authors = List.of("Cenk", "Pulitzer", "Orwell");
+    List<String> keywords = List.of("health", "sports", "politics");
+    Map<ArticleSearchKey, Runnable> pendingLoads = new LinkedHashMap<>();
+    for (int step = 0; step < 5_000; step++) {
+      int operation = random.nextInt(10);
+      if (operation < 3) {
+        write(generateArticle(String.valueOf(random.nextInt(30)), authors.get(random.nextInt(authors.size())),
+            keywords.get(random.nextInt(keywords.size())), LocalDate.parse("2020-01-01").plusDays(random.nextInt(30))
+                .toString()));
+      } else if (operation < 4) {
+        delete(String.valueOf(random.nextInt(30)));
+      } else if (operation < 5 && !pendingLoads.isEmpty()) {
+        ArticleSearchKey key = new ArrayList<>(pendingLoads.keySet()).get(random.nextInt(pendingLoads.size()));
+        pendingLoads.remove(key).run();
+      } else {
+        ArticleSearchKey key = ArticleSearchKey.of("ids", generateSearch(random, authors, keywords), FIRST_PAGE);
+        Optional.ofNullable(pendingLoads.remove(key)).ifPresent(Runnable::run);
+        if (random.nextBoolean()) {
+          // the load reads the articles now and completes after later writes
+          MonoProcessor<List<String>> load = MonoProcessor.create();
+          List<String> snapshot = find(key);
+          articleSearchCache.get(key, 0, Function.identity(), () -> load).subscribe();
+          pendingLoads.put(key, () -> load.onNext(snapshot));
+        } else {
+          assertEquals(find(key), articleSearchCache.get(key, 0, Function.identity(),
+              () -> Mono.fromCallable(() -> find(key))).block(), "step " + step + ", " + key);
+        }
+      }
+    }
+  }
+
+  private List<String> search(SearchArticleRequest request) {
+    return search(request, 0);
+  }
+
+  private List<String> search(SearchArticleRequest request, long epoch) {
+    ArticleSearchKey key = ArticleSearchKey.of("ids", request, FIRST_PAGE);
+    return articleSearchCache.<List<String>>get(key, epoch, Function.identity(), () -> Mono.fromCallable(() -> {
+      loads.incrementAndGet();
+      return find(key);
+    })).block();
+  }
+
+  private List<String> find(ArticleSearchKey key) {
+    return articles.values().stream()
+        .filter(key::matches)
+        .sorted(Comparator.comparing(Article::getPublishDate).thenComparing(Article::getId).reversed())
+        .limit(key.getLimit())
+        .map(Article::getId)
+        .collect(Collectors.toList());
+  }
+
+  private void write(Article article) {
+    articles.put(article.getId(), article);
+    articleSearchCache.written(article);
+  }
+
+  private void delete(String id) {
+    Article article = articles.get(id);
+    if (article != null) {
+      article.delete();
+      articleSearchCache.deleted(id);
+    }
+  }
+
+  private static SearchArticleRequest searchByAuthor(String author) {
+    return new SearchArticleRequest(null, author, null, null, null);
+  }
+
+  private static SearchArticleRequest generateSearch(Random random, List<String> authors, List<String> keywords) {
+    String author = random.nextBoolean() ? authors.get(random.nextInt(authors.size())).toUpperCase() : null;
+    String keyword = random.nextBoolean() ? keywords.get(random.nextInt(keywords.size())) : null;
+    LocalDate from = random.nextBoolean() ? LocalDate.parse("2020-01-01").plusDays(random.nextInt(30)) : null;
+    return new SearchArticleRequest(keyword, author, from, from == null ? null : from.plusDays(random.nextInt(10)), null);
+  }
+
+  private static Article generateArticle(String id, String author, String keyword, String publishDate) {
+    Article article = Article.fromCreateArticleRequest(new CreateArticleRequest("Corona Virus!",
+        "Is it a worldwide threat?", "We should be careful...", LocalDate.parse(publishDate), Set.of(author),
+        Set.of(keyword)));
+    article.setId(id);
+    return article;
+  }
+}
@@ -0,0 +1,95 @@
+package com.github.cenkakin.mynewspaper.cache;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+  private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+  private final AtomicInteger loaderCalls = new AtomicInteger();
+
+  @Test
+  void shouldShareInFlightLoadOfSameKey() {
+    //given
+    MonoProcessor<String> load = MonoProcessor.create();
+
+    //when
+    Mono<String> first = singleFlight.load("1", key -> countCall(load));
+    Mono<String> second = singleFlight.load("1", key -> countCall(load));
+
+    //then
+    StepVerifier.create(Mono.zip(first, second))
+        .then(() -> load.onNext("article"))
+        .expectNextMatches(values -> values.getT1().equals("article") && values.getT2().equals("article"))
+        .expectComplete()
+        .verify();
+    assertEquals(1, loaderCalls.get());
+    assertEquals(1, singleFlight.getLoads());
+    assertEquals(0.5, singleFlight.getCoalesceRatio());
+  }
+
+  @Test
+  void shouldPassErrorToEveryCallerAndLoadAgainAfterIt() {
+    //given
+    MonoProcessor<String> load = MonoProcessor.create();
+    Mono<String> first = singleFlight.load("1", key -> countCall(load));
+    Mono<String> second = singleFlight.load("1", key -> countCall(load));
+
+    //when - then
+    StepVerifier.create(Mono.zipDelayError(first.onErrorReturn("failed"), second.onErrorReturn("failed")))
+        .then(() -> load.onError(new IllegalStateException()))
+        .expectNextMatches(values -> values.getT1().equals("failed") && values.getT2().equals("failed"))
+        .expectComplete()
+        .verify();
+    StepVerifier.create(singleFlight.load("1", key -> countCall(Mono.just("article"))))
+        .expectNext("article")
+        .expectComplete()
+        .verify();
+    assertEquals(2, loaderCalls.get());
+  }
+
+  @Test
+  void shouldCancelLoadOnlyWhenEveryCallerCancelled() {
+    //given
+    MonoProcessor<String> load = MonoProcessor.create();
+    Disposable first = singleFlight.load("1", key -> countCall(load)).subscribe();
+    Disposable second = singleFlight.load("1", key -> countCall(load)).subscribe();
+
+    //when
+    first.dispose();
+    boolean loadingAfterFirstCancel = load.hasDownstreams();
+    second.dispose();
+
+    //then
+    assertTrue(loadingAfterFirstCancel);
+    assertFalse(load.hasDownstreams());
+    assertEquals(1, loaderCalls.get());
+  }
+
+  @Test
+  void shouldNotShareLoadsOfDifferentKeys() {
+    //when
+    singleFlight.load("1", key -> countCall(Mono.never())).subscribe();
+    singleFlight.load("2", key -> countCall(Mono.never())).subscribe();
+
+    //then
+    assertEquals(2, loaderCalls.get());
+    assertEquals(2, singleFlight.getLoads());
+    assertEquals(0, singleFlight.getCoalescedLoads());
+  }
+
+  private Mono<String> countCall(Mono<String> load) {
+    loaderCalls.incrementAndGet();
+    return load;
+  }
+}
@@ -0,0 +1,80 @@
+package com.github.cenkakin.mynewspaper.codec;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.Deflater;
+
+class ArticleTextCompressorTest {
+
+  private static final List<String> SAMPLES = IntStream.range(0, 50)
+      .mapToObj(i -> "The minister of health said on Monday that the number of new cases " + i
+          + " is expected to rise in the coming weeks, according to a statement published by the ministry.")
+      .collect(Collectors.toList());
+
+  @Test
+  void shouldDecompressCompressedText() {
+    //given
+    ArticleTextCompressor compressor = new ArticleTextCompressor(null, Deflater.DEFAULT_COMPRESSION);
+    String text = "We should be careful... ".repeat(100);
+
+    //when
+    byte[] compressed = compressor.compress(text);
+
+    //then
+    Assertions.assertEquals(ArticleTextCompressor.DEFLATED, compressed[0]);
+    Assertions.assertTrue(compressed.length < text.length() / 10);
+    Assertions.assertEquals(text, compressor.decompress(compressed));
+  }
+
+  @Test
+  void shouldKeepTextPlainWhenItDoesNotGetSmaller() {
+    //given
+    ArticleTextCompressor compressor = new ArticleTextCompressor(null, Deflater.DEFAULT_COMPRESSION);
+
+    //when
+    byte[] compressed = compressor.compress("Ok ğ");
+
+    //then
+    Assertions.assertEquals(ArticleTextCompressor.PLAIN, compressed[0]);
+    Assertions.assertEquals("Ok ğ".getBytes(StandardCharsets.UTF_8).length + 1, compressed.length);
+    Assertions.assertEquals("Ok ğ", compressor.decompress(compressed));
+  }
+
+  @Test
+  void shouldCompressShortTextsBetterWithTrainedDictionary() {
+    //given
+    byte[] dictionary = ArticleTextDictionaryTrainer.train(SAMPLES, 1024);
+    ArticleTextCompressor withDictionary = new ArticleTextCompressor(dictionary, Deflater.DEFAULT_COMPRESSION);
+    ArticleTextCompressor withoutDictionary = new ArticleTextCompressor(null, Deflater.DEFAULT_COMPRESSION);
+    String text = "The minister of health said on Monday that the number of new cases 77 is expected to rise.";
+
+    //when
+    byte[] compressedWithDictionary = withDictionary.compress(text);
+    byte[] compressedWithoutDictionary = withoutDictionary.compress(text);
+
+    //then
+    Assertions.assertTrue(dictionary.length <= 1024);
+    Assertions.assertTrue(compressedWithDictionary.length < compressedWithoutDictionary.length / 2);
+    Assertions.assertEquals(text, withDictionary.decompress(compressedWithDictionary));
+  }
+
+  @Test
+  void shouldNotDecompressTextCompressedWithAnotherDictionary() {
+    //given
+    ArticleTextCompressor compressor = new ArticleTextCompressor(ArticleTextDictionaryTrainer.train(SAMPLES, 1024),
+        Deflater.DEFAULT_COMPRESSION);
+    ArticleTextCompressor another = new ArticleTextCompressor("another dictionary".getBytes(StandardCharsets.UTF_8),
+        Deflater.DEFAULT_COMPRESSION);
+
+    //when
+    byte[] compressed = compressor.compress(SAMPLES.get(0));
+
+    //then
+    Assertions.assertThrows(IllegalStateException.class, () -> another.decompress(compressed));
+  }
+}
@@ -0,0 +1,125 @@
+package com.github.cenkakin.mynewspaper.codec;
+
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.domain.ArticleText;
+import com.github.cenkakin.mynewspaper.request.CreateArticleRequest;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+class ArticleTextConvertersTest {
+
+  private final ArticleTextCompressor compressor = new ArticleTextCompressor(null, Deflater.DEFAULT_COMPRESSION);
+
+  @Test
+  void shouldWriteCompressedTextAndReadItLazily() {
+    //given
+    MappingMongoConverter converter = createConverter(true);
+    Article article = generateArticle();
+
+    //when
+    Document document = new Document();
+    converter.write(article, document);
+    Article read = converter.read(Article.class, document);
+
+    //then
+    Assertions.assertTrue(document.get("text") instanceof Binary);
+    Assertions.assertEquals(article.getShortDescription(), document.get("shortDescription"));
+    Assertions.assertTrue(read.getText().isCompressed());
+    Assertions.assertEquals(article.getText().decode(), read.getText().decode());
+  }
+
+  @Test
+  void shouldWriteCompressedTextWithoutCompressingItAgain() {
+    //given
+    ArticleTextCompressor compressorSpy = Mockito.spy(compressor);
+    MappingMongoConverter converter = createConverter(compressorSpy, true);
+    Article article = generateArticle();
+    byte[] compressed = compressor.compress(article.getText().decode());
+    article.setText(ArticleText.compressed(compressed, compressor));
+
+    //when
+    Document document = new Document();
+    converter.write(article, document);
+
+    //then
+    Mockito.verify(compressorSpy, Mockito.never()).compress(Mockito.anyString());
+    Assertions.assertArrayEquals(compressed, ((Binary) document.get("text")).getData());
+  }
+
+  @Test
+  void shouldReadTextStoredBeforeCompression() {
+    //given
+    Document document = new Document();
+    createConverter(false).write(generateArticle(), document);
+
+    //when
+    Article read = createConverter(true).read(Article.class, document);
+
+    //then
+    Assertions.assertEquals("We should be careful...", document.get("text"));
+    Assertions.assertFalse(read.getText().isCompressed());
+    Assertions.assertEquals("We should be careful...", read.getText().decode());
+  }
+
+  @Test
+  void shouldWriteCompressedTextAsStringWhenCompressionIsDisabled() {
+    //given
+    Article article = generateArticle();
+    article.setText(ArticleText.compressed(compressor.compress("We should be careful..."), compressor));
+
+    //when
+    Document document = new Document();
+    createConverter(false).write(article, document);
+
+    //then
+    Assertions.assertEquals("We should be careful...", document.get("text"));
+  }
+
+  @Test
+  void shouldDecompressTextOnlyWhenItIsDecoded() {
+    //given
+    ArticleTextCompressor compressorSpy = Mockito.spy(compressor);
+    Article article = generateArticle();
+    article.setText(ArticleText.compressed(compressor.compress("We should be careful..."), compressorSpy));
+
+    //when
+    String printed = article.toString();
+    String decoded = article.getText().decode();
+
+    //then
+    Mockito.verify(compressorSpy, Mockito.times(1)).decompress(Mockito.any());
+    Assertions.assertFalse(printed.contains("We should be careful..."));
+    Assertions.assertEquals("We should be careful...", decoded);
+  }
+
+  private MappingMongoConverter createConverter(boolean compress) {
+    return createConverter(compressor, compress);
+  }
+
+  private static MappingMongoConverter createConverter(ArticleTextCompressor compressor, boolean compress) {
+    MongoCustomConversions conversions = new MongoCustomConversions(ArticleTextConverters.of(compressor, compress));
+    MongoMappingContext mappingContext = new MongoMappingContext();
+    mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+    mappingContext.afterPropertiesSet();
+    MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+    converter.setCustomConversions(conversions);
+    converter.afterPropertiesSet();
+    return converter;
+  }
+
+  private static Article generateArticle() {
+    return Article.fromCreateArticleRequest(new CreateArticleRequest("Corona Virus!", "Is it a worldwide threat?",
+        "We should be careful...", LocalDate.parse("2020-01-01"), Set.of("Cenk Akin"), Set.of("health")));
+  }
+}
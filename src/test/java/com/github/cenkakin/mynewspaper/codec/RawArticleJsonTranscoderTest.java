@@ -0,0 +1,112 @@
+package com.github.cenkakin.mynewspaper.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.domain.ArticlePage;
+import com.github.cenkakin.mynewspaper.domain.ArticleSummary;
+import com.github.cenkakin.mynewspaper.domain.RawArticlePage;
+import com.github.cenkakin.mynewspaper.dto.ArticlePageDto;
+import com.github.cenkakin.mynewspaper.dto.ArticleSummaryDto;
+import com.github.cenkakin.mynewspaper.request.CreateArticleRequest;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RawArticleJsonTranscoderTest {
+
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+      .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+      .build();
+
+  private final MappingMongoConverter converter = createConverter();
+
+  @Test
+  void shouldWriteSummaryAsArticleSummaryDtoIsWritten() throws IOException {
+    //given
+    Article article = generateArticle("2020-01-01");
+
+    //when
+    String json = write(generator -> RawArticleJsonTranscoder.writeSummary(toRawDocument(article), generator));
+
+    //then
+    assertEquals(objectMapper.writeValueAsString(ArticleSummaryDto.fromArticleSummary(ArticleSummary.fromArticle(article))),
+        json);
+  }
+
+  @Test
+  void shouldWritePageWithNextCursorAsArticlePageDtoIsWritten() throws IOException {
+    //given
+    List<Article> articles = List.of(generateArticle("2020-01-02"), generateArticle("2020-01-01"));
+    RawArticlePage rawPage = RawArticlePage.of(
+        articles.stream().map(this::toRawDocument).collect(Collectors.toList()), 1);
+    ArticlePage page = ArticlePage.of(
+        articles.stream().map(ArticleSummary::fromArticle).collect(Collectors.toList()), 1);
+
+    //when
+    String json = write(generator -> RawArticleJsonTranscoder.writePage(rawPage.getArticles(), rawPage.getNext(), generator));
+
+    //then
+    assertEquals(page.getNext(), rawPage.getNext());
+    assertEquals(objectMapper.writeValueAsString(ArticlePageDto.fromArticlePage(page)), json);
+  }
+
+  private RawBsonDocument toRawDocument(Article article) {
+    Document document = new Document();
+    converter.write(article, document);
+    return new RawBsonDocument(document, new DocumentCodec());
+  }
+
+  private String write(JsonWrite write) throws IOException {
+    StringWriter json = new StringWriter();
+    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(json)) {
+      write.accept(generator);
+    }
+    return json.toString();
+  }
+
+  private static Article generateArticle(String publishDate) {
+    Article article = Article.fromCreateArticleRequest(new CreateArticleRequest("Corona Virus!",
+        "Is it a worldwide threat?", "We should be careful...", LocalDate.parse(publishDate),
+        Set.of("Cenk Akin", "Pulitzer"), Set.of("health")));
+    article.setId(new ObjectId().toHexString());
+    article.setVersion(3L);
+    article.setCreatedAt(Instant.now());
+    article.setLastModifiedAt(Instant.now());
+    return article;
+  }
+
+  private static MappingMongoConverter createConverter() {
+    MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+    MongoMappingContext mappingContext = new MongoMappingContext();
+    mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+    mappingContext.afterPropertiesSet();
+    MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+    converter.setCustomConversions(conversions);
+    converter.afterPropertiesSet();
+    return converter;
+  }
+
+  private interface JsonWrite {
+
+    void accept(JsonGenerator generator) throws IOException;
+  }
+}
@@ -0,0 +1,116 @@
+package com.github.cenkakin.mynewspaper.compaction;
+
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.exception.ArticleNotFoundException;
+import com.github.cenkakin.mynewspaper.request.CreateArticleRequest;
+import com.github.cenkakin.mynewspaper.service.ArticleService;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Deletes articles through the service of the embedded mongo and compacts them. The compactor is run by the tests, its
+ * interval is longer than any test.
+ */
+@SpringBootTest(properties = {"my-newspaper.article-compaction.enabled=true",
+    "my-newspaper.article-compaction.retention=30d",
+    "my-newspaper.article-compaction.interval=1d",
+    "my-newspaper.article-compaction.batch-size=2",
+    "my-newspaper.article-search-index.enabled=false",
+    "my-newspaper.article-text-index.enabled=false"})
+class ArticleTombstoneCompactorTest {
+
+  @Autowired
+  private ArticleService articleService;
+
+  @Autowired
+  private ArticleTombstoneCompactor articleTombstoneCompactor;
+
+  @Autowired
+  private ReactiveMongoOperations mongoOperations;
+
+  @BeforeEach
+  void setUp() {
+    mongoOperations.remove(new Query(), Article.class).block();
+    mongoOperations.remove(new Query(), ArticleTombstoneCompactor.COLLECTION).block();
+  }
+
+  @Test
+  void shouldCompactArticlesDeletedBeforeRetention() {
+    //given
+    Article live = create("live");
+    Article expired1 = deleteDaysAgo(create("expired 1"), 40);
+    Article expired2 = deleteDaysAgo(create("expired 2"), 35);
+    Article expired3 = deleteDaysAgo(create("expired 3"), 31);
+    Article retained = deleteDaysAgo(create("retained"), 10);
+
+    //when
+    Long compacted = articleTombstoneCompactor.compact().block();
+
+    //then
+    assertEquals(3L, compacted);
+    assertFalse(exists(expired1));
+    assertFalse(exists(expired2));
+    assertFalse(exists(expired3));
+    assertTrue(exists(retained));
+    assertTrue(exists(live));
+    Document record = mongoOperations.findById(expired1.getId(), Document.class, ArticleTombstoneCompactor.COLLECTION)
+        .block();
+    assertEquals(1L, record.getLong("version"));
+    assertTrue(record.getDate(ArticleTombstoneCompactor.DELETED_AT).toInstant()
+        .isBefore(Instant.now().minus(Duration.ofDays(39))));
+  }
+
+  @Test
+  void shouldStillAnswerCompactedArticleWithNotFound() {
+    //given
+    Article expired = deleteDaysAgo(create("expired"), 40);
+
+    //when
+    articleTombstoneCompactor.compact().block();
+
+    //then
+    StepVerifier.create(articleService.getArticle(expired.getId()))
+        .expectError(ArticleNotFoundException.class)
+        .verify();
+    StepVerifier.create(articleService.deleteArticle(expired.getId()))
+        .expectError(ArticleNotFoundException.class)
+        .verify();
+  }
+
+  private Article create(String header) {
+    return articleService.createArticle(new CreateArticleRequest(header, "short description", "text",
+        LocalDate.now(), Set.of("Cenk Akin"), Set.of("health"))).block();
+  }
+
+  /**
+   * Deletes the article and moves its deletion date back, as if it was deleted days ago.
+   */
+  private Article deleteDaysAgo(Article article, int days) {
+    articleService.deleteArticle(article.getId()).block();
+    mongoOperations.updateFirst(query(where("id").is(article.getId())),
+        Update.update("lastModifiedAt", Instant.now().minus(Duration.ofDays(days))), Article.class).block();
+    return article;
+  }
+
+  private boolean exists(Article article) {
+    return mongoOperations.exists(query(where("id").is(article.getId())), Article.class).block();
+  }
+}
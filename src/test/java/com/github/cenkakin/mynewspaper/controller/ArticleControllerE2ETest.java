@@ -1,8 +1,25 @@
 package com.github.cenkakin.mynewspaper.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.github.cenkakin.mynewspaper.cache.ArticleSearchCache;
+import com.github.cenkakin.mynewspaper.cache.ArticleWriteEpoch;
+import com.github.cenkakin.mynewspaper.configuration.NdjsonCodecConfiguration;
 import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.domain.ArticleCursor;
 import com.github.cenkakin.mynewspaper.dto.ArticleDto;
+import com.github.cenkakin.mynewspaper.dto.ArticlePageDto;
+import com.github.cenkakin.mynewspaper.dto.ArticleSummaryDto;
+import com.github.cenkakin.mynewspaper.dto.BatchGetArticlesDto;
+import com.github.cenkakin.mynewspaper.dto.BatchGetResultDto;
+import com.github.cenkakin.mynewspaper.dto.BulkCreateResultDto;
+import com.github.cenkakin.mynewspaper.dto.PartialArticleDto;
+import com.github.cenkakin.mynewspaper.dto.PartialArticlePageDto;
+import com.github.cenkakin.mynewspaper.index.ArticleTextIndex;
 import com.github.cenkakin.mynewspaper.repository.ArticleRepository;
+import com.github.cenkakin.mynewspaper.request.BatchGetArticleRequest;
 import com.github.cenkakin.mynewspaper.request.CreateArticleRequest;
 import com.github.cenkakin.mynewspaper.request.UpdateArticleRequest;
 import org.junit.jupiter.api.Assertions;
@@ -11,20 +28,33 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.ApplicationContext;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
+import javax.validation.ConstraintViolationException;
+import java.io.IOException;
 import java.net.URI;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-@SpringBootTest
+// articles are written through the repository here, which the in-memory search index of the service does not see
+@SpringBootTest(properties = {"my-newspaper.article-search-index.enabled=false",
+    "my-newspaper.article-text-index.directory=target/article-text-index/${random.uuid}"})
 class ArticleControllerE2ETest {
 
   private WebTestClient webClient;
@@ -32,10 +62,24 @@ class ArticleControllerE2ETest {
   @Autowired
   private ArticleRepository articleRepository;
 
+  @Autowired
+  private ArticleTextIndex articleTextIndex;
+
+  @Autowired
+  private ArticleSearchCache articleSearchCache;
+
+  @Autowired
+  private ArticleWriteEpoch articleWriteEpoch;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
   @BeforeEach
   void setUp(ApplicationContext context) {
     webClient = WebTestClient.bindToApplicationContext(context).build();
     articleRepository.deleteAll().block();
+    // articles are saved through the repository, which the search cache does not see
+    articleSearchCache.invalidateAll();
   }
 
   @Test
@@ -203,13 +247,407 @@ class ArticleControllerE2ETest {
           Assertions.assertEquals(result.getHeader(), entity.getHeader());
           Assertions.assertEquals(result.getPublishDate(), entity.getPublishDate());
           Assertions.assertEquals(result.getShortDescription(), entity.getShortDescription());
-          Assertions.assertEquals(result.getText(), entity.getText());
+          Assertions.assertEquals(result.getText(), entity.getText().decode());
           Assertions.assertEquals(result.getKeywords(), List.of("Health"));
           Assertions.assertEquals(result.getAuthors(), List.of("Cenk Akin", "Pulitzer"));
           Assertions.assertNotNull(entity.getId());
         });
   }
 
+  @Test
+  void shouldValidateArticleWhenItIsInsertedThroughRepository() {
+    //given
+    Article article = generateArticleForTest();
+    Article withoutText = generateArticleForTest();
+    withoutText.setText(null);
+
+    //when
+    Article inserted = articleRepository.insert(article).block();
+
+    //then
+    Assertions.assertEquals(article.getText(), articleRepository.findById(inserted.getId()).block().getText());
+    Assertions.assertThrows(ConstraintViolationException.class, () -> articleRepository.insert(withoutText).block());
+  }
+
+  @Test
+  void shouldCreateAndGetArticleAsCbor() throws IOException {
+    //given
+    ObjectMapper cborMapper = new ObjectMapper(new CBORFactory()).findAndRegisterModules();
+    CreateArticleRequest request = new CreateArticleRequest("Corona Virus!", "Is it a worldwide threat?",
+        "We should be careful...", LocalDate.parse("2020-01-01"), Set.of("Cenk Akin"), Set.of("health"));
+
+    //when
+    byte[] created = webClient.post()
+        .uri("/api/v1/articles")
+        .contentType(MediaType.APPLICATION_CBOR)
+        .accept(MediaType.APPLICATION_CBOR)
+        .bodyValue(cborMapper.writeValueAsBytes(request))
+        .exchange()
+        .expectStatus()
+        .isCreated()
+        .expectHeader()
+        .contentType(MediaType.APPLICATION_CBOR)
+        .expectBody(byte[].class)
+        .returnResult()
+        .getResponseBody();
+    String articleId = cborMapper.readValue(created, ArticleDto.class).getId();
+    byte[] body = webClient.get()
+        .uri("/api/v1/articles/" + articleId)
+        .accept(MediaType.APPLICATION_CBOR)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectHeader()
+        .contentType(MediaType.APPLICATION_CBOR)
+        .expectBody(byte[].class)
+        .returnResult()
+        .getResponseBody();
+
+    //then
+    ArticleDto article = cborMapper.readValue(body, ArticleDto.class);
+    Assertions.assertEquals(articleId, article.getId());
+    Assertions.assertEquals(LocalDate.parse("2020-01-01"), article.getPublishDate());
+    Assertions.assertEquals(List.of("Health"), article.getKeywords());
+  }
+
+  @Test
+  void shouldListSameArticlesAsJsonAndCborWithoutInternalFields() throws IOException {
+    //given
+    articleRepository.saveAll(generateArticlesForTest()).blockLast();
+    ObjectMapper cborMapper = new ObjectMapper(new CBORFactory()).findAndRegisterModules();
+
+    //when
+    String json = webClient.get()
+        .uri("/api/v1/articles?limit=1")
+        .accept(MediaType.APPLICATION_JSON)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectHeader()
+        .contentType(MediaType.APPLICATION_JSON)
+        .expectBody(String.class)
+        .returnResult()
+        .getResponseBody();
+    byte[] cbor = webClient.get()
+        .uri("/api/v1/articles?limit=1")
+        .accept(MediaType.APPLICATION_CBOR)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody(byte[].class)
+        .returnResult()
+        .getResponseBody();
+
+    //then
+    Assertions.assertFalse(json.contains("deleted"));
+    Assertions.assertFalse(json.contains("createdAt"));
+    Assertions.assertFalse(json.contains("normalizedAuthors"));
+    Assertions.assertEquals(cborMapper.readValue(cbor, ArticlePageDto.class), readValue(json, ArticlePageDto.class));
+  }
+
+  @Test
+  void shouldReturnNotModifiedUntilArticleIsUpdated() {
+    //given
+    String articleId = createArticle(new CreateArticleRequest("Corona Virus!", "Is it a worldwide threat?",
+        "We should be careful...", LocalDate.parse("2020-01-01"), Set.of("Cenk Akin"), Set.of("health")));
+    String eTag = webClient.get()
+        .uri("/api/v1/articles/" + articleId)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectHeader()
+        .valueEquals(HttpHeaders.ETAG, "\"" + articleId + "-0\"")
+        .returnResult(ArticleDto.class)
+        .getResponseHeaders()
+        .getETag();
+
+    //when - then
+    webClient.get()
+        .uri("/api/v1/articles/" + articleId)
+        .ifNoneMatch(eTag)
+        .exchange()
+        .expectStatus()
+        .isNotModified()
+        .expectHeader()
+        .valueEquals(HttpHeaders.ETAG, eTag)
+        .expectBody()
+        .isEmpty();
+
+    webClient.put()
+        .uri("/api/v1/articles/" + articleId)
+        .body(BodyInserters.fromValue(new UpdateArticleRequest("Corona Virus!", "Updating", "Updating",
+            LocalDate.parse("2020-01-01"), Set.of("Cenk Akin"), Set.of("health"), 1L)))
+        .exchange()
+        .expectStatus()
+        .isOk();
+
+    webClient.get()
+        .uri("/api/v1/articles/" + articleId)
+        .ifNoneMatch(eTag)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectHeader()
+        .valueEquals(HttpHeaders.ETAG, "\"" + articleId + "-1\"")
+        .expectBody(ArticleDto.class)
+        .value(result -> Assertions.assertEquals("Updating", result.getText()));
+  }
+
+  @Test
+  void shouldReturnNotFoundForIfNoneMatchWhenArticleDoesNotExist() {
+    webClient.get()
+        .uri("/api/v1/articles/5e2f1b2c3d4e5f6a7b8c9d0e")
+        .ifNoneMatch("\"5e2f1b2c3d4e5f6a7b8c9d0e-0\"")
+        .exchange()
+        .expectStatus()
+        .isNotFound();
+  }
+
+  @Test
+  void shouldReturnNotModifiedPageUntilAnArticleIsWritten() {
+    //given
+    createArticle(new CreateArticleRequest("First", "First article", "Text", LocalDate.parse("2020-01-01"),
+        Set.of("Author1"), Set.of("keyword1")));
+    String eTag = webClient.get()
+        .uri("/api/v1/articles")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .returnResult(ArticlePageDto.class)
+        .getResponseHeaders()
+        .getETag();
+
+    //when - then
+    Assertions.assertTrue(eTag.startsWith("W/"));
+    webClient.get()
+        .uri("/api/v1/articles")
+        .ifNoneMatch(eTag)
+        .exchange()
+        .expectStatus()
+        .isNotModified();
+
+    createArticle(new CreateArticleRequest("Second", "Second article", "Text", LocalDate.parse("2020-01-02"),
+        Set.of("Author1"), Set.of("keyword1")));
+
+    webClient.get()
+        .uri("/api/v1/articles")
+        .ifNoneMatch(eTag)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody(ArticlePageDto.class)
+        .value(page -> Assertions.assertEquals(2, page.getArticles().size()));
+  }
+
+  @Test
+  void shouldReturnPageWhenAnotherInstanceWroteAnArticle() {
+    //given
+    String eTag = webClient.get()
+        .uri("/api/v1/articles")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .returnResult(ArticlePageDto.class)
+        .getResponseHeaders()
+        .getETag();
+
+    //when
+    String id = articleRepository.save(generateArticleForTest()).block().getId();
+    articleWriteEpoch.advance().block();
+
+    //then
+    webClient.get()
+        .uri("/api/v1/articles")
+        .ifNoneMatch(eTag)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody(ArticlePageDto.class)
+        .value(page -> Assertions.assertEquals(List.of(id),
+            page.getArticles().stream().map(ArticleSummaryDto::getId).collect(Collectors.toList())));
+  }
+
+  @Test
+  void shouldTagPageOfEveryMediaTypeApart() {
+    //given
+    String jsonETag = webClient.get()
+        .uri("/api/v1/articles")
+        .accept(MediaType.APPLICATION_JSON)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .returnResult(String.class)
+        .getResponseHeaders()
+        .getETag();
+
+    //when
+    String cborETag = webClient.get()
+        .uri("/api/v1/articles")
+        .accept(MediaType.APPLICATION_CBOR)
+        .ifNoneMatch(jsonETag)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .returnResult(byte[].class)
+        .getResponseHeaders()
+        .getETag();
+
+    //then
+    Assertions.assertNotEquals(jsonETag, cborETag);
+    webClient.get()
+        .uri("/api/v1/articles")
+        .accept(MediaType.APPLICATION_CBOR)
+        .ifNoneMatch(cborETag)
+        .exchange()
+        .expectStatus()
+        .isNotModified();
+  }
+
+  @Test
+  void shouldReturnOnlyRequestedFieldsOfArticle() {
+    //given
+    Article entity = articleRepository.save(generateArticleForTest()).block();
+
+    //when - then
+    String json = webClient.get()
+        .uri("/api/v1/articles/" + entity.getId() + "?fields=publishDate,header")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody(String.class)
+        .returnResult()
+        .getResponseBody();
+    Assertions.assertEquals("{\"publishDate\":\"2020-01-01\",\"header\":\"" + entity.getHeader() + "\"}", json);
+  }
+
+  @Test
+  void shouldPageThroughRequestedFieldsOfArticles() {
+    //given
+    articleRepository.saveAll(generateArticlesForTest()).blockLast();
+
+    //when
+    PartialArticlePageDto firstPage = webClient.get()
+        .uri("/api/v1/articles?fields=header,authors&limit=1")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody(PartialArticlePageDto.class)
+        .returnResult()
+        .getResponseBody();
+    PartialArticlePageDto secondPage = webClient.get()
+        .uri("/api/v1/articles?fields=header,authors&limit=1&cursor=" + firstPage.getNext())
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody(PartialArticlePageDto.class)
+        .returnResult()
+        .getResponseBody();
+
+    //then
+    Assertions.assertEquals(Map.of("header", "header2", "authors", List.of("Author1", "Author3")),
+        firstPage.getArticles().get(0).getFields());
+    Assertions.assertEquals(Map.of("header", "header1", "authors", List.of("Author1", "Author2")),
+        secondPage.getArticles().get(0).getFields());
+    Assertions.assertNull(secondPage.getNext());
+  }
+
+  @Test
+  void shouldSearchRequestedFieldsOfArticles() {
+    //given
+    articleRepository.saveAll(generateArticlesForTest()).blockLast();
+
+    //when - then
+    webClient.get()
+        .uri("/api/v1/articles:search?author=author2&fields=keywords")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody(PartialArticlePageDto.class)
+        .value(page -> Assertions.assertEquals(
+            List.of(new PartialArticleDto(Map.of("keywords", List.of("Keyword1", "Keyword2")))), page.getArticles()));
+  }
+
+  @Test
+  void shouldReturn400WhenRequestedFieldDoesNotExist() {
+    //given
+    Article entity = articleRepository.save(generateArticleForTest()).block();
+
+    //when - then
+    webClient.get()
+        .uri("/api/v1/articles/" + entity.getId() + "?fields=header,normalizedAuthors")
+        .exchange()
+        .expectStatus()
+        .isBadRequest();
+    webClient.get()
+        .uri("/api/v1/articles?fields=")
+        .exchange()
+        .expectStatus()
+        .isBadRequest();
+  }
+
+  @Test
+  void shouldBatchGetArticlesInRequestOrderWithNotFoundMarkers() {
+    //given
+    List<Article> articles = articleRepository.saveAll(generateArticlesForTest()).collectList().block();
+    String firstId = articles.get(0).getId();
+    String secondId = articles.get(1).getId();
+    String deletedId = articleRepository.save(generateArticleForTest().delete()).block().getId();
+    String missingId = "5e2f1b2c3d4e5f6a7b8c9d0e";
+
+    //when - then
+    webClient.get()
+        .uri("/api/v1/articles:batchGet?ids={ids}", String.join(",", secondId, missingId, firstId, deletedId))
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody(new ParameterizedTypeReference<BatchGetArticlesDto<ArticleDto>>() {
+        })
+        .value(result -> {
+          List<BatchGetResultDto<ArticleDto>> results = result.getArticles();
+          Assertions.assertEquals(List.of(secondId, missingId, firstId, deletedId),
+              results.stream().map(BatchGetResultDto::getId).collect(Collectors.toList()));
+          Assertions.assertEquals(List.of(true, false, true, false),
+              results.stream().map(BatchGetResultDto::isFound).collect(Collectors.toList()));
+          Assertions.assertEquals("text2", results.get(0).getArticle().getText());
+          Assertions.assertNull(results.get(1).getArticle());
+          Assertions.assertEquals("text1", results.get(2).getArticle().getText());
+        });
+  }
+
+  @Test
+  void shouldBatchGetArticleSummariesFromRequestBody() {
+    //given
+    List<Article> articles = articleRepository.saveAll(generateArticlesForTest()).collectList().block();
+    List<String> ids = List.of(articles.get(0).getId(), articles.get(1).getId());
+
+    //when - then
+    String json = webClient.post()
+        .uri("/api/v1/articles:batchGet")
+        .body(BodyInserters.fromValue(new BatchGetArticleRequest(ids, true)))
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody(String.class)
+        .returnResult()
+        .getResponseBody();
+    Assertions.assertFalse(json.contains("\"text\""));
+    BatchGetArticlesDto<ArticleSummaryDto> result = readValue(json,
+        new TypeReference<BatchGetArticlesDto<ArticleSummaryDto>>() {
+        });
+    Assertions.assertEquals(List.of("header1", "header2"), result.getArticles().stream()
+        .map(r -> r.getArticle().getHeader()).collect(Collectors.toList()));
+  }
+
+  @Test
+  void shouldReturn400WhenBatchGetHasNoIds() {
+    webClient.post()
+        .uri("/api/v1/articles:batchGet")
+        .body(BodyInserters.fromValue(new BatchGetArticleRequest(List.of(), null)))
+        .exchange()
+        .expectStatus()
+        .isBadRequest();
+  }
+
   @Test
   void shouldReturnNotFoundWhenArticleIsAlreadyDeleted() {
     //given
@@ -288,6 +726,38 @@ class ArticleControllerE2ETest {
         .isBadRequest();
   }
 
+  @Test
+  void shouldAcceptOnlyOneOfConflictingParallelUpdates() {
+    //given
+    Article createdArticle = articleRepository.save(generateArticleForTest()).block();
+    String articleId = createdArticle.getId();
+
+    //when
+    List<HttpStatus> statuses = Flux.range(0, 20)
+        .parallel()
+        .runOn(Schedulers.boundedElastic())
+        .map(i -> webClient.put()
+            .uri("/api/v1/articles/" + articleId)
+            .body(BodyInserters.fromValue(new UpdateArticleRequest("Parallel update " + i,
+                "Updating",
+                "Updating",
+                LocalDate.parse("2020-01-01"),
+                Set.of("Cenk Akin"),
+                Set.of("health"),
+                1L)))
+            .exchange()
+            .returnResult(String.class)
+            .getStatus())
+        .sequential()
+        .collectList()
+        .block();
+
+    //then
+    Assertions.assertEquals(1, statuses.stream().filter(HttpStatus.OK::equals).count());
+    Assertions.assertEquals(19, statuses.stream().filter(HttpStatus.BAD_REQUEST::equals).count());
+    Assertions.assertEquals(1L, articleRepository.findById(articleId).block().getVersion());
+  }
+
   @Test
   void shouldReturnNotFoundWhenUpdatingArticleRequestIsAlreadyDeleted() {
     //given
@@ -322,8 +792,11 @@ class ArticleControllerE2ETest {
         .exchange()
         .expectStatus()
         .isOk()
-        .expectBody(List.class)
-        .value(l -> Assertions.assertTrue(l.isEmpty()));
+        .expectBody(ArticlePageDto.class)
+        .value(page -> {
+          Assertions.assertTrue(page.getArticles().isEmpty());
+          Assertions.assertNull(page.getNext());
+        });
   }
 
   @Test
@@ -340,8 +813,8 @@ class ArticleControllerE2ETest {
         .exchange()
         .expectStatus()
         .isOk()
-        .expectBodyList(ArticleDto.class)
-        .hasSize(5);
+        .expectBody(ArticlePageDto.class)
+        .value(page -> Assertions.assertEquals(5, page.getArticles().size()));
   }
 
   @Test
@@ -373,6 +846,29 @@ class ArticleControllerE2ETest {
         .isNotFound();
   }
 
+  @Test
+  void shouldReturnNotFoundWhenDeletingArticleTwice() {
+    //given
+    Article createdArticle = articleRepository.save(generateArticleForTest()).block();
+    String articleId = createdArticle.getId();
+
+    webClient.delete()
+        .uri("/api/v1/articles/" + articleId)
+        .exchange()
+        .expectStatus()
+        .isOk();
+
+    //when - then
+    webClient.delete()
+        .uri("/api/v1/articles/" + articleId)
+        .exchange()
+        .expectStatus()
+        .isNotFound();
+    Article deletedArticle = articleRepository.findById(articleId).block();
+    Assertions.assertTrue(deletedArticle.isDeleted());
+    Assertions.assertEquals(1L, deletedArticle.getVersion());
+  }
+
   @Test
   void shouldReturnOneResultWhenSearchWithGivenKeywordAndAuthor() {
     //given
@@ -388,8 +884,27 @@ class ArticleControllerE2ETest {
         .exchange()
         .expectStatus()
         .isOk()
-        .expectBodyList(ArticleDto.class)
-        .hasSize(1);
+        .expectBody(ArticlePageDto.class)
+        .value(page -> Assertions.assertEquals(1, page.getArticles().size()));
+  }
+
+  @Test
+  void shouldIgnoreCaseWhenSearchWithGivenKeywordAndAuthor() {
+    //given
+    articleRepository.saveAll(generateArticlesForTest()).blockLast();
+    URI uri = UriComponentsBuilder.fromPath("/api/v1/articles:search")
+        .queryParam("keyword", "KEYWORD1")
+        .queryParam("author", "aUTHOR3")
+        .build().toUri();
+
+    //when - then
+    webClient.get()
+        .uri(uri)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody(ArticlePageDto.class)
+        .value(page -> Assertions.assertEquals(1, page.getArticles().size()));
   }
 
   @Test
@@ -408,8 +923,8 @@ class ArticleControllerE2ETest {
         .exchange()
         .expectStatus()
         .isOk()
-        .expectBodyList(ArticleDto.class)
-        .hasSize(1);
+        .expectBody(ArticlePageDto.class)
+        .value(page -> Assertions.assertEquals(1, page.getArticles().size()));
   }
 
   @Test
@@ -428,8 +943,8 @@ class ArticleControllerE2ETest {
         .exchange()
         .expectStatus()
         .isOk()
-        .expectBodyList(ArticleDto.class)
-        .hasSize(2);
+        .expectBody(ArticlePageDto.class)
+        .value(page -> Assertions.assertEquals(2, page.getArticles().size()));
   }
 
   @Test
@@ -449,10 +964,339 @@ class ArticleControllerE2ETest {
         .exchange()
         .expectStatus()
         .isOk()
-        .expectBodyList(ArticleDto.class)
-        .hasSize(2);
+        .expectBody(ArticlePageDto.class)
+        .value(page -> Assertions.assertEquals(2, page.getArticles().size()));
+  }
+
+
+  @Test
+  void shouldPageThroughArticlesNewestFirst() {
+    //given
+    Flux.range(1, 7)
+        .map(day -> generateArticleForTest(LocalDate.parse("2020-01-01").plusDays(day)))
+        .concatMap(articleRepository::save)
+        .blockLast();
+
+    //when
+    ArticlePageDto firstPage = getArticlePage(3, null);
+    ArticlePageDto secondPage = getArticlePage(3, firstPage.getNext());
+    ArticlePageDto lastPage = getArticlePage(3, secondPage.getNext());
+
+    //then
+    List<LocalDate> publishDates = Stream.of(firstPage, secondPage, lastPage)
+        .flatMap(page -> page.getArticles().stream())
+        .map(ArticleSummaryDto::getPublishDate)
+        .collect(Collectors.toList());
+    Assertions.assertEquals(7, publishDates.size());
+    Assertions.assertEquals(LocalDate.parse("2020-01-08"), publishDates.get(0));
+    Assertions.assertEquals(LocalDate.parse("2020-01-02"), publishDates.get(6));
+    Assertions.assertEquals(1, lastPage.getArticles().size());
+    Assertions.assertNull(lastPage.getNext());
+  }
+
+  @Test
+  void shouldLeaveTextOutOfListedArticles() {
+    //given
+    Article article = articleRepository.save(generateArticleForTest()).block();
+
+    //when - then
+    webClient.get()
+        .uri("/api/v1/articles")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody()
+        .jsonPath("$.articles[0].id").isEqualTo(article.getId())
+        .jsonPath("$.articles[0].header").isEqualTo(article.getHeader())
+        .jsonPath("$.articles[0].shortDescription").isEqualTo(article.getShortDescription())
+        .jsonPath("$.articles[0].text").doesNotExist();
+  }
+
+  @Test
+  void shouldReturnBadRequestWhenCursorIsMalformed() {
+    webClient.get()
+        .uri("/api/v1/articles?cursor=not-a-cursor")
+        .exchange()
+        .expectStatus()
+        .isBadRequest();
+  }
+
+  @Test
+  void shouldReturnBadRequestWhenLimitIsTooBig() {
+    webClient.get()
+        .uri("/api/v1/articles?limit=101")
+        .exchange()
+        .expectStatus()
+        .isBadRequest();
+  }
+
+  @Test
+  void shouldStreamEveryArticleAsNdjsonNewestFirst() {
+    //given
+    Flux.range(1, 30)
+        .map(day -> generateArticleForTest(LocalDate.parse("2020-01-01").plusDays(day)))
+        .concatMap(articleRepository::save)
+        .blockLast();
+
+    //when
+    String response = webClient.get()
+        .uri("/api/v1/articles")
+        .accept(NdjsonCodecConfiguration.APPLICATION_NDJSON)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody(String.class)
+        .returnResult()
+        .getResponseBody();
+    List<LocalDate> publishDates = response.lines()
+        .map(line -> readValue(line, ArticleSummaryDto.class))
+        .map(ArticleSummaryDto::getPublishDate)
+        .collect(Collectors.toList());
+
+    //then
+    Assertions.assertEquals(30, publishDates.size());
+    Assertions.assertEquals(LocalDate.parse("2020-01-31"), publishDates.get(0));
+    Assertions.assertEquals(LocalDate.parse("2020-01-02"), publishDates.get(29));
+  }
+
+  @Test
+  void shouldStreamSearchResultsAsServerSentEventsResumableFromEventId() {
+    //given
+    Flux.range(1, 5)
+        .map(day -> generateArticleForTest(LocalDate.parse("2020-01-01").plusDays(day)))
+        .concatMap(articleRepository::save)
+        .blockLast();
+
+    //when
+    List<ServerSentEvent<ArticleSummaryDto>> firstEvents = getArticleEvents("/api/v1/articles:search?limit=2");
+    List<ServerSentEvent<ArticleSummaryDto>> remainingEvents =
+        getArticleEvents("/api/v1/articles:search?cursor=" + firstEvents.get(1).id());
+
+    //then
+    Assertions.assertEquals(2, firstEvents.size());
+    Assertions.assertEquals(LocalDate.parse("2020-01-06"), firstEvents.get(0).data().getPublishDate());
+    Assertions.assertEquals(3, remainingEvents.size());
+    Assertions.assertEquals(LocalDate.parse("2020-01-04"), remainingEvents.get(0).data().getPublishDate());
+  }
+
+  @Test
+  void shouldReturnBadRequestWhenStreamingWithMalformedCursor() {
+    webClient.get()
+        .uri("/api/v1/articles?cursor=not-a-cursor")
+        .accept(NdjsonCodecConfiguration.APPLICATION_NDJSON)
+        .exchange()
+        .expectStatus()
+        .isBadRequest();
+  }
+
+  @Test
+  void shouldReturnEveryExistingArticleExactlyOnceWhilePagingWithConcurrentInserts() {
+    //given
+    Set<String> existingIds = Flux.range(0, 60)
+        .map(i -> generateArticleForTest(LocalDate.parse("2020-01-01").plusDays(i % 10)))
+        .flatMap(articleRepository::save)
+        .map(Article::getId)
+        .collect(Collectors.toSet())
+        .block();
+
+    //when
+    Flux.range(0, 60)
+        .map(i -> generateArticleForTest(LocalDate.parse("2020-01-01").plusDays(i % 20)))
+        .flatMap(articleRepository::save, 4)
+        .subscribe();
+
+    List<String> seenIds = new ArrayList<>();
+    String cursor = null;
+    do {
+      ArticlePageDto page = getArticlePage(7, cursor);
+      page.getArticles().forEach(article -> seenIds.add(article.getId()));
+      cursor = page.getNext();
+    } while (cursor != null);
+
+    //then
+    Assertions.assertEquals(seenIds.size(), new HashSet<>(seenIds).size(), "an article was returned twice");
+    Assertions.assertTrue(seenIds.containsAll(existingIds), "an existing article was skipped");
+  }
+
+  @Test
+  void shouldReturnMostRelevantArticlesWhenSearchWithText() throws InterruptedException {
+    //given
+    awaitTextIndex();
+    String vaccineInHeader = createArticle(new CreateArticleRequest("Zoonotic vaccine trials", "Trials began",
+        "The first volunteers got their doses.", LocalDate.parse("2020-01-01"), Set.of("Author1"), Set.of("health")));
+    String vaccineInText = createArticle(new CreateArticleRequest("Markets", "Markets are calm",
+        "Investors wait for a zoonotic vaccine.", LocalDate.parse("2020-01-02"), Set.of("Author2"), Set.of("economy")));
+    createArticle(new CreateArticleRequest("Football", "Derby day", "The derby ends in a draw.",
+        LocalDate.parse("2020-01-03"), Set.of("Author1"), Set.of("sport")));
+    URI uri = UriComponentsBuilder.fromPath("/api/v1/articles:search")
+        .queryParam("q", "Zoonotic VACCINE")
+        .build().toUri();
+
+    //when - then
+    webClient.get()
+        .uri(uri)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody(ArticlePageDto.class)
+        .value(page -> {
+          Assertions.assertEquals(List.of(vaccineInHeader, vaccineInText),
+              page.getArticles().stream().map(ArticleSummaryDto::getId).collect(Collectors.toList()));
+          Assertions.assertNull(page.getNext());
+        });
   }
 
+  @Test
+  void shouldReturn400WhenSearchWithTextAndCursor() {
+    //given
+    URI uri = UriComponentsBuilder.fromPath("/api/v1/articles:search")
+        .queryParam("q", "vaccine")
+        .queryParam("cursor", new ArticleCursor(LocalDate.parse("2020-01-01"), "1").encode())
+        .build().toUri();
+
+    //when - then
+    webClient.get()
+        .uri(uri)
+        .exchange()
+        .expectStatus()
+        .isBadRequest();
+  }
+
+  @Test
+  void shouldCreateArticlesFromNdjsonAndStreamResultPerArticle() {
+    //given
+    String body = "{\"header\":\"First\",\"shortDescription\":\"First bulk\",\"text\":\"Text\"," +
+        "\"publishDate\":\"2020-01-01\",\"authors\":[\"Author1\"],\"keywords\":[\"keyword1\"]}\n" +
+        "{\"header\":\"\",\"shortDescription\":\"Invalid\",\"text\":\"Text\"," +
+        "\"publishDate\":\"2020-01-02\",\"authors\":[\"Author1\"]}\n" +
+        "{\"header\":\"Third\",\"shortDescription\":\"Third bulk\",\"text\":\"Text\"," +
+        "\"publishDate\":\"2020-01-03\",\"authors\":[\"Author2\"]}\n";
+
+    //when
+    String response = webClient.post()
+        .uri("/api/v1/articles:bulk")
+        .contentType(NdjsonCodecConfiguration.APPLICATION_NDJSON)
+        .accept(NdjsonCodecConfiguration.APPLICATION_NDJSON)
+        .bodyValue(body)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody(String.class)
+        .returnResult()
+        .getResponseBody();
+    List<BulkCreateResultDto> results = response.lines()
+        .map(line -> readValue(line, BulkCreateResultDto.class))
+        .collect(Collectors.toList());
+
+    //then
+    Assertions.assertEquals(List.of(0L, 1L, 2L),
+        results.stream().map(BulkCreateResultDto::getIndex).collect(Collectors.toList()));
+    Assertions.assertEquals("header: must not be blank", results.get(1).getError());
+    Assertions.assertEquals("First", articleRepository.findById(results.get(0).getId()).block().getHeader());
+    Assertions.assertEquals(0L, articleRepository.findById(results.get(2).getId()).block().getVersion());
+    Assertions.assertEquals(2L, articleRepository.count().block());
+  }
+
+  @Test
+  void shouldExposeServiceAndMongoCommandMetricsForPrometheus() {
+    //given
+    webClient.get()
+        .uri("/api/v1/articles/5e2f1b2c3d4e5f6a7b8c9d0e")
+        .exchange()
+        .expectStatus()
+        .isNotFound();
+    webClient.get()
+        .uri("/api/v1/articles")
+        .accept(NdjsonCodecConfiguration.APPLICATION_NDJSON)
+        .exchange()
+        .expectStatus()
+        .isOk();
+
+    //when
+    String scrape = webClient.get()
+        .uri("/actuator/prometheus")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .returnResult(String.class)
+        .getResponseBody()
+        .collect(Collectors.joining())
+        .block();
+
+    //then
+    Assertions.assertTrue(scrape.contains("article_service_seconds_count{method=\"getArticle\",outcome=\"not_found\",}"));
+    Assertions.assertTrue(scrape.contains("article_service_seconds_bucket{method=\"getArticle\",outcome=\"not_found\","));
+    Assertions.assertTrue(scrape.contains("mongo_commands_seconds_count{command=\"find\",status=\"success\",}"));
+    Assertions.assertTrue(scrape.contains("mongo_commands_documents_count{command=\"find\",}"));
+    Assertions.assertTrue(scrape.contains("http_server_requests_seconds_bucket{"));
+    Assertions.assertTrue(scrape.contains("flow=\"article.stream\""));
+  }
+
+  private <T> T readValue(String json, Class<T> type) {
+    try {
+      return objectMapper.readValue(json, type);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private <T> T readValue(String json, TypeReference<T> type) {
+    try {
+      return objectMapper.readValue(json, type);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private String createArticle(CreateArticleRequest request) {
+    return webClient.post()
+        .uri("/api/v1/articles")
+        .body(BodyInserters.fromValue(request))
+        .exchange()
+        .expectStatus()
+        .isCreated()
+        .expectBody(ArticleDto.class)
+        .returnResult()
+        .getResponseBody()
+        .getId();
+  }
+
+  private void awaitTextIndex() throws InterruptedException {
+    for (int i = 0; i < 50 && !articleTextIndex.isReady(); i++) {
+      Thread.sleep(100);
+    }
+  }
+
+  private List<ServerSentEvent<ArticleSummaryDto>> getArticleEvents(String uri) {
+    return webClient.get()
+        .uri(uri)
+        .accept(MediaType.TEXT_EVENT_STREAM)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .returnResult(new ParameterizedTypeReference<ServerSentEvent<ArticleSummaryDto>>() {
+        })
+        .getResponseBody()
+        .collectList()
+        .block();
+  }
+
+  private ArticlePageDto getArticlePage(int limit, String cursor) {
+    UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromPath("/api/v1/articles")
+        .queryParam("limit", limit);
+    if (cursor != null) {
+      uriBuilder.queryParam("cursor", cursor);
+    }
+    URI uri = uriBuilder.build().toUri();
+    return webClient.get()
+        .uri(uri)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody(ArticlePageDto.class)
+        .returnResult()
+        .getResponseBody();
+  }
 
 //
 //  @Test
@@ -482,6 +1326,16 @@ class ArticleControllerE2ETest {
         LocalDate.parse("2020-01-01"));
   }
 
+  private Article generateArticleForTest(LocalDate publishDate) {
+    return generateArticleForTest(
+        "Corona Virus!" + UUID.randomUUID().toString(),
+        "Is it a worldwide threat?" + UUID.randomUUID().toString(),
+        "We should be careful..." + UUID.randomUUID().toString(),
+        Set.of("Cenk Akin", "Pulitzer"),
+        Set.of("health"),
+        publishDate);
+  }
+
   private List<Article> generateArticlesForTest() {
     Article article1 = generateArticleForTest("header1", "shortDescription1", "text1", Set.of("author1", "author2"),
         Set.of("keyword1", "keyword2"), LocalDate.parse("2019-09-01"));
@@ -0,0 +1,191 @@
+package com.github.cenkakin.mynewspaper.controller;
+
+import com.github.cenkakin.mynewspaper.cache.ArticleSearchCache;
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.dto.ArticleDto;
+import com.github.cenkakin.mynewspaper.dto.ArticlePageDto;
+import com.github.cenkakin.mynewspaper.dto.ArticleSummaryDto;
+import com.github.cenkakin.mynewspaper.index.ArticleSearchIndex;
+import com.github.cenkakin.mynewspaper.index.ArticleTextIndex;
+import com.github.cenkakin.mynewspaper.repository.ArticleRepository;
+import com.github.cenkakin.mynewspaper.request.CreateArticleRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Searches by author and text with the in-memory indexes on, as they are by default. Articles written through the repository
+ * stand for the writes of another instance. Every test searches its own author, so the articles of the other tests do
+ * not match.
+ */
+@SpringBootTest(properties = {"my-newspaper.article-search-index.catch-up-interval=100ms",
+    "my-newspaper.article-text-index.catch-up-interval=100ms",
+    "my-newspaper.article-text-index.directory=target/article-text-index/${random.uuid}"})
+class ArticleSearchIndexE2ETest {
+
+  private static final Duration CATCH_UP_TIMEOUT = Duration.ofSeconds(10);
+
+  private WebTestClient webClient;
+
+  @Autowired
+  private ArticleRepository articleRepository;
+
+  @Autowired
+  private ArticleSearchIndex articleSearchIndex;
+
+  @Autowired
+  private ArticleSearchCache articleSearchCache;
+
+  @Autowired
+  private ArticleTextIndex articleTextIndex;
+
+  private String author;
+
+  @BeforeEach
+  void setUp(ApplicationContext context) throws InterruptedException {
+    webClient = WebTestClient.bindToApplicationContext(context).build();
+    author = "Author-" + UUID.randomUUID();
+    awaitUntil(articleSearchIndex::isReady);
+    awaitUntil(articleTextIndex::isReady);
+  }
+
+  @Test
+  void shouldPageAuthorSearchFromIndex() {
+    //given
+    String first = create("first", "2020-01-01");
+    String second = create("second", "2020-01-02");
+    String third = create("third", "2020-01-03");
+
+    //when
+    ArticlePageDto firstPage = search(2, null);
+    ArticlePageDto secondPage = search(2, firstPage.getNext());
+
+    //then
+    Assertions.assertEquals(List.of(third, second), idsOf(firstPage));
+    Assertions.assertEquals(List.of(first), idsOf(secondPage));
+    Assertions.assertNull(secondPage.getNext());
+  }
+
+  @Test
+  void shouldFindArticleWrittenByAnotherInstanceOnceIndexCatchesUp() throws InterruptedException {
+    //given
+    Article article = Article.fromCreateArticleRequest(request("another instance", "2020-01-01"));
+    String id = articleRepository.insert(article).block().getId();
+
+    //when
+    awaitUntil(() -> {
+      articleSearchCache.invalidateAll();
+      return idsOf(search(10, null)).contains(id);
+    });
+
+    //then
+    Assertions.assertEquals(List.of(id), idsOf(search(10, null)));
+  }
+
+  @Test
+  void shouldFindTextOfArticleWrittenByAnotherInstanceOnceIndexCatchesUp() throws InterruptedException {
+    //given
+    String term = author.replace("-", "").toLowerCase();
+    Article article = Article.fromCreateArticleRequest(request("another instance " + term, "2020-01-01"));
+    String id = articleRepository.insert(article).block().getId();
+
+    //when
+    awaitUntil(() -> searchText(term).contains(id));
+    articleRepository.markDeletedByIdAndDeletedFalse(id).block();
+
+    //then
+    awaitUntil(() -> searchText(term).isEmpty());
+  }
+
+  @Test
+  void shouldNotShortenPageWhenAnotherInstanceDeletedIndexedArticle() {
+    //given
+    String first = create("first", "2020-01-01");
+    String second = create("second", "2020-01-02");
+    String third = create("third", "2020-01-03");
+    String fourth = create("fourth", "2020-01-04");
+    articleRepository.markDeletedByIdAndDeletedFalse(fourth).block();
+    articleSearchCache.invalidateAll();
+
+    //when
+    ArticlePageDto firstPage = search(2, null);
+    ArticlePageDto secondPage = search(2, firstPage.getNext());
+
+    //then
+    Assertions.assertEquals(List.of(third, second), idsOf(firstPage));
+    Assertions.assertEquals(List.of(first), idsOf(secondPage));
+  }
+
+  private String create(String header, String publishDate) {
+    return webClient.post()
+        .uri("/api/v1/articles")
+        .body(BodyInserters.fromValue(request(header, publishDate)))
+        .exchange()
+        .expectStatus()
+        .isCreated()
+        .expectBody(ArticleDto.class)
+        .returnResult()
+        .getResponseBody()
+        .getId();
+  }
+
+  private CreateArticleRequest request(String header, String publishDate) {
+    return new CreateArticleRequest(header, "Short description", "Text", LocalDate.parse(publishDate),
+        Set.of(author), Set.of("health"));
+  }
+
+  private ArticlePageDto search(int limit, String cursor) {
+    UriComponentsBuilder uri = UriComponentsBuilder.fromPath("/api/v1/articles:search")
+        .queryParam("author", author.toLowerCase())
+        .queryParam("limit", limit);
+    if (cursor != null) {
+      uri.queryParam("cursor", cursor);
+    }
+    return webClient.get()
+        .uri(uri.build().toUri())
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody(ArticlePageDto.class)
+        .returnResult()
+        .getResponseBody();
+  }
+
+  private List<String> searchText(String q) {
+    return idsOf(webClient.get()
+        .uri(UriComponentsBuilder.fromPath("/api/v1/articles:search").queryParam("q", q).build().toUri())
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody(ArticlePageDto.class)
+        .returnResult()
+        .getResponseBody());
+  }
+
+  private static List<String> idsOf(ArticlePageDto page) {
+    return page.getArticles().stream().map(ArticleSummaryDto::getId).collect(Collectors.toList());
+  }
+
+  private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+    Instant deadline = Instant.now().plus(CATCH_UP_TIMEOUT);
+    while (!condition.getAsBoolean()) {
+      Assertions.assertTrue(Instant.now().isBefore(deadline), "Timed out waiting for the search index");
+      Thread.sleep(50);
+    }
+  }
+}
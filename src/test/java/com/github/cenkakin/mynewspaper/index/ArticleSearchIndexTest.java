@@ -0,0 +1,147 @@
+package com.github.cenkakin.mynewspaper.index;
+
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.domain.ArticleCursor;
+import com.github.cenkakin.mynewspaper.request.SearchArticleRequest;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArticleSearchIndexTest {
+
+  private final ArticleSearchIndex articleSearchIndex = new ArticleSearchIndex();
+
+  @Test
+  void shouldNotSearchUntilReadyOrWithoutAuthorAndKeyword() {
+    //given
+    SearchArticleRequest byAuthor = new SearchArticleRequest(null, "Pulitzer", null, null, null);
+    SearchArticleRequest byDate = new SearchArticleRequest(null, null, LocalDate.parse("2020-01-01"), null, null);
+
+    //when
+    boolean beforeReady = articleSearchIndex.canSearch(byAuthor);
+    articleSearchIndex.markReady();
+
+    //then
+    assertFalse(beforeReady);
+    assertTrue(articleSearchIndex.canSearch(byAuthor));
+    assertFalse(articleSearchIndex.canSearch(byDate));
+  }
+
+  @Test
+  void shouldReturnArticlesHavingBothAuthorAndKeywordNewestFirst() {
+    //given
+    articleSearchIndex.index(generateArticle("01", "2020-01-01", 0, List.of("Pulitzer"), List.of("health")));
+    articleSearchIndex.index(generateArticle("03", "2020-01-03", 0, List.of("Pulitzer"), List.of("health", "sport")));
+    articleSearchIndex.index(generateArticle("02", "2020-01-03", 0, List.of("Pulitzer", "Nobel"), List.of("Health")));
+    articleSearchIndex.index(generateArticle("04", "2020-01-04", 0, List.of("Nobel"), List.of("health")));
+    articleSearchIndex.index(generateArticle("05", "2020-01-05", 0, List.of("Pulitzer"), List.of("sport")));
+
+    //when
+    List<String> ids = articleSearchIndex.search(new SearchArticleRequest("HEALTH", "pulitzer", null, null, null), null, 20);
+
+    //then
+    assertEquals(List.of("03", "02", "01"), ids);
+  }
+
+  @Test
+  void shouldFilterByPublishDatesAndCursorAndLimit() {
+    //given
+    for (int day = 1; day <= 9; day++) {
+      articleSearchIndex.index(generateArticle("0" + day, "2020-01-0" + day, 0, List.of("Pulitzer"), List.of()));
+    }
+    SearchArticleRequest request =
+        new SearchArticleRequest(null, "Pulitzer", LocalDate.parse("2020-01-02"), LocalDate.parse("2020-01-08"), null);
+    ArticleCursor cursor = new ArticleCursor(LocalDate.parse("2020-01-07"), "07");
+
+    //when
+    List<String> ids = articleSearchIndex.search(request, cursor, 3);
+
+    //then
+    assertEquals(List.of("06", "05", "04"), ids);
+  }
+
+  @Test
+  void shouldReturnNewestMatchesWhateverOrderTheyWereIndexedIn() {
+    //given
+    List<Integer> days = new ArrayList<>();
+    for (int day = 1; day <= 28; day++) {
+      days.add(day);
+    }
+    Collections.shuffle(days, new Random(42));
+    days.forEach(day -> articleSearchIndex.index(generateArticle(String.format("%02d", day),
+        String.format("2020-02-%02d", day), 0, List.of("Pulitzer"), List.of())));
+    articleSearchIndex.index(generateArticle("29", "2020-02-28", 0, List.of("Pulitzer"), List.of()));
+
+    //when
+    List<String> ids = articleSearchIndex.search(new SearchArticleRequest(null, "Pulitzer", null, null, null), null, 4);
+
+    //then
+    assertEquals(List.of("29", "28", "27", "26"), ids);
+  }
+
+  @Test
+  void shouldReindexUpdatedArticleAndIgnoreOlderVersions() {
+    //given
+    articleSearchIndex.index(generateArticle("01", "2020-01-01", 1, List.of("Pulitzer"), List.of()));
+    articleSearchIndex.index(generateArticle("01", "2020-01-01", 2, List.of("Nobel"), List.of()));
+
+    //when
+    articleSearchIndex.index(generateArticle("01", "2020-01-01", 1, List.of("Pulitzer"), List.of()));
+
+    //then
+    assertEquals(List.of(), articleSearchIndex.search(new SearchArticleRequest(null, "Pulitzer", null, null, null), null, 20));
+    assertEquals(List.of("01"), articleSearchIndex.search(new SearchArticleRequest(null, "Nobel", null, null, null), null, 20));
+  }
+
+  @Test
+  void shouldNotIndexRemovedArticleAgain() {
+    //given
+    articleSearchIndex.index(generateArticle("01", "2020-01-01", 1, List.of("Pulitzer"), List.of()));
+    articleSearchIndex.remove("01");
+
+    //when
+    articleSearchIndex.index(generateArticle("01", "2020-01-01", 1, List.of("Pulitzer"), List.of()));
+
+    //then
+    assertEquals(List.of(), articleSearchIndex.search(new SearchArticleRequest(null, "Pulitzer", null, null, null), null, 20));
+  }
+
+  @Test
+  void shouldReclaimOrdinalsOfArticlesRemovedBeforeGivenInstant() {
+    //given
+    articleSearchIndex.index(generateArticle("01", "2020-01-01", 1, List.of("Pulitzer"), List.of()));
+    articleSearchIndex.index(generateArticle("02", "2020-01-02", 1, List.of("Pulitzer"), List.of()));
+    articleSearchIndex.remove("01");
+    articleSearchIndex.remove("01");
+
+    //when
+    int notYetReclaimed = articleSearchIndex.reclaimRemoved(Instant.EPOCH);
+    int reclaimed = articleSearchIndex.reclaimRemoved(Instant.now().plusSeconds(1));
+    articleSearchIndex.index(generateArticle("03", "2020-01-03", 1, List.of("Pulitzer"), List.of()));
+
+    //then
+    assertEquals(0, notYetReclaimed);
+    assertEquals(1, reclaimed);
+    assertEquals(List.of("03", "02"),
+        articleSearchIndex.search(new SearchArticleRequest(null, "Pulitzer", null, null, null), null, 20));
+  }
+
+  private Article generateArticle(String id, String publishDate, long version, List<String> authors, List<String> keywords) {
+    Article article = new Article();
+    article.setId(id);
+    article.setPublishDate(LocalDate.parse(publishDate));
+    article.setAuthors(authors);
+    article.setKeywords(keywords);
+    article.setVersion(version);
+    return article;
+  }
+}
@@ -0,0 +1,172 @@
+package com.github.cenkakin.mynewspaper.index;
+
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.domain.ArticleText;
+import com.github.cenkakin.mynewspaper.request.SearchArticleRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ArticleTextIndexTest {
+
+  private final ArticleTextIndex articleTextIndex = new ArticleTextIndex();
+
+  @Test
+  void shouldAnalyzeTextIntoLowerCaseTermsWithoutStopWords() {
+    assertEquals(List.of("corona", "virus", "worldwide", "threat", "2020"),
+        TextAnalyzer.analyze("Corona-Virus: is it a worldwide THREAT in 2020?"));
+  }
+
+  @Test
+  void shouldRankHeaderMatchesAndRareTermsHigher() {
+    //given
+    articleTextIndex.index(generateArticle("01", "2020-01-01", 0, "Elections", "Vaccine news", "Nothing else"));
+    articleTextIndex.index(generateArticle("02", "2020-01-02", 0, "Vaccine", "Trials", "Nothing else"));
+    articleTextIndex.index(generateArticle("03", "2020-01-03", 0, "Weather", "Sunny", "Vaccine and outbreak"));
+    articleTextIndex.index(generateArticle("04", "2020-01-04", 0, "Sports", "Football", "Nothing else"));
+
+    //when
+    List<String> byVaccine = articleTextIndex.search(textSearch("vaccine"), 20);
+    List<String> byVaccineOutbreak = articleTextIndex.search(textSearch("vaccine outbreak"), 20);
+
+    //then
+    assertEquals(List.of("02", "01", "03"), byVaccine);
+    assertEquals("03", byVaccineOutbreak.get(0));
+  }
+
+  @Test
+  void shouldFilterByAuthorKeywordAndPublishDatesAndLimit() {
+    //given
+    for (int day = 1; day <= 9; day++) {
+      Article article = generateArticle("0" + day, "2020-01-0" + day, 0, "Vaccine", "", "");
+      article.setAuthors(List.of(day % 2 == 0 ? "Pulitzer" : "Nobel"));
+      article.setKeywords(List.of("health"));
+      articleTextIndex.index(article);
+    }
+    SearchArticleRequest request = new SearchArticleRequest("Health", "pulitzer", LocalDate.parse("2020-01-03"),
+        LocalDate.parse("2020-01-09"), "vaccine");
+
+    //when
+    List<String> ids = articleTextIndex.search(request, 2);
+
+    //then
+    assertEquals(List.of("08", "06"), ids);
+  }
+
+  @Test
+  void shouldFindNothingWhenFilterOrTermMatchesNoArticle() {
+    //given
+    articleTextIndex.index(generateArticle("01", "2020-01-01", 0, "Vaccine", "", ""));
+
+    //when
+    List<String> byUnknownAuthor = articleTextIndex.search(
+        new SearchArticleRequest(null, "Pulitzer", null, null, "vaccine"), 20);
+    List<String> byUnknownTerm = articleTextIndex.search(textSearch("outbreak"), 20);
+
+    //then
+    assertEquals(List.of(), byUnknownAuthor);
+    assertEquals(List.of(), byUnknownTerm);
+  }
+
+  @Test
+  void shouldReplaceUpdatedArticleAndForgetRemovedOne() {
+    //given
+    articleTextIndex.index(generateArticle("01", "2020-01-01", 0, "Vaccine", "", ""));
+    articleTextIndex.index(generateArticle("02", "2020-01-01", 0, "Vaccine", "", ""));
+
+    //when
+    articleTextIndex.index(generateArticle("01", "2020-01-01", 1, "Outbreak", "", ""));
+    articleTextIndex.index(generateArticle("01", "2020-01-01", 0, "Vaccine", "", ""));
+    articleTextIndex.remove("02");
+
+    //then
+    assertEquals(List.of(), articleTextIndex.search(textSearch("vaccine"), 20));
+    assertEquals(List.of("01"), articleTextIndex.search(textSearch("outbreak"), 20));
+  }
+
+  @Test
+  void shouldKeepResultsAfterCompactingRetiredVersions() {
+    //given
+    articleTextIndex.index(generateArticle("01", "2020-01-01", 0, "Vaccine", "", ""));
+
+    //when
+    for (int version = 1; version <= 3000; version++) {
+      articleTextIndex.index(generateArticle("02", "2020-01-02", version, "Outbreak " + version, "", ""));
+    }
+
+    //then
+    assertEquals(List.of("01"), articleTextIndex.search(textSearch("vaccine"), 20));
+    assertEquals(List.of("02"), articleTextIndex.search(textSearch("outbreak"), 20));
+    assertEquals(List.of("02"), articleTextIndex.search(textSearch("3000"), 20));
+    assertEquals(List.of(), articleTextIndex.search(textSearch("2999"), 20));
+  }
+
+  @Test
+  void shouldLoadIndexFromLatestSegment(@TempDir Path directory) {
+    //given
+    ArticleTextIndexStore store = new ArticleTextIndexStore(directory);
+    articleTextIndex.index(generateArticle("01", "2020-01-01", 0, "Vaccine", "", ""));
+    articleTextIndex.index(generateArticle("02", "2020-01-02", 0, "Outbreak", "", ""));
+    articleTextIndex.remove("02");
+    store.save(articleTextIndex, Instant.ofEpochMilli(1000));
+    articleTextIndex.index(generateArticle("03", "2020-01-03", 0, "Vaccine", "", ""));
+    store.save(articleTextIndex, Instant.ofEpochMilli(2000));
+
+    //when
+    ArticleTextIndex loaded = new ArticleTextIndex();
+    Optional<Instant> checkpoint = store.load(loaded);
+    loaded.index(generateArticle("02", "2020-01-02", 0, "Outbreak", "", ""));
+
+    //then
+    assertEquals(Optional.of(Instant.ofEpochMilli(2000)), checkpoint);
+    assertEquals(List.of("03", "01"), loaded.search(textSearch("vaccine"), 20));
+    assertEquals(List.of(), loaded.search(textSearch("outbreak"), 20));
+  }
+
+  @Test
+  void shouldNotCountRetiredPostingsInDocumentFrequency(@TempDir Path directory) {
+    //given
+    ArticleTextIndexStore store = new ArticleTextIndexStore(directory);
+    articleTextIndex.index(generateArticle("01", "2020-01-01", 0, "Vaccine", "", ""));
+    articleTextIndex.index(generateArticle("02", "2020-01-01", 0, "Outbreak", "", ""));
+    for (int id = 3; id <= 10; id++) {
+      articleTextIndex.index(generateArticle(String.format("%02d", id), "2020-01-01", 0, "Outbreak", "", ""));
+      articleTextIndex.remove(String.format("%02d", id));
+    }
+    store.save(articleTextIndex, Instant.ofEpochMilli(1000));
+
+    //when
+    List<String> ranked = articleTextIndex.search(textSearch("vaccine outbreak"), 20);
+    ArticleTextIndex loaded = new ArticleTextIndex();
+    store.load(loaded);
+    List<String> loadedRanked = loaded.search(textSearch("vaccine outbreak"), 20);
+
+    //then
+    assertEquals(List.of("02", "01"), ranked);
+    assertEquals(List.of("02", "01"), loadedRanked);
+  }
+
+  private static SearchArticleRequest textSearch(String q) {
+    return new SearchArticleRequest(null, null, null, null, q);
+  }
+
+  private Article generateArticle(String id, String publishDate, long version, String header, String shortDescription,
+                                  String text) {
+    Article article = new Article();
+    article.setId(id);
+    article.setPublishDate(LocalDate.parse(publishDate));
+    article.setHeader(header);
+    article.setShortDescription(shortDescription);
+    article.setText(ArticleText.of(text));
+    article.setAuthors(List.of("Cenk Akin"));
+    article.setVersion(version);
+    return article;
+  }
+}
@@ -0,0 +1,70 @@
+package com.github.cenkakin.mynewspaper.migration;
+
+import com.github.cenkakin.mynewspaper.domain.Article;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Stores articles as they were stored before the normalized fields existed. The backfill of the application start is
+ * forgotten before every test.
+ */
+@SpringBootTest(properties = {"my-newspaper.article-search-index.enabled=false",
+    "my-newspaper.article-text-index.enabled=false"})
+class NormalizedFieldsBackfillTest {
+
+  @Autowired
+  private NormalizedFieldsBackfill normalizedFieldsBackfill;
+
+  @Autowired
+  private ReactiveMongoOperations mongoOperations;
+
+  @BeforeEach
+  void setUp() {
+    mongoOperations.remove(new Query(), Article.class).block();
+    mongoOperations.remove(new Query(), NormalizedFieldsBackfill.COLLECTION).block();
+  }
+
+  @Test
+  void shouldBackfillNormalizedFieldsOnlyUntilBackfillIsCompleted() {
+    //given
+    insertLegacyArticle("1", "Cenk Akin", "Health");
+
+    //when
+    Long backfilled = normalizedFieldsBackfill.backfill().block();
+    insertLegacyArticle("2", "Pulitzer", "Sports");
+    Long backfilledAgain = normalizedFieldsBackfill.backfill().block();
+
+    //then
+    assertEquals(1L, backfilled);
+    assertNull(backfilledAgain);
+    Document article = findArticle("1");
+    assertEquals(List.of("cenk akin"), article.getList("normalizedAuthors", String.class));
+    assertEquals(List.of("health"), article.getList("normalizedKeywords", String.class));
+    assertFalse(findArticle("2").containsKey("normalizedAuthors"));
+  }
+
+  private void insertLegacyArticle(String id, String author, String keyword) {
+    mongoOperations.insert(new Document("_id", id)
+            .append("header", "header")
+            .append("authors", List.of(author))
+            .append("keywords", List.of(keyword))
+            .append("deleted", false)
+            .append("version", 0L),
+        mongoOperations.getCollectionName(Article.class)).block();
+  }
+
+  private Document findArticle(String id) {
+    return mongoOperations.findById(id, Document.class, mongoOperations.getCollectionName(Article.class)).block();
+  }
+}
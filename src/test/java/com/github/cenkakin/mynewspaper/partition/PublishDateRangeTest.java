@@ -0,0 +1,89 @@
+package com.github.cenkakin.mynewspaper.partition;
+
+import com.github.cenkakin.mynewspaper.domain.QArticle;
+import com.github.cenkakin.mynewspaper.util.QuerydslDocumentSerializer;
+import com.querydsl.core.types.Predicate;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PublishDateRangeTest {
+
+  private static final QArticle ARTICLE = QArticle.article;
+
+  private final QuerydslDocumentSerializer serializer = new QuerydslDocumentSerializer();
+
+  @Test
+  void shouldBeUnboundedWhenFilterHasNoPublishDate() {
+    //given
+    Predicate predicate = ARTICLE.deleted.isFalse().and(ARTICLE.normalizedAuthors.any().eq("cenk akin"));
+
+    //when
+    PublishDateRange range = PublishDateRange.of(serializer.toDocument(predicate));
+
+    //then
+    assertEquals(PublishDateRange.ALL, range);
+  }
+
+  @Test
+  void shouldReadInclusiveDaysOfExclusiveBounds() {
+    //given
+    Predicate predicate = ARTICLE.deleted.isFalse()
+        .and(ARTICLE.publishDate.after(LocalDate.parse("2019-12-31")))
+        .and(ARTICLE.publishDate.before(LocalDate.parse("2020-03-02")));
+
+    //when
+    PublishDateRange range = PublishDateRange.of(serializer.toDocument(predicate));
+
+    //then
+    assertEquals(new PublishDateRange(LocalDate.parse("2020-01-01"), LocalDate.parse("2020-03-01")), range);
+  }
+
+  @Test
+  void shouldNarrowRangeWithKeysetCursor() {
+    //given
+    LocalDate cursorDate = LocalDate.parse("2020-02-01");
+    Predicate predicate = ARTICLE.deleted.isFalse()
+        .and(ARTICLE.publishDate.after(LocalDate.parse("2019-12-31")))
+        .and(ARTICLE.publishDate.before(cursorDate)
+            .or(ARTICLE.publishDate.eq(cursorDate).and(ARTICLE.id.lt("5e5e5e5e5e5e5e5e5e5e5e5e"))));
+
+    //when
+    PublishDateRange range = PublishDateRange.of(serializer.toDocument(predicate));
+
+    //then
+    assertEquals(new PublishDateRange(LocalDate.parse("2020-01-01"), cursorDate), range);
+  }
+
+  @Test
+  void shouldBeUnboundedWhenAnyBranchOfOrIsUnbounded() {
+    //given
+    Predicate predicate = ARTICLE.publishDate.before(LocalDate.parse("2020-01-01"))
+        .or(ARTICLE.header.eq("Corona Virus!"));
+
+    //when
+    PublishDateRange range = PublishDateRange.of(serializer.toDocument(predicate));
+
+    //then
+    assertEquals(PublishDateRange.ALL, range);
+  }
+
+  @Test
+  void shouldOverlapPartitionsSharingAnyDay() {
+    //given
+    PublishDateRange range = new PublishDateRange(LocalDate.parse("2019-06-01"), LocalDate.parse("2020-01-01"));
+
+    //when
+    //then
+    assertTrue(range.overlaps(LocalDate.parse("2019-01-01"), LocalDate.parse("2020-01-01")));
+    assertTrue(range.overlaps(LocalDate.parse("2020-01-01"), null));
+    assertFalse(range.overlaps(LocalDate.parse("2020-01-02"), null));
+    assertFalse(range.overlaps(LocalDate.parse("2018-01-01"), LocalDate.parse("2019-06-01")));
+    assertFalse(new PublishDateRange(LocalDate.parse("2020-01-02"), LocalDate.parse("2020-01-01"))
+        .overlaps(null, null));
+  }
+}
@@ -0,0 +1,212 @@
+package com.github.cenkakin.mynewspaper.repository;
+
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.domain.ArticleSummary;
+import com.github.cenkakin.mynewspaper.domain.QArticle;
+import com.github.cenkakin.mynewspaper.partition.ArticlePartitionMover;
+import com.github.cenkakin.mynewspaper.partition.ArticlePartitions;
+import com.github.cenkakin.mynewspaper.partition.PublishDateRange;
+import com.github.cenkakin.mynewspaper.request.CreateArticleRequest;
+import com.github.cenkakin.mynewspaper.request.UpdateArticleRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Moves articles between the partitions of the embedded mongo and checks that the repository finds them wherever they
+ * are. The mover is run by the tests, its interval is longer than any test.
+ */
+@SpringBootTest(properties = {"my-newspaper.article-partitions.enabled=true",
+    "my-newspaper.article-partitions.hot-period=365d",
+    "my-newspaper.article-partitions.move-interval=1d",
+    "my-newspaper.article-partitions.move-batch-size=2",
+    "my-newspaper.article-search-index.enabled=false",
+    "my-newspaper.article-text-index.enabled=false"})
+class ArticleRepositoryPartitionTest {
+
+  private static final Sort KEYSET_ORDER = Sort.by(Sort.Direction.DESC, "publishDate", "id");
+
+  private static final LocalDate TODAY = LocalDate.now();
+
+  @Autowired
+  private ArticleRepository articleRepository;
+
+  @Autowired
+  private ArticlePartitions articlePartitions;
+
+  @Autowired
+  private ArticlePartitionMover articlePartitionMover;
+
+  @Autowired
+  private ReactiveMongoOperations mongoOperations;
+
+  private Article recent;
+
+  private Article lastYear;
+
+  private Article twoYearsAgo;
+
+  private Article threeYearsAgo;
+
+  @BeforeEach
+  void setUp() {
+    articlePartitions.getPartitions().forEach(partition -> mongoOperations.remove(new Query(), partition).block());
+    mongoOperations.remove(new Query(), "article_partition_lookup").block();
+    recent = insert("recent", TODAY.minusDays(10));
+    lastYear = insert("last year", TODAY.minusDays(400));
+    twoYearsAgo = insert("two years ago", TODAY.minusDays(800));
+    threeYearsAgo = insert("three years ago", TODAY.minusDays(1200));
+    articlePartitionMover.move().block();
+  }
+
+  @Test
+  void shouldMoveArticlesPublishedBeforeHotPeriodToArchivePartitions() {
+    //given
+    String hotPartition = articlePartitions.getHotPartition();
+
+    //when
+    List<String> partitions = articlePartitions.getPartitions();
+
+    //then
+    assertEquals(TODAY.minusDays(365), articlePartitions.getArchivedBefore());
+    assertEquals(Set.of(recent.getId()), idsIn(hotPartition));
+    assertEquals(Set.of(lastYear.getId()), idsIn(archiveOf(lastYear)));
+    assertEquals(Set.of(twoYearsAgo.getId()), idsIn(archiveOf(twoYearsAgo)));
+    assertEquals(Set.of(threeYearsAgo.getId()), idsIn(archiveOf(threeYearsAgo)));
+    assertEquals(hotPartition, partitions.get(0));
+    assertTrue(partitions.containsAll(List.of(archiveOf(lastYear), archiveOf(twoYearsAgo), archiveOf(threeYearsAgo))));
+  }
+
+  @Test
+  void shouldFindArticlesByIdInEveryPartition() {
+    //given
+    List<String> ids = List.of(threeYearsAgo.getId(), recent.getId(), lastYear.getId(), "5e5e5e5e5e5e5e5e5e5e5e5e");
+
+    //when
+    List<ArticleSummary> summaries = articleRepository.findSummariesByIdInAndDeletedFalse(ids, KEYSET_ORDER)
+        .collectList().block();
+
+    //then
+    assertEquals(lastYear.getHeader(), articleRepository.findByIdAndDeletedFalse(lastYear.getId()).block().getHeader());
+    assertEquals(0L, articleRepository.findVersionByIdAndDeletedFalse(threeYearsAgo.getId()).block());
+    assertEquals(List.of(recent.getId(), lastYear.getId(), threeYearsAgo.getId()),
+        summaries.stream().map(ArticleSummary::getId).collect(Collectors.toList()));
+  }
+
+  @Test
+  void shouldMergePagesOfPartitionsInKeysetOrder() {
+    //given
+    QArticle article = QArticle.article;
+
+    //when
+    List<ArticleSummary> page = articleRepository.findSummaryPage(article.deleted.isFalse(), KEYSET_ORDER, 3)
+        .collectList().block();
+    List<ArticleSummary> stream = articleRepository.streamSummaries(article.deleted.isFalse(), KEYSET_ORDER, 0, 1)
+        .collectList().block();
+
+    //then
+    assertEquals(List.of(recent.getId(), lastYear.getId(), twoYearsAgo.getId()),
+        page.stream().map(ArticleSummary::getId).collect(Collectors.toList()));
+    assertEquals(List.of(recent.getId(), lastYear.getId(), twoYearsAgo.getId(), threeYearsAgo.getId()),
+        stream.stream().map(ArticleSummary::getId).collect(Collectors.toList()));
+  }
+
+  @Test
+  void shouldOnlyAskPartitionsOverlappingSearchedPublishDates() {
+    //given
+    QArticle article = QArticle.article;
+    LocalDate publishDate = twoYearsAgo.getPublishDate();
+
+    //when
+    List<String> partitions = articlePartitions.partitionsFor(new PublishDateRange(publishDate, publishDate));
+    List<ArticleSummary> page = articleRepository.findSummaryPage(article.deleted.isFalse()
+            .and(article.publishDate.after(publishDate.minusDays(1)))
+            .and(article.publishDate.before(publishDate.plusDays(1))),
+        KEYSET_ORDER, 10)
+        .collectList().block();
+
+    //then
+    assertFalse(partitions.contains(articlePartitions.getHotPartition()));
+    assertTrue(partitions.contains(archiveOf(twoYearsAgo)));
+    assertFalse(partitions.contains(archiveOf(threeYearsAgo)));
+    assertEquals(List.of(twoYearsAgo.getId()), page.stream().map(ArticleSummary::getId).collect(Collectors.toList()));
+  }
+
+  @Test
+  void shouldMoveArticleToHotPartitionWhenItsPublishDateIsUpdated() {
+    //given
+    Article content = Article.fromUpdateArticleRequest(new UpdateArticleRequest("moved", "short description",
+        "text", TODAY, Set.of("Cenk Akin"), Set.of("health"), 1L));
+
+    //when
+    Article updated = articleRepository.updateIfOlderThan(lastYear.getId(), 1L, content).block();
+
+    //then
+    assertEquals(1L, updated.getVersion());
+    assertEquals(Set.of(recent.getId(), lastYear.getId()), idsIn(articlePartitions.getHotPartition()));
+    assertEquals(Set.of(), idsIn(archiveOf(lastYear)));
+    assertEquals("moved", articleRepository.findByIdAndDeletedFalse(lastYear.getId()).block().getHeader());
+  }
+
+  @Test
+  void shouldDeleteArchivedArticle() {
+    //given
+    String id = twoYearsAgo.getId();
+
+    //when
+    Boolean deleted = articleRepository.markDeletedByIdAndDeletedFalse(id).block();
+
+    //then
+    assertTrue(deleted);
+    assertFalse(articleRepository.markDeletedByIdAndDeletedFalse(id).block());
+    assertFalse(articleRepository.findByIdAndDeletedFalse(id).hasElement().block());
+  }
+
+  @Test
+  void shouldInsertArticlesIntoPartitionsOfTheirPublishDates() {
+    //given
+    List<Article> articles = List.of(article("new", TODAY), article("old", lastYear.getPublishDate()));
+
+    //when
+    assertEquals(0, articleRepository.insertManyUnordered(articles).block().size());
+
+    //then
+    assertTrue(idsIn(articlePartitions.getHotPartition()).contains(articles.get(0).getId()));
+    assertTrue(idsIn(archiveOf(lastYear)).contains(articles.get(1).getId()));
+  }
+
+  private Article insert(String header, LocalDate publishDate) {
+    return articleRepository.insert(article(header, publishDate)).block();
+  }
+
+  private static Article article(String header, LocalDate publishDate) {
+    return Article.fromCreateArticleRequest(new CreateArticleRequest(header, "short description", "text",
+        publishDate, Set.of("Cenk Akin"), Set.of("health")));
+  }
+
+  private String archiveOf(Article article) {
+    return articlePartitions.partitionFor(article.getPublishDate()).block();
+  }
+
+  private Set<String> idsIn(String partition) {
+    return mongoOperations.find(query(where("deleted").is(false)), Article.class, partition)
+        .map(Article::getId)
+        .collect(Collectors.toSet())
+        .block();
+  }
+}
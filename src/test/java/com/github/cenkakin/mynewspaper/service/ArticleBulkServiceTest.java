@@ -0,0 +1,224 @@
+package com.github.cenkakin.mynewspaper.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.cenkakin.mynewspaper.cache.ArticleSearchCache;
+import com.github.cenkakin.mynewspaper.cache.ArticleWriteEpoch;
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.domain.BulkCreateResult;
+import com.github.cenkakin.mynewspaper.index.ArticleSearchIndex;
+import com.github.cenkakin.mynewspaper.index.ArticleTextIndex;
+import com.github.cenkakin.mynewspaper.metrics.ArticleMetrics;
+import com.github.cenkakin.mynewspaper.repository.ArticleRepository;
+import com.github.cenkakin.mynewspaper.request.CreateArticleRequest;
+import com.github.cenkakin.mynewspaper.request.SearchArticleRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import javax.validation.Validation;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ArticleBulkServiceTest {
+
+  private final ArticleRepository articleRepository = mock(ArticleRepository.class);
+
+  private final ArticleTextIndex articleTextIndex = new ArticleTextIndex();
+
+  private final ArticleWriteEpoch articleWriteEpoch = mock(ArticleWriteEpoch.class);
+
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+  private final ArticleBulkService articleBulkService = new ArticleBulkService(articleRepository,
+      new ArticleSearchIndex(), articleTextIndex,
+      new ArticleSearchCache(Caffeine.newBuilder().maximumSize(100)), articleWriteEpoch,
+      new ArticleMetrics(new SimpleMeterRegistry(), true, true), objectMapper,
+      Validation.buildDefaultValidatorFactory().getValidator(), 2, Duration.ofMillis(50), 2);
+
+  @BeforeEach
+  void setUp() {
+    when(articleWriteEpoch.advance()).thenReturn(Mono.empty());
+  }
+
+  @Test
+  void shouldInsertArticlesInBatchesAndReturnResultsInOrder() {
+    //given
+    List<String> lines = IntStream.range(0, 5)
+        .mapToObj(i -> line(generateCreateArticleRequest("Header " + i)))
+        .collect(Collectors.toList());
+
+    when(articleRepository.insertManyUnordered(anyList())).thenAnswer(invocation -> {
+      List<Article> articles = invocation.getArgument(0);
+      articles.forEach(article -> article.setId("id of " + article.getHeader()));
+      return Mono.just(Map.of());
+    });
+
+    //when
+    Flux<BulkCreateResult> results = articleBulkService.createArticles(Flux.fromIterable(lines));
+
+    //then
+    StepVerifier.create(results)
+        .expectNext(BulkCreateResult.created(0, "id of Header 0"))
+        .expectNext(BulkCreateResult.created(1, "id of Header 1"))
+        .expectNext(BulkCreateResult.created(2, "id of Header 2"))
+        .expectNext(BulkCreateResult.created(3, "id of Header 3"))
+        .expectNext(BulkCreateResult.created(4, "id of Header 4"))
+        .expectComplete()
+        .verify();
+    verify(articleRepository, times(3)).insertManyUnordered(anyList());
+  }
+
+  @Test
+  void shouldReturnErrorsOfInvalidAndNotInsertedArticles() {
+    //given
+    CreateArticleRequest invalid = new CreateArticleRequest("", "Short description", "Text",
+        LocalDate.parse("2020-01-01"), Set.of(), Set.of());
+    CreateArticleRequest notInserted = generateCreateArticleRequest("Not inserted");
+    CreateArticleRequest inserted = generateCreateArticleRequest("Inserted");
+
+    when(articleRepository.insertManyUnordered(anyList())).thenAnswer(invocation -> {
+      List<Article> articles = invocation.getArgument(0);
+      articles.forEach(article -> article.setId("id of " + article.getHeader()));
+      return Mono.just("Not inserted".equals(articles.get(0).getHeader()) ? Map.of(0, "duplicate key") : Map.of());
+    });
+
+    //when
+    Flux<BulkCreateResult> results =
+        articleBulkService.createArticles(Flux.just(line(invalid), line(notInserted), line(inserted)));
+
+    //then
+    StepVerifier.create(results)
+        .expectNext(BulkCreateResult.failed(0, "authors: must not be empty, header: must not be blank"))
+        .expectNext(BulkCreateResult.failed(1, "duplicate key"))
+        .expectNext(BulkCreateResult.created(2, "id of Inserted"))
+        .expectComplete()
+        .verify();
+  }
+
+  @Test
+  void shouldIndexCreatedArticles() {
+    //given
+    articleTextIndex.markReady();
+    when(articleRepository.insertManyUnordered(anyList())).thenAnswer(invocation -> {
+      List<Article> articles = invocation.getArgument(0);
+      articles.forEach(article -> {
+        article.setId("1");
+        article.setVersion(0L);
+      });
+      return Mono.just(Map.of());
+    });
+
+    //when
+    articleBulkService.createArticles(Flux.just(line(generateCreateArticleRequest("Vaccine trials")))).blockLast();
+
+    //then
+    assertEquals(List.of("1"), articleTextIndex.search(new SearchArticleRequest(null, null, null, null, "vaccine"), 20));
+  }
+
+  @Test
+  void shouldFailOnlyMalformedLines() {
+    //given
+    when(articleRepository.insertManyUnordered(anyList())).thenAnswer(invocation -> {
+      List<Article> articles = invocation.getArgument(0);
+      articles.forEach(article -> article.setId("id of " + article.getHeader()));
+      return Mono.just(Map.of());
+    });
+
+    //when
+    Flux<BulkCreateResult> results = articleBulkService.createArticles(Flux.just("{\"header\":", "",
+        line(generateCreateArticleRequest("Inserted"))));
+
+    //then
+    StepVerifier.create(results)
+        .assertNext(result -> {
+          assertEquals(0, result.getIndex());
+          assertTrue(result.getError().startsWith("malformed article: "));
+        })
+        .expectNext(BulkCreateResult.created(1, "id of Inserted"))
+        .expectComplete()
+        .verify();
+  }
+
+  @Test
+  void shouldWriteBatchWhichIsNotFullAfterMaxDelay() {
+    //given
+    when(articleRepository.insertManyUnordered(anyList())).thenAnswer(invocation -> {
+      List<Article> articles = invocation.getArgument(0);
+      articles.forEach(article -> article.setId("id of " + article.getHeader()));
+      return Mono.just(Map.of());
+    });
+
+    //when
+    Flux<BulkCreateResult> results = articleBulkService.createArticles(
+        Flux.just(line(generateCreateArticleRequest("Waiting"))).concatWith(Flux.never()));
+
+    //then
+    StepVerifier.create(results)
+        .expectNext(BulkCreateResult.created(0, "id of Waiting"))
+        .thenCancel()
+        .verify(Duration.ofSeconds(5));
+  }
+
+  @Test
+  void shouldReadLinesOnlyAsFastAsBatchesAreWritten() {
+    //given
+    AtomicInteger read = new AtomicInteger();
+    AtomicInteger written = new AtomicInteger();
+    AtomicInteger maxUnwritten = new AtomicInteger();
+    Flux<String> lines = Flux.range(0, 100)
+        .map(i -> line(generateCreateArticleRequest("Header " + i)))
+        .doOnNext(line -> read.incrementAndGet());
+
+    when(articleRepository.insertManyUnordered(anyList())).thenAnswer(invocation -> {
+      List<Article> articles = invocation.getArgument(0);
+      articles.forEach(article -> article.setId("id of " + article.getHeader()));
+      maxUnwritten.accumulateAndGet(read.get() - written.get(), Math::max);
+      return Mono.delay(Duration.ofMillis(10))
+          .doOnNext(tick -> written.addAndGet(articles.size()))
+          .thenReturn(Map.<Integer, String>of());
+    });
+
+    //when
+    List<BulkCreateResult> results =
+        articleBulkService.createArticles(lines).collectList().block(Duration.ofSeconds(30));
+
+    //then
+    assertEquals(100, results.size());
+    // two batches being written, one being gathered and one read ahead, of two articles each
+    assertTrue(maxUnwritten.get() <= 8, "articles read ahead of the writes: " + maxUnwritten.get());
+  }
+
+  private String line(CreateArticleRequest request) {
+    try {
+      return objectMapper.writeValueAsString(request);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private CreateArticleRequest generateCreateArticleRequest(String header) {
+    return new CreateArticleRequest(header, "Short description", "Text", LocalDate.parse("2020-01-01"),
+        Set.of("Cenk Akin"), Set.of("health"));
+  }
+}
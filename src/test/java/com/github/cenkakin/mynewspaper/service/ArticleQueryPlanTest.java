@@ -0,0 +1,174 @@
+package com.github.cenkakin.mynewspaper.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.cenkakin.mynewspaper.cache.ArticleCache;
+import com.github.cenkakin.mynewspaper.cache.ArticleSearchCache;
+import com.github.cenkakin.mynewspaper.cache.ArticleWriteEpoch;
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.domain.ArticleCursor;
+import com.github.cenkakin.mynewspaper.index.ArticleSearchIndex;
+import com.github.cenkakin.mynewspaper.index.ArticleTextIndex;
+import com.github.cenkakin.mynewspaper.metrics.ArticleMetrics;
+import com.github.cenkakin.mynewspaper.repository.ArticleRepository;
+import com.github.cenkakin.mynewspaper.request.CreateArticleRequest;
+import com.github.cenkakin.mynewspaper.request.PageArticleRequest;
+import com.github.cenkakin.mynewspaper.request.SearchArticleRequest;
+import com.github.cenkakin.mynewspaper.util.QuerydslDocumentSerializer;
+import com.github.cenkakin.mynewspaper.write.ArticleWriteBuffer;
+import com.querydsl.core.types.Predicate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Explains the queries of {@link ArticleService} against the embedded mongo and checks that every one of them is
+ * answered by an index scan.
+ */
+@SpringBootTest
+class ArticleQueryPlanTest {
+
+  private static final Document PAGE_ORDER = new Document("publishDate", -1).append("_id", -1);
+
+  @Autowired
+  private ReactiveMongoOperations mongoOperations;
+
+  @Autowired
+  private ArticleRepository articleRepository;
+
+  private final ArticleRepository mockArticleRepository = mock(ArticleRepository.class);
+
+  private final ArticleWriteEpoch articleWriteEpoch = mock(ArticleWriteEpoch.class);
+
+  private final ArticleService articleService = new ArticleService(mockArticleRepository,
+      new ArticleWriteBuffer(mockArticleRepository, new SimpleMeterRegistry(), false, 0, 1, Duration.ofSeconds(1)),
+      new ArticleCache(Caffeine.newBuilder().maximumSize(1).build()),
+      new ArticleSearchCache(Caffeine.newBuilder().maximumSize(0)), articleWriteEpoch,
+      new ArticleSearchIndex(), new ArticleTextIndex(), new ArticleMetrics(new SimpleMeterRegistry(), false, false), 100);
+
+  private String existingId;
+
+  @BeforeEach
+  void setUp() {
+    when(articleWriteEpoch.get()).thenReturn(Mono.just(0L));
+    articleRepository.deleteAll().block();
+    existingId = Flux.range(0, 50)
+        .map(i -> Article.fromCreateArticleRequest(new CreateArticleRequest("header" + i, "shortDescription" + i, "text" + i,
+            LocalDate.parse("2020-01-01").plusDays(i), Set.of("author" + i % 5), Set.of("keyword" + i % 7))))
+        .concatMap(articleRepository::save)
+        .blockLast()
+        .getId();
+  }
+
+  @Test
+  void shouldUseIndexWhenListingArticles() {
+    assertIndexScan(pageFilter(new SearchArticleRequest(null, null, null, null, null), null));
+  }
+
+  @Test
+  void shouldUseIndexWhenListingArticlesAfterCursor() {
+    ArticleCursor cursor = new ArticleCursor(LocalDate.parse("2020-01-20"), existingId);
+    assertIndexScan(pageFilter(new SearchArticleRequest(null, null, null, null, null), cursor));
+  }
+
+  @Test
+  void shouldUseIndexWhenSearchingByAuthor() {
+    assertIndexScan(pageFilter(new SearchArticleRequest(null, "Author1", null, null, null), null));
+  }
+
+  @Test
+  void shouldUseIndexWhenSearchingByKeyword() {
+    assertIndexScan(pageFilter(new SearchArticleRequest("keyword2", null, null, null, null), null));
+  }
+
+  @Test
+  void shouldUseIndexWhenSearchingByAllFields() {
+    assertIndexScan(pageFilter(
+        new SearchArticleRequest("keyword2", "author1", LocalDate.parse("2020-01-05"), LocalDate.parse("2020-02-05"), null), null));
+  }
+
+  @Test
+  void shouldUseIndexWhenSearchingByPublishDates() {
+    assertIndexScan(pageFilter(
+        new SearchArticleRequest(null, null, LocalDate.parse("2020-01-05"), LocalDate.parse("2020-02-05"), null), null));
+  }
+
+  @Test
+  void shouldUseIndexWhenGettingUpdatingOrDeletingArticleById() {
+    // getArticle, updateArticle and deleteArticle all match the article by id and deleted flag
+    assertIndexScan(mapped(query(where("id").is(existingId).and("deleted").is(false)).getQueryObject()));
+    assertIndexScan(mapped(query(where("id").is(existingId).and("deleted").is(false).and("version").lt(1L)).getQueryObject()));
+  }
+
+  @Test
+  void shouldUseIndexWhenFetchingArticlesFoundBySearchIndex() {
+    assertIndexScan(mapped(query(where("id").in(List.of(existingId)).and("deleted").is(false)).getQueryObject()));
+  }
+
+  private Document pageFilter(SearchArticleRequest request, ArticleCursor cursor) {
+    ArgumentCaptor<Predicate> predicateArgumentCaptor = ArgumentCaptor.forClass(Predicate.class);
+    when(mockArticleRepository.findSummaryPage(any(Predicate.class), any(Sort.class), anyInt()))
+        .thenReturn(Flux.empty());
+
+    PageArticleRequest pageRequest = new PageArticleRequest(null, cursor == null ? null : cursor.encode());
+    articleService.searchArticles(request, pageRequest).block();
+    verify(mockArticleRepository).findSummaryPage(predicateArgumentCaptor.capture(), any(Sort.class), anyInt());
+
+    return mapped(new QuerydslDocumentSerializer().toDocument(predicateArgumentCaptor.getValue()));
+  }
+
+  private Document mapped(Document filter) {
+    MongoPersistentEntity<?> entity = mongoOperations.getConverter().getMappingContext().getRequiredPersistentEntity(Article.class);
+    return new QueryMapper(mongoOperations.getConverter()).getMappedObject(filter, entity);
+  }
+
+  private void assertIndexScan(Document filter) {
+    Document find = new Document("find", mongoOperations.getCollectionName(Article.class))
+        .append("filter", filter)
+        .append("sort", PAGE_ORDER)
+        .append("limit", PageArticleRequest.DEFAULT_LIMIT + 1);
+    Document explain = mongoOperations.executeCommand(new Document("explain", find).append("verbosity", "queryPlanner")).block();
+
+    List<String> stages = new ArrayList<>();
+    collectStages((Document) ((Document) explain.get("queryPlanner")).get("winningPlan"), stages);
+    assertTrue(stages.contains("IXSCAN") || stages.contains("IDHACK"), "no index is used for " + filter.toJson() + ": " + stages);
+    assertFalse(stages.contains("COLLSCAN"), "collection is scanned for " + filter.toJson() + ": " + stages);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void collectStages(Document plan, List<String> stages) {
+    stages.add(plan.getString("stage"));
+    if (plan.containsKey("inputStage")) {
+      collectStages((Document) plan.get("inputStage"), stages);
+    }
+    if (plan.containsKey("inputStages")) {
+      ((List<Document>) plan.get("inputStages")).forEach(inputStage -> collectStages(inputStage, stages));
+    }
+  }
+}
@@ -1,32 +1,90 @@
 package com.github.cenkakin.mynewspaper.service;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.cenkakin.mynewspaper.cache.ArticleCache;
+import com.github.cenkakin.mynewspaper.cache.ArticleSearchCache;
+import com.github.cenkakin.mynewspaper.cache.ArticleWriteEpoch;
 import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.domain.ArticleCursor;
+import com.github.cenkakin.mynewspaper.domain.ArticleFields;
+import com.github.cenkakin.mynewspaper.domain.ArticlePage;
+import com.github.cenkakin.mynewspaper.domain.ArticleSummary;
+import com.github.cenkakin.mynewspaper.domain.ArticleText;
+import com.github.cenkakin.mynewspaper.domain.BatchGetResult;
+import com.github.cenkakin.mynewspaper.domain.PartialArticle;
+import com.github.cenkakin.mynewspaper.domain.PartialArticlePage;
 import com.github.cenkakin.mynewspaper.exception.ArticleNotFoundException;
+import com.github.cenkakin.mynewspaper.exception.InvalidCursorException;
 import com.github.cenkakin.mynewspaper.exception.OutdatedUpdateArticleException;
+import com.github.cenkakin.mynewspaper.exception.TextSearchUnavailableException;
+import com.github.cenkakin.mynewspaper.index.ArticleSearchIndex;
+import com.github.cenkakin.mynewspaper.index.ArticleTextIndex;
+import com.github.cenkakin.mynewspaper.metrics.ArticleMetrics;
 import com.github.cenkakin.mynewspaper.repository.ArticleRepository;
 import com.github.cenkakin.mynewspaper.request.CreateArticleRequest;
+import com.github.cenkakin.mynewspaper.request.PageArticleRequest;
 import com.github.cenkakin.mynewspaper.request.SearchArticleRequest;
 import com.github.cenkakin.mynewspaper.request.UpdateArticleRequest;
+import com.github.cenkakin.mynewspaper.write.ArticleWriteBuffer;
 import com.querydsl.core.types.Predicate;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
 import reactor.test.StepVerifier;
+import reactor.util.function.Tuple2;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class ArticleServiceTest {
 
+  private static final PageArticleRequest FIRST_PAGE = new PageArticleRequest(null, null);
+
+  private static final int STREAM_BATCH_SIZE = 50;
+
   private final ArticleRepository articleRepository = mock(ArticleRepository.class);
 
-  private final ArticleService articleService = new ArticleService(articleRepository);
+  private final ArticleWriteEpoch articleWriteEpoch = mock(ArticleWriteEpoch.class);
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final ArticleSearchIndex articleSearchIndex = new ArticleSearchIndex();
+
+  private final ArticleTextIndex articleTextIndex = new ArticleTextIndex();
+
+  private final ArticleService articleService = new ArticleService(articleRepository,
+      new ArticleWriteBuffer(articleRepository, meterRegistry, false, 0, 1, Duration.ofSeconds(1)),
+      new ArticleCache(Caffeine.newBuilder().maximumSize(100).build()),
+      new ArticleSearchCache(Caffeine.newBuilder().maximumSize(100)), articleWriteEpoch, articleSearchIndex,
+      articleTextIndex, new ArticleMetrics(meterRegistry, true, false), STREAM_BATCH_SIZE);
+
+  @BeforeEach
+  void setUp() {
+    when(articleWriteEpoch.advance()).thenReturn(Mono.empty());
+    when(articleWriteEpoch.get()).thenReturn(Mono.just(0L));
+  }
 
   @Test
   void shouldCreateArticleFromCreateArticleRequest() {
@@ -94,6 +152,322 @@ class ArticleServiceTest {
         .verify();
   }
 
+  @Test
+  void shouldReturnCachedArticleWhenArticleIsRequestedAgain() {
+    //given
+    String givenId = "1234";
+    Article mockArticleInDb = new Article();
+    mockArticleInDb.setId("1234");
+    mockArticleInDb.setVersion(0L);
+
+    when(articleRepository.findByIdAndDeletedFalse(givenId))
+        .thenReturn(Mono.just(mockArticleInDb));
+
+    //when
+    articleService.getArticle(givenId).block();
+    Mono<Article> articleRetrieve = articleService.getArticle(givenId);
+
+    //then
+    StepVerifier.create(articleRetrieve)
+        .expectNext(mockArticleInDb)
+        .expectComplete()
+        .verify();
+    verify(articleRepository, times(1)).findByIdAndDeletedFalse(givenId);
+  }
+
+  @Test
+  void shouldQueryRepositoryOnceForConcurrentReadsOfSameArticle() {
+    //given
+    String givenId = "1234";
+    Article mockArticleInDb = new Article();
+    mockArticleInDb.setId(givenId);
+    mockArticleInDb.setVersion(0L);
+    MonoProcessor<Article> load = MonoProcessor.create();
+
+    when(articleRepository.findByIdAndDeletedFalse(givenId))
+        .thenReturn(load);
+
+    //when
+    Mono<Tuple2<Article, Article>> articles =
+        Mono.zip(articleService.getArticle(givenId), articleService.getArticle(givenId));
+
+    //then
+    StepVerifier.create(articles)
+        .then(() -> load.onNext(mockArticleInDb))
+        .expectNextMatches(pair -> pair.getT1() == mockArticleInDb && pair.getT2() == mockArticleInDb)
+        .expectComplete()
+        .verify();
+    verify(articleRepository, times(1)).findByIdAndDeletedFalse(givenId);
+  }
+
+  @Test
+  void shouldReturnVersionOfCachedArticleWithoutQueryingRepository() {
+    //given
+    String givenId = "1234";
+    Article mockArticleInDb = new Article();
+    mockArticleInDb.setId(givenId);
+    mockArticleInDb.setVersion(3L);
+
+    when(articleRepository.findByIdAndDeletedFalse(givenId))
+        .thenReturn(Mono.just(mockArticleInDb));
+    articleService.getArticle(givenId).block();
+
+    //when
+    Mono<Long> version = articleService.getArticleVersion(givenId);
+
+    //then
+    StepVerifier.create(version)
+        .expectNext(3L)
+        .expectComplete()
+        .verify();
+    verify(articleRepository, times(0)).findVersionByIdAndDeletedFalse(givenId);
+  }
+
+  @Test
+  void shouldReturnVersionFromRepositoryWithoutFetchingArticleWhenItIsNotCached() {
+    //given
+    String givenId = "1234";
+
+    when(articleRepository.findVersionByIdAndDeletedFalse(givenId))
+        .thenReturn(Mono.just(5L));
+
+    //when
+    Mono<Long> version = articleService.getArticleVersion(givenId);
+
+    //then
+    StepVerifier.create(version)
+        .expectNext(5L)
+        .expectComplete()
+        .verify();
+    verify(articleRepository, times(0)).findByIdAndDeletedFalse(givenId);
+  }
+
+  @Test
+  void shouldThrowNotFoundExceptionWhenVersionOfDeletedArticleIsRequested() {
+    //given
+    String givenId = "1234";
+
+    when(articleRepository.markDeletedByIdAndDeletedFalse(givenId))
+        .thenReturn(Mono.just(true));
+    articleService.deleteArticle(givenId).block();
+
+    //when
+    Mono<Long> version = articleService.getArticleVersion(givenId);
+
+    //then
+    StepVerifier.create(version)
+        .expectError(ArticleNotFoundException.class)
+        .verify();
+    verify(articleRepository, times(0)).findVersionByIdAndDeletedFalse(givenId);
+  }
+
+  @Test
+  void shouldAdvanceWriteEpochWhenArticleIsDeleted() {
+    //given
+    when(articleRepository.markDeletedByIdAndDeletedFalse("1234"))
+        .thenReturn(Mono.just(true));
+
+    //when
+    articleService.deleteArticle("1234").block();
+
+    //then
+    verify(articleWriteEpoch, times(1)).advance();
+  }
+
+  @Test
+  void shouldBatchGetCachedArticlesAndFetchOthersWithOneQueryInRequestOrder() {
+    //given
+    Article cachedArticle = new Article();
+    cachedArticle.setId("1");
+    Article articleInDb = new Article();
+    articleInDb.setId("2");
+
+    when(articleRepository.findByIdAndDeletedFalse("1"))
+        .thenReturn(Mono.just(cachedArticle));
+    when(articleRepository.findByIdInAndDeletedFalse(Set.of("2", "3")))
+        .thenReturn(Flux.just(articleInDb));
+    articleService.getArticle("1").block();
+
+    //when
+    Mono<List<BatchGetResult<Article>>> results = articleService.batchGetArticles(List.of("3", "1", "2", "1"));
+
+    //then
+    StepVerifier.create(results)
+        .expectNext(List.of(BatchGetResult.notFound("3"), BatchGetResult.found("1", cachedArticle),
+            BatchGetResult.found("2", articleInDb), BatchGetResult.found("1", cachedArticle)))
+        .expectComplete()
+        .verify();
+    verify(articleRepository, times(1)).findByIdInAndDeletedFalse(Set.of("2", "3"));
+    StepVerifier.create(articleService.getArticle("2"))
+        .expectNext(articleInDb)
+        .expectComplete()
+        .verify();
+    verify(articleRepository, times(0)).findByIdAndDeletedFalse("2");
+  }
+
+  @Test
+  void shouldBatchGetSummariesWithoutQueryingCachedOrDeletedArticles() {
+    //given
+    Article cachedArticle = new Article();
+    cachedArticle.setId("1");
+    cachedArticle.setText(ArticleText.of("Text which is not in the summary"));
+    ArticleSummary summaryInDb = generateArticleSummaryWithIdAndPublishDate("2", "2020-01-01");
+
+    when(articleRepository.findByIdAndDeletedFalse("1"))
+        .thenReturn(Mono.just(cachedArticle));
+    when(articleRepository.markDeletedByIdAndDeletedFalse("3"))
+        .thenReturn(Mono.just(true));
+    when(articleRepository.findSummariesByIdInAndDeletedFalse(Set.of("2"), Sort.unsorted()))
+        .thenReturn(Flux.just(summaryInDb));
+    articleService.getArticle("1").block();
+    articleService.deleteArticle("3").block();
+
+    //when
+    Mono<List<BatchGetResult<ArticleSummary>>> results =
+        articleService.batchGetArticleSummaries(List.of("1", "2", "3"));
+
+    //then
+    StepVerifier.create(results)
+        .expectNext(List.of(BatchGetResult.found("1", ArticleSummary.fromArticle(cachedArticle)),
+            BatchGetResult.found("2", summaryInDb), BatchGetResult.notFound("3")))
+        .expectComplete()
+        .verify();
+    verify(articleRepository, times(0)).findByIdInAndDeletedFalse(any());
+  }
+
+  @Test
+  void shouldReturnRequestedFieldsOfCachedArticleWithoutQueryingRepository() {
+    //given
+    String givenId = "1234";
+    Article mockArticleInDb = new Article();
+    mockArticleInDb.setId(givenId);
+    mockArticleInDb.setHeader("Corona Virus!");
+    mockArticleInDb.setText(ArticleText.of("We should be careful..."));
+    mockArticleInDb.setPublishDate(LocalDate.parse("2020-01-01"));
+
+    when(articleRepository.findByIdAndDeletedFalse(givenId))
+        .thenReturn(Mono.just(mockArticleInDb));
+    articleService.getArticle(givenId).block();
+
+    //when
+    Mono<PartialArticle> article = articleService.getPartialArticle(givenId, ArticleFields.parse("publishDate,header"));
+
+    //then
+    StepVerifier.create(article)
+        .assertNext(a -> {
+          assertEquals(List.of("publishDate", "header"), new ArrayList<>(a.getFields().keySet()));
+          assertEquals(LocalDate.parse("2020-01-01"), a.getFields().get("publishDate"));
+          assertEquals("Corona Virus!", a.getFields().get("header"));
+        })
+        .expectComplete()
+        .verify();
+    verify(articleRepository, times(0)).findPartialByIdAndDeletedFalse(any(), any());
+  }
+
+  @Test
+  void shouldReturnPartialArticlePageWithNextCursor() {
+    //given
+    ArticleFields fields = ArticleFields.parse("header");
+    PartialArticle first = new PartialArticle("2", LocalDate.parse("2020-01-02"), Map.of("header", "Second"));
+    PartialArticle second = new PartialArticle("1", LocalDate.parse("2020-01-01"), Map.of("header", "First"));
+
+    when(articleRepository.findPartialPage(any(Predicate.class), eq(Sort.by(Sort.Direction.DESC, "publishDate", "id")),
+        eq(2), eq(fields)))
+        .thenReturn(Flux.just(first, second));
+
+    //when
+    Mono<PartialArticlePage> page = articleService.getPartialArticles(fields, new PageArticleRequest(1, null));
+
+    //then
+    StepVerifier.create(page)
+        .expectNext(new PartialArticlePage(List.of(first), new ArticleCursor(LocalDate.parse("2020-01-02"), "2")))
+        .expectComplete()
+        .verify();
+  }
+
+  @Test
+  void shouldReturnUpdatedArticleFromCacheAfterUpdate() {
+    //given
+    String givenId = "1234";
+    Article mockArticleInDb = new Article();
+    mockArticleInDb.setId("1234");
+    mockArticleInDb.setVersion(1L);
+
+    Article updatedArticle = new Article();
+    updatedArticle.setId("1234");
+    updatedArticle.setPublishDate(LocalDate.parse("2020-01-01"));
+    updatedArticle.setVersion(2L);
+
+    UpdateArticleRequest request = new UpdateArticleRequest("Corona Virus!",
+        "Is it a worldwide threat?",
+        "We should be careful...",
+        LocalDate.parse("2020-01-01"),
+        Set.of("Cenk Akin"),
+        Set.of("health"),
+        2L
+    );
+
+    when(articleRepository.findByIdAndDeletedFalse(givenId))
+        .thenReturn(Mono.just(mockArticleInDb));
+    when(articleRepository.updateIfOlderThan(givenId, 2L, Article.fromUpdateArticleRequest(request)))
+        .thenReturn(Mono.just(updatedArticle));
+
+    //when
+    articleService.getArticle(givenId).block();
+    articleService.updateArticle(givenId, request).block();
+
+    //then
+    StepVerifier.create(articleService.getArticle(givenId))
+        .expectNext(updatedArticle)
+        .expectComplete()
+        .verify();
+  }
+
+  @Test
+  void shouldNotReplaceCachedArticleWithOlderVersion() {
+    //given
+    Article newerArticle = new Article();
+    newerArticle.setId("1234");
+    newerArticle.setVersion(3L);
+    Article olderArticle = new Article();
+    olderArticle.setId("1234");
+    olderArticle.setVersion(2L);
+    ArticleCache articleCache = new ArticleCache(Caffeine.newBuilder().maximumSize(100).build());
+
+    //when
+    articleCache.put(newerArticle);
+    articleCache.put(olderArticle);
+
+    //then
+    StepVerifier.create(articleCache.get("1234", id -> Mono.empty()))
+        .expectNext(newerArticle)
+        .expectComplete()
+        .verify();
+  }
+
+  @Test
+  void shouldThrowNotFoundExceptionWhenCachedArticleIsDeleted() {
+    //given
+    String givenId = "1234";
+    Article mockArticleInDb = new Article();
+    mockArticleInDb.setId("1234");
+    mockArticleInDb.setVersion(0L);
+
+    when(articleRepository.findByIdAndDeletedFalse(givenId))
+        .thenReturn(Mono.just(mockArticleInDb));
+    when(articleRepository.markDeletedByIdAndDeletedFalse(givenId))
+        .thenReturn(Mono.just(true));
+
+    //when
+    articleService.getArticle(givenId).block();
+    articleService.deleteArticle(givenId).block();
+
+    //then
+    StepVerifier.create(articleService.getArticle(givenId))
+        .expectError(ArticleNotFoundException.class)
+        .verify();
+  }
+
   @Test
   void shouldThrowNotFoundExceptionWhenUpdatingArticleWithIdNotExists() {
     //given
@@ -108,7 +482,9 @@ class ArticleServiceTest {
         1L
     );
 
-    when(articleRepository.findByIdAndDeletedFalse(givenId))
+    when(articleRepository.updateIfOlderThan(givenId, 1L, Article.fromUpdateArticleRequest(request)))
+        .thenReturn(Mono.empty());
+    when(articleRepository.findVersionByIdAndDeletedFalse(givenId))
         .thenReturn(Mono.empty());
 
     //when
@@ -126,10 +502,6 @@ class ArticleServiceTest {
     //given
     String givenId = "1234";
 
-    Article mockArticleInDb = new Article();
-    mockArticleInDb.setId("1234");
-    mockArticleInDb.setVersion(1L);
-
     UpdateArticleRequest request = new UpdateArticleRequest("Corona Virus!",
         "Is it a worldwide threat?",
         "We should be careful...",
@@ -139,8 +511,10 @@ class ArticleServiceTest {
         1L
     );
 
-    when(articleRepository.findByIdAndDeletedFalse(givenId))
-        .thenReturn(Mono.just(mockArticleInDb));
+    when(articleRepository.updateIfOlderThan(givenId, 1L, Article.fromUpdateArticleRequest(request)))
+        .thenReturn(Mono.empty());
+    when(articleRepository.findVersionByIdAndDeletedFalse(givenId))
+        .thenReturn(Mono.just(1L));
 
     //when
     Mono<Article> articleUpdate = articleService.updateArticle("1234", request);
@@ -157,10 +531,6 @@ class ArticleServiceTest {
     //given
     String givenId = "1234";
 
-    Article mockArticleInDb = new Article();
-    mockArticleInDb.setId("1234");
-    mockArticleInDb.setVersion(2L);
-
     UpdateArticleRequest request = new UpdateArticleRequest("Corona Virus!",
         "Is it a worldwide threat?",
         "We should be careful...",
@@ -170,8 +540,10 @@ class ArticleServiceTest {
         1L
     );
 
-    when(articleRepository.findByIdAndDeletedFalse(givenId))
-        .thenReturn(Mono.just(mockArticleInDb));
+    when(articleRepository.updateIfOlderThan(givenId, 1L, Article.fromUpdateArticleRequest(request)))
+        .thenReturn(Mono.empty());
+    when(articleRepository.findVersionByIdAndDeletedFalse(givenId))
+        .thenReturn(Mono.just(2L));
 
     //when
     Mono<Article> articleUpdate = articleService.updateArticle("1234", request);
@@ -188,10 +560,6 @@ class ArticleServiceTest {
     //given
     String givenId = "1234";
 
-    Article mockArticleInDb = new Article();
-    mockArticleInDb.setId("1234");
-    mockArticleInDb.setVersion(1L);
-
     UpdateArticleRequest request = new UpdateArticleRequest("Corona Virus!",
         "Is it a worldwide threat?",
         "We should be careful...",
@@ -201,11 +569,10 @@ class ArticleServiceTest {
         2L
     );
 
-    when(articleRepository.findByIdAndDeletedFalse(givenId))
-        .thenReturn(Mono.just(mockArticleInDb));
-
-    Article updatedArticle = mockArticleInDb.update(request);
-    when(articleRepository.save(updatedArticle))
+    Article updatedArticle = Article.fromUpdateArticleRequest(request);
+    updatedArticle.setId("1234");
+    updatedArticle.setVersion(2L);
+    when(articleRepository.updateIfOlderThan(givenId, 2L, Article.fromUpdateArticleRequest(request)))
         .thenReturn(Mono.just(updatedArticle));
 
     //when
@@ -223,8 +590,8 @@ class ArticleServiceTest {
     //given
     String givenId = "1234";
 
-    when(articleRepository.findByIdAndDeletedFalse(givenId))
-        .thenReturn(Mono.empty());
+    when(articleRepository.markDeletedByIdAndDeletedFalse(givenId))
+        .thenReturn(Mono.just(false));
 
     //when
     Mono<Void> articleDeletion = articleService.deleteArticle(givenId);
@@ -240,14 +607,9 @@ class ArticleServiceTest {
   void shouldNotThrowAnyExceptionWhenDeletingArticleIsSuccessful() {
     //given
     String givenId = "1234";
-    Article mockArticleInDb = new Article();
-    mockArticleInDb.setId("1234");
-
-    when(articleRepository.findByIdAndDeletedFalse(givenId))
-        .thenReturn(Mono.just(mockArticleInDb));
 
-    when(articleRepository.save(mockArticleInDb.delete()))
-        .thenReturn(Mono.just(mockArticleInDb.delete()));
+    when(articleRepository.markDeletedByIdAndDeletedFalse(givenId))
+        .thenReturn(Mono.just(true));
 
     //when
     Mono<Void> articleDeletion = articleService.deleteArticle(givenId);
@@ -261,12 +623,15 @@ class ArticleServiceTest {
   @Test
   void shouldCreateCorrectQueryWithAllNull() {
     //given
-    SearchArticleRequest request = new SearchArticleRequest(null, null, null, null);
+    SearchArticleRequest request = new SearchArticleRequest(null, null, null, null, null);
     ArgumentCaptor<Predicate> predicateArgumentCaptor = ArgumentCaptor.forClass(Predicate.class);
 
+    when(articleRepository.findSummaryPage(any(Predicate.class), any(Sort.class), anyInt()))
+        .thenReturn(Flux.empty());
+
     //when
-    articleService.searchArticles(request);
-    verify(articleRepository).findAll(predicateArgumentCaptor.capture());
+    articleService.searchArticles(request, FIRST_PAGE).block();
+    verify(articleRepository).findSummaryPage(predicateArgumentCaptor.capture(), any(Sort.class), eq(21));
     Predicate query = predicateArgumentCaptor.getValue();
 
     //then
@@ -278,66 +643,431 @@ class ArticleServiceTest {
   @Test
   void shouldCreateCorrectQueryWithOnlyKeywordAndAuthor() {
     //given
-    SearchArticleRequest request = new SearchArticleRequest("health", "Pulitzer", null, null);
+    SearchArticleRequest request = new SearchArticleRequest("health", "Pulitzer", null, null, null);
     ArgumentCaptor<Predicate> predicateArgumentCaptor = ArgumentCaptor.forClass(Predicate.class);
 
+    when(articleRepository.findSummaryPage(any(Predicate.class), any(Sort.class), anyInt()))
+        .thenReturn(Flux.empty());
+
     //when
-    articleService.searchArticles(request);
-    verify(articleRepository).findAll(predicateArgumentCaptor.capture());
+    articleService.searchArticles(request, FIRST_PAGE).block();
+    verify(articleRepository).findSummaryPage(predicateArgumentCaptor.capture(), any(Sort.class), eq(21));
     Predicate query = predicateArgumentCaptor.getValue();
 
     //then
-    assertEquals("article.deleted = false && eqIc(any(article.authors),Pulitzer) && eqIc(any(article.keywords),health)",
+    assertEquals("article.deleted = false && any(article.normalizedAuthors) = pulitzer && any(article.normalizedKeywords) = health",
         query.toString());
   }
 
   @Test
   void shouldCreateCorrectQueryWithOnlyKeywordAndAuthorAndFromPublishDate() {
     //given
-    SearchArticleRequest request = new SearchArticleRequest("health", "Pulitzer", LocalDate.parse("2019-01-01"), null);
+    SearchArticleRequest request = new SearchArticleRequest("health", "Pulitzer", LocalDate.parse("2019-01-01"), null, null);
     ArgumentCaptor<Predicate> predicateArgumentCaptor = ArgumentCaptor.forClass(Predicate.class);
 
+    when(articleRepository.findSummaryPage(any(Predicate.class), any(Sort.class), anyInt()))
+        .thenReturn(Flux.empty());
+
     //when
-    articleService.searchArticles(request);
-    verify(articleRepository).findAll(predicateArgumentCaptor.capture());
+    articleService.searchArticles(request, FIRST_PAGE).block();
+    verify(articleRepository).findSummaryPage(predicateArgumentCaptor.capture(), any(Sort.class), eq(21));
     Predicate query = predicateArgumentCaptor.getValue();
 
     //then
-    assertEquals("article.deleted = false && eqIc(any(article.authors),Pulitzer) && eqIc(any(article.keywords),health) && article.publishDate > 2018-12-31",
+    assertEquals("article.deleted = false && any(article.normalizedAuthors) = pulitzer && any(article.normalizedKeywords) = health && article.publishDate > 2018-12-31",
         query.toString());
   }
 
   @Test
   void shouldCreateCorrectQueryWithOnlyAuthorAndFromPublishDateAndToPublishDate() {
     //given
-    SearchArticleRequest request = new SearchArticleRequest(null, "Pulitzer", LocalDate.parse("2019-01-01"), null);
+    SearchArticleRequest request = new SearchArticleRequest(null, "Pulitzer", LocalDate.parse("2019-01-01"), null, null);
     ArgumentCaptor<Predicate> predicateArgumentCaptor = ArgumentCaptor.forClass(Predicate.class);
 
+    when(articleRepository.findSummaryPage(any(Predicate.class), any(Sort.class), anyInt()))
+        .thenReturn(Flux.empty());
+
     //when
-    articleService.searchArticles(request);
-    verify(articleRepository).findAll(predicateArgumentCaptor.capture());
+    articleService.searchArticles(request, FIRST_PAGE).block();
+    verify(articleRepository).findSummaryPage(predicateArgumentCaptor.capture(), any(Sort.class), eq(21));
     Predicate query = predicateArgumentCaptor.getValue();
 
     //then
-    assertEquals("article.deleted = false && eqIc(any(article.authors),Pulitzer) && article.publishDate > 2018-12-31",
+    assertEquals("article.deleted = false && any(article.normalizedAuthors) = pulitzer && article.publishDate > 2018-12-31",
         query.toString());
   }
 
   @Test
   void shouldCreateCorrectQueryWithAllFields() {
     //given
-    SearchArticleRequest request = new SearchArticleRequest("health", "Pulitzer", LocalDate.parse("2019-01-01"), LocalDate.parse("2020-01-25"));
+    SearchArticleRequest request = new SearchArticleRequest("health", "Pulitzer", LocalDate.parse("2019-01-01"), LocalDate.parse("2020-01-25"), null);
     ArgumentCaptor<Predicate> predicateArgumentCaptor = ArgumentCaptor.forClass(Predicate.class);
 
+    when(articleRepository.findSummaryPage(any(Predicate.class), any(Sort.class), anyInt()))
+        .thenReturn(Flux.empty());
+
     //when
-    articleService.searchArticles(request);
-    verify(articleRepository).findAll(predicateArgumentCaptor.capture());
+    articleService.searchArticles(request, FIRST_PAGE).block();
+    verify(articleRepository).findSummaryPage(predicateArgumentCaptor.capture(), any(Sort.class), eq(21));
     Predicate query = predicateArgumentCaptor.getValue();
 
     //then
-    assertEquals("article.deleted = false && eqIc(any(article.authors),Pulitzer) && eqIc(any(article.keywords),health) " +
+    assertEquals("article.deleted = false && any(article.normalizedAuthors) = pulitzer && any(article.normalizedKeywords) = health " +
             "&& article.publishDate > 2018-12-31 && article.publishDate < 2020-01-26",
         query.toString());
   }
 
-}
\ No newline at end of file
+  @Test
+  void shouldCreateCorrectQueryWithCursor() {
+    //given
+    SearchArticleRequest request = new SearchArticleRequest(null, "Pulitzer", null, null, null);
+    ArticleCursor cursor = new ArticleCursor(LocalDate.parse("2020-01-01"), "5e2f1b2c3d4e5f6a7b8c9d0e");
+    PageArticleRequest pageRequest = new PageArticleRequest(5, cursor.encode());
+    ArgumentCaptor<Predicate> predicateArgumentCaptor = ArgumentCaptor.forClass(Predicate.class);
+
+    when(articleRepository.findSummaryPage(any(Predicate.class), any(Sort.class), anyInt()))
+        .thenReturn(Flux.empty());
+
+    //when
+    articleService.searchArticles(request, pageRequest).block();
+    verify(articleRepository).findSummaryPage(predicateArgumentCaptor.capture(),
+        eq(Sort.by(Sort.Direction.DESC, "publishDate", "id")), eq(6));
+    Predicate query = predicateArgumentCaptor.getValue();
+
+    //then
+    assertEquals("article.deleted = false && any(article.normalizedAuthors) = pulitzer && " +
+            "(article.publishDate < 2020-01-01 || article.publishDate = 2020-01-01 && article.id < 5e2f1b2c3d4e5f6a7b8c9d0e)",
+        query.toString());
+  }
+
+  @Test
+  void shouldReturnNextCursorWhenThereAreMoreArticles() {
+    //given
+    ArticleSummary first = generateArticleSummaryWithIdAndPublishDate("3", "2020-01-03");
+    ArticleSummary second = generateArticleSummaryWithIdAndPublishDate("2", "2020-01-02");
+    ArticleSummary third = generateArticleSummaryWithIdAndPublishDate("1", "2020-01-01");
+
+    when(articleRepository.findSummaryPage(any(Predicate.class), any(Sort.class), eq(3)))
+        .thenReturn(Flux.just(first, second, third));
+
+    //when
+    Mono<ArticlePage> page = articleService.getArticles(new PageArticleRequest(2, null));
+
+    //then
+    StepVerifier.create(page)
+        .expectNext(new ArticlePage(List.of(first, second), new ArticleCursor(LocalDate.parse("2020-01-02"), "2")))
+        .expectComplete()
+        .verify();
+  }
+
+  @Test
+  void shouldNotReturnNextCursorWhenThereAreNoMoreArticles() {
+    //given
+    ArticleSummary first = generateArticleSummaryWithIdAndPublishDate("3", "2020-01-03");
+
+    when(articleRepository.findSummaryPage(any(Predicate.class), any(Sort.class), eq(3)))
+        .thenReturn(Flux.just(first));
+
+    //when
+    ArticlePage page = articleService.getArticles(new PageArticleRequest(2, null)).block();
+
+    //then
+    assertEquals(List.of(first), page.getArticles());
+    assertNull(page.getNext());
+  }
+
+  @Test
+  void shouldThrowInvalidCursorExceptionWhenCursorIsMalformed() {
+    //when
+    Mono<ArticlePage> page = articleService.getArticles(new PageArticleRequest(null, "not-a-cursor"));
+
+    //then
+    StepVerifier.create(page)
+        .expectError(InvalidCursorException.class)
+        .verify();
+  }
+
+  @Test
+  void shouldFetchOnlyIndexedArticlesWhenSearchIndexIsReady() {
+    //given
+    articleSearchIndex.index(generateIndexedArticle("5e2f1b2c3d4e5f6a7b8c9d01", "2020-01-01", "Pulitzer"));
+    articleSearchIndex.index(generateIndexedArticle("5e2f1b2c3d4e5f6a7b8c9d02", "2020-01-02", "Pulitzer"));
+    articleSearchIndex.index(generateIndexedArticle("5e2f1b2c3d4e5f6a7b8c9d03", "2020-01-03", "Nobel"));
+    articleSearchIndex.markReady();
+    SearchArticleRequest request = new SearchArticleRequest(null, "pulitzer", null, null, null);
+
+    when(articleRepository.findSummariesByIdInAndDeletedFalse(any(), any(Sort.class)))
+        .thenReturn(Flux.just(generateArticleSummaryWithIdAndPublishDate("5e2f1b2c3d4e5f6a7b8c9d02", "2020-01-02"),
+            generateArticleSummaryWithIdAndPublishDate("5e2f1b2c3d4e5f6a7b8c9d01", "2020-01-01")));
+
+    //when
+    articleService.searchArticles(request, FIRST_PAGE).block();
+
+    //then
+    verify(articleRepository).findSummariesByIdInAndDeletedFalse(
+        eq(List.of("5e2f1b2c3d4e5f6a7b8c9d02", "5e2f1b2c3d4e5f6a7b8c9d01")), eq(Sort.by(Sort.Direction.DESC, "publishDate", "id")));
+    verify(articleRepository, times(0)).findSummaryPage(any(Predicate.class), any(Sort.class), anyInt());
+  }
+
+  @Test
+  void shouldReadPageFromRepositoryWhenIndexedArticleIsNotFound() {
+    //given
+    articleSearchIndex.index(generateIndexedArticle("5e2f1b2c3d4e5f6a7b8c9d01", "2020-01-01", "Pulitzer"));
+    articleSearchIndex.index(generateIndexedArticle("5e2f1b2c3d4e5f6a7b8c9d02", "2020-01-02", "Pulitzer"));
+    articleSearchIndex.markReady();
+    SearchArticleRequest request = new SearchArticleRequest(null, "pulitzer", null, null, null);
+    ArticleSummary remaining = generateArticleSummaryWithIdAndPublishDate("5e2f1b2c3d4e5f6a7b8c9d01", "2020-01-01");
+
+    // the newer article is deleted by another instance
+    when(articleRepository.findSummariesByIdInAndDeletedFalse(any(), any(Sort.class))).thenReturn(Flux.just(remaining));
+    when(articleRepository.findSummaryPage(any(Predicate.class), any(Sort.class), anyInt()))
+        .thenReturn(Flux.just(remaining));
+
+    //when
+    ArticlePage page = articleService.searchArticles(request, FIRST_PAGE).block();
+
+    //then
+    assertEquals(new ArticlePage(List.of(remaining), null), page);
+    verify(articleRepository).findSummaryPage(any(Predicate.class), any(Sort.class), eq(21));
+  }
+
+  @Test
+  void shouldNotQueryRepositoryWhenNoIndexedArticleMatches() {
+    //given
+    articleSearchIndex.index(generateIndexedArticle("5e2f1b2c3d4e5f6a7b8c9d01", "2020-01-01", "Pulitzer"));
+    articleSearchIndex.markReady();
+    SearchArticleRequest request = new SearchArticleRequest(null, "Nobel", null, null, null);
+
+    //when
+    ArticlePage page = articleService.searchArticles(request, FIRST_PAGE).block();
+
+    //then
+    assertEquals(new ArticlePage(List.of(), null), page);
+    verify(articleRepository, times(0)).findSummariesByIdInAndDeletedFalse(any(), any(Sort.class));
+  }
+
+  @Test
+  void shouldRemoveDeletedArticleFromSearchIndex() {
+    //given
+    String givenId = "5e2f1b2c3d4e5f6a7b8c9d01";
+    articleSearchIndex.index(generateIndexedArticle(givenId, "2020-01-01", "Pulitzer"));
+    articleSearchIndex.markReady();
+
+    when(articleRepository.markDeletedByIdAndDeletedFalse(givenId)).thenReturn(Mono.just(true));
+
+    //when
+    articleService.deleteArticle(givenId).block();
+
+    //then
+    assertEquals(List.of(), articleSearchIndex.search(new SearchArticleRequest(null, "Pulitzer", null, null, null), null, 20));
+  }
+
+  @Test
+  void shouldServeRepeatedSearchFromCacheUntilMatchingArticleIsCreated() {
+    //given
+    SearchArticleRequest request = new SearchArticleRequest(null, "Pulitzer", null, null, null);
+    CreateArticleRequest createRequest = new CreateArticleRequest("Corona Virus!", "Is it a worldwide threat?",
+        "We should be careful...", LocalDate.parse("2020-01-01"), Set.of("pulitzer"), Set.of("health"));
+    Article createdArticle = Article.fromCreateArticleRequest(createRequest);
+    createdArticle.setId("5e2f1b2c3d4e5f6a7b8c9d01");
+
+    when(articleRepository.findSummaryPage(any(Predicate.class), any(Sort.class), anyInt()))
+        .thenReturn(Flux.empty());
+    when(articleRepository.insert(any(Article.class))).thenReturn(Mono.just(createdArticle));
+
+    //when
+    articleService.searchArticles(request, FIRST_PAGE).block();
+    articleService.searchArticles(new SearchArticleRequest(null, "PULITZER", null, null, null), FIRST_PAGE).block();
+    articleService.createArticle(createRequest).block();
+    articleService.searchArticles(request, FIRST_PAGE).block();
+
+    //then
+    verify(articleRepository, times(2)).findSummaryPage(any(Predicate.class), any(Sort.class), eq(21));
+  }
+
+  @Test
+  void shouldReturnTextSearchResultsInRelevanceOrder() {
+    //given
+    Article inHeader = generateIndexedArticle("5e2f1b2c3d4e5f6a7b8c9d01", "2020-01-01", "Pulitzer");
+    inHeader.setHeader("Vaccine trials begin");
+    Article inText = generateIndexedArticle("5e2f1b2c3d4e5f6a7b8c9d02", "2020-01-02", "Pulitzer");
+    inText.setText(ArticleText.of("Nobody talks about the vaccine yet"));
+    articleTextIndex.index(inHeader);
+    articleTextIndex.index(inText);
+    articleTextIndex.markReady();
+    SearchArticleRequest request = new SearchArticleRequest(null, null, null, null, "vaccine");
+    ArticleSummary inHeaderSummary = generateArticleSummaryWithIdAndPublishDate(inHeader.getId(), "2020-01-01");
+    ArticleSummary inTextSummary = generateArticleSummaryWithIdAndPublishDate(inText.getId(), "2020-01-02");
+
+    when(articleRepository.findSummariesByIdInAndDeletedFalse(List.of(inHeader.getId(), inText.getId()), Sort.unsorted()))
+        .thenReturn(Flux.just(inTextSummary, inHeaderSummary));
+
+    //when
+    Mono<ArticlePage> page = articleService.searchArticles(request, FIRST_PAGE);
+
+    //then
+    StepVerifier.create(page)
+        .expectNext(new ArticlePage(List.of(inHeaderSummary, inTextSummary), null))
+        .expectComplete()
+        .verify();
+  }
+
+  @Test
+  void shouldThrowInvalidCursorExceptionWhenTextSearchIsGivenCursor() {
+    //given
+    articleTextIndex.markReady();
+    SearchArticleRequest request = new SearchArticleRequest(null, null, null, null, "vaccine");
+    PageArticleRequest pageRequest =
+        new PageArticleRequest(null, new ArticleCursor(LocalDate.parse("2020-01-01"), "1").encode());
+
+    //when
+    Mono<ArticlePage> page = articleService.searchArticles(request, pageRequest);
+
+    //then
+    StepVerifier.create(page)
+        .expectError(InvalidCursorException.class)
+        .verify();
+  }
+
+  @Test
+  void shouldThrowTextSearchUnavailableExceptionWhenTextIndexIsNotReady() {
+    //given
+    SearchArticleRequest request = new SearchArticleRequest(null, null, null, null, "vaccine");
+
+    //when
+    Mono<ArticlePage> page = articleService.searchArticles(request, FIRST_PAGE);
+
+    //then
+    StepVerifier.create(page)
+        .expectError(TextSearchUnavailableException.class)
+        .verify();
+  }
+
+  @Test
+  void shouldStreamArticlesFromCursorWithoutLimitInBatches() {
+    //given
+    ArticleCursor cursor = new ArticleCursor(LocalDate.parse("2020-01-01"), "5e2f1b2c3d4e5f6a7b8c9d0e");
+    ArticleSummary summary = generateArticleSummaryWithIdAndPublishDate("1", "2019-12-31");
+    ArgumentCaptor<Predicate> predicateArgumentCaptor = ArgumentCaptor.forClass(Predicate.class);
+
+    when(articleRepository.streamSummaries(any(Predicate.class), any(Sort.class), anyInt(), anyInt()))
+        .thenReturn(Flux.just(summary));
+
+    //when
+    Flux<ArticleSummary> articles = articleService.streamArticles(new PageArticleRequest(null, cursor.encode()));
+
+    //then
+    StepVerifier.create(articles)
+        .expectNext(summary)
+        .expectComplete()
+        .verify();
+    verify(articleRepository).streamSummaries(predicateArgumentCaptor.capture(),
+        eq(Sort.by(Sort.Direction.DESC, "publishDate", "id")), eq(0), eq(STREAM_BATCH_SIZE));
+    assertEquals("article.deleted = false && " +
+            "(article.publishDate < 2020-01-01 || article.publishDate = 2020-01-01 && article.id < 5e2f1b2c3d4e5f6a7b8c9d0e)",
+        predicateArgumentCaptor.getValue().toString());
+  }
+
+  @Test
+  void shouldNotReadArticlesAheadOfSlowConsumer() {
+    //given
+    AtomicLong requested = new AtomicLong();
+    AtomicLong emitted = new AtomicLong();
+    Flux<ArticleSummary> cursor = Flux.range(0, 1_000_000)
+        .map(i -> generateArticleSummaryWithIdAndPublishDate(String.valueOf(i), "2020-01-01"))
+        .doOnRequest(requested::addAndGet)
+        .doOnNext(summary -> emitted.incrementAndGet());
+
+    when(articleRepository.streamSummaries(any(Predicate.class), any(Sort.class), anyInt(), anyInt()))
+        .thenReturn(cursor);
+
+    //when
+    Flux<ArticleSummary> articles = articleService.streamArticles(FIRST_PAGE);
+
+    //then
+    StepVerifier.create(articles, 0)
+        .expectSubscription()
+        .then(() -> assertEquals(0, requested.get()))
+        .thenRequest(1)
+        .expectNextCount(1)
+        .thenRequest(10)
+        .expectNextCount(10)
+        .then(() -> {
+          assertEquals(11, requested.get());
+          assertEquals(11, emitted.get());
+        })
+        .thenCancel()
+        .verify();
+  }
+
+  @Test
+  void shouldStreamOnlyMostRelevantArticlesWhenStreamingTextSearch() {
+    //given
+    Article match = generateIndexedArticle("1", "2020-01-01", "Author");
+    match.setHeader("Vaccine trial");
+    articleTextIndex.index(match);
+    articleTextIndex.markReady();
+    ArticleSummary summary = generateArticleSummaryWithIdAndPublishDate("1", "2020-01-01");
+
+    when(articleRepository.findSummariesByIdInAndDeletedFalse(eq(List.of("1")), any(Sort.class)))
+        .thenReturn(Flux.just(summary));
+
+    //when
+    Flux<ArticleSummary> articles = articleService.streamSearchArticles(
+        new SearchArticleRequest(null, null, null, null, "vaccine"), FIRST_PAGE);
+
+    //then
+    StepVerifier.create(articles)
+        .expectNext(summary)
+        .expectComplete()
+        .verify();
+    verify(articleRepository, times(0)).streamSummaries(any(Predicate.class), any(Sort.class), anyInt(), anyInt());
+  }
+
+  @Test
+  void shouldTimeServiceMethodsByOutcome() {
+    //given
+    Article article = new Article();
+    article.setId("1234");
+    article.setVersion(0L);
+
+    when(articleRepository.findByIdAndDeletedFalse("1234"))
+        .thenReturn(Mono.just(article));
+    when(articleRepository.findByIdAndDeletedFalse("5678"))
+        .thenReturn(Mono.empty());
+    when(articleRepository.updateIfOlderThan(eq("1234"), eq(1L), any(Article.class)))
+        .thenReturn(Mono.empty());
+    when(articleRepository.findVersionByIdAndDeletedFalse("1234"))
+        .thenReturn(Mono.just(3L));
+
+    //when
+    articleService.getArticle("1234").block();
+    StepVerifier.create(articleService.getArticle("5678")).expectError().verify();
+    StepVerifier.create(articleService.updateArticle("1234", new UpdateArticleRequest("Header", "Short description",
+        "Text", LocalDate.parse("2020-01-01"), Set.of("Author"), Set.of(), 1L))).expectError().verify();
+
+    //then
+    assertEquals(1, meterRegistry.get(ArticleMetrics.SERVICE_TIMER)
+        .tags("method", "getArticle", "outcome", "ok").timer().count());
+    assertEquals(1, meterRegistry.get(ArticleMetrics.SERVICE_TIMER)
+        .tags("method", "getArticle", "outcome", "not_found").timer().count());
+    assertEquals(1, meterRegistry.get(ArticleMetrics.SERVICE_TIMER)
+        .tags("method", "updateArticle", "outcome", "outdated").timer().count());
+  }
+
+  private Article generateIndexedArticle(String id, String publishDate, String author) {
+    Article article = new Article();
+    article.setId(id);
+    article.setPublishDate(LocalDate.parse(publishDate));
+    article.setAuthors(List.of(author));
+    article.setVersion(0L);
+    return article;
+  }
+
+  private ArticleSummary generateArticleSummaryWithIdAndPublishDate(String id, String publishDate) {
+    ArticleSummary articleSummary = new ArticleSummary();
+    articleSummary.setId(id);
+    articleSummary.setPublishDate(LocalDate.parse(publishDate));
+    return articleSummary;
+  }
+}
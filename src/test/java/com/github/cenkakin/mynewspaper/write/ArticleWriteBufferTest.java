@@ -0,0 +1,301 @@
+package com.github.cenkakin.mynewspaper.write;
+
+import com.github.cenkakin.mynewspaper.domain.Article;
+import com.github.cenkakin.mynewspaper.exception.ArticleWriteException;
+import com.github.cenkakin.mynewspaper.repository.ArticleRepository;
+import com.github.cenkakin.mynewspaper.request.CreateArticleRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ArticleWriteBufferTest {
+
+  private final ArticleRepository articleRepository = mock(ArticleRepository.class);
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void shouldInsertQueuedArticlesWithOneInsertManyOnceBatchIsFull() {
+    //given
+    ArticleWriteBuffer articleWriteBuffer = buffer(true, 3);
+    Article first = generateArticle("First");
+    Article second = generateArticle("Second");
+    Article third = generateArticle("Third");
+
+    when(articleRepository.insertManyUnordered(anyList())).thenReturn(Mono.just(Map.of()));
+
+    //when
+    Mono<List<Article>> created = Mono.zip(articleWriteBuffer.insert(first), articleWriteBuffer.insert(second),
+        articleWriteBuffer.insert(third))
+        .map(articles -> List.of(articles.getT1(), articles.getT2(), articles.getT3()));
+
+    //then
+    StepVerifier.create(created)
+        .expectNext(List.of(first, second, third))
+        .expectComplete()
+        .verify();
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<Article>> articles = ArgumentCaptor.forClass(List.class);
+    verify(articleRepository, times(1)).insertManyUnordered(articles.capture());
+    assertEquals(List.of(first, second, third), articles.getValue());
+    assertNotNull(first.getId());
+    assertEquals(0, articleWriteBuffer.getQueueDepth());
+    assertEquals(3.0, meterRegistry.get("article.write.buffer.batch.size").summary().totalAmount());
+  }
+
+  @Test
+  void shouldCompleteEachCallerWithErrorOfItsOwnInsert() {
+    //given
+    ArticleWriteBuffer articleWriteBuffer = buffer(true, 2);
+    Article duplicate = generateArticle("Duplicate");
+    Article inserted = generateArticle("Inserted");
+
+    when(articleRepository.insertManyUnordered(anyList())).thenReturn(Mono.just(Map.of(0, "duplicate key")));
+
+    //when
+    Mono<Article> failed = articleWriteBuffer.insert(duplicate).cache();
+    Mono<Article> created = articleWriteBuffer.insert(inserted).cache();
+    failed.subscribe(article -> {}, e -> {});
+    created.subscribe();
+
+    //then
+    StepVerifier.create(failed)
+        .expectError(ArticleWriteException.class)
+        .verify();
+    StepVerifier.create(created)
+        .expectNext(inserted)
+        .expectComplete()
+        .verify();
+  }
+
+  @Test
+  void shouldInsertArticleOnItsOwnWhenDisabled() {
+    //given
+    ArticleWriteBuffer articleWriteBuffer = buffer(false, 3);
+    Article article = generateArticle("Header");
+
+    when(articleRepository.insert(any(Article.class))).thenReturn(Mono.just(article));
+
+    //when
+    Mono<Article> created = articleWriteBuffer.insert(article);
+
+    //then
+    StepVerifier.create(created)
+        .expectNext(article)
+        .expectComplete()
+        .verify();
+    verify(articleRepository, never()).insertManyUnordered(anyList());
+  }
+
+  @Test
+  void shouldInsertQueuedArticlesAfterMaxDelay() {
+    //given
+    ArticleWriteBuffer articleWriteBuffer =
+        new ArticleWriteBuffer(articleRepository, meterRegistry, true, 100, 10, Duration.ofMillis(50));
+    Article article = generateArticle("Header");
+
+    when(articleRepository.insertManyUnordered(anyList())).thenReturn(Mono.just(Map.of()));
+
+    //when
+    articleWriteBuffer.run(null);
+    Mono<Article> created = articleWriteBuffer.insert(article);
+
+    //then
+    try {
+      StepVerifier.create(created)
+          .expectNext(article)
+          .expectComplete()
+          .verify(Duration.ofSeconds(5));
+      verify(articleRepository, times(1)).insertManyUnordered(List.of(article));
+    } finally {
+      articleWriteBuffer.destroy();
+    }
+  }
+
+  @Test
+  void shouldInsertArticleOnItsOwnWhenQueueIsFull() {
+    //given
+    ArticleWriteBuffer articleWriteBuffer =
+        new ArticleWriteBuffer(articleRepository, meterRegistry, true, 1, 10, Duration.ofMinutes(1));
+    Article queued = generateArticle("Queued");
+    Article overflowing = generateArticle("Overflowing");
+
+    when(articleRepository.insert(any(Article.class))).thenReturn(Mono.just(overflowing));
+
+    //when
+    articleWriteBuffer.insert(queued).subscribe();
+    Mono<Article> created = articleWriteBuffer.insert(overflowing);
+
+    //then
+    StepVerifier.create(created)
+        .expectNext(overflowing)
+        .expectComplete()
+        .verify();
+    verify(articleRepository, times(1)).insert(overflowing);
+    verify(articleRepository, never()).insertManyUnordered(anyList());
+    assertEquals(1, articleWriteBuffer.getQueueDepth());
+  }
+
+  @Test
+  void shouldNotInsertArticleOfCallerCancelledBeforeItsBatchIsWritten() {
+    //given
+    ArticleWriteBuffer articleWriteBuffer = buffer(true, 3);
+    Article cancelled = generateArticle("Cancelled");
+    Article first = generateArticle("First");
+    Article second = generateArticle("Second");
+
+    when(articleRepository.insertManyUnordered(anyList())).thenReturn(Mono.just(Map.of()));
+
+    //when
+    articleWriteBuffer.insert(cancelled).subscribe().dispose();
+    Mono<Article> firstCreated = articleWriteBuffer.insert(first).cache();
+    Mono<Article> secondCreated = articleWriteBuffer.insert(second).cache();
+    firstCreated.subscribe();
+    secondCreated.subscribe();
+
+    //then
+    StepVerifier.create(Flux.concat(firstCreated, secondCreated))
+        .expectNext(first, second)
+        .expectComplete()
+        .verify(Duration.ofSeconds(5));
+    verify(articleRepository, times(1)).insertManyUnordered(List.of(first, second));
+    assertEquals(0, articleWriteBuffer.getQueueDepth());
+  }
+
+  @Test
+  void shouldInsertArticlesQueuedDuringFlushOnceItIsOver() {
+    //given
+    ArticleWriteBuffer articleWriteBuffer = buffer(true, 2);
+    MonoProcessor<Map<Integer, String>> firstFlush = MonoProcessor.create();
+    List<Article> articles = IntStream.range(0, 4)
+        .mapToObj(i -> generateArticle("Header " + i))
+        .collect(Collectors.toList());
+
+    when(articleRepository.insertManyUnordered(anyList()))
+        .thenReturn(firstFlush)
+        .thenReturn(Mono.just(Map.of()));
+
+    //when
+    List<Mono<Article>> created = articles.stream()
+        .map(article -> articleWriteBuffer.insert(article).cache())
+        .collect(Collectors.toList());
+    created.get(0).subscribe();
+    created.get(1).subscribe();
+    created.get(2).subscribe();
+    created.get(3).subscribe();
+    verify(articleRepository, times(1)).insertManyUnordered(anyList());
+    firstFlush.onNext(Map.of());
+
+    //then
+    StepVerifier.create(Flux.concat(created))
+        .expectNextSequence(articles)
+        .expectComplete()
+        .verify(Duration.ofSeconds(5));
+    verify(articleRepository, times(1)).insertManyUnordered(articles.subList(0, 2));
+    verify(articleRepository, times(1)).insertManyUnordered(articles.subList(2, 4));
+    assertEquals(0, articleWriteBuffer.getQueueDepth());
+  }
+
+  @Test
+  void shouldInsertQueuedArticlesOnDestroy() {
+    //given
+    ArticleWriteBuffer articleWriteBuffer = buffer(true, 10);
+    Article first = generateArticle("First");
+    Article second = generateArticle("Second");
+
+    when(articleRepository.insertManyUnordered(anyList())).thenReturn(Mono.just(Map.of()));
+
+    //when
+    Mono<Article> firstCreated = articleWriteBuffer.insert(first).cache();
+    Mono<Article> secondCreated = articleWriteBuffer.insert(second).cache();
+    firstCreated.subscribe();
+    secondCreated.subscribe();
+    articleWriteBuffer.destroy();
+
+    //then
+    StepVerifier.create(Flux.concat(firstCreated, secondCreated))
+        .expectNext(first, second)
+        .expectComplete()
+        .verify(Duration.ofSeconds(5));
+    verify(articleRepository, times(1)).insertManyUnordered(List.of(first, second));
+    assertEquals(0, articleWriteBuffer.getQueueDepth());
+  }
+
+  @Test
+  void shouldCompleteEveryCallerOnceWhenProducersInsertConcurrently() {
+    //given
+    int producers = 8;
+    int articlesPerProducer = 250;
+    ArticleWriteBuffer articleWriteBuffer =
+        new ArticleWriteBuffer(articleRepository, meterRegistry, true, 10000, 16, Duration.ofMillis(10));
+    List<Article> articles = IntStream.range(0, producers * articlesPerProducer)
+        .mapToObj(i -> generateArticle("Header " + i))
+        .collect(Collectors.toList());
+    AtomicInteger written = new AtomicInteger();
+    AtomicIntegerArray completions = new AtomicIntegerArray(articles.size());
+
+    when(articleRepository.insertManyUnordered(anyList())).thenAnswer(invocation -> {
+      written.addAndGet(invocation.<List<Article>>getArgument(0).size());
+      return Mono.just(Map.<Integer, String>of()).subscribeOn(Schedulers.parallel());
+    });
+
+    //when
+    articleWriteBuffer.run(null);
+    try {
+      Flux.range(0, producers)
+          .flatMap(producer -> Flux.range(producer * articlesPerProducer, articlesPerProducer)
+              .flatMap(i -> articleWriteBuffer.insert(articles.get(i))
+                  .doOnNext(article -> completions.incrementAndGet(i)))
+              .subscribeOn(Schedulers.parallel()), producers)
+          .then()
+          .block(Duration.ofSeconds(30));
+    } finally {
+      articleWriteBuffer.destroy();
+    }
+
+    //then
+    for (int i = 0; i < articles.size(); i++) {
+      assertEquals(1, completions.get(i), "completions of article " + i);
+    }
+    assertEquals(articles.size(), written.get());
+    assertEquals(0, articleWriteBuffer.getQueueDepth());
+  }
+
+  /**
+   * The max delay is longer than any test, and the buffer is not started, so only a full batch is written.
+   */
+  private ArticleWriteBuffer buffer(boolean enabled, int batchSize) {
+    return new ArticleWriteBuffer(articleRepository, meterRegistry, enabled, 100, batchSize, Duration.ofMinutes(1));
+  }
+
+  private static Article generateArticle(String header) {
+    return Article.fromCreateArticleRequest(new CreateArticleRequest(header, "Short description", "Text",
+        LocalDate.parse("2020-01-01"), Set.of("Cenk Akin"), Set.of("health")));
+  }
+}